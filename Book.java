@@ -4,28 +4,44 @@
  * 01/26/2024
  * Book.java
  * This class represents a book in the library management system. It includes properties for the book's ID, title, and author.
- * The book ID is auto-generated to ensure uniqueness. This class is fundamental in managing books within the library,
- * allowing for operations such as checking out and returning books.
+ * New books take their ID from the BookIdAllocator, so it is the same ID they are stored with in the database.
+ * This class is fundamental in managing books within the library, allowing for operations such as checking out and
+ * returning books.
  */
 
 package libraryms.libraryms;
-import java.util.concurrent.atomic.AtomicInteger;
 
 class Book {
-    private static final AtomicInteger idGenerator = new AtomicInteger(1000000);
     private final int bookId;
     private String title;
     private String author;
     private String genre;
     private boolean isCheckedOut;
+    private String status;
+    private String dueDate;
 
 
-    public Book(String title, String author, String genre) {
-        this.bookId = idGenerator.getAndIncrement();
+    /**
+     * Book
+     * Creates a new, checked in book with an ID handed out by a BookIdAllocator.
+     */
+    public Book(int bookId, String title, String author, String genre) {
+        this(bookId, title, author, genre, "checked in", null);
+    }
+
+    /**
+     * Book
+     * Creates a book from a row that already exists in the database, keeping the book_id the database assigned and
+     * the row's current status and due date.
+     */
+    public Book(int bookId, String title, String author, String genre, String status, String dueDate) {
+        this.bookId = bookId;
         this.title = title;
         this.author = author;
         this.genre = genre;
-        this.isCheckedOut = false;
+        this.status = status;
+        this.dueDate = dueDate;
+        this.isCheckedOut = "checked out".equals(status);
     }
 
 
@@ -45,6 +61,26 @@ class Book {
         return genre;
     }
 
+    public String getStatus() {
+        return status;
+    }
+
+    public String getDueDate() {
+        return dueDate;
+    }
+
+    public boolean isCheckedOut() {
+        return isCheckedOut;
+    }
+
+    /**
+     * withStatus
+     * Returns a copy of this book with a new status and due date, keeping the same ID, title, author and genre.
+     */
+    public Book withStatus(String status, String dueDate) {
+        return new Book(bookId, title, author, genre, status, dueDate);
+    }
+
     @Override
     public String toString() {
         return "Book ID: " + bookId + ", Title: " + title + ", Author: " + author + (isCheckedOut ? ", Status: Checked out" : ", Status: Available");
@@ -0,0 +1,425 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BookFingerprints.java
+ * This class lets an import recognize books that are already in the catalog without comparing each record against
+ * the whole books table. Every book gets a 64-bit key, a hash of its normalized title and author, and a fingerprint,
+ * a hash of its normalized title, author and genre. Normalizing folds case, Unicode compatibility forms and runs of
+ * whitespace, so "The  Hobbit" and "the hobbit" are the same book. Keys and fingerprints are kept in the
+ * book_fingerprints table, indexed by key, and an in-memory Bloom filter of every key sits in front of that index:
+ * a record whose key the filter has never seen is new for certain, so most new books cost no database lookup at all.
+ * A key that matches is confirmed against the stored title and author, so a hash collision can never make two
+ * different books look the same.
+ * Books can be added, edited or deleted by any desk or process, so the table is brought up to date from the
+ * ChangeFeed at the start of every import transaction: books changed since it was last current get their fingerprints
+ * recomputed. When the change log no longer reaches back that far, the table is rebuilt from the books table.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+public class BookFingerprints {
+    private static final long MIN_FILTER_CAPACITY = 1 << 16;
+    private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+    private static final char SEPARATOR = '\u001F';
+    private static final String DELETE_CHANGED_SQL = "DELETE FROM book_fingerprints WHERE book_id IN"
+            + " (SELECT book_id FROM book_changes WHERE version > (SELECT version FROM book_fingerprints_state))";
+    private static final String VERSIONS_SQL = "SELECT (SELECT version FROM book_fingerprints_state),"
+            + " (SELECT MIN(version) FROM book_changes),"
+            + " IFNULL((SELECT seq FROM sqlite_sequence WHERE name = 'book_changes'), 0)";
+    private static final String CHANGED_BOOKS_SQL = "SELECT b.book_id, b.title, b.author, b.genre, MAX(c.version)"
+            + " FROM book_changes c JOIN books b ON b.book_id = c.book_id WHERE c.version > ? GROUP BY b.book_id";
+    private static final String ALL_BOOKS_SQL = "SELECT book_id, title, author, genre FROM books";
+    private static final String ALL_KEYS_SQL = "SELECT key_hash FROM book_fingerprints";
+    private static final String FIND_SQL = "SELECT f.book_id, f.fingerprint, b.title, b.author"
+            + " FROM book_fingerprints f JOIN books b ON b.book_id = f.book_id WHERE f.key_hash = ?";
+    private static final String PUT_SQL = "INSERT OR REPLACE INTO book_fingerprints (book_id, key_hash, fingerprint)"
+            + " VALUES (?, ?, ?)";
+    private static final String STATE_SQL = "INSERT INTO book_fingerprints_state (id, version) VALUES (0, ?)"
+            + " ON CONFLICT(id) DO UPDATE SET version = excluded.version";
+    private static final Logger LOG = Logger.getLogger(BookFingerprints.class.getName());
+    private static final OperationMetrics CATCH_UP_METRICS = Metrics.operation("fingerprints.catchUp");
+    private static final OperationMetrics REBUILD_METRICS = Metrics.operation("fingerprints.rebuild");
+
+    private BloomFilter filter;
+    private long filterVersion = -1;
+
+    /**
+     * normalize
+     * Returns the text the way fingerprints compare it: Unicode compatibility forms folded, lower case, without
+     * leading or trailing whitespace and with every run of whitespace inside turned into one space.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(folded.length());
+        boolean space = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * key
+     * Returns the key of a book: the hash of its normalized title and author.
+     */
+    public static long key(String title, String author) {
+        return hash(normalize(title) + SEPARATOR + normalize(author));
+    }
+
+    /**
+     * fingerprint
+     * Returns the fingerprint of a book: the hash of its normalized title, author and genre.
+     */
+    public static long fingerprint(String title, String author, String genre) {
+        return hash(normalize(title) + SEPARATOR + normalize(author) + SEPARATOR + normalize(genre));
+    }
+
+    /**
+     * begin
+     * Brings the fingerprints up to date for an import transaction on the given connection and returns the batch the
+     * import looks books up in and records its writes with. It must be the first statement of the transaction: it
+     * starts by deleting the fingerprints of changed books, which takes the database's write lock, so no other
+     * writer can change the books between the lookups and the import's own writes. The Bloom filter is rebuilt here
+     * when it was never built, has missed changes the log no longer holds, or holds more keys than it was sized for.
+     */
+    public Batch begin(Connection conn) throws SQLException {
+        long started = CATCH_UP_METRICS.start();
+        try {
+            try (PreparedStatement pstmt = conn.prepareStatement(DELETE_CHANGED_SQL)) {
+                pstmt.executeUpdate();
+            }
+            long stored;
+            long oldest;
+            long current;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(VERSIONS_SQL)) {
+                rs.next();
+                current = rs.getLong(3);
+                stored = rs.getObject(1) == null ? -1 : rs.getLong(1);
+                oldest = rs.getObject(2) == null ? current + 1 : rs.getLong(2);
+            }
+            synchronized (this) {
+                long filterSince = Math.min(filterVersion, stored);
+                if (stored < 0 || (current > stored && oldest > stored + 1)) {
+                    rebuild(conn);
+                } else if (filter == null || filter.isFull() || (current > filterSince && oldest > filterSince + 1)) {
+                    CATCH_UP_METRICS.rowsWritten(applyChanges(conn, stored, stored));
+                    rebuildFilter(conn);
+                } else {
+                    CATCH_UP_METRICS.rowsWritten(applyChanges(conn, filterSince, stored));
+                }
+            }
+            CATCH_UP_METRICS.success(started);
+            return new Batch(conn, current);
+        } catch (SQLException | RuntimeException e) {
+            CATCH_UP_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * applyChanges
+     * Adds the keys of every book changed after filterSince to the Bloom filter and stores new fingerprints for the
+     * books changed after tableSince, whose old ones the opening delete removed. Deleted books simply keep no
+     * fingerprint. Returns the number of fingerprints stored.
+     */
+    private int applyChanges(Connection conn, long filterSince, long tableSince) throws SQLException {
+        int stored = 0;
+        try (PreparedStatement changed = conn.prepareStatement(CHANGED_BOOKS_SQL);
+             PreparedStatement put = conn.prepareStatement(PUT_SQL)) {
+            changed.setLong(1, filterSince);
+            try (ResultSet rs = changed.executeQuery()) {
+                while (rs.next()) {
+                    long key = key(rs.getString(2), rs.getString(3));
+                    if (filter != null) {
+                        filter.add(key);
+                    }
+                    if (rs.getLong(5) > tableSince) {
+                        bindPut(put, rs.getInt(1), key, fingerprint(rs.getString(2), rs.getString(3), rs.getString(4)));
+                        put.addBatch();
+                        stored++;
+                    }
+                }
+            }
+            put.executeBatch();
+        }
+        return stored;
+    }
+
+    /**
+     * rebuild
+     * Recomputes every fingerprint from the books table, for the first import into a database or when the change
+     * log no longer covers what changed since the last one, and refills the Bloom filter on the way.
+     */
+    private void rebuild(Connection conn) throws SQLException {
+        long started = REBUILD_METRICS.start();
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("DELETE FROM book_fingerprints");
+            }
+            int rows = 0;
+            filter = new BloomFilter(Math.max(MIN_FILTER_CAPACITY, 2 * countRows(conn, "books")));
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(ALL_BOOKS_SQL);
+                 PreparedStatement put = conn.prepareStatement(PUT_SQL)) {
+                while (rs.next()) {
+                    long key = key(rs.getString(2), rs.getString(3));
+                    bindPut(put, rs.getInt(1), key, fingerprint(rs.getString(2), rs.getString(3), rs.getString(4)));
+                    put.addBatch();
+                    filter.add(key);
+                    if (++rows % 10_000 == 0) {
+                        put.executeBatch();
+                    }
+                }
+                put.executeBatch();
+            }
+            REBUILD_METRICS.rowsWritten(rows);
+            REBUILD_METRICS.success(started);
+            LOG.info("Fingerprinted " + rows + " books.");
+        } catch (SQLException | RuntimeException e) {
+            REBUILD_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * rebuildFilter
+     * Fills a new Bloom filter from the stored keys, sized for twice as many books as there are now so the catalog
+     * can grow before it has to be rebuilt again. A filter that grew past its size during one import keeps working,
+     * with a higher false positive rate, until the next import rebuilds it here.
+     */
+    private void rebuildFilter(Connection conn) throws SQLException {
+        long started = REBUILD_METRICS.start();
+        try {
+            long count = countRows(conn, "book_fingerprints");
+            BloomFilter rebuilt = new BloomFilter(Math.max(MIN_FILTER_CAPACITY, count * 2));
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(ALL_KEYS_SQL)) {
+                while (rs.next()) {
+                    rebuilt.add(rs.getLong(1));
+                }
+            }
+            filter = rebuilt;
+            REBUILD_METRICS.rowsRead(count);
+            REBUILD_METRICS.success(started);
+        } catch (SQLException | RuntimeException e) {
+            REBUILD_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    private static long countRows(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * committed
+     * Records that the batch's transaction committed, so the next batch only has to add changes made after it to the
+     * Bloom filter. Until then the filter is only trusted up to the last committed batch; keys of a batch that rolled
+     * back stay in the filter, which costs an occasional lookup but never a missed duplicate.
+     */
+    public synchronized void committed(Batch batch) {
+        filterVersion = batch.version;
+    }
+
+    private static void bindPut(PreparedStatement put, int bookId, long key, long fingerprint) throws SQLException {
+        put.setInt(1, bookId);
+        put.setLong(2, key);
+        put.setLong(3, fingerprint);
+    }
+
+    /**
+     * hash
+     * A 64-bit FNV-1a hash of the text's characters, finished with the MurmurHash3 mixer so every bit depends on every
+     * character, which the Bloom filter relies on.
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Batch
+     * The lookups and fingerprint writes of one import transaction. Books the transaction adds or updates are
+     * remembered here as well, so a file that lists the same book twice is caught even before its rows are written.
+     */
+    public final class Batch {
+        private final Connection conn;
+        private final long version;
+        private final Map<Long, List<Match>> pending = new HashMap<>();
+        private final List<long[]> writes = new ArrayList<>();
+
+        private Batch(Connection conn, long version) {
+            this.conn = conn;
+            this.version = version;
+        }
+
+        /**
+         * find
+         * Returns the books already in the catalog with the same normalized title and author, each with its
+         * fingerprint, or an empty list when there are none.
+         */
+        public List<Match> find(String title, String author) throws SQLException {
+            long key = key(title, author);
+            List<Match> matches = new ArrayList<>(pending.getOrDefault(key, List.of()));
+            synchronized (BookFingerprints.this) {
+                if (!filter.mightContain(key)) {
+                    return matches;
+                }
+            }
+            String normalizedTitle = normalize(title);
+            String normalizedAuthor = normalize(author);
+            try (PreparedStatement pstmt = conn.prepareStatement(FIND_SQL)) {
+                pstmt.setLong(1, key);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        int bookId = rs.getInt(1);
+                        if (normalize(rs.getString(3)).equals(normalizedTitle)
+                                && normalize(rs.getString(4)).equals(normalizedAuthor)
+                                && matches.stream().noneMatch(match -> match.bookId() == bookId)) {
+                            matches.add(new Match(bookId, rs.getLong(2)));
+                        }
+                    }
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * put
+         * Records the fingerprint of a book the transaction adds or updates. It is written by finish.
+         */
+        public void put(int bookId, String title, String author, String genre) {
+            long key = key(title, author);
+            long fingerprint = fingerprint(title, author, genre);
+            List<Match> matches = pending.computeIfAbsent(key, k -> new ArrayList<>());
+            matches.removeIf(match -> match.bookId() == bookId);
+            matches.add(new Match(bookId, fingerprint));
+            writes.add(new long[]{bookId, key, fingerprint});
+            synchronized (BookFingerprints.this) {
+                filter.add(key);
+            }
+        }
+
+        /**
+         * finish
+         * Writes the recorded fingerprints and marks the table as current up to the transaction's own changes. Call
+         * it last, after the transaction's writes to the books table and before it commits.
+         */
+        public void finish() throws SQLException {
+            try (PreparedStatement put = conn.prepareStatement(PUT_SQL)) {
+                for (long[] write : writes) {
+                    bindPut(put, (int) write[0], write[1], write[2]);
+                    put.addBatch();
+                }
+                put.executeBatch();
+            }
+            long current;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(VERSIONS_SQL)) {
+                rs.next();
+                current = rs.getLong(3);
+            }
+            try (PreparedStatement state = conn.prepareStatement(STATE_SQL)) {
+                state.setLong(1, current);
+                state.executeUpdate();
+            }
+            pending.clear();
+            writes.clear();
+        }
+    }
+
+    /**
+     * Match
+     * A book with the same normalized title and author as a record being imported, and that book's fingerprint.
+     */
+    public record Match(int bookId, long fingerprint) {
+    }
+
+    /**
+     * BloomFilter
+     * A set of keys that can answer "certainly not present" or "maybe present", using about ten bits per key for a
+     * one percent false positive rate. Positions come from double hashing the already well mixed 64-bit key.
+     */
+    private static final class BloomFilter {
+        private final long[] words;
+        private final long bits;
+        private final int hashes;
+        private final long capacity;
+        private long count;
+
+        private BloomFilter(long capacity) {
+            double ln2 = Math.log(2);
+            long wanted = (long) Math.ceil(-capacity * Math.log(FILTER_FALSE_POSITIVE_RATE) / (ln2 * ln2));
+            this.words = new long[(int) Math.min(Integer.MAX_VALUE - 8, (wanted + 63) / 64)];
+            this.bits = words.length * 64L;
+            this.hashes = Math.max(1, (int) Math.round(bits / (double) capacity * ln2));
+            this.capacity = capacity;
+        }
+
+        private void add(long key) {
+            long step = mix(key) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(key + i * step, bits);
+                words[(int) (bit >>> 6)] |= 1L << bit;
+            }
+            count++;
+        }
+
+        private boolean mightContain(long key) {
+            long step = mix(key) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(key + i * step, bits);
+                if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isFull() {
+            return count >= capacity;
+        }
+    }
+}
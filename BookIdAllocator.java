@@ -0,0 +1,240 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BookIdAllocator.java
+ * This class hands out new book IDs without a database round trip per book. It leases a block of IDs at a time from
+ * the books sequence in the database and then gives them out from memory, so any number of threads share one block
+ * with a single atomic increment and only the thread that finds the block used up goes back to the database.
+ * The sequence it leases from is the books row of SQLite's sqlite_sequence table, the same counter AUTOINCREMENT
+ * uses. A lease moves that counter past the end of the block in one short IMMEDIATE transaction, so blocks leased by
+ * different processes never overlap, and an insert that still lets SQLite choose the ID never lands inside a block
+ * either. The IDs are the ones the rows are stored with, which means they survive a restart.
+ * Blocks start at libraryms.ids.blockSize IDs (1000 by default) and double, up to 65,536, while leases follow each
+ * other within a second, so a bulk load needs only a handful of leases. release gives the IDs left in the block back
+ * when the process stops, as long as no other process has leased since; otherwise they are never used, which leaves
+ * a gap in the sequence, the same as a rolled-back AUTOINCREMENT insert does.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BookIdAllocator {
+    public static final String BLOCK_SIZE_PROPERTY = "libraryms.ids.blockSize";
+    private static final int DEFAULT_BLOCK_SIZE = 1_000;
+    private static final int MAX_BLOCK_SIZE = 1 << 16;
+    private static final long FAST_LEASE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final String LAST_ID_SQL = "SELECT MAX("
+            + "IFNULL((SELECT seq FROM sqlite_sequence WHERE name = 'books'), 0),"
+            + " IFNULL((SELECT MAX(book_id) FROM books), 0))";
+    private static final String UPDATE_SEQUENCE_SQL = "UPDATE sqlite_sequence SET seq = MAX(seq, ?) WHERE name = 'books'";
+    private static final String INSERT_SEQUENCE_SQL = "INSERT INTO sqlite_sequence (name, seq) VALUES ('books', ?)";
+    private static final String RETURN_SQL = "UPDATE sqlite_sequence SET seq = ? WHERE name = 'books' AND seq = ?";
+    private static final OperationMetrics LEASE_METRICS = Metrics.operation("ids.lease");
+    private static final OperationMetrics RELEASE_METRICS = Metrics.operation("ids.release");
+
+    private final ConnectionSource connections;
+    private final int minBlockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+    private int blockSize;
+    private long lastLease;
+
+    /**
+     * ConnectionSource
+     * Opens the connection a lease runs on; closing it must give it back.
+     */
+    @FunctionalInterface
+    public interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * BookIdAllocator
+     * Creates an allocator that leases blocks of the size set with libraryms.ids.blockSize.
+     */
+    public BookIdAllocator(ConnectionSource connections) {
+        this(connections, Integer.getInteger(BLOCK_SIZE_PROPERTY, DEFAULT_BLOCK_SIZE));
+    }
+
+    public BookIdAllocator(ConnectionSource connections, int minBlockSize) {
+        if (minBlockSize < 1 || minBlockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("The block size must be between 1 and " + MAX_BLOCK_SIZE + ".");
+        }
+        this.connections = connections;
+        this.minBlockSize = minBlockSize;
+        this.blockSize = minBlockSize;
+    }
+
+    /**
+     * nextId
+     * Returns a new book ID that no other thread or process will be given.
+     */
+    public int nextId() throws SQLException {
+        return allocate(1);
+    }
+
+    /**
+     * allocate
+     * Reserves count consecutive new IDs and returns the first, so a batch insert can number its rows up front.
+     * A lease needs the database's write lock, so this must not be called on a connection's thread while that
+     * connection holds an open write transaction, such as inside work submitted to the WriteQueue.
+     */
+    public int allocate(int count) throws SQLException {
+        if (count < 1) {
+            throw new IllegalArgumentException("At least one ID must be allocated.");
+        }
+        Block block = current.get();
+        long first = block.next.getAndAdd(count);
+        if (first + count <= block.end) {
+            return (int) first;
+        }
+        return refill(count);
+    }
+
+    /**
+     * release
+     * Gives the IDs not yet handed out from the current block back to the books sequence, so the next lease starts
+     * where this process stopped. Nothing is given back when another lease or an AUTOINCREMENT insert has moved the
+     * sequence since, because the IDs are then no longer at its end. The allocator stays usable: the next ID leases a
+     * new block. Returns how many IDs were given back.
+     */
+    public synchronized int release() throws SQLException {
+        Block block = current.getAndSet(new Block(0, 0));
+        // Closes the block, so a thread still holding it finds it used up and waits in refill
+        long next = block.next.getAndSet(block.end);
+        if (next >= block.end) {
+            return 0;
+        }
+        long started = RELEASE_METRICS.start();
+        try (Connection conn = connections.open();
+             Statement stmt = conn.createStatement();
+             PreparedStatement pstmt = conn.prepareStatement(RETURN_SQL)) {
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                pstmt.setLong(1, next - 1);
+                pstmt.setLong(2, block.end - 1);
+                int released = pstmt.executeUpdate() > 0 ? (int) (block.end - next) : 0;
+                stmt.execute("COMMIT");
+                RELEASE_METRICS.rowsWritten(released);
+                RELEASE_METRICS.success(started);
+                return released;
+            } catch (SQLException | RuntimeException e) {
+                stmt.execute("ROLLBACK");
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            RELEASE_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * refill
+     * Leases a new block once the current one cannot satisfy a request. Only one thread leases at a time; the others
+     * that ran out wait here and take their IDs from the block it leased. A request larger than a block gets a block
+     * of its own size. What is left of the old block is given up.
+     */
+    private synchronized int refill(int count) throws SQLException {
+        Block block = current.get();
+        long first = block.next.getAndAdd(count);
+        if (first + count <= block.end) {
+            return (int) first;
+        }
+        long now = System.nanoTime();
+        if (lastLease != 0 && now - lastLease < FAST_LEASE_NANOS) {
+            blockSize = Math.min(blockSize * 2, MAX_BLOCK_SIZE);
+        } else {
+            blockSize = minBlockSize;
+        }
+        lastLease = now;
+        int size = Math.max(blockSize, count);
+        long start = lease(size);
+        current.set(new Block(start + count, start + size));
+        return (int) start;
+    }
+
+    /**
+     * lease
+     * Moves the books sequence forward by size in its own transaction and returns the first ID of the leased block.
+     */
+    private long lease(int size) throws SQLException {
+        long started = LEASE_METRICS.start();
+        try (Connection conn = connections.open();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                int start = nextFree(conn);
+                claim(conn, start + (long) size - 1);
+                stmt.execute("COMMIT");
+                LEASE_METRICS.rowsWritten(size);
+                LEASE_METRICS.success(started);
+                return start;
+            } catch (SQLException | RuntimeException e) {
+                stmt.execute("ROLLBACK");
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            LEASE_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * nextFree
+     * Returns the first ID that no lease and no row has taken yet. The sequence starts from the largest book_id in the
+     * table when that is higher, which covers rows copied in with explicit IDs. A caller that already holds the write
+     * lock, such as an import deciding which of its rows are new, can number the rows it inserts from here; inserting
+     * them moves the AUTOINCREMENT sequence past them before any other process can lease again.
+     */
+    static int nextFree(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LAST_ID_SQL)) {
+            long last = rs.next() ? rs.getLong(1) : 0;
+            if (last >= Integer.MAX_VALUE) {
+                throw new SQLException("No book IDs are left to lease.");
+            }
+            return (int) last + 1;
+        }
+    }
+
+    /**
+     * claim
+     * Moves the books sequence to lastId in the caller's transaction, so no later lease hands out an ID up to it.
+     */
+    private static void claim(Connection conn, long lastId) throws SQLException {
+        if (lastId > Integer.MAX_VALUE) {
+            throw new SQLException("No book IDs are left to lease.");
+        }
+        try (PreparedStatement update = conn.prepareStatement(UPDATE_SEQUENCE_SQL)) {
+            update.setLong(1, lastId);
+            if (update.executeUpdate() == 0) {
+                try (PreparedStatement insert = conn.prepareStatement(INSERT_SEQUENCE_SQL)) {
+                    insert.setLong(1, lastId);
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Block
+     * A leased range of IDs, from next up to but not including end. Threads claim IDs by moving next forward; a
+     * claim that ends past end has found the block used up.
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long next, long end) {
+            this.next = new AtomicLong(next);
+            this.end = end;
+        }
+    }
+}
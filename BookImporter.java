@@ -0,0 +1,568 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BookImporter.java
+ * This class imports catalog files of any size into the books table. The file is streamed through an NIO channel in
+ * fixed-size chunks of lines, the chunks are parsed in parallel, and the parsed rows are inserted in order, one
+ * transaction per chunk. Only a bounded number of chunks is in flight at any time, so memory use does not grow with
+ * the size of the file. Progress is recorded in the import_progress table in the same transaction as each chunk, which
+ * lets an interrupted import pick up where it stopped. Large imports finish by compacting the full-text search index.
+ * Each chunk reserves its block of IDs from the BookIdAllocator before it is inserted, so the rows are numbered up
+ * front and the whole chunk goes into one batch without asking the database for any generated key.
+ * Importing the same catalog twice appends every book again unless a deduplicating Mode is chosen. Those modes look
+ * each record up in BookFingerprints. SKIP_DUPLICATES skips it when the catalog already holds a book with the same
+ * title and author, whatever its genre; UPSERT skips it when the genre matches too, and otherwise updates that book's
+ * genre. New and updated books are still written in one batch per chunk.
+ */
+
+package libraryms.libraryms;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class BookImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 5_000;
+    private static final int MAX_REPORTED_BAD_LINES = 100;
+    private static final int READ_BUFFER_CHARS = 1 << 16;
+    private static final long SEARCH_OPTIMIZE_THRESHOLD = 50_000;
+    private static final String INSERT_SQL = "INSERT INTO books (book_id, title, author, genre) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE books SET title = ?, author = ?, genre = ? WHERE book_id = ?";
+    private static final String PROGRESS_SQL = "INSERT INTO import_progress "
+            + "(file_path, file_size, last_modified, lines_committed, rows_committed, completed) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT(file_path) DO UPDATE SET file_size = excluded.file_size, "
+            + "last_modified = excluded.last_modified, lines_committed = excluded.lines_committed, "
+            + "rows_committed = excluded.rows_committed, completed = excluded.completed";
+    private static final OperationMetrics IMPORT_METRICS = Metrics.operation("import.file");
+    private static final OperationMetrics CHUNK_METRICS = Metrics.operation("import.chunk");
+
+    private final int chunkSize;
+    private final int parserThreads;
+    private final BookIdAllocator ids;
+    private final BookFingerprints fingerprints = Library.getFingerprints();
+
+    public BookImporter() {
+        this(DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BookImporter(int chunkSize, int parserThreads) {
+        this(chunkSize, parserThreads, Library.getIdAllocator());
+    }
+
+    /**
+     * BookImporter
+     * Creates an importer that numbers the imported books with the given allocator, which must lease from the same
+     * database the import writes to.
+     */
+    public BookImporter(int chunkSize, int parserThreads, BookIdAllocator ids) {
+        if (chunkSize < 1 || parserThreads < 1) {
+            throw new IllegalArgumentException("Chunk size and parser thread count must be positive.");
+        }
+        this.chunkSize = chunkSize;
+        this.parserThreads = parserThreads;
+        this.ids = ids;
+    }
+
+    /**
+     * importFile
+     * Imports every valid line of the file into the books table and returns a summary of the run. If an earlier
+     * import of the same, unchanged file stopped halfway, the lines it already committed are skipped. Lines that do
+     * not contain a title, an author and a genre are counted as bad lines and skipped. The context is checked between
+     * chunks, so cancelling keeps every chunk that was already committed and the import can be resumed later.
+     * Every import is timed as the import.file operation and every chunk commit as import.chunk.
+     */
+    public ImportResult importFile(Path file, DatabaseExecutor.JobContext context) throws IOException, SQLException {
+        return importFile(file, Mode.APPEND, context);
+    }
+
+    /**
+     * importFile
+     * Imports the file like importFile above, treating records of books already in the catalog as the mode says.
+     */
+    public ImportResult importFile(Path file, Mode mode, DatabaseExecutor.JobContext context)
+            throws IOException, SQLException {
+        long started = IMPORT_METRICS.start();
+        try {
+            ImportResult result = runImport(file, mode, context, started);
+            IMPORT_METRICS.rowsRead(result.linesProcessed() - result.resumedFromLine());
+            IMPORT_METRICS.rowsWritten(result.rowsInserted() + result.rowsUpdated());
+            IMPORT_METRICS.success(started);
+            return result;
+        } catch (IOException | SQLException | RuntimeException e) {
+            IMPORT_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    private ImportResult runImport(Path file, Mode mode, DatabaseExecutor.JobContext context, long started)
+            throws IOException, SQLException {
+        Path absolute = file.toAbsolutePath();
+        long fileSize = Files.size(absolute);
+        long lastModified = Files.getLastModifiedTime(absolute).toMillis();
+
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, runnable -> {
+            Thread thread = new Thread(runnable, "import-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BlockingQueue<Future<ParsedChunk>> pending = new ArrayBlockingQueue<>(parserThreads * 2);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Checkpoint checkpoint = readCheckpoint(conn, absolute.toString(), fileSize, lastModified);
+            Counters counters = new Counters(checkpoint.rowsCommitted);
+            Thread reader = new Thread(() -> readChunks(absolute, checkpoint.linesCommitted, parsers, pending),
+                    "import-reader");
+            reader.setDaemon(true);
+            reader.start();
+
+            long linesCommitted = checkpoint.linesCommitted;
+            try {
+                conn.setAutoCommit(false);
+                try (PreparedStatement insert = conn.prepareStatement(INSERT_SQL);
+                     PreparedStatement update = conn.prepareStatement(UPDATE_SQL);
+                     PreparedStatement progress = conn.prepareStatement(PROGRESS_SQL)) {
+                    while (true) {
+                        ParsedChunk chunk = awaitChunk(pending.take());
+                        if (chunk == ParsedChunk.END) {
+                            break;
+                        }
+                        if (context != null) {
+                            context.checkCancelled();
+                        }
+                        long chunkStarted = CHUNK_METRICS.start();
+                        BookFingerprints.Batch batch = null;
+                        ChunkCounts counts;
+                        if (mode == Mode.APPEND) {
+                            counts = appendChunk(insert, chunk.rows);
+                        } else {
+                            batch = fingerprints.begin(conn);
+                            counts = mergeChunk(conn, batch, mode, insert, update, chunk.rows);
+                            batch.finish();
+                        }
+                        linesCommitted = chunk.lastLineNumber;
+                        counters.add(chunk, counts);
+                        writeCheckpoint(progress, absolute.toString(), fileSize, lastModified,
+                                linesCommitted, counters.rowsCommitted, false);
+                        conn.commit();
+                        if (batch != null) {
+                            fingerprints.committed(batch);
+                        }
+                        CHUNK_METRICS.rowsWritten(counts.inserted + counts.updated);
+                        CHUNK_METRICS.success(chunkStarted);
+                        if (context != null) {
+                            context.progress(Math.min(counters.bytesCommitted, fileSize), fileSize);
+                        }
+                    }
+                    writeCheckpoint(progress, absolute.toString(), fileSize, lastModified,
+                            linesCommitted, counters.rowsCommitted, true);
+                    conn.commit();
+                }
+                if (counters.rowsCommitted - checkpoint.rowsCommitted >= SEARCH_OPTIMIZE_THRESHOLD) {
+                    conn.setAutoCommit(true);
+                    BookSearch.optimizeIndex(conn);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Import interrupted.");
+            } finally {
+                reader.interrupt();
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+            }
+            return new ImportResult(counters.rowsCommitted - checkpoint.rowsCommitted, counters.rowsUpdated,
+                    counters.duplicates, linesCommitted, checkpoint.linesCommitted, counters.badLines,
+                    Collections.unmodifiableList(counters.badLineNumbers), System.nanoTime() - started);
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    /**
+     * appendChunk
+     * Inserts every row of the chunk as a new book, numbered with a block of IDs reserved up front.
+     */
+    private ChunkCounts appendChunk(PreparedStatement insert, List<String[]> rows) throws SQLException {
+        int bookId = rows.isEmpty() ? 0 : ids.allocate(rows.size());
+        for (String[] row : rows) {
+            bindInsert(insert, bookId++, row);
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        return new ChunkCounts(rows.size(), 0, 0);
+    }
+
+    /**
+     * mergeChunk
+     * Sorts the rows of the chunk into new books, duplicates and, in UPSERT mode, updates of books already in the
+     * catalog, then writes the new and updated books in one batch each. A record whose title and author match a book
+     * is a duplicate in SKIP_DUPLICATES mode whatever its genre, and in UPSERT mode only when the genre matches too.
+     * It runs after the fingerprint batch has taken the write lock, so new books are numbered straight from the books
+     * sequence, which their inserts then move past, without leaving gaps for the duplicates. When several catalog
+     * books match an updated record, the oldest one is updated.
+     */
+    private static ChunkCounts mergeChunk(Connection conn, BookFingerprints.Batch batch, Mode mode,
+                                          PreparedStatement insert, PreparedStatement update, List<String[]> rows)
+            throws SQLException {
+        int firstId = BookIdAllocator.nextFree(conn);
+        int nextId = firstId;
+        int updated = 0;
+        int duplicates = 0;
+        for (String[] row : rows) {
+            List<BookFingerprints.Match> matches = batch.find(row[0], row[1]);
+            long fingerprint = BookFingerprints.fingerprint(row[0], row[1], row[2]);
+            if (mode == Mode.SKIP_DUPLICATES && !matches.isEmpty()
+                    || matches.stream().anyMatch(match -> match.fingerprint() == fingerprint)) {
+                duplicates++;
+            } else if (mode == Mode.UPSERT && !matches.isEmpty()) {
+                int bookId = matches.stream().mapToInt(BookFingerprints.Match::bookId).min().getAsInt();
+                update.setString(1, row[0]);
+                update.setString(2, row[1]);
+                update.setString(3, row[2]);
+                update.setInt(4, bookId);
+                update.addBatch();
+                batch.put(bookId, row[0], row[1], row[2]);
+                updated++;
+            } else {
+                bindInsert(insert, nextId, row);
+                insert.addBatch();
+                batch.put(nextId++, row[0], row[1], row[2]);
+            }
+        }
+        insert.executeBatch();
+        update.executeBatch();
+        return new ChunkCounts(nextId - firstId, updated, duplicates);
+    }
+
+    private static void bindInsert(PreparedStatement insert, int bookId, String[] row) throws SQLException {
+        insert.setInt(1, bookId);
+        insert.setString(2, row[0]);
+        insert.setString(3, row[1]);
+        insert.setString(4, row[2]);
+    }
+
+    /**
+     * parseLine
+     * Turns one line of a catalog file into a title, author and genre, or returns null when the line does not hold
+     * all three.
+     */
+    static String[] parseLine(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        List<String> fields;
+        try {
+            fields = CsvParser.parseLine(line);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (fields.size() < 3 || fields.get(0).isEmpty() || fields.get(1).isEmpty()) {
+            return null;
+        }
+        return new String[]{fields.get(0), fields.get(1), fields.get(2)};
+    }
+
+    /**
+     * readChunks
+     * Runs on the reader thread. Streams the file through a FileChannel, skips the lines committed by an earlier run,
+     * and hands each chunk of lines to the parser pool together with the byte offset in the file where the chunk
+     * ends. The bounded pending queue blocks the reader whenever the database writer falls behind.
+     */
+    private void readChunks(Path file, long skipLines, ExecutorService parsers,
+                            BlockingQueue<Future<ParsedChunk>> pending) {
+        Future<ParsedChunk> last;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             LineReader reader = new LineReader(Channels.newReader(channel, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while (lineNumber < skipLines && reader.readLine() != null) {
+                lineNumber++;
+            }
+            List<String> lines = new ArrayList<>(chunkSize);
+            long firstLine = lineNumber + 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                lines.add(line);
+                if (lines.size() == chunkSize) {
+                    submitChunk(parsers, pending, firstLine, lines, reader.bytesRead());
+                    lines = new ArrayList<>(chunkSize);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            if (!lines.isEmpty()) {
+                submitChunk(parsers, pending, firstLine, lines, reader.bytesRead());
+            }
+            last = CompletableFuture.completedFuture(ParsedChunk.END);
+        } catch (IOException e) {
+            last = CompletableFuture.failedFuture(e);
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            pending.put(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void submitChunk(ExecutorService parsers, BlockingQueue<Future<ParsedChunk>> pending,
+                                    long firstLine, List<String> lines, long endOffset) throws InterruptedException {
+        pending.put(parsers.submit(() -> parseChunk(firstLine, lines, endOffset)));
+    }
+
+    private static ParsedChunk parseChunk(long firstLine, List<String> lines, long endOffset) {
+        List<String[]> rows = new ArrayList<>(lines.size());
+        List<Long> badLineNumbers = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            String[] row = parseLine(line);
+            if (row == null) {
+                if (!line.isBlank()) {
+                    badLineNumbers.add(firstLine + i);
+                }
+            } else {
+                rows.add(row);
+            }
+        }
+        return new ParsedChunk(rows, badLineNumbers, firstLine + lines.size() - 1, endOffset);
+    }
+
+    private static ParsedChunk awaitChunk(Future<ParsedChunk> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IllegalStateException("Failed to parse import chunk", cause);
+        }
+    }
+
+    private static Checkpoint readCheckpoint(Connection conn, String path, long fileSize, long lastModified)
+            throws SQLException {
+        String sql = "SELECT file_size, last_modified, lines_committed, rows_committed, completed "
+                + "FROM import_progress WHERE file_path = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, path);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && !rs.getBoolean("completed")
+                        && rs.getLong("file_size") == fileSize && rs.getLong("last_modified") == lastModified) {
+                    return new Checkpoint(rs.getLong("lines_committed"), rs.getLong("rows_committed"));
+                }
+            }
+        }
+        return new Checkpoint(0, 0);
+    }
+
+    private static void writeCheckpoint(PreparedStatement progress, String path, long fileSize, long lastModified,
+                                        long linesCommitted, long rowsCommitted, boolean completed)
+            throws SQLException {
+        progress.setString(1, path);
+        progress.setLong(2, fileSize);
+        progress.setLong(3, lastModified);
+        progress.setLong(4, linesCommitted);
+        progress.setLong(5, rowsCommitted);
+        progress.setBoolean(6, completed);
+        progress.executeUpdate();
+    }
+
+    private record Checkpoint(long linesCommitted, long rowsCommitted) {
+    }
+
+    private record ChunkCounts(int inserted, int updated, int duplicates) {
+    }
+
+    private record ParsedChunk(List<String[]> rows, List<Long> badLineNumbers, long lastLineNumber,
+                               long endOffset) {
+        static final ParsedChunk END = new ParsedChunk(List.of(), List.of(), 0, 0);
+    }
+
+    private static final class Counters {
+        long rowsCommitted;
+        long rowsUpdated;
+        long duplicates;
+        long bytesCommitted;
+        long badLines;
+        final List<Long> badLineNumbers = new ArrayList<>();
+
+        Counters(long rowsCommitted) {
+            this.rowsCommitted = rowsCommitted;
+        }
+
+        void add(ParsedChunk chunk, ChunkCounts counts) {
+            rowsCommitted += counts.inserted;
+            rowsUpdated += counts.updated;
+            duplicates += counts.duplicates;
+            bytesCommitted = chunk.endOffset;
+            badLines += chunk.badLineNumbers.size();
+            for (Long lineNumber : chunk.badLineNumbers) {
+                if (badLineNumbers.size() < MAX_REPORTED_BAD_LINES) {
+                    badLineNumbers.add(lineNumber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mode
+     * What an import does with a record of a book the catalog already has. APPEND adds every record as a new book.
+     * SKIP_DUPLICATES skips a record whose normalized title and author match a book in the catalog, whatever the genre.
+     * UPSERT skips a record whose genre matches too, and when only the title and author match, updates that book to
+     * the record.
+     */
+    public enum Mode {
+        APPEND,
+        SKIP_DUPLICATES,
+        UPSERT
+    }
+
+    /**
+     * LineReader
+     * Reads lines the way BufferedReader.readLine does, ending them at \n, \r\n or \r, and keeps count of the UTF-8
+     * bytes taken from the file so far, terminators included. That count is where the last line read ends in the
+     * file, whatever its characters or line endings, so import progress can be measured against the file size.
+     */
+    private static final class LineReader implements Closeable {
+        private final Reader in;
+        private final char[] buffer = new char[READ_BUFFER_CHARS];
+        private int position;
+        private int limit;
+        private boolean skipLineFeed;
+        private long bytesRead;
+
+        LineReader(Reader in) {
+            this.in = in;
+        }
+
+        long bytesRead() {
+            return bytesRead;
+        }
+
+        String readLine() throws IOException {
+            StringBuilder partial = null;
+            while (true) {
+                if (position == limit) {
+                    limit = Math.max(in.read(buffer, 0, buffer.length), 0);
+                    position = 0;
+                    if (limit == 0) {
+                        return partial == null ? null : partial.toString();
+                    }
+                }
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (buffer[position] == '\n') {
+                        position++;
+                        bytesRead++;
+                        continue;
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                    bytesRead += utf8Length(buffer[position]);
+                    position++;
+                }
+                if (position == limit) {
+                    if (partial == null) {
+                        partial = new StringBuilder();
+                    }
+                    partial.append(buffer, start, position - start);
+                    continue;
+                }
+                skipLineFeed = buffer[position] == '\r';
+                position++;
+                bytesRead++;
+                if (partial == null) {
+                    return new String(buffer, start, position - 1 - start);
+                }
+                return partial.append(buffer, start, position - 1 - start).toString();
+            }
+        }
+
+        /**
+         * utf8Length
+         * Returns how many bytes the character takes in UTF-8. Each half of a surrogate pair counts two, for the four
+         * bytes of the pair.
+         */
+        private static int utf8Length(char c) {
+            if (c < 0x80) {
+                return 1;
+            }
+            if (c < 0x800 || Character.isSurrogate(c)) {
+                return 2;
+            }
+            return 3;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * ImportResult
+     * Summary of one import run. Counts cover only this run; resumedFromLine is the number of lines that an earlier,
+     * interrupted run had already committed. At most the first hundred bad line numbers are kept. Updated books and
+     * skipped duplicates are only counted by the deduplicating modes.
+     */
+    public record ImportResult(long rowsInserted, long rowsUpdated, long duplicates, long linesProcessed,
+                               long resumedFromLine, long badLineCount, List<Long> badLineNumbers, long elapsedNanos) {
+
+        /**
+         * rowsPerSecond
+         * Returns how many valid records the import handled per second, whether they were added, updated or skipped.
+         */
+        public double rowsPerSecond() {
+            double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+            return seconds == 0 ? 0 : (rowsInserted + rowsUpdated + duplicates) / seconds;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder summary = new StringBuilder();
+            summary.append(rowsInserted).append(" books added");
+            if (rowsUpdated > 0) {
+                summary.append(", ").append(rowsUpdated).append(" updated");
+            }
+            if (duplicates > 0) {
+                summary.append(", ").append(duplicates).append(" duplicates skipped");
+            }
+            if (resumedFromLine > 0) {
+                summary.append(" (resumed after line ").append(resumedFromLine).append(")");
+            }
+            summary.append(String.format(", %.0f rows/sec", rowsPerSecond()));
+            summary.append(", ").append(badLineCount).append(" bad lines");
+            if (!badLineNumbers.isEmpty()) {
+                summary.append(" at lines ").append(badLineNumbers);
+                if (badLineCount > badLineNumbers.size()) {
+                    summary.append(" and more");
+                }
+            }
+            return summary.toString();
+        }
+    }
+}
@@ -6,6 +6,7 @@
  * This class is responsible for loading books into the library from a file. It provides functionality to prompt the user
  * for a file name and to read book information from the specified file. Each book's title and author are extracted from
  * the file and added to the library, facilitating the initial population of the library's book collection.
+ * Every loaded book gets a new ID from a BookIdAllocator, so it never clashes with a book stored in the database.
  */
 
 package libraryms.libraryms;
@@ -13,34 +14,105 @@ package libraryms.libraryms;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 
 public class BookLoader {
+    private static final Logger LOG = Logger.getLogger(BookLoader.class.getName());
+    private static final int SAVE_BATCH_SIZE = 500;
+    private static final OperationMetrics LOAD_METRICS = Metrics.operation("loader.loadFile");
 
     /**
      * loadBooksFromFile
      * Loads books from a specified file into the library.
      * This private method reads the file line by line, parsing each book's title and author,
-     * and then adds the book to the library.
+     * and then adds the book to the library. Fields may be quoted so that titles can contain commas. Large catalog
+     * files should go through BookImporter, which streams them straight into the database.
+     * The books are saved to the database in batches of 500, each one write on the WriteQueue that is waited for
+     * before the next is read, so the queue never fills up. Returns how many books were saved; a batch that fails to
+     * save is logged and its books are left out.
      * The name of the file from which to load books.
      * The library instance to which the books will be added.
      */
-    public static void loadBooksFromFile(String fileName, Library library) {
+    public static long loadBooksFromFile(String fileName, Library library) {
+        List<Book> batch = new ArrayList<>(SAVE_BATCH_SIZE);
+        long[] saved = {0};
+        loadBooks(fileName, Library.getIdAllocator(), book -> {
+            batch.add(book);
+            if (batch.size() == SAVE_BATCH_SIZE) {
+                saved[0] += save(library, batch, fileName);
+            }
+        });
+        saved[0] += save(library, batch, fileName);
+        return saved[0];
+    }
+
+    private static int save(Library library, List<Book> batch, String fileName) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            return library.addBooks(List.copyOf(batch)).join().size();
+        } catch (CompletionException | CancellationException e) {
+            LOG.log(Level.WARNING, "Could not save " + batch.size() + " books from " + fileName,
+                    DatabaseExecutor.unwrap(e));
+            return 0;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * loadBooksFromFile
+     * Loads books from a specified file into a ColumnarCatalog, for catalog files too large to keep as one Book
+     * object per title. Each parsed book is copied into the catalog's columns and can be collected right away.
+     */
+    public static void loadBooksFromFile(String fileName, ColumnarCatalog catalog) {
+        loadBooksFromFile(fileName, Library.getIdAllocator(), catalog);
+    }
+
+    /**
+     * loadBooksFromFile
+     * Loads books into a ColumnarCatalog with IDs from the given allocator instead of the application's.
+     */
+    public static void loadBooksFromFile(String fileName, BookIdAllocator ids, ColumnarCatalog catalog) {
+        loadBooks(fileName, ids, catalog::addBook);
+    }
+
+    /**
+     * loadBooks
+     * Reads the file line by line and hands every valid book to the given sink. The whole load is timed as the
+     * loader.loadFile operation, with the lines read and books loaded counted; a file that cannot be read, or a load
+     * that cannot lease IDs, is logged and counted as a failed load.
+     */
+    private static void loadBooks(String fileName, BookIdAllocator ids, Consumer<Book> sink) {
+        long started = LOAD_METRICS.start();
+        long lines = 0;
+        long books = 0;
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 2) {
-                    String title = parts[0].trim();
-                    String author = parts[1].trim();
-                    String genre = parts[2].trim();
-                    Book book = new Book(title, author, genre);
-                    library.addBook(book);
+                lines++;
+                String[] fields = BookImporter.parseLine(line);
+                if (fields != null) {
+                    sink.accept(new Book(ids.nextId(), fields[0], fields[1], fields[2]));
+                    books++;
                 }
             }
-
-        } catch (IOException e) {
-            e.printStackTrace();
+            LOAD_METRICS.success(started);
+        } catch (IOException | SQLException e) {
+            LOAD_METRICS.failure(started);
+            LOG.log(Level.WARNING, "Could not load books from " + fileName, e);
+        } finally {
+            LOAD_METRICS.rowsRead(lines);
+            LOAD_METRICS.rowsWritten(books);
         }
     }
 
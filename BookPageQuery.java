@@ -0,0 +1,217 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BookPageQuery.java
+ * This class reads the books table one page at a time for the inventory view. Pages are found with keyset pagination:
+ * instead of an OFFSET, each query continues from the sort key and book_id of the last row already shown, so reading a
+ * page costs the same near the end of a large catalog as at the start. Sorting is done by SQLite using the indexes
+ * created in DatabaseSchema.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+public final class BookPageQuery {
+    static final String COLUMNS = "book_id, title, author, genre, status, due_date";
+
+    /**
+     * SortColumn
+     * The columns the inventory can be sorted by. Nullable columns are compared through IFNULL so that rows with no
+     * value still have a place in the key order; the same expressions are indexed in DatabaseSchema.
+     */
+    public enum SortColumn {
+        BOOK_ID("book_id"),
+        TITLE("title"),
+        AUTHOR("author"),
+        GENRE("IFNULL(genre, '')"),
+        STATUS("IFNULL(status, '')"),
+        DUE_DATE("IFNULL(due_date, '')");
+
+        private final String expression;
+
+        SortColumn(String expression) {
+            this.expression = expression;
+        }
+
+        private Object keyOf(Book book) {
+            switch (this) {
+                case BOOK_ID:
+                    return book.getBookId();
+                case TITLE:
+                    return book.getTitle();
+                case AUTHOR:
+                    return book.getAuthor();
+                case GENRE:
+                    return nullToEmpty(book.getGenre());
+                case STATUS:
+                    return nullToEmpty(book.getStatus());
+                default:
+                    return nullToEmpty(book.getDueDate());
+            }
+        }
+
+        /**
+         * comparator
+         * Returns the order SQLite sorts books in for this column, sort key first and book_id second, for merging
+         * pages read from several databases. Text is compared by code point, which is how SQLite's default BINARY
+         * collation orders UTF-8.
+         */
+        Comparator<Book> comparator(boolean ascending) {
+            Comparator<Book> order = this == BOOK_ID ? Comparator.comparingInt(Book::getBookId)
+                    : Comparator.comparing((Book book) -> (String) keyOf(book), BookPageQuery::compareCodePoints)
+                            .thenComparingInt(Book::getBookId);
+            return ascending ? order : order.reversed();
+        }
+    }
+
+    private BookPageQuery() {
+    }
+
+    /**
+     * firstPage
+     * Returns up to limit books from the start of the catalog in the requested order.
+     */
+    public static List<Book> firstPage(Connection conn, SortColumn column, boolean ascending, int limit)
+            throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM books" + orderBy(column, ascending) + " LIMIT ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            return readBooks(pstmt);
+        }
+    }
+
+    /**
+     * pageAfter
+     * Returns up to limit books that come after the given row in the requested order.
+     */
+    public static List<Book> pageAfter(Connection conn, SortColumn column, boolean ascending, Book last, int limit)
+            throws SQLException {
+        return seek(conn, column, ascending, last, limit);
+    }
+
+    /**
+     * pageBefore
+     * Returns up to limit books that come right before the given row in the requested order, in that same order.
+     */
+    public static List<Book> pageBefore(Connection conn, SortColumn column, boolean ascending, Book first, int limit)
+            throws SQLException {
+        List<Book> books = seek(conn, column, !ascending, first, limit);
+        Collections.reverse(books);
+        return books;
+    }
+
+    /**
+     * findById
+     * Reads a single book, or returns null when no book has that ID. Used to refresh one row of the view after a
+     * change instead of reloading the whole page.
+     */
+    public static Book findById(Connection conn, int bookId) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM books WHERE book_id = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, bookId);
+            List<Book> books = readBooks(pstmt);
+            return books.isEmpty() ? null : books.get(0);
+        }
+    }
+
+    /**
+     * readBook
+     * Builds a Book from the current row of a result set that selected the standard book columns.
+     */
+    static Book readBook(ResultSet rs) throws SQLException {
+        return new Book(rs.getInt("book_id"), rs.getString("title"), rs.getString("author"),
+                rs.getString("genre"), rs.getString("status"), rs.getString("due_date"));
+    }
+
+    /**
+     * seek
+     * Reads the rows that follow the anchor in the given order. This is done as two index range searches, first the
+     * rest of the rows sharing the anchor's sort key and then the rows with a greater key, because SQLite does not
+     * turn a row value comparison on an expression index into a range search and columns such as status have only a
+     * handful of distinct values.
+     */
+    private static List<Book> seek(Connection conn, SortColumn column, boolean ascending, Book anchor, int limit)
+            throws SQLException {
+        String operator = ascending ? ">" : "<";
+        String direction = ascending ? " ASC" : " DESC";
+        if (column == SortColumn.BOOK_ID) {
+            String sql = "SELECT " + COLUMNS + " FROM books WHERE book_id " + operator + " ?" + orderBy(column, ascending)
+                    + " LIMIT ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, anchor.getBookId());
+                pstmt.setInt(2, limit);
+                return readBooks(pstmt);
+            }
+        }
+
+        Object key = column.keyOf(anchor);
+        List<Book> books;
+        String sameKey = "SELECT " + COLUMNS + " FROM books WHERE " + column.expression + " = ? AND book_id "
+                + operator + " ? ORDER BY book_id" + direction + " LIMIT ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sameKey)) {
+            pstmt.setObject(1, key);
+            pstmt.setInt(2, anchor.getBookId());
+            pstmt.setInt(3, limit);
+            books = readBooks(pstmt);
+        }
+        if (books.size() < limit) {
+            String laterKeys = "SELECT " + COLUMNS + " FROM books WHERE " + column.expression + " " + operator + " ?"
+                    + orderBy(column, ascending) + " LIMIT ?";
+            try (PreparedStatement pstmt = conn.prepareStatement(laterKeys)) {
+                pstmt.setObject(1, key);
+                pstmt.setInt(2, limit - books.size());
+                books.addAll(readBooks(pstmt));
+            }
+        }
+        return books;
+    }
+
+    private static String orderBy(SortColumn column, boolean ascending) {
+        String direction = ascending ? " ASC" : " DESC";
+        if (column == SortColumn.BOOK_ID) {
+            return " ORDER BY book_id" + direction;
+        }
+        return " ORDER BY " + column.expression + direction + ", book_id" + direction;
+    }
+
+    /**
+     * readBooks
+     * Runs a query that selects the standard book columns and returns its rows as books.
+     */
+    static List<Book> readBooks(PreparedStatement pstmt) throws SQLException {
+        List<Book> books = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                books.add(readBook(rs));
+            }
+        }
+        return books;
+    }
+
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int x = a.codePointAt(i);
+            int y = b.codePointAt(j);
+            if (x != y) {
+                return Integer.compare(x, y);
+            }
+            i += Character.charCount(x);
+            j += Character.charCount(y);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BookRepository.java
+ * This interface is the storage engine behind the books of a catalog: adding and removing books, reading them by ID
+ * or in ID order, and changing their circulation status, one at a time or in batches. Each batch is all or nothing.
+ * SqliteBookRepository keeps the books in a LibraryMS database; LogBookRepository keeps them in memory and makes them
+ * durable with an append-only log file. Both behave the same way, which RepositoryConformance in the benchmarks jar
+ * checks, so code written against this interface can run on either.
+ */
+
+package libraryms.libraryms;
+import java.sql.SQLException;
+import java.util.List;
+
+public interface BookRepository extends AutoCloseable {
+
+    /**
+     * add
+     * Stores a new book under its own ID, which usually comes from BookIdAllocator. A book without a status is stored
+     * as checked in. Throws SQLException when a book with that ID already exists.
+     */
+    void add(Book book) throws SQLException;
+
+    /**
+     * addAll
+     * Stores several new books at once. When any of the IDs is already taken, or appears twice, none are stored.
+     */
+    void addAll(List<Book> books) throws SQLException;
+
+    /**
+     * remove
+     * Removes the book with the given ID. Returns false when there is no such book.
+     */
+    boolean remove(int bookId) throws SQLException;
+
+    /**
+     * removeAll
+     * Removes every book in the list that exists and returns how many were removed.
+     */
+    int removeAll(List<Integer> bookIds) throws SQLException;
+
+    /**
+     * get
+     * Returns the book with the given ID, or null when there is none.
+     */
+    Book get(int bookId) throws SQLException;
+
+    /**
+     * getAll
+     * Returns the books with the given IDs in the order asked for, leaving out IDs that do not exist.
+     */
+    List<Book> getAll(List<Integer> bookIds) throws SQLException;
+
+    /**
+     * scan
+     * Returns up to limit books with IDs greater than afterBookId, in ID order. Passing the last ID of one scan as
+     * afterBookId of the next reads the whole catalog page by page; 0 starts at the beginning.
+     */
+    List<Book> scan(int afterBookId, int limit) throws SQLException;
+
+    /**
+     * updateStatus
+     * Sets the book's status and due date. Returns false, and changes nothing, when there is no such book or it
+     * already has that status, so two desks checking the same copy out at once cannot both succeed.
+     */
+    boolean updateStatus(int bookId, String status, String dueDate) throws SQLException;
+
+    /**
+     * updateStatuses
+     * Sets the status and due date of several books at once. Returns, for each ID in order, whether that book
+     * changed, as updateStatus would have.
+     */
+    boolean[] updateStatuses(List<Integer> bookIds, String status, String dueDate) throws SQLException;
+
+    /**
+     * count
+     * Returns the number of books stored.
+     */
+    int count() throws SQLException;
+
+    @Override
+    void close() throws SQLException;
+}
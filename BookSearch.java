@@ -0,0 +1,114 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BookSearch.java
+ * This class finds books by words in their title, author or genre. It queries the books_fts full-text index that
+ * DatabaseSchema creates next to the books table, so a lookup only touches the index entries for the words searched
+ * for instead of scanning every row. The last word typed is matched as a prefix so results show up while a word is
+ * still being typed, and results are ranked with BM25 so that title matches come before author matches, which come
+ * before genre matches. Every match is scored and the best are picked inside the full-text query, before the books
+ * are joined, so a broad search reads only the rows it returns.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BookSearch {
+    private static final String SEARCH_SQL = "SELECT b.book_id, b.title, b.author, b.genre, b.status, b.due_date, m.score "
+            + "FROM (SELECT rowid AS id, bm25(books_fts, 10.0, 5.0, 1.0) AS score FROM books_fts "
+            + "WHERE books_fts MATCH ? ORDER BY score LIMIT ?) m "
+            + "JOIN books b ON b.book_id = m.id ORDER BY m.score LIMIT ?";
+
+    private BookSearch() {
+    }
+
+    /**
+     * search
+     * Returns up to limit books matching every word of the given text, best match first. Returns an empty list when
+     * the text contains no searchable words.
+     */
+    public static List<Book> search(Connection conn, String text, int limit) throws SQLException {
+        List<Book> books = new ArrayList<>();
+        for (Match match : searchScored(conn, text, limit)) {
+            books.add(match.book());
+        }
+        return books;
+    }
+
+    /**
+     * searchScored
+     * Returns the same matches as search together with their BM25 scores, lower being better, so that results from
+     * several databases can be merged into one ranking.
+     */
+    static List<Match> searchScored(Connection conn, String text, int limit) throws SQLException {
+        String match = toMatchExpression(text);
+        List<Match> matches = new ArrayList<>();
+        if (match.isEmpty()) {
+            return matches;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(SEARCH_SQL)) {
+            pstmt.setString(1, match);
+            pstmt.setInt(2, limit);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    matches.add(new Match(BookPageQuery.readBook(rs), rs.getDouble("score")));
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * optimizeIndex
+     * Merges the full-text index into a single segment. Rows inserted one by one through the triggers leave the index
+     * split across many segments, which every search then has to visit, so this is worth running after bulk imports.
+     */
+    public static void optimizeIndex(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO books_fts (books_fts) VALUES ('optimize')");
+        }
+    }
+
+    /**
+     * toMatchExpression
+     * Turns free text into an FTS5 query. The text is split into words on anything that is not a letter or digit and
+     * each word becomes a quoted term, so user input can never be read as FTS5 query syntax. Only the last word is a
+     * prefix term; whole words are much cheaper to look up because FTS5 does not have to merge the entries of every
+     * token that shares the prefix.
+     */
+    static String toMatchExpression(String text) {
+        StringBuilder match = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append('"').append(word).append('"');
+                word.setLength(0);
+            }
+        }
+        if (match.length() > 0) {
+            match.append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * Match
+     * One search result and its BM25 score.
+     */
+    record Match(Book book, double score) {
+    }
+}
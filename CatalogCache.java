@@ -0,0 +1,310 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CatalogCache.java
+ * This class keeps recently used books in memory, keyed by book_id, so that showing or updating a single book does not
+ * have to go back to SQLite. Books are loaded lazily the first time they are asked for (read-through) and callers
+ * update the cache right after a successful write to the books table (write-through). The cache holds a bounded number
+ * of books and evicts with the CLOCK algorithm, an inexpensive approximation of least-recently-used.
+ * Entries live in an open-addressing hash table of primitive int keys so that a lookup never boxes the book_id.
+ * A book_id of 0 marks an empty slot, which is safe because SQLite never assigns 0 to an AUTOINCREMENT column.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class CatalogCache {
+    private static final int EMPTY = 0;
+
+    private final int maxEntries;
+    private final int mask;
+    private final int[] keys;
+    private final Book[] values;
+    private final boolean[] referenced;
+    private int size;
+    private int clockHand;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long writeGeneration;
+
+    public CatalogCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, maxEntries * 2 - 1)) << 1;
+        this.maxEntries = maxEntries;
+        this.mask = capacity - 1;
+        this.keys = new int[capacity];
+        this.values = new Book[capacity];
+        this.referenced = new boolean[capacity];
+    }
+
+    /**
+     * get
+     * Returns the book with the given ID, reading it from the database on a cache miss. Returns null when no such
+     * book exists. The database read happens outside the cache lock, so a slow query never blocks other lookups.
+     */
+    public Book get(int bookId) throws SQLException {
+        Book cached = getIfPresent(bookId);
+        if (cached != null) {
+            return cached;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return get(conn, bookId);
+        }
+    }
+
+    /**
+     * get
+     * Same as get(bookId), but a cache miss is read through the caller's connection. Use this from code that already
+     * holds a pooled connection, so it never waits on the pool for a second one.
+     */
+    public Book get(Connection conn, int bookId) throws SQLException {
+        Book cached = getIfPresent(bookId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = writeGeneration();
+        Book loaded = BookPageQuery.findById(conn, bookId);
+        if (loaded != null) {
+            putLoaded(List.of(loaded), generation);
+        }
+        return loaded;
+    }
+
+    /**
+     * writeGeneration
+     * Returns a counter that changes on every write-through update. Read it before querying the database and pass it
+     * to putLoaded, so rows read before a concurrent write can never overwrite the newer cached copy.
+     */
+    public synchronized long writeGeneration() {
+        return writeGeneration;
+    }
+
+    /**
+     * putLoaded
+     * Caches books that were just read from the database, unless a write-through update happened since the given
+     * generation was read, in which case the rows may be stale and are skipped.
+     */
+    public synchronized void putLoaded(Collection<Book> books, long generation) {
+        if (generation != writeGeneration) {
+            return;
+        }
+        for (Book book : books) {
+            store(book);
+        }
+    }
+
+    /**
+     * getIfPresent
+     * Returns the cached book with the given ID, or null without touching the database when it is not cached.
+     */
+    public synchronized Book getIfPresent(int bookId) {
+        int slot = find(bookId);
+        if (slot < 0) {
+            misses++;
+            return null;
+        }
+        hits++;
+        referenced[slot] = true;
+        return values[slot];
+    }
+
+    /**
+     * put
+     * Stores a book, replacing any cached copy with the same ID. Call after the book was written to the database.
+     */
+    public synchronized void put(Book book) {
+        writeGeneration++;
+        store(book);
+    }
+
+    private void store(Book book) {
+        int key = book.getBookId();
+        if (key == EMPTY) {
+            return;
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = book;
+            referenced[slot] = true;
+            return;
+        }
+        if (size >= maxEntries) {
+            evictOne();
+        }
+        slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = book;
+        referenced[slot] = true;
+        size++;
+    }
+
+    /**
+     * updateStatus
+     * Applies a check-out or check-in that has been written to the database to the cached copy of the book, if there
+     * is one.
+     */
+    public synchronized void updateStatus(int bookId, String status, String dueDate) {
+        writeGeneration++;
+        int slot = find(bookId);
+        if (slot >= 0) {
+            values[slot] = values[slot].withStatus(status, dueDate);
+        }
+    }
+
+    /**
+     * invalidate
+     * Drops a book from the cache, for example after it was removed from the database.
+     */
+    public synchronized void invalidate(int bookId) {
+        writeGeneration++;
+        int slot = find(bookId);
+        if (slot >= 0) {
+            removeSlot(slot);
+        }
+    }
+
+    /**
+     * applyChanges
+     * Brings the cached copies of changed books up to date with rows read from the ChangeFeed, which also reports
+     * changes made by other processes. A cached book is replaced by the row that was read, or dropped when the row is
+     * gone; books that are not cached are left alone. If a write-through update happened since the given generation
+     * was read, the changed books are dropped instead, because the rows read may be older than the cached copies.
+     */
+    public synchronized void applyChanges(Collection<ChangeFeed.Change> changes, long generation) {
+        for (ChangeFeed.Change change : changes) {
+            int slot = find(change.bookId());
+            if (slot < 0) {
+                continue;
+            }
+            if (change.book() != null && generation == writeGeneration) {
+                values[slot] = change.book();
+            } else {
+                removeSlot(slot);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        writeGeneration++;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = EMPTY;
+            values[i] = null;
+            referenced[i] = false;
+        }
+        size = 0;
+    }
+
+    /**
+     * snapshot
+     * Returns the books currently held in the cache, in no particular order.
+     */
+    public synchronized List<Book> snapshot() {
+        List<Book> books = new ArrayList<>(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                books.add(values[i]);
+            }
+        }
+        return books;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(size, maxEntries, hits, misses, evictions);
+    }
+
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * evictOne
+     * Advances the clock hand over the table, giving every recently used entry a second chance, and removes the first
+     * entry that has not been used since the hand last passed it.
+     */
+    private void evictOne() {
+        while (true) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) & mask;
+            if (keys[slot] == EMPTY) {
+                continue;
+            }
+            if (referenced[slot]) {
+                referenced[slot] = false;
+            } else {
+                removeSlot(slot);
+                evictions++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * removeSlot
+     * Empties a slot and shifts later entries of the same probe run back into it, so that lookups never need
+     * tombstones to find keys that were inserted after a collision.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            boolean canMove = gap <= next ? (home <= gap || home > next) : (home <= gap && home > next);
+            if (canMove) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                referenced[gap] = referenced[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        referenced[gap] = false;
+        size--;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * CacheStats
+     * Point-in-time cache counters.
+     */
+    public record CacheStats(int size, int maxEntries, long hits, long misses, long evictions) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Cached books: %d/%d, Hits: %d, Misses: %d (%.1f%% hit rate), Evictions: %d",
+                    size, maxEntries, hits, misses, hitRate() * 100, evictions);
+        }
+    }
+}
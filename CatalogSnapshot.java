@@ -0,0 +1,363 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CatalogSnapshot.java
+ * This class writes the books table to a compact binary snapshot file and reads it back through a memory-mapped
+ * FileChannel, so an instance can warm its catalog from one sequential file instead of querying every row or parsing
+ * libraryBooks.txt line by line. Opening a snapshot maps the file and checks it; books are then read straight out of
+ * the mapped pages on demand, and a title is only decoded into a String when it is asked for.
+ *
+ * File layout (all numbers big-endian):
+ *   header      magic "LIBSNAP1", int version, int book count, long index offset, long dictionary offset,
+ *               long file length, long export time in epoch milliseconds, long CRC32 of everything after the header
+ *   records     one per book in book_id order: int book_id, int author, int genre, int status, int due date,
+ *               int title length, title UTF-8 bytes
+ *   index       one int per book: the file offset of its record
+ *   dictionary  int count, then each string as int length and UTF-8 bytes
+ * Authors, genres, statuses and due dates are codes into the dictionary, which stores each distinct value once;
+ * -1 stands for null. The whole file must stay under 2 GB, the most a single mapping can hold.
+ */
+
+package libraryms.libraryms;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public final class CatalogSnapshot {
+    public static final String PATH_PROPERTY = "libraryms.snapshot.path";
+    private static final long MAGIC = 0x4C4942534E415031L; // "LIBSNAP1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 56;
+    private static final int RECORD_HEADER_BYTES = 24;
+    private static final int NULL_CODE = -1;
+    private static final int WARM_CHUNK_SIZE = 1_000;
+    private static final OperationMetrics EXPORT_METRICS = Metrics.operation("snapshot.export");
+    private static final OperationMetrics OPEN_METRICS = Metrics.operation("snapshot.open");
+
+    private final ByteBuffer data;
+    private final IntBuffer index;
+    private final String[] dictionary;
+    private final int size;
+    private final long exportedAt;
+
+    private CatalogSnapshot(ByteBuffer data, IntBuffer index, String[] dictionary, long exportedAt) {
+        this.data = data;
+        this.index = index;
+        this.dictionary = dictionary;
+        this.size = index.limit();
+        this.exportedAt = exportedAt;
+    }
+
+    /**
+     * configuredPath
+     * Returns the snapshot file named by the libraryms.snapshot.path system property, or null when it is not set.
+     */
+    public static Path configuredPath() {
+        String path = System.getProperty(PATH_PROPERTY);
+        return path == null || path.isBlank() ? null : Paths.get(path);
+    }
+
+    /**
+     * export
+     * Writes every book to the snapshot file in one pass over the books table, ordered by book_id, and returns the
+     * number of books written. The file is written next to the target and moved into place when complete, so a
+     * reader never sees half a snapshot. The write-ahead log is checkpointed first, so that a later checkpoint of rows
+     * already in the snapshot does not make the database file look newer than it.
+     */
+    public static int export(Connection conn, Path file) throws SQLException, IOException {
+        long started = EXPORT_METRICS.start();
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        }
+        long exportedAt = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+            Map<String, Integer> codes = new HashMap<>();
+            List<String> dictionary = new ArrayList<>();
+            int[] offsets = new int[1024];
+            int count = 0;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT " + BookPageQuery.COLUMNS + " FROM books ORDER BY book_id")) {
+                while (rs.next()) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = HEADER_BYTES + checkedSize(out);
+                    byte[] title = rs.getString("title").getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(rs.getInt("book_id"));
+                    out.writeInt(code(codes, dictionary, rs.getString("author")));
+                    out.writeInt(code(codes, dictionary, rs.getString("genre")));
+                    out.writeInt(code(codes, dictionary, rs.getString("status")));
+                    out.writeInt(code(codes, dictionary, rs.getString("due_date")));
+                    out.writeInt(title.length);
+                    out.write(title);
+                }
+            }
+            long indexOffset = HEADER_BYTES + checkedSize(out);
+            for (int i = 0; i < count; i++) {
+                out.writeInt(offsets[i]);
+            }
+            long dictionaryOffset = HEADER_BYTES + checkedSize(out);
+            out.writeInt(dictionary.size());
+            for (String value : dictionary) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.flush();
+            long end = HEADER_BYTES + checkedSize(out);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC).putInt(VERSION).putInt(count).putLong(indexOffset).putLong(dictionaryOffset)
+                    .putLong(end).putLong(exportedAt).putLong(crc.getValue()).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            EXPORT_METRICS.rowsRead(count);
+            EXPORT_METRICS.success(started);
+            return count;
+        } catch (SQLException | IOException | RuntimeException e) {
+            EXPORT_METRICS.failure(started);
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+    }
+
+    /**
+     * open
+     * Maps the snapshot file into memory and checks its magic number, version, length and checksum, throwing
+     * IOException when any of them is wrong. Only the dictionary is decoded; the records stay in the mapped pages.
+     */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        long started = OPEN_METRICS.start();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a catalog snapshot.");
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (data.getLong(0) != MAGIC) {
+                throw new IOException(file + " is not a catalog snapshot.");
+            }
+            if (data.getInt(8) != VERSION) {
+                throw new IOException(file + " is snapshot version " + data.getInt(8) + ", expected " + VERSION + ".");
+            }
+            int count = data.getInt(12);
+            long indexOffset = data.getLong(16);
+            long dictionaryOffset = data.getLong(24);
+            if (data.getLong(32) != length || indexOffset + 4L * count != dictionaryOffset
+                    || dictionaryOffset > length || count < 0) {
+                throw new IOException(file + " is truncated or damaged.");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data.slice(HEADER_BYTES, (int) length - HEADER_BYTES));
+            if (crc.getValue() != data.getLong(48)) {
+                throw new IOException(file + " failed its checksum.");
+            }
+
+            int position = (int) dictionaryOffset;
+            String[] dictionary = new String[data.getInt(position)];
+            position += 4;
+            for (int i = 0; i < dictionary.length; i++) {
+                int bytes = data.getInt(position);
+                dictionary[i] = decode(data, position + 4, bytes);
+                position += 4 + bytes;
+            }
+            IntBuffer index = data.slice((int) indexOffset, 4 * count).asIntBuffer();
+            OPEN_METRICS.rowsRead(count);
+            OPEN_METRICS.success(started);
+            return new CatalogSnapshot(data, index, dictionary, data.getLong(40));
+        } catch (IOException | RuntimeException e) {
+            OPEN_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * isCurrentFor
+     * Tells whether the snapshot was exported after the last change to the given database file and its write-ahead
+     * log, and so still matches it. An empty log holds no changes, so only a log with frames in it counts.
+     */
+    public boolean isCurrentFor(Path database) throws IOException {
+        long modified = Files.getLastModifiedTime(database).toMillis();
+        Path wal = Paths.get(database + "-wal");
+        if (Files.exists(wal) && Files.size(wal) > 0) {
+            modified = Math.max(modified, Files.getLastModifiedTime(wal).toMillis());
+        }
+        return exportedAt >= modified;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getExportedAt() {
+        return exportedAt;
+    }
+
+    public int bookId(int row) {
+        return data.getInt(index.get(row));
+    }
+
+    /**
+     * titleBytes
+     * Returns the UTF-8 bytes of the row's title as a read-only view of the mapped file, without copying them.
+     */
+    public ByteBuffer titleBytes(int row) {
+        int offset = index.get(row);
+        return data.slice(offset + RECORD_HEADER_BYTES, data.getInt(offset + 20)).asReadOnlyBuffer();
+    }
+
+    public String title(int row) {
+        int offset = index.get(row);
+        return decode(data, offset + RECORD_HEADER_BYTES, data.getInt(offset + 20));
+    }
+
+    public String author(int row) {
+        return lookup(data.getInt(index.get(row) + 4));
+    }
+
+    public String genre(int row) {
+        return lookup(data.getInt(index.get(row) + 8));
+    }
+
+    public String status(int row) {
+        return lookup(data.getInt(index.get(row) + 12));
+    }
+
+    public String dueDate(int row) {
+        return lookup(data.getInt(index.get(row) + 16));
+    }
+
+    public Book book(int row) {
+        return new Book(bookId(row), title(row), author(row), genre(row), status(row), dueDate(row));
+    }
+
+    /**
+     * findRow
+     * Returns the row of the book with the given ID, found by binary search over the book_id order of the file, or
+     * -1 when the snapshot has no such book.
+     */
+    public int findRow(int bookId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = bookId(mid);
+            if (midId < bookId) {
+                low = mid + 1;
+            } else if (midId > bookId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public void forEach(Consumer<Book> action) {
+        for (int row = 0; row < size; row++) {
+            action.accept(book(row));
+        }
+    }
+
+    /**
+     * toColumnarCatalog
+     * Copies every book of the snapshot into a new ColumnarCatalog.
+     */
+    public ColumnarCatalog toColumnarCatalog() {
+        ColumnarCatalog catalog = new ColumnarCatalog(size);
+        forEach(catalog::addBook);
+        catalog.trimToSize();
+        return catalog;
+    }
+
+    /**
+     * warm
+     * Fills the cache with as many books from the snapshot as it can hold, lowest book_id first, and returns how many
+     * were added. If the application writes to the cache meanwhile, warming stops, because the snapshot may no longer
+     * match the rows that changed.
+     */
+    public int warm(CatalogCache cache) {
+        int limit = Math.min(size, cache.getStats().maxEntries());
+        int warmed = 0;
+        long generation = cache.writeGeneration();
+        List<Book> chunk = new ArrayList<>(WARM_CHUNK_SIZE);
+        for (int row = 0; row < limit; row++) {
+            chunk.add(book(row));
+            if (chunk.size() == WARM_CHUNK_SIZE || row == limit - 1) {
+                if (cache.writeGeneration() != generation) {
+                    break;
+                }
+                cache.putLoaded(chunk, generation);
+                warmed += chunk.size();
+                chunk.clear();
+            }
+        }
+        return warmed;
+    }
+
+    private String lookup(int code) {
+        return code == NULL_CODE ? null : dictionary[code];
+    }
+
+    private static int code(Map<String, Integer> codes, List<String> dictionary, String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            codes.put(value, code);
+            dictionary.add(value);
+        }
+        return code;
+    }
+
+    private static int checkedSize(DataOutputStream out) throws IOException {
+        int written = out.size();
+        if (written < 0 || written > Integer.MAX_VALUE - HEADER_BYTES) {
+            throw new IOException("The catalog is too large for a snapshot file.");
+        }
+        return written;
+    }
+
+    private static String decode(ByteBuffer data, int offset, int length) {
+        if (data.hasArray()) {
+            return new String(data.array(), data.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        data.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
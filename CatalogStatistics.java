@@ -0,0 +1,472 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CatalogStatistics.java
+ * This class answers how many books the catalog holds, and how many of them are checked out, per genre, per author
+ * and per status. The answers are counters in the book_stats table that triggers on the books table keep up to date
+ * in the same transaction as every add, delete, check-out and check-in, whichever window, server or import makes it.
+ * Reading one counter is a primary key lookup and listing a dimension reads only its counters, largest first, so
+ * the statistics cost the same for ten books as for ten million.
+ * The counters can only drift from the books table if rows are changed without the triggers, such as by a database
+ * that was copied in from an older version of the application. reconcile counts the books table again and corrects
+ * every counter that differs. The count splits the table into ranges of book_id and scans them in parallel, each on
+ * its own connection and in its own read transaction, so it never holds the write lock while counting; the write
+ * lock is taken only to apply a count that no change has overtaken. startReconciling runs it every
+ * libraryms.stats.reconcileMinutes minutes (60 by default; 0 turns it off).
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class CatalogStatistics {
+    public static final String RECONCILE_INTERVAL_PROPERTY = "libraryms.stats.reconcileMinutes";
+    public static final String THREADS_PROPERTY = "libraryms.stats.threads";
+    private static final long DEFAULT_RECONCILE_INTERVAL_MINUTES = 60;
+    private static final int RANGES_PER_THREAD = 4;
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 10_000;
+    private static final String COUNT_SQL = "SELECT value, books, checked_out FROM book_stats"
+            + " WHERE dimension = ? AND value = ?";
+    private static final String COUNTS_SQL = "SELECT value, books, checked_out FROM book_stats"
+            + " INDEXED BY idx_book_stats_books WHERE dimension = ? ORDER BY books DESC, value LIMIT ?";
+    private static final String ALL_COUNTERS_SQL = "SELECT dimension, value, books, checked_out FROM book_stats";
+    private static final String ID_RANGE_SQL = "SELECT MIN(book_id), MAX(book_id) FROM books";
+    private static final String SCAN_SQL = "SELECT genre, author, status, COUNT(*) FROM books"
+            + " WHERE book_id BETWEEN ? AND ? GROUP BY genre, author, status";
+    private static final String PUT_COUNTER_SQL = "INSERT OR REPLACE INTO book_stats"
+            + " (dimension, value, books, checked_out) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_COUNTER_SQL = "DELETE FROM book_stats WHERE dimension = ? AND value = ?";
+    private static final String TOTAL = "total";
+    private static final long MIXED_VERSIONS = -1;
+    private static final Logger LOG = Logger.getLogger("libraryms.stats");
+    private static final OperationMetrics RECONCILE_METRICS = Metrics.operation("stats.reconcile");
+
+    private final String url;
+    private final int threads;
+    private ScheduledExecutorService reconciler;
+
+    /**
+     * CatalogStatistics
+     * Creates statistics that reconcile against the database at the given JDBC URL with libraryms.stats.threads
+     * scanning threads, one per processor by default.
+     */
+    public CatalogStatistics(String url) {
+        this(url, Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public CatalogStatistics(String url, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread must scan the catalog.");
+        }
+        this.url = url;
+        this.threads = threads;
+    }
+
+    /**
+     * Dimension
+     * What the books are counted by. Books without a genre or a status are counted under an empty value.
+     */
+    public enum Dimension {
+        GENRE("genre"),
+        AUTHOR("author"),
+        STATUS("status");
+
+        private final String column;
+
+        Dimension(String column) {
+            this.column = column;
+        }
+
+        /**
+         * valueFor
+         * Returns the value the book is counted under in this dimension.
+         */
+        private String valueFor(String genre, String author, String status) {
+            switch (this) {
+                case GENRE:
+                    return genre == null ? "" : genre;
+                case AUTHOR:
+                    return author;
+                default:
+                    return status == null ? "" : status;
+            }
+        }
+    }
+
+    /**
+     * Count
+     * The number of books with one genre, author or status, and how many of them are checked out.
+     */
+    public record Count(String value, long books, long checkedOut) {
+        public long available() {
+            return books - checkedOut;
+        }
+    }
+
+    /**
+     * Reconciliation
+     * What one reconcile run found: the books it counted, the counters it compared, how many of those it had to
+     * correct, and whether it applied its count at all. A run whose every count was overtaken by writes corrects
+     * nothing and leaves the counters to the next run.
+     */
+    public record Reconciliation(long booksScanned, int counters, int corrected, boolean applied, long elapsedNanos) {
+        @Override
+        public String toString() {
+            if (!applied) {
+                return String.format("%d books counted in %.0f ms, but the catalog kept changing, so nothing was"
+                        + " corrected", booksScanned, elapsedNanos / 1e6);
+            }
+            return String.format("%d books counted, %d of %d counters corrected in %.0f ms", booksScanned, corrected,
+                    counters, elapsedNanos / 1e6);
+        }
+    }
+
+    /**
+     * total
+     * Returns the number of books in the catalog and how many of them are checked out.
+     */
+    public static Count total(Connection conn) throws SQLException {
+        Count total = read(conn, TOTAL, "");
+        return total == null ? new Count("", 0, 0) : total;
+    }
+
+    /**
+     * count
+     * Returns the counts for one genre, author or status, with zero books when the catalog has none.
+     */
+    public static Count count(Connection conn, Dimension dimension, String value) throws SQLException {
+        Count count = read(conn, dimension.column, value);
+        return count == null ? new Count(value, 0, 0) : count;
+    }
+
+    /**
+     * counts
+     * Returns up to limit counts of the dimension, the values with the most books first.
+     */
+    public static List<Count> counts(Connection conn, Dimension dimension, int limit) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COUNTS_SQL)) {
+            pstmt.setString(1, dimension.column);
+            pstmt.setInt(2, limit);
+            List<Count> counts = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.add(new Count(rs.getString(1), rs.getLong(2), rs.getLong(3)));
+                }
+            }
+            return counts;
+        }
+    }
+
+    private static Count read(Connection conn, String dimension, String value) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COUNT_SQL)) {
+            pstmt.setString(1, dimension);
+            pstmt.setString(2, value);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? new Count(rs.getString(1), rs.getLong(2), rs.getLong(3)) : null;
+            }
+        }
+    }
+
+    /**
+     * reconcile
+     * Counts every book again and corrects the counters that differ, which rebuilds them from scratch when the
+     * table is empty. The count never blocks writers: every slice of the scan is read in its own read transaction,
+     * which notes the change feed version it sees. Only when every slice saw the same version does reconcile take
+     * the write lock, and it applies the count only if that is still the current version. A count that was
+     * overtaken by writes is thrown away and taken again, a few times; if the catalog keeps changing the run gives
+     * up without correcting anything and the next run tries again.
+     */
+    public Reconciliation reconcile() throws SQLException {
+        long started = RECONCILE_METRICS.start();
+        try (ConnectionPool pool = new ConnectionPool(url, threads + 1, ACQUIRE_TIMEOUT_MILLIS);
+             Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement()) {
+            Reconciliation result = null;
+            Tally tally = null;
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS && result == null; attempt++) {
+                tally = scan(pool);
+                if (tally.version == MIXED_VERSIONS) {
+                    continue;
+                }
+                stmt.execute("BEGIN IMMEDIATE");
+                try {
+                    if (ChangeFeed.currentVersion(conn) != tally.version) {
+                        stmt.execute("ROLLBACK");
+                        continue;
+                    }
+                    int corrected = apply(conn, tally);
+                    stmt.execute("COMMIT");
+                    result = new Reconciliation(tally.books, tally.counters(), corrected, true,
+                            System.nanoTime() - started);
+                } catch (SQLException | RuntimeException e) {
+                    stmt.execute("ROLLBACK");
+                    throw e;
+                }
+            }
+            if (result == null) {
+                result = new Reconciliation(tally.books, tally.counters(), 0, false, System.nanoTime() - started);
+            }
+            RECONCILE_METRICS.rowsRead(result.booksScanned());
+            RECONCILE_METRICS.rowsWritten(result.corrected());
+            RECONCILE_METRICS.success(started);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            RECONCILE_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * startReconciling
+     * Reconciles every libraryms.stats.reconcileMinutes minutes on a background thread, starting one interval from
+     * now, and passes every run that had to correct a counter to the listener after logging it as a warning to the
+     * "libraryms.stats" logger. A run that gave up because the catalog kept changing is logged as info. Safe to call
+     * more than once.
+     */
+    public synchronized void startReconciling(Consumer<Reconciliation> listener) {
+        long interval = Long.getLong(RECONCILE_INTERVAL_PROPERTY, DEFAULT_RECONCILE_INTERVAL_MINUTES);
+        if (reconciler != null || interval <= 0) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(() -> {
+            try {
+                Reconciliation result = reconcile();
+                if (!result.applied()) {
+                    LOG.info("Statistics were not reconciled; trying again at the next run: " + result);
+                } else if (result.corrected() > 0) {
+                    LOG.warning("Statistics had drifted from the books table: " + result);
+                    listener.accept(result);
+                }
+            } catch (SQLException | RuntimeException e) {
+                LOG.log(Level.WARNING, "Reconciling the statistics failed.", e);
+            }
+        }, interval, interval, TimeUnit.MINUTES);
+    }
+
+    public synchronized void stopReconciling() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+
+    /**
+     * scan
+     * Counts the books table in parallel. The book_id range is cut into a few slices per thread so that a slice
+     * with many deleted books does not leave the other threads idle. SQLite groups each slice by genre, author and
+     * status, so only one row per combination comes back to be counted into the slice's tally, and the tallies are
+     * added up at the end. The ID range and every slice are read in read transactions that note the change feed
+     * version they saw; the total carries that version, or MIXED_VERSIONS when they did not all see the same one.
+     */
+    private Tally scan(ConnectionPool pool) throws SQLException {
+        Tally total = new Tally();
+        long min;
+        long max;
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("BEGIN");
+            try (ResultSet rs = stmt.executeQuery(ID_RANGE_SQL)) {
+                rs.next();
+                min = rs.getLong(1);
+                max = rs.getLong(2);
+                total.version = ChangeFeed.currentVersion(conn);
+            } finally {
+                stmt.execute("COMMIT");
+            }
+        }
+        if (max < min || max == 0) {
+            return total;
+        }
+        int slices = threads * RANGES_PER_THREAD;
+        long sliceSize = Math.max(1, (max - min + slices) / slices);
+        ExecutorService scanners = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stats-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Tally>> parts = new ArrayList<>();
+            for (long first = min; first <= max; first += sliceSize) {
+                long from = first;
+                long to = Math.min(max, first + sliceSize - 1);
+                parts.add(scanners.submit(() -> scanRange(pool, from, to)));
+            }
+            for (Future<Tally> part : parts) {
+                total.add(part.get());
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Counting the catalog was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException("Counting the catalog failed.", e.getCause());
+        } finally {
+            scanners.shutdownNow();
+        }
+    }
+
+    /**
+     * scanRange
+     * Counts one slice in a read transaction, so the version it notes is the one the whole slice was read at.
+     */
+    private static Tally scanRange(ConnectionPool pool, long from, long to) throws SQLException {
+        Tally tally = new Tally();
+        try (Connection conn = pool.borrow();
+             Statement stmt = conn.createStatement();
+             PreparedStatement pstmt = conn.prepareStatement(SCAN_SQL)) {
+            stmt.execute("BEGIN");
+            try {
+                tally.version = ChangeFeed.currentVersion(conn);
+                pstmt.setLong(1, from);
+                pstmt.setLong(2, to);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        tally.count(rs.getString(1), rs.getString(2), rs.getString(3), rs.getLong(4));
+                    }
+                }
+            } finally {
+                stmt.execute("COMMIT");
+            }
+        }
+        return tally;
+    }
+
+    /**
+     * apply
+     * Writes every counter of the tally that differs from book_stats and deletes the counters the tally does not
+     * have, returning how many were corrected.
+     */
+    private static int apply(Connection conn, Tally tally) throws SQLException {
+        Map<String, Map<String, long[]>> expected = new HashMap<>();
+        for (Map.Entry<Dimension, Map<String, long[]>> dimension : tally.counts.entrySet()) {
+            expected.put(dimension.getKey().column, dimension.getValue());
+        }
+        Map<String, long[]> totals = new HashMap<>();
+        if (tally.books > 0) {
+            totals.put("", new long[]{tally.books, tally.checkedOut});
+        }
+        expected.put(TOTAL, totals);
+
+        int corrected = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(ALL_COUNTERS_SQL);
+             PreparedStatement put = conn.prepareStatement(PUT_COUNTER_SQL);
+             PreparedStatement delete = conn.prepareStatement(DELETE_COUNTER_SQL)) {
+            Map<String, Map<String, long[]>> stored = new HashMap<>();
+            while (rs.next()) {
+                stored.computeIfAbsent(rs.getString(1), dimension -> new HashMap<>())
+                        .put(rs.getString(2), new long[]{rs.getLong(3), rs.getLong(4)});
+            }
+            for (Map.Entry<String, Map<String, long[]>> dimension : expected.entrySet()) {
+                Map<String, long[]> current = stored.getOrDefault(dimension.getKey(), Map.of());
+                for (Map.Entry<String, long[]> counter : dimension.getValue().entrySet()) {
+                    long[] found = current.get(counter.getKey());
+                    if (found == null || found[0] != counter.getValue()[0] || found[1] != counter.getValue()[1]) {
+                        put.setString(1, dimension.getKey());
+                        put.setString(2, counter.getKey());
+                        put.setLong(3, counter.getValue()[0]);
+                        put.setLong(4, counter.getValue()[1]);
+                        put.addBatch();
+                        corrected++;
+                    }
+                }
+            }
+            for (Map.Entry<String, Map<String, long[]>> dimension : stored.entrySet()) {
+                Map<String, long[]> wanted = expected.getOrDefault(dimension.getKey(), Map.of());
+                for (String value : dimension.getValue().keySet()) {
+                    if (!wanted.containsKey(value)) {
+                        delete.setString(1, dimension.getKey());
+                        delete.setString(2, value);
+                        delete.addBatch();
+                        corrected++;
+                    }
+                }
+            }
+            put.executeBatch();
+            delete.executeBatch();
+        }
+        return corrected;
+    }
+
+    /**
+     * Tally
+     * Book and checked-out counts per value of every dimension, as one slice of the scan counts them, and the change
+     * feed version they were counted at.
+     */
+    private static final class Tally {
+        private final Map<Dimension, Map<String, long[]>> counts = new EnumMap<>(Dimension.class);
+        private long books;
+        private long checkedOut;
+        private long version;
+
+        private Tally() {
+            for (Dimension dimension : Dimension.values()) {
+                counts.put(dimension, new HashMap<>());
+            }
+        }
+
+        private void count(String genre, String author, String status, long books) {
+            long out = Objects.equals(status, "checked out") ? books : 0;
+            this.books += books;
+            checkedOut += out;
+            for (Map.Entry<Dimension, Map<String, long[]>> dimension : counts.entrySet()) {
+                long[] counter = dimension.getValue().computeIfAbsent(
+                        dimension.getKey().valueFor(genre, author, status), value -> new long[2]);
+                counter[0] += books;
+                counter[1] += out;
+            }
+        }
+
+        private void add(Tally other) {
+            if (other.version != version) {
+                version = MIXED_VERSIONS;
+            }
+            books += other.books;
+            checkedOut += other.checkedOut;
+            for (Map.Entry<Dimension, Map<String, long[]>> dimension : other.counts.entrySet()) {
+                Map<String, long[]> mine = counts.get(dimension.getKey());
+                dimension.getValue().forEach((value, counter) -> {
+                    long[] sum = mine.computeIfAbsent(value, key -> new long[2]);
+                    sum[0] += counter[0];
+                    sum[1] += counter[1];
+                });
+            }
+        }
+
+        private int counters() {
+            int total = books > 0 ? 1 : 0;
+            for (Map<String, long[]> values : counts.values()) {
+                total += values.size();
+            }
+            return total;
+        }
+    }
+}
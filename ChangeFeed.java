@@ -0,0 +1,152 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ChangeFeed.java
+ * This class reads the change log of the books table, so a client that has shown the catalog once can keep it up to
+ * date by applying only what changed since, including changes made by other desks and by the server. Triggers on the
+ * books table add one row to book_changes for every insert, update and delete, whoever makes it, numbered by an
+ * AUTOINCREMENT version. SQLite has a single writer and a rolled-back write also rolls back its versions, so versions
+ * become visible in order and without gaps: a reader that sees version N has also seen every version before it.
+ * A client remembers the last version it applied and asks for the changes after it. The log keeps the most recent
+ * changes only (100,000 by default, set with libraryms.changes.retained); a client that has fallen further behind
+ * than that is told to reload instead. A client that is behind by fewer changes reads them a batch at a time.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ChangeFeed {
+    public static final String RETAINED_PROPERTY = "libraryms.changes.retained";
+    private static final long DEFAULT_RETAINED_CHANGES = 100_000;
+    private static final String CURRENT_VERSION_SQL = "SELECT seq FROM sqlite_sequence WHERE name = 'book_changes'";
+    private static final String OLDEST_VERSION_SQL = "SELECT MIN(version) FROM book_changes";
+    private static final String CHANGES_SQL = "SELECT c.version, c.book_id, c.operation,"
+            + " b.book_id, b.title, b.author, b.genre, b.status, b.due_date"
+            + " FROM book_changes c LEFT JOIN books b ON b.book_id = c.book_id"
+            + " WHERE c.version > ? AND c.version <= ? ORDER BY c.version LIMIT ?";
+    private static final String PRUNE_SQL = "DELETE FROM book_changes WHERE version <= ?";
+    private static final OperationMetrics READ_METRICS = Metrics.operation("changes.read");
+    private static final OperationMetrics PRUNE_METRICS = Metrics.operation("changes.prune");
+
+    private ChangeFeed() {
+    }
+
+    /**
+     * currentVersion
+     * Returns the version of the latest committed change, or 0 when the books table has never changed. A client
+     * starts from here after it has read the catalog.
+     */
+    public static long currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(CURRENT_VERSION_SQL)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * changesSince
+     * Returns up to limit changes made after the given version, oldest first, each with the book as it is now (null
+     * once it has been deleted). When more changes are waiting than the limit, the batch says so and its version is
+     * that of its last change, so the client applies it and asks again from there. Only when some of the changes have
+     * already been pruned from the log does the batch hold no changes and ask for a reload instead; its version is
+     * then the current one, so the client can continue from there once it has reloaded.
+     */
+    public static ChangeBatch changesSince(Connection conn, long version, int limit) throws SQLException {
+        long started = READ_METRICS.start();
+        try {
+            long current = currentVersion(conn);
+            if (current <= version) {
+                READ_METRICS.success(started);
+                return new ChangeBatch(List.of(), version, false, false);
+            }
+            if (oldestVersion(conn) > version + 1) {
+                READ_METRICS.success(started);
+                return new ChangeBatch(List.of(), current, true, false);
+            }
+            List<Change> changes = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(CHANGES_SQL)) {
+                pstmt.setLong(1, version);
+                pstmt.setLong(2, current);
+                pstmt.setInt(3, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Book book = rs.getObject(4) == null ? null : new Book(rs.getInt(4), rs.getString(5),
+                                rs.getString(6), rs.getString(7), rs.getString(8), rs.getString(9));
+                        changes.add(new Change(rs.getLong(1), rs.getInt(2), Operation.valueOf(rs.getString(3)), book));
+                    }
+                }
+            }
+            READ_METRICS.rowsRead(changes.size());
+            READ_METRICS.success(started);
+            long last = changes.isEmpty() ? current : changes.get(changes.size() - 1).version();
+            return new ChangeBatch(changes, last, false, last < current);
+        } catch (SQLException | RuntimeException e) {
+            READ_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * prune
+     * Deletes all but the most recent libraryms.changes.retained changes from the log and returns how many were
+     * deleted. Runs inside the caller's transaction.
+     */
+    public static int prune(Connection conn) throws SQLException {
+        long started = PRUNE_METRICS.start();
+        try (PreparedStatement pstmt = conn.prepareStatement(PRUNE_SQL)) {
+            pstmt.setLong(1, currentVersion(conn) - Long.getLong(RETAINED_PROPERTY, DEFAULT_RETAINED_CHANGES));
+            int deleted = pstmt.executeUpdate();
+            PRUNE_METRICS.rowsWritten(deleted);
+            PRUNE_METRICS.success(started);
+            return deleted;
+        } catch (SQLException | RuntimeException e) {
+            PRUNE_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * oldestVersion
+     * Returns the oldest version still in the log, or Long.MAX_VALUE when every change has been pruned.
+     */
+    private static long oldestVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(OLDEST_VERSION_SQL)) {
+            long oldest = rs.next() ? rs.getLong(1) : 0;
+            return oldest == 0 ? Long.MAX_VALUE : oldest;
+        }
+    }
+
+    /**
+     * Operation
+     * What a change did to its book. The names are the values stored in book_changes.operation.
+     */
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * Change
+     * One change to one book, and the book as it was when the change was read, or null when it no longer exists.
+     */
+    public record Change(long version, int bookId, Operation operation, Book book) {
+    }
+
+    /**
+     * ChangeBatch
+     * The changes returned by one call to changesSince and the version to ask from next time. When more is set there
+     * were more changes than the limit, and the client should ask again right away. When reload is set the changes
+     * are no longer in the log, and the client should read what it shows again instead.
+     */
+    public record ChangeBatch(List<Change> changes, long version, boolean reload, boolean more) {
+    }
+}
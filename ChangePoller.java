@@ -0,0 +1,125 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ChangePoller.java
+ * This class follows the ChangeFeed on a background thread, so a window or server notices changes made by other
+ * desks and processes without reading the catalog again. Each poll asks for the changes after the last version it
+ * saw, brings the shared CatalogCache up to date with them, and passes them to a listener, which applies them to
+ * whatever it shows. A poll that finds nothing new costs one indexed lookup, so polling every second is cheap; the
+ * interval is set with libraryms.changes.pollMillis (1000 by default; 0 turns polling off).
+ * Every so often the poller also queues a prune of the change log on the WriteQueue, so the log stays bounded.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ChangePoller {
+    public static final String POLL_INTERVAL_PROPERTY = "libraryms.changes.pollMillis";
+    private static final long DEFAULT_POLL_INTERVAL_MILLIS = 1_000;
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int MAX_BATCH_SIZE = 1_000;
+    private static final Logger LOG = Logger.getLogger(ChangePoller.class.getName());
+    private static final OperationMetrics PRUNE_WRITE_METRICS = Metrics.operation("changes.pruneWrite");
+
+    private final CatalogCache catalog;
+    private final WriteQueue writes;
+    private ScheduledExecutorService poller;
+    private volatile long version = -1;
+    private long lastPruned;
+
+    /**
+     * ChangePoller
+     * Creates a poller that keeps the given cache up to date and prunes the change log through the given queue.
+     * Either may be null to skip that part.
+     */
+    public ChangePoller(CatalogCache catalog, WriteQueue writes) {
+        this.catalog = catalog;
+        this.writes = writes;
+    }
+
+    /**
+     * start
+     * Starts polling. The first poll only records the current version, so the listener hears about changes made
+     * from then on; it is called on the polling thread with every batch that has changes, and with a batch marked
+     * reload when the poller fell too far behind to catch up change by change. Safe to call more than once.
+     */
+    public synchronized void start(Consumer<ChangeFeed.ChangeBatch> listener) {
+        long interval = Long.getLong(POLL_INTERVAL_PROPERTY, DEFAULT_POLL_INTERVAL_MILLIS);
+        if (poller != null || interval <= 0) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                poll(listener);
+            } catch (SQLException | RuntimeException e) {
+                LOG.log(Level.WARNING, "Polling the change feed failed.", e);
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /**
+     * getVersion
+     * Returns the last version the poller has applied, or -1 before the first poll.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * poll
+     * Reads and applies the changes since the last poll. Changes are read in batches until none are left, so a burst
+     * of writes is caught up in one poll.
+     */
+    private void poll(Consumer<ChangeFeed.ChangeBatch> listener) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (version < 0) {
+                version = ChangeFeed.currentVersion(conn);
+                lastPruned = System.currentTimeMillis();
+                return;
+            }
+            while (true) {
+                long generation = catalog == null ? 0 : catalog.writeGeneration();
+                ChangeFeed.ChangeBatch batch = ChangeFeed.changesSince(conn, version, MAX_BATCH_SIZE);
+                if (batch.version() == version) {
+                    break;
+                }
+                if (catalog != null) {
+                    if (batch.reload()) {
+                        catalog.clear();
+                    } else {
+                        catalog.applyChanges(batch.changes(), generation);
+                    }
+                }
+                version = batch.version();
+                listener.accept(batch);
+                if (!batch.more()) {
+                    break;
+                }
+            }
+        }
+        if (writes != null && System.currentTimeMillis() - lastPruned >= PRUNE_INTERVAL_MILLIS) {
+            lastPruned = System.currentTimeMillis();
+            writes.submit(PRUNE_WRITE_METRICS, ChangeFeed::prune);
+        }
+    }
+}
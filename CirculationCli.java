@@ -0,0 +1,75 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CirculationCli.java
+ * This class checks books out and in from the command line, without starting the window, for example from a
+ * returns-desk scanner script. The book IDs are given as arguments, or read from standard input when the only ID is
+ * "-", and are processed as one transaction by the CirculationService. Each ID's result is printed on its own line,
+ * followed by a summary. The exit status is 0 when every book changed, 1 when some did not, and 2 on bad input.
+ * Usage: java libraryms.libraryms.CirculationCli checkout|checkin [book ID...|-]
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+public final class CirculationCli {
+
+    private CirculationCli() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !(args[0].equals("checkout") || args[0].equals("checkin"))) {
+            System.err.println("Usage: CirculationCli checkout|checkin [book ID...|-]");
+            System.exit(2);
+        }
+        boolean checkOut = args[0].equals("checkout");
+        List<Integer> bookIds;
+        try {
+            bookIds = CirculationService.parseBookIds(args[1].equals("-") ? readStandardInput()
+                    : String.join(" ", List.of(args).subList(1, args.length)));
+        } catch (NumberFormatException | IOException e) {
+            System.err.println("Invalid book IDs: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        CirculationService circulation = new CirculationService(Library.getCatalog());
+        List<CirculationService.Result> results;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            results = checkOut ? circulation.checkOut(conn, bookIds) : circulation.checkIn(conn, bookIds);
+        } catch (SQLException e) {
+            System.err.println("Database error: " + e.getMessage());
+            System.exit(2);
+            return;
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+
+        for (CirculationService.Result result : results) {
+            System.out.println(result);
+        }
+        String action = checkOut ? CirculationService.CHECKED_OUT : CirculationService.CHECKED_IN;
+        System.out.println(CirculationService.summarize(results, action));
+        boolean allChanged = results.stream().allMatch(CirculationService.Result::changed);
+        System.exit(allChanged ? 0 : 1);
+    }
+
+    private static String readStandardInput() throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (Reader reader = new InputStreamReader(System.in, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,323 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CirculationService.java
+ * This class checks books out and in. It takes a whole cart of book IDs at once, such as everything dropped on the
+ * returns desk, and applies them as one batch of prepared statements inside a single transaction, so a cart costs one
+ * commit instead of one per book and is either recorded completely or not at all. Every ID gets its own result telling
+ * whether the book changed, was already in the requested state, or does not exist. A book is only checked out when it
+ * is currently checked in, and only checked in when it is not already checked in. A book that patrons are waiting
+ * for is handed to the next of them by the HoldQueue in the same transaction that checks it in. Successful changes
+ * are applied to the shared CatalogCache, and to the OverdueTracker when one is given, after the batch has run.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CirculationService {
+    public static final Period LOAN_PERIOD = Period.ofWeeks(2);
+    static final String CHECKED_OUT = "checked out";
+    static final String CHECKED_IN = "checked in";
+    static final String CHECK_OUT_SQL =
+            "UPDATE books SET status = 'checked out', due_date = ? WHERE book_id = ? AND status = 'checked in'";
+    static final String CHECK_IN_SQL =
+            "UPDATE books SET status = 'checked in', due_date = NULL WHERE book_id = ? AND status IS NOT 'checked in'";
+    private static final String EXISTING_SQL = "SELECT book_id FROM books WHERE book_id IN"
+            + " (SELECT value FROM json_each(?))";
+    private static final OperationMetrics CHECK_OUT_METRICS = Metrics.operation("circulation.checkOut");
+    private static final OperationMetrics CHECK_IN_METRICS = Metrics.operation("circulation.checkIn");
+
+    private final CatalogCache catalog;
+    private final OverdueTracker overdue;
+
+    public CirculationService(CatalogCache catalog) {
+        this(catalog, null);
+    }
+
+    /**
+     * CirculationService
+     * Creates a service that also reports every successful check-out and check-in to the given loan tracker. Either
+     * argument may be null.
+     */
+    public CirculationService(CatalogCache catalog, OverdueTracker overdue) {
+        this.catalog = catalog;
+        this.overdue = overdue;
+    }
+
+    /**
+     * checkOut
+     * Checks out every book in the list, due one loan period from today.
+     */
+    public List<Result> checkOut(Connection conn, List<Integer> bookIds) throws SQLException {
+        return checkOut(conn, bookIds, LocalDate.now().plus(LOAN_PERIOD));
+    }
+
+    /**
+     * checkOut
+     * Checks out every book in the list with the given due date, in one transaction. Books that are already checked
+     * out are left alone and reported as ALREADY_IN_STATE.
+     */
+    public List<Result> checkOut(Connection conn, List<Integer> bookIds, LocalDate dueDate) throws SQLException {
+        String due = dueDate.toString();
+        List<Result> results = apply(conn, CHECK_OUT_METRICS, CHECK_OUT_SQL, bookIds, (pstmt, bookId) -> {
+            pstmt.setString(1, due);
+            pstmt.setInt(2, bookId);
+        }, due, false);
+        recordChanges(results, CHECKED_OUT, dueDate);
+        return results;
+    }
+
+    /**
+     * checkIn
+     * Checks in every book in the list, in one transaction. Books that are already checked in are left alone and
+     * reported as ALREADY_IN_STATE. A book with holds waiting is checked straight out to the patron who has waited
+     * longest, due one loan period from today, and reported as HANDED_OVER.
+     */
+    public List<Result> checkIn(Connection conn, List<Integer> bookIds) throws SQLException {
+        List<Result> results = apply(conn, CHECK_IN_METRICS, CHECK_IN_SQL, bookIds,
+                (pstmt, bookId) -> pstmt.setInt(1, bookId), null, true);
+        recordChanges(results, CHECKED_IN, null);
+        return results;
+    }
+
+    /**
+     * placeHold
+     * Queues the patron for the book with the HoldQueue. When the copy is on the shelf and nobody else is waiting,
+     * it is checked out to the patron at once, and the loan is recorded like any other check-out. Returns null when
+     * the book does not exist.
+     */
+    public HoldQueue.Hold placeHold(Connection conn, int bookId, String patron) throws SQLException {
+        HoldQueue.Hold hold = HoldQueue.place(conn, bookId, patron);
+        if (hold != null && hold.filled()) {
+            recordLoan(bookId, hold.dueDate());
+        }
+        return hold;
+    }
+
+    /**
+     * apply
+     * Runs the update once per book ID as a single JDBC batch and commits it. The update count of each statement
+     * tells which books changed; the books that did not change are then looked up in one query to tell the ones that
+     * exist, and were already in the requested state, from the ones that do not exist at all. With serveHolds the
+     * books that changed are then offered to the HoldQueue before the commit. A book that appears twice in the cart
+     * changes, and is handed over, only once; its repeat is reported as ALREADY_IN_STATE. The transaction is timed in
+     * the given operation metrics, which also count the books that changed. When the connection is already inside a
+     * transaction, such as a WriteQueue group, the batch joins it and the caller commits or rolls back.
+     */
+    private static List<Result> apply(Connection conn, OperationMetrics metrics, String sql, List<Integer> bookIds,
+                                      Binder binder, String dueDate, boolean serveHolds) throws SQLException {
+        if (bookIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long started = metrics.start();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            int[] counts;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int bookId : bookIds) {
+                    binder.bind(pstmt, bookId);
+                    pstmt.addBatch();
+                }
+                counts = pstmt.executeBatch();
+            }
+            List<Integer> unchanged = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    unchanged.add(bookIds.get(i));
+                }
+            }
+            Set<Integer> existing = existingIds(conn, unchanged);
+            Map<Integer, HoldQueue.Handover> handovers = Collections.emptyMap();
+            if (serveHolds) {
+                List<Integer> changed = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        changed.add(bookIds.get(i));
+                    }
+                }
+                handovers = HoldQueue.handOver(conn, changed, LocalDate.now().plus(LOAN_PERIOD));
+            }
+            if (autoCommit) {
+                conn.commit();
+            }
+            metrics.success(started);
+
+            List<Result> results = new ArrayList<>(bookIds.size());
+            for (int i = 0; i < counts.length; i++) {
+                int bookId = bookIds.get(i);
+                HoldQueue.Handover handover = handovers.get(bookId);
+                if (handover != null && counts[i] > 0) {
+                    metrics.rowsWritten(1);
+                    results.add(new Result(bookId, Outcome.HANDED_OVER, handover.dueDate(), handover.patron()));
+                } else if (counts[i] > 0) {
+                    metrics.rowsWritten(1);
+                    results.add(new Result(bookId, Outcome.SUCCESS, dueDate, null));
+                } else {
+                    results.add(new Result(bookId, existing.contains(bookId) ? Outcome.ALREADY_IN_STATE
+                            : Outcome.NOT_FOUND, null, null));
+                }
+            }
+            return results;
+        } catch (SQLException | RuntimeException e) {
+            metrics.failure(started);
+            if (autoCommit) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * existingIds
+     * Returns which of the books exist. The IDs are passed as one JSON array, so carts of every size share a single
+     * statement in the connection's statement cache instead of compiling one per size.
+     */
+    private static Set<Integer> existingIds(Connection conn, List<Integer> bookIds) throws SQLException {
+        Set<Integer> existing = new HashSet<>();
+        if (bookIds.isEmpty()) {
+            return existing;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(EXISTING_SQL)) {
+            pstmt.setString(1, bookIds.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getInt(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    private void recordChanges(List<Result> results, String status, LocalDate dueDate) throws SQLException {
+        String due = dueDate == null ? null : dueDate.toString();
+        for (Result result : results) {
+            if (result.outcome() == Outcome.HANDED_OVER) {
+                recordLoan(result.bookId(), result.dueDate());
+            }
+            if (result.outcome() != Outcome.SUCCESS) {
+                continue;
+            }
+            if (catalog != null) {
+                catalog.updateStatus(result.bookId(), status, due);
+            }
+            if (overdue != null) {
+                if (dueDate != null) {
+                    overdue.track(result.bookId(), dueDate);
+                } else {
+                    overdue.untrack(result.bookId());
+                }
+            }
+        }
+    }
+
+    private void recordLoan(int bookId, String dueDate) throws SQLException {
+        if (catalog != null) {
+            catalog.updateStatus(bookId, CHECKED_OUT, dueDate);
+        }
+        if (overdue != null) {
+            overdue.track(bookId, LocalDate.parse(dueDate));
+        }
+    }
+
+    /**
+     * parseBookIds
+     * Reads a list of book IDs separated by commas, spaces or new lines, as typed into a dialog or passed on the
+     * command line. Throws NumberFormatException when an entry is not a number.
+     */
+    public static List<Integer> parseBookIds(String text) {
+        List<Integer> bookIds = new ArrayList<>();
+        for (String token : text.trim().split("[\\s,;]+")) {
+            if (!token.isEmpty()) {
+                bookIds.add(Integer.parseInt(token));
+            }
+        }
+        return bookIds;
+    }
+
+    /**
+     * summarize
+     * Describes a list of results in one line, for example "3 checked out, 1 already checked out, 1 not found".
+     * Books handed over to a waiting patron count as checked in and are also named on their own.
+     */
+    public static String summarize(List<Result> results, String action) {
+        int success = 0;
+        int handedOver = 0;
+        int already = 0;
+        int missing = 0;
+        for (Result result : results) {
+            switch (result.outcome()) {
+                case SUCCESS -> success++;
+                case HANDED_OVER -> {
+                    success++;
+                    handedOver++;
+                }
+                case ALREADY_IN_STATE -> already++;
+                case NOT_FOUND -> missing++;
+            }
+        }
+        StringBuilder summary = new StringBuilder().append(success).append(' ').append(action);
+        if (handedOver > 0) {
+            summary.append(", ").append(handedOver).append(" handed to the next patron waiting");
+        }
+        if (already > 0) {
+            summary.append(", ").append(already).append(" already ").append(action);
+        }
+        if (missing > 0) {
+            summary.append(", ").append(missing).append(" not found");
+        }
+        return summary.toString();
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement pstmt, int bookId) throws SQLException;
+    }
+
+    /**
+     * Outcome
+     * What happened to one book ID of a check-out or check-in. HANDED_OVER is a check-in whose copy went straight to
+     * the next patron holding it.
+     */
+    public enum Outcome {
+        SUCCESS,
+        HANDED_OVER,
+        ALREADY_IN_STATE,
+        NOT_FOUND
+    }
+
+    /**
+     * Result
+     * The outcome for one book ID. The due date is set for books that were checked out successfully, and the patron
+     * for books handed over to a hold.
+     */
+    public record Result(int bookId, Outcome outcome, String dueDate, String patron) {
+
+        /**
+         * changed
+         * Tells whether the book was checked out or in, including a check-in handed over to a hold.
+         */
+        public boolean changed() {
+            return outcome == Outcome.SUCCESS || outcome == Outcome.HANDED_OVER;
+        }
+
+        @Override
+        public String toString() {
+            return bookId + ": " + outcome + (patron == null ? "" : " to " + patron)
+                    + (dueDate == null ? "" : " (due " + dueDate + ")");
+        }
+    }
+}
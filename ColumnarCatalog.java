@@ -0,0 +1,326 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ColumnarCatalog.java
+ * This class holds a large catalog in memory in a compact, column-oriented layout instead of one Book object per
+ * title. Each column is a single array: book IDs in an int array, authors and genres as small int codes into
+ * dictionaries that store every distinct name once, all titles back to back as UTF-8 bytes in one shared arena, and the
+ * checked-out flags in a BitSet. Due dates are only kept for checked-out books. A catalog of millions of books is
+ * then a handful of large arrays rather than millions of objects and strings, which takes a fraction of the heap and
+ * gives the garbage collector almost nothing to trace.
+ * Books are read through a BookView, a reusable flyweight that points at one row, or materialized as Book objects one
+ * at a time by the list that getAllBooks returns.
+ */
+
+package libraryms.libraryms;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+public class ColumnarCatalog {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_ARENA_BYTES = 16 * 1024;
+    private static final String CHECKED_OUT = "checked out";
+    private static final String CHECKED_IN = "checked in";
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+    private static final int MAP_ENTRY_BYTES = 52;
+    private static final int DUE_DATE_LENGTH = 10;
+    private static final int EXPECTED_TITLE_BYTES = 24;
+
+    private int size;
+    private int[] bookIds;
+    private int[] authorCodes;
+    private int[] genreCodes;
+    private int[] titleOffsets;
+    private byte[] titleArena;
+    private int arenaSize;
+    private final BitSet checkedOut = new BitSet();
+    private final Map<Integer, String> dueDates = new HashMap<>();
+    private final Dictionary authors = new Dictionary();
+    private final Dictionary genres = new Dictionary();
+    private boolean idsAscending = true;
+
+    public ColumnarCatalog() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ColumnarCatalog(int expectedBooks) {
+        int capacity = Math.max(expectedBooks, 16);
+        bookIds = new int[capacity];
+        authorCodes = new int[capacity];
+        genreCodes = new int[capacity];
+        titleOffsets = new int[capacity + 1];
+        titleArena = new byte[Math.max(INITIAL_ARENA_BYTES, capacity * EXPECTED_TITLE_BYTES)];
+    }
+
+    /**
+     * addBook
+     * Appends a book to the catalog, copying its fields into the columns. The Book itself is not kept, so callers can
+     * let it be garbage collected right away.
+     */
+    public synchronized void addBook(Book book) {
+        if (book == null) {
+            System.out.println("Cannot add a null book to the library.");
+            return;
+        }
+        if (size == bookIds.length) {
+            grow();
+        }
+        byte[] title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        if (arenaSize + title.length > titleArena.length) {
+            titleArena = Arrays.copyOf(titleArena, Math.max(titleArena.length * 2, arenaSize + title.length));
+        }
+        System.arraycopy(title, 0, titleArena, arenaSize, title.length);
+        arenaSize += title.length;
+
+        if (size > 0 && book.getBookId() <= bookIds[size - 1]) {
+            idsAscending = false;
+        }
+        bookIds[size] = book.getBookId();
+        authorCodes[size] = authors.encode(book.getAuthor());
+        genreCodes[size] = genres.encode(book.getGenre());
+        titleOffsets[size + 1] = arenaSize;
+        if (book.isCheckedOut()) {
+            checkedOut.set(size);
+            if (book.getDueDate() != null) {
+                dueDates.put(size, book.getDueDate());
+            }
+        }
+        size++;
+    }
+
+    /**
+     * getAllBooks
+     * Returns the books in the catalog, in the order they were added, as an unmodifiable list. Books are created only
+     * when the list is read, one per call to get, so the whole catalog is never copied into Book objects at once.
+     */
+    public List<Book> getAllBooks() {
+        return new BookList(size());
+    }
+
+    /**
+     * forEach
+     * Calls the action once for every book, in the order they were added, with the same BookView moved to each row in
+     * turn. Authors and genres come straight from the dictionaries, so scanning the catalog allocates nothing except
+     * the titles that are actually read. The view must not be kept after the action returns.
+     */
+    public synchronized void forEach(Consumer<BookView> action) {
+        BookView view = new BookView();
+        for (int row = 0; row < size; row++) {
+            view.row = row;
+            action.accept(view);
+        }
+    }
+
+    /**
+     * findById
+     * Returns the book with the given ID, or null when it is not in the catalog. IDs that were added in ascending order,
+     * as they are when loading from the database, are found with a binary search.
+     */
+    public synchronized Book findById(int bookId) {
+        int row = rowOf(bookId);
+        return row < 0 ? null : toBook(row);
+    }
+
+    /**
+     * updateStatus
+     * Records a check-out or check-in for the book with the given ID. Returns false when the book is not in the catalog.
+     */
+    public synchronized boolean updateStatus(int bookId, String status, String dueDate) {
+        int row = rowOf(bookId);
+        if (row < 0) {
+            return false;
+        }
+        boolean out = CHECKED_OUT.equals(status);
+        checkedOut.set(row, out);
+        if (out && dueDate != null) {
+            dueDates.put(row, dueDate);
+        } else {
+            dueDates.remove(row);
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * bytesPerBook
+     * Estimates the heap used per book by this layout: the column arrays at their current capacity, the title arena,
+     * the bit set, the due dates and the distinct author and genre names, divided by the number of books. The
+     * benchmarks module measures the exact figure for both layouts with JOL.
+     */
+    public synchronized double bytesPerBook() {
+        if (size == 0) {
+            return 0;
+        }
+        long bytes = arrayBytes(bookIds.length, Integer.BYTES) * 3
+                + arrayBytes(titleOffsets.length, Integer.BYTES)
+                + arrayBytes(titleArena.length, 1)
+                + arrayBytes(checkedOut.size() / Long.SIZE, Long.BYTES)
+                + authors.bytes() + genres.bytes()
+                + dueDates.size() * (long) (MAP_ENTRY_BYTES + STRING_OVERHEAD_BYTES + DUE_DATE_LENGTH);
+        return (double) bytes / size;
+    }
+
+    /**
+     * trimToSize
+     * Shrinks the column arrays and the title arena to the books they hold, for catalogs that are loaded once and then
+     * only read.
+     */
+    public synchronized void trimToSize() {
+        bookIds = Arrays.copyOf(bookIds, size);
+        authorCodes = Arrays.copyOf(authorCodes, size);
+        genreCodes = Arrays.copyOf(genreCodes, size);
+        titleOffsets = Arrays.copyOf(titleOffsets, size + 1);
+        titleArena = Arrays.copyOf(titleArena, arenaSize);
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, bookIds.length + (bookIds.length >> 1));
+        bookIds = Arrays.copyOf(bookIds, capacity);
+        authorCodes = Arrays.copyOf(authorCodes, capacity);
+        genreCodes = Arrays.copyOf(genreCodes, capacity);
+        titleOffsets = Arrays.copyOf(titleOffsets, capacity + 1);
+    }
+
+    private int rowOf(int bookId) {
+        if (idsAscending) {
+            int row = Arrays.binarySearch(bookIds, 0, size, bookId);
+            return row < 0 ? -1 : row;
+        }
+        for (int row = 0; row < size; row++) {
+            if (bookIds[row] == bookId) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private String title(int row) {
+        int start = titleOffsets[row];
+        return new String(titleArena, start, titleOffsets[row + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    private Book toBook(int row) {
+        boolean out = checkedOut.get(row);
+        return new Book(bookIds[row], title(row), authors.decode(authorCodes[row]), genres.decode(genreCodes[row]),
+                out ? CHECKED_OUT : CHECKED_IN, out ? dueDates.get(row) : null);
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return (ARRAY_HEADER_BYTES + (long) length * elementBytes + 7) & ~7L;
+    }
+
+    /**
+     * BookView
+     * A flyweight view of one row of the catalog. It holds nothing but the row number, so a single instance can be
+     * moved across the whole catalog.
+     */
+    public final class BookView {
+        private int row;
+
+        private BookView() {
+        }
+
+        public int getBookId() {
+            return bookIds[row];
+        }
+
+        public String getTitle() {
+            return title(row);
+        }
+
+        public String getAuthor() {
+            return authors.decode(authorCodes[row]);
+        }
+
+        public String getGenre() {
+            return genres.decode(genreCodes[row]);
+        }
+
+        public boolean isCheckedOut() {
+            return checkedOut.get(row);
+        }
+
+        public String getDueDate() {
+            return isCheckedOut() ? dueDates.get(row) : null;
+        }
+
+        /**
+         * toBook
+         * Copies the current row into a standalone Book that stays valid after the view moves on.
+         */
+        public Book toBook() {
+            return ColumnarCatalog.this.toBook(row);
+        }
+    }
+
+    /**
+     * BookList
+     * The read-only list returned by getAllBooks. It covers the books that were in the catalog when it was created and
+     * builds each Book on demand.
+     */
+    private final class BookList extends AbstractList<Book> implements RandomAccess {
+        private final int size;
+
+        private BookList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Book get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            synchronized (ColumnarCatalog.this) {
+                return toBook(index);
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Dictionary
+     * Maps each distinct string to a small int code and back. A null value gets its own code so it survives the
+     * round trip.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private long stringBytes;
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+                stringBytes += value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        long bytes() {
+            return stringBytes + values.size() * (long) MAP_ENTRY_BYTES;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ConnectionPool.java
+ * This class keeps a bounded set of warm JDBC connections to the SQLite database so that operations can borrow a
+ * connection instead of opening and closing the database file every time. Each physical connection is configured once
+ * (WAL journal mode and tuned pragmas) and keeps a small cache of prepared statements. Closing a borrowed connection
+ * returns it to the pool, together with any cached statement the caller left open. A cached statement is lent to one
+ * caller at a time and reset when it is given back, result sets included, so nothing a caller leaves behind reaches
+ * the next borrower.
+ */
+
+package libraryms.libraryms;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionPool implements AutoCloseable {
+    private static final int STATEMENT_CACHE_SIZE = 32;
+    private static final String[] PRAGMAS = {
+            "PRAGMA journal_mode = WAL",
+            "PRAGMA synchronous = NORMAL",
+            "PRAGMA busy_timeout = 5000",
+            "PRAGMA cache_size = -16000",
+            "PRAGMA temp_store = MEMORY",
+            "PRAGMA mmap_size = 268435456"
+    };
+
+    private final String url;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final LinkedBlockingDeque<PhysicalConnection> idle = new LinkedBlockingDeque<>();
+    private final List<PhysicalConnection> all = new ArrayList<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final OperationMetrics acquireMetrics = new OperationMetrics("db.pool.acquire");
+    private volatile boolean closed;
+
+
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1.");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /**
+     * borrow
+     * Hands out a connection from the pool. An idle connection is reused when one is available, a new one is opened
+     * while the pool is below its maximum size, and otherwise the caller waits until another operation returns its
+     * connection. Closing the returned connection gives it back to the pool rather than closing the database file.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down.");
+        }
+        long start = System.nanoTime();
+        PhysicalConnection physical = idle.pollFirst();
+        if (physical == null) {
+            physical = tryCreate();
+        }
+        if (physical == null) {
+            try {
+                physical = idle.pollFirst(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection.", e);
+            }
+            if (physical == null) {
+                timeouts.increment();
+                acquireMetrics.failure(start);
+                throw new SQLException("Timed out after " + acquireTimeoutMillis + " ms waiting for a database connection.");
+            }
+        }
+        acquireMetrics.success(start);
+        recordWait(System.nanoTime() - start);
+        int current = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(current, Math::max);
+        return physical.lend();
+    }
+
+    /**
+     * getStats
+     * Returns a snapshot of the pool metrics: how many connections exist and are borrowed, how long callers had to
+     * wait for one, and how effective the prepared statement cache is.
+     */
+    public PoolStats getStats() {
+        long borrows = borrowCount.sum();
+        long waitNanos = totalWaitNanos.sum();
+        return new PoolStats(created.get(), maxSize, inUse.get(), peakInUse.get(), borrows, timeouts.sum(),
+                borrows == 0 ? 0 : waitNanos / borrows, maxWaitNanos.get(), statementHits.sum(), statementMisses.sum());
+    }
+
+    /**
+     * getAcquireMetrics
+     * Returns the latency histogram of borrow calls, from the call until a connection was handed out, with every
+     * timeout counted as an error.
+     */
+    public OperationMetrics getAcquireMetrics() {
+        return acquireMetrics;
+    }
+
+    /**
+     * close
+     * Shuts the pool down. Idle connections are closed right away and borrowed connections are closed as soon as
+     * they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PhysicalConnection physical;
+        while ((physical = idle.pollFirst()) != null) {
+            physical.closeQuietly();
+        }
+    }
+
+    private PhysicalConnection tryCreate() throws SQLException {
+        while (true) {
+            int count = created.get();
+            if (count >= maxSize) {
+                return null;
+            }
+            if (created.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
+        try {
+            Connection raw = DriverManager.getConnection(url);
+            try (Statement stmt = raw.createStatement()) {
+                for (String pragma : PRAGMAS) {
+                    stmt.execute(pragma);
+                }
+            }
+            PhysicalConnection physical = new PhysicalConnection(raw);
+            synchronized (all) {
+                all.add(physical);
+            }
+            return physical;
+        } catch (SQLException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(PhysicalConnection physical, boolean reset) {
+        inUse.decrementAndGet();
+        boolean healthy = reset;
+        try {
+            if (!physical.raw.getAutoCommit()) {
+                physical.raw.rollback();
+                physical.raw.setAutoCommit(true);
+            }
+            healthy &= !physical.raw.isClosed();
+        } catch (SQLException e) {
+            healthy = false;
+        }
+        if (!healthy || closed) {
+            discard(physical);
+        } else {
+            idle.offerFirst(physical);
+        }
+    }
+
+    private void discard(PhysicalConnection physical) {
+        physical.closeQuietly();
+        synchronized (all) {
+            all.remove(physical);
+        }
+        created.decrementAndGet();
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * PhysicalConnection
+     * One real SQLite connection owned by the pool together with its prepared statement cache.
+     */
+    private final class PhysicalConnection {
+        private final Connection raw;
+        private final Map<String, CacheEntry> statements =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                        if (size() > STATEMENT_CACHE_SIZE) {
+                            // A statement still in use is closed when its user gives it back
+                            if (eldest.getValue().lent) {
+                                eldest.getValue().evicted = true;
+                            } else {
+                                closeStatement(eldest.getValue().stmt);
+                            }
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+
+        private PhysicalConnection(Connection raw) {
+            this.raw = raw;
+        }
+
+        private Connection lend() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new BorrowedConnection(this));
+        }
+
+        /**
+         * prepare
+         * Returns the cached statement for the SQL and marks it lent. When the cached one is already lent, because the
+         * same SQL is prepared twice before the first is closed, a fresh statement is returned with no cache entry,
+         * so the two callers never share parameters or result sets.
+         */
+        private CacheEntry prepare(String sql) throws SQLException {
+            CacheEntry cached = statements.get(sql);
+            if (cached != null && !cached.lent && !cached.stmt.isClosed()) {
+                statementHits.increment();
+                cached.lent = true;
+                return cached;
+            }
+            statementMisses.increment();
+            CacheEntry entry = new CacheEntry(raw.prepareStatement(sql));
+            entry.lent = true;
+            if (cached == null || !cached.lent) {
+                statements.put(sql, entry);
+            } else {
+                entry.evicted = true;
+            }
+            return entry;
+        }
+
+        private void closeStatement(PreparedStatement stmt) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // The statement is being dropped from the cache either way.
+            }
+        }
+
+        private void closeQuietly() {
+            for (Iterator<CacheEntry> it = statements.values().iterator(); it.hasNext(); ) {
+                closeStatement(it.next().stmt);
+                it.remove();
+            }
+            try {
+                raw.close();
+            } catch (SQLException ignored) {
+                // Nothing useful can be done when the database file refuses to close.
+            }
+        }
+    }
+
+    /**
+     * CacheEntry
+     * A prepared statement of a connection, whether it is lent to a caller right now, and whether it has left the
+     * cache, in which case it is closed for good once it is given back.
+     */
+    private static final class CacheEntry {
+        private final PreparedStatement stmt;
+        private boolean lent;
+        private boolean evicted;
+
+        private CacheEntry(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+    }
+
+    /**
+     * BorrowedConnection
+     * The handle given to callers. It forwards every call to the physical connection except close, which returns the
+     * connection to the pool, and single-argument prepareStatement, which is served from the statement cache. Cached
+     * statements the caller did not close are given back along with the connection.
+     */
+    private final class BorrowedConnection implements InvocationHandler {
+        private final PhysicalConnection physical;
+        private final List<CachedStatement> lent = new ArrayList<>();
+        private boolean returned;
+
+        private BorrowedConnection(PhysicalConnection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        boolean reset = true;
+                        for (CachedStatement stmt : lent) {
+                            try {
+                                stmt.giveBack();
+                            } catch (SQLException e) {
+                                reset = false;
+                            }
+                        }
+                        lent.clear();
+                        release(physical, reset);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + url + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            if (name.equals("prepareStatement") && args.length == 1) {
+                CachedStatement stmt = new CachedStatement(physical.prepare((String) args[0]), (Connection) proxy);
+                lent.removeIf(CachedStatement::isReleased);
+                lent.add(stmt);
+                return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class}, stmt);
+            }
+            return ConnectionPool.invoke(physical.raw, method, args);
+        }
+    }
+
+    /**
+     * CachedStatement
+     * Wraps a cached prepared statement so that closing it closes the result sets it handed out, which ends their
+     * read snapshot, clears its parameters and keeps it compiled for the next borrower of the same connection. A
+     * statement that is no longer in the cache is closed for good instead.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+        private final CacheEntry entry;
+        private final PreparedStatement stmt;
+        private final Connection owner;
+        private final List<ResultSet> results = new ArrayList<>();
+        private boolean released;
+
+        private CachedStatement(CacheEntry entry, Connection owner) {
+            this.entry = entry;
+            this.stmt = entry.stmt;
+            this.owner = owner;
+        }
+
+        private boolean isReleased() {
+            return released;
+        }
+
+        /**
+         * giveBack
+         * Closes the result sets and resets the statement, then makes it available to the next prepare, or closes it
+         * when it has left the cache. A statement that cannot be reset is closed, which leaves the cache to prepare
+         * it again.
+         */
+        private void giveBack() throws SQLException {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                for (ResultSet rs : results) {
+                    rs.close();
+                }
+                results.clear();
+                if (!entry.evicted) {
+                    stmt.clearBatch();
+                    stmt.clearParameters();
+                }
+            } catch (SQLException e) {
+                entry.evicted = true;
+                throw e;
+            } finally {
+                entry.lent = false;
+                if (entry.evicted) {
+                    stmt.close();
+                }
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    giveBack();
+                    return null;
+                case "isClosed":
+                    return released || stmt.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Statement has already been closed.");
+            }
+            Object result = ConnectionPool.invoke(stmt, method, args);
+            if (result instanceof ResultSet) {
+                results.add((ResultSet) result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * PoolStats
+     * Point-in-time pool metrics. Wait times are in nanoseconds.
+     */
+    public record PoolStats(int openConnections, int maxConnections, int inUse, int peakInUse, long borrowCount,
+                            long timeouts, long averageWaitNanos, long maxWaitNanos, long statementCacheHits,
+                            long statementCacheMisses) {
+
+        @Override
+        public String toString() {
+            return "Connections: " + openConnections + "/" + maxConnections + ", In use: " + inUse
+                    + " (peak " + peakInUse + "), Borrows: " + borrowCount + ", Timeouts: " + timeouts
+                    + ", Avg wait: " + TimeUnit.NANOSECONDS.toMicros(averageWaitNanos) + " us"
+                    + ", Max wait: " + TimeUnit.NANOSECONDS.toMicros(maxWaitNanos) + " us"
+                    + ", Statement cache hits/misses: " + statementCacheHits + "/" + statementCacheMisses;
+        }
+    }
+}
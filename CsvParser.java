@@ -0,0 +1,74 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CsvParser.java
+ * This class splits a single line of a catalog file into its comma separated fields. Unlike String.split(",") it
+ * understands double-quoted fields, so a title such as "Eats, Shoots and Leaves" keeps its comma, and a doubled
+ * quote inside a quoted field stands for one literal quote character.
+ */
+
+package libraryms.libraryms;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CsvParser {
+
+    private CsvParser() {
+    }
+
+    /**
+     * parseLine
+     * Parses one line into its fields, trimming the whitespace around unquoted fields. Throws an
+     * IllegalArgumentException when a quoted field is never closed or a closing quote is followed by anything other
+     * than a comma.
+     */
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            while (i < length && line.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                boolean closed = false;
+                while (i < length) {
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        closed = true;
+                        break;
+                    }
+                }
+                if (!closed) {
+                    throw new IllegalArgumentException("Unterminated quoted field");
+                }
+                while (i < length && line.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected character after quoted field at column " + (i + 1));
+                }
+                fields.add(field.toString());
+            } else {
+                int start = i;
+                while (i < length && line.charAt(i) != ',') {
+                    i++;
+                }
+                fields.add(line.substring(start, i).trim());
+            }
+            field.setLength(0);
+            if (i >= length) {
+                return fields;
+            }
+            i++; // skip the comma
+        }
+    }
+}
@@ -4,16 +4,82 @@
  * 01/26/2024
  * DatabaseConnection.java
  * This class severs the purpose of creating the connection from the SQLite database to our LMS application.
+ * Connections are handed out from a shared pool of warm connections, and closing one returns it to the pool.
+ * The database file and the pool size can be changed with the libraryms.db.path and libraryms.db.poolSize system
+ * properties, for example to run the server against its own database with more concurrent readers.
  */
 
 package libraryms.libraryms;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:sqlite:LibraryMS_DB.db";
+    public static final String PATH_PROPERTY = "libraryms.db.path";
+    public static final String POOL_SIZE_PROPERTY = "libraryms.db.poolSize";
+    private static final String DEFAULT_PATH = "LibraryMS_DB.db";
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 10_000;
+    private static ConnectionPool pool;
+    private static volatile boolean schemaReady;
+
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL);
+        Connection conn = getPool().borrow();
+        if (!schemaReady) {
+            prepareSchema(conn);
+        }
+        return conn;
+    }
+
+    /**
+     * getDatabasePath
+     * Returns the database file the pool connects to.
+     */
+    public static Path getDatabasePath() {
+        return Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH));
+    }
+
+    /**
+     * prepareSchema
+     * Runs the schema migration the first time a connection is handed out, so tables added by newer versions of the
+     * application exist before any operation uses them.
+     */
+    private static synchronized void prepareSchema(Connection conn) throws SQLException {
+        if (!schemaReady) {
+            try {
+                DatabaseSchema.migrate(conn);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            schemaReady = true;
+        }
+    }
+
+    /**
+     * getPool
+     * Returns the shared connection pool, creating it on first use and registering a shutdown hook so the database
+     * file is closed cleanly when the JVM exits. The pool's acquire times are published with the other metrics.
+     */
+    public static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            String url = "jdbc:sqlite:" + getDatabasePath();
+            pool = new ConnectionPool(url, Integer.getInteger(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE),
+                    ACQUIRE_TIMEOUT_MILLIS);
+            Metrics.register(pool.getAcquireMetrics());
+            Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConnection::shutdown, "db-pool-shutdown"));
+        }
+        return pool;
+    }
+
+    /**
+     * shutdown
+     * Closes every pooled connection. Safe to call more than once.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+        }
     }
 }
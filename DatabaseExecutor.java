@@ -0,0 +1,209 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * DatabaseExecutor.java
+ * This class runs database work on a small set of dedicated worker threads so that callers, most importantly the
+ * JavaFX application thread, never block on JDBC. Short operations borrow a pooled connection and complete a
+ * CompletableFuture; long jobs such as bulk imports also report progress and can be cancelled.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DatabaseExecutor {
+    private static final int WORKER_THREADS = 4;
+    private static ExecutorService executor;
+
+    /**
+     * SqlWork
+     * A unit of database work that runs against a connection borrowed from the pool.
+     */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Job
+     * A long-running unit of work that reports progress and checks for cancellation through its context.
+     */
+    @FunctionalInterface
+    public interface Job<T> {
+        T run(JobContext context) throws Exception;
+    }
+
+    /**
+     * ProgressListener
+     * Receives progress updates from a running job. It is called on the worker thread, so GUI listeners must hand the
+     * update over to their own thread.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long done, long total);
+    }
+
+    /**
+     * submit
+     * Runs the given work on a database worker thread with a pooled connection. The returned future completes with
+     * the work's result, or exceptionally with the SQLException it threw.
+     */
+    public static <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                return work.execute(conn);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor());
+    }
+
+    /**
+     * submit
+     * Same as submit(work), but also records the work in the given operation metrics: its latency, including the
+     * wait for a pooled connection but not the time spent queued for a worker thread, and whether it failed.
+     */
+    public static <T> CompletableFuture<T> submit(OperationMetrics metrics, SqlWork<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = metrics.start();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                T result = work.execute(conn);
+                metrics.success(start);
+                return result;
+            } catch (SQLException e) {
+                metrics.failure(start);
+                throw new CompletionException(e);
+            } catch (RuntimeException e) {
+                metrics.failure(start);
+                throw e;
+            }
+        }, executor());
+    }
+
+    /**
+     * submitJob
+     * Starts a long-running job on a database worker thread. The returned handle exposes the job's result and lets
+     * the caller cancel it; cancelling interrupts the worker and completes the result with a CancellationException.
+     */
+    public static <T> RunningJob<T> submitJob(Job<T> job, ProgressListener listener) {
+        JobContext context = new JobContext(listener);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor().submit(() -> {
+            try {
+                result.complete(job.run(context));
+            } catch (Throwable e) {
+                result.completeExceptionally(context.isCancelled() ? new CancellationException("Job cancelled.") : e);
+            }
+        });
+        return new RunningJob<>(result, task, context);
+    }
+
+    /**
+     * unwrap
+     * Strips the CompletionException wrapper that CompletableFuture puts around the original failure.
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * shutdown
+     * Stops accepting new work and gives the running and already queued work five seconds to finish, so a save in
+     * flight when the window closes still completes. Only work still running after that is interrupted.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory factory = runnable -> {
+                Thread thread = new Thread(runnable, "db-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            executor = Executors.newFixedThreadPool(WORKER_THREADS, factory);
+        }
+        return executor;
+    }
+
+    /**
+     * JobContext
+     * Passed to a running job so it can publish progress and notice when it has been cancelled.
+     */
+    public static final class JobContext {
+        private final ProgressListener listener;
+        private volatile boolean cancelled;
+
+        JobContext(ProgressListener listener) {
+            this.listener = listener;
+        }
+
+        public void progress(long done, long total) {
+            if (listener != null) {
+                listener.onProgress(done, total);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled || Thread.currentThread().isInterrupted();
+        }
+
+        public void checkCancelled() {
+            if (isCancelled()) {
+                throw new CancellationException("Job cancelled.");
+            }
+        }
+    }
+
+    /**
+     * RunningJob
+     * Handle to a job started with submitJob.
+     */
+    public static final class RunningJob<T> {
+        private final CompletableFuture<T> result;
+        private final Future<?> task;
+        private final JobContext context;
+
+        RunningJob(CompletableFuture<T> result, Future<?> task, JobContext context) {
+            this.result = result;
+            this.task = task;
+            this.context = context;
+        }
+
+        public CompletableFuture<T> result() {
+            return result;
+        }
+
+        public void cancel() {
+            context.cancelled = true;
+            task.cancel(true);
+            result.completeExceptionally(new CancellationException("Job cancelled."));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * DatabaseSchema.java
+ * This class brings the SQLite database up to the schema the application expects. Every statement is idempotent, so
+ * it is safe to run against a fresh database and against one that is already up to date.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.StringJoiner;
+
+public final class DatabaseSchema {
+    private static final String[] TABLES = {
+            "CREATE TABLE IF NOT EXISTS books ("
+                    + " book_id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + " title TEXT NOT NULL,"
+                    + " author TEXT NOT NULL,"
+                    + " is_checked_out BOOLEAN NOT NULL DEFAULT 0,"
+                    + " due_date DATE,"
+                    + " genre NVARCHAR(100),"
+                    + " status NVARCHAR(50) DEFAULT 'checked in')",
+            "CREATE TABLE IF NOT EXISTS import_progress ("
+                    + " file_path TEXT PRIMARY KEY,"
+                    + " file_size INTEGER NOT NULL,"
+                    + " last_modified INTEGER NOT NULL,"
+                    + " lines_committed INTEGER NOT NULL,"
+                    + " rows_committed INTEGER NOT NULL,"
+                    + " completed BOOLEAN NOT NULL DEFAULT 0)",
+            "CREATE TABLE IF NOT EXISTS book_changes ("
+                    + " version INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + " book_id INTEGER NOT NULL,"
+                    + " operation TEXT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS book_fingerprints ("
+                    + " book_id INTEGER PRIMARY KEY,"
+                    + " key_hash INTEGER NOT NULL,"
+                    + " fingerprint INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS book_fingerprints_state ("
+                    + " id INTEGER PRIMARY KEY CHECK (id = 0),"
+                    + " version INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS book_holds ("
+                    + " hold_id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                    + " book_id INTEGER NOT NULL,"
+                    + " patron TEXT NOT NULL,"
+                    + " placed_at TEXT NOT NULL,"
+                    + " filled_at TEXT)"
+    };
+    private static final String[] INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_books_title ON books (title)",
+            "CREATE INDEX IF NOT EXISTS idx_books_author ON books (author)",
+            "CREATE INDEX IF NOT EXISTS idx_books_genre ON books (IFNULL(genre, ''))",
+            "CREATE INDEX IF NOT EXISTS idx_books_status ON books (IFNULL(status, ''))",
+            "CREATE INDEX IF NOT EXISTS idx_books_due_date ON books (IFNULL(due_date, ''))",
+            "CREATE INDEX IF NOT EXISTS idx_books_loans ON books (due_date, book_id) WHERE status = 'checked out'",
+            "CREATE INDEX IF NOT EXISTS idx_book_fingerprints_key ON book_fingerprints (key_hash)",
+            "CREATE INDEX IF NOT EXISTS idx_book_holds_waiting ON book_holds (book_id, hold_id) WHERE filled_at IS NULL"
+    };
+    private static final String CREATE_SEARCH_INDEX = "CREATE VIRTUAL TABLE books_fts USING fts5("
+            + "title, author, genre, content='books', content_rowid='book_id', "
+            + "tokenize='unicode61 remove_diacritics 2', prefix='1 2 3')";
+    private static final String[] SEARCH_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS books_fts_insert AFTER INSERT ON books BEGIN"
+                    + " INSERT INTO books_fts (rowid, title, author, genre)"
+                    + " VALUES (new.book_id, new.title, new.author, new.genre); END",
+            "CREATE TRIGGER IF NOT EXISTS books_fts_delete AFTER DELETE ON books BEGIN"
+                    + " INSERT INTO books_fts (books_fts, rowid, title, author, genre)"
+                    + " VALUES ('delete', old.book_id, old.title, old.author, old.genre); END",
+            "CREATE TRIGGER IF NOT EXISTS books_fts_update AFTER UPDATE OF title, author, genre ON books BEGIN"
+                    + " INSERT INTO books_fts (books_fts, rowid, title, author, genre)"
+                    + " VALUES ('delete', old.book_id, old.title, old.author, old.genre);"
+                    + " INSERT INTO books_fts (rowid, title, author, genre)"
+                    + " VALUES (new.book_id, new.title, new.author, new.genre); END"
+    };
+
+    private static final String[] CHANGE_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS books_changes_insert AFTER INSERT ON books BEGIN"
+                    + " INSERT INTO book_changes (book_id, operation) VALUES (new.book_id, 'INSERT'); END",
+            "CREATE TRIGGER IF NOT EXISTS books_changes_update AFTER UPDATE ON books BEGIN"
+                    + " INSERT INTO book_changes (book_id, operation) VALUES (new.book_id, 'UPDATE'); END",
+            "CREATE TRIGGER IF NOT EXISTS books_changes_delete AFTER DELETE ON books BEGIN"
+                    + " INSERT INTO book_changes (book_id, operation) VALUES (old.book_id, 'DELETE'); END"
+    };
+
+    private static final String[] HOLD_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS books_holds_delete AFTER DELETE ON books BEGIN"
+                    + " DELETE FROM book_holds WHERE book_id = old.book_id AND filled_at IS NULL; END"
+    };
+
+    private static final String CREATE_STATISTICS = "CREATE TABLE book_stats ("
+            + " dimension TEXT NOT NULL,"
+            + " value TEXT NOT NULL,"
+            + " books INTEGER NOT NULL,"
+            + " checked_out INTEGER NOT NULL,"
+            + " PRIMARY KEY (dimension, value)) WITHOUT ROWID";
+    private static final String[] STATISTICS_INDEXES = {
+            "CREATE INDEX IF NOT EXISTS idx_book_stats_books ON book_stats (dimension, books)"
+    };
+    private static final String[][] STATISTICS_DIMENSIONS = {
+            {"genre", "IFNULL(%s.genre, '')"},
+            {"author", "%s.author"},
+            {"status", "IFNULL(%s.status, '')"},
+            {"total", "''"}
+    };
+    private static final String[] STATISTICS_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS books_stats_insert AFTER INSERT ON books BEGIN"
+                    + countBook("new") + " END",
+            "CREATE TRIGGER IF NOT EXISTS books_stats_delete AFTER DELETE ON books BEGIN"
+                    + uncountBook("old") + " END",
+            "CREATE TRIGGER IF NOT EXISTS books_stats_update AFTER UPDATE OF genre, author ON books"
+                    + " WHEN old.genre IS NOT new.genre OR old.author IS NOT new.author"
+                    + " BEGIN" + uncountBook("old") + countBook("new") + " END",
+            "CREATE TRIGGER IF NOT EXISTS books_stats_status AFTER UPDATE OF status ON books"
+                    + " WHEN old.status IS NOT new.status AND old.genre IS new.genre AND old.author IS new.author"
+                    + " BEGIN" + moveStatus() + " END"
+    };
+
+    private DatabaseSchema() {
+    }
+
+    /**
+     * migrate
+     * Creates any table or index that is missing from the database. The full-text search index is filled from the
+     * existing books the first time it is created and kept in sync by triggers after that. Further triggers record
+     * every change to the books table in book_changes for the ChangeFeed, drop the waiting holds of deleted books
+     * from the HoldQueue, and keep the counters in book_stats that CatalogStatistics reads; like the search index,
+     * the counters are filled from the existing books when their table is first created.
+     */
+    public static void migrate(Connection conn) throws SQLException {
+        createTables(conn);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : INDEXES) {
+                stmt.execute(sql);
+            }
+            if (!tableExists(conn, "books_fts")) {
+                stmt.execute(CREATE_SEARCH_INDEX);
+                stmt.execute("INSERT INTO books_fts (books_fts) VALUES ('rebuild')");
+            }
+            for (String sql : SEARCH_TRIGGERS) {
+                stmt.execute(sql);
+            }
+            for (String sql : CHANGE_TRIGGERS) {
+                stmt.execute(sql);
+            }
+            for (String sql : HOLD_TRIGGERS) {
+                stmt.execute(sql);
+            }
+            if (!tableExists(conn, "book_stats")) {
+                stmt.execute(CREATE_STATISTICS);
+                for (String[] dimension : STATISTICS_DIMENSIONS) {
+                    String value = String.format(dimension[1], "books");
+                    stmt.execute("INSERT INTO book_stats (dimension, value, books, checked_out)"
+                            + " SELECT '" + dimension[0] + "', " + value + ", COUNT(*), SUM(status IS 'checked out')"
+                            + " FROM books GROUP BY " + value + " HAVING COUNT(*) > 0");
+                }
+            }
+            for (String sql : STATISTICS_INDEXES) {
+                stmt.execute(sql);
+            }
+            for (String sql : STATISTICS_TRIGGERS) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * createTables
+     * Creates only the tables, without their indexes, search index or triggers. Bulk loaders that fill an empty
+     * database call this first and migrate afterwards, which builds every index in one pass over the loaded rows
+     * instead of updating it row by row.
+     */
+    public static void createTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : TABLES) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * countBook
+     * Returns the trigger statement that adds the book in the given row to the counters of its genre, its author, its
+     * status and the catalog total in one multi-row upsert, creating the counters that do not exist yet.
+     */
+    private static String countBook(String row) {
+        StringJoiner values = new StringJoiner(", ");
+        for (String[] dimension : STATISTICS_DIMENSIONS) {
+            values.add("('" + dimension[0] + "', " + String.format(dimension[1], row) + ", 1, " + row
+                    + ".status IS 'checked out')");
+        }
+        return " INSERT INTO book_stats (dimension, value, books, checked_out) VALUES " + values
+                + " ON CONFLICT (dimension, value) DO UPDATE SET"
+                + " books = books + 1, checked_out = checked_out + excluded.checked_out;";
+    }
+
+    /**
+     * uncountBook
+     * Returns the trigger statements that take the book in the given row off its counters again, dropping counters
+     * that reach zero so that genres and authors no longer in the catalog disappear from the statistics.
+     */
+    private static String uncountBook(String row) {
+        StringJoiner keys = new StringJoiner(", ", "(dimension, value) IN (VALUES ", ")");
+        for (String[] dimension : STATISTICS_DIMENSIONS) {
+            keys.add("('" + dimension[0] + "', " + String.format(dimension[1], row) + ")");
+        }
+        return " UPDATE book_stats SET books = books - 1, checked_out = checked_out - (" + row
+                + ".status IS 'checked out') WHERE " + keys + ";"
+                + " DELETE FROM book_stats WHERE " + keys + " AND books <= 0;";
+    }
+
+    /**
+     * moveStatus
+     * Returns the trigger statements for a check-out or check-in, which only moves the book from one status counter
+     * to the other and changes the checked-out count of its genre, its author and the total. This runs on every
+     * circulation write, so it updates those counters in place instead of taking the book off all of them and adding
+     * it back.
+     */
+    private static String moveStatus() {
+        StringBuilder sql = new StringBuilder();
+        for (String[] dimension : STATISTICS_DIMENSIONS) {
+            if (!dimension[0].equals("status")) {
+                sql.append(" UPDATE book_stats SET checked_out = checked_out")
+                        .append(" + (new.status IS 'checked out') - (old.status IS 'checked out')")
+                        .append(" WHERE dimension = '").append(dimension[0]).append("' AND value = ")
+                        .append(String.format(dimension[1], "new")).append(';');
+            }
+        }
+        String oldStatus = " WHERE dimension = 'status' AND value = IFNULL(old.status, '')";
+        return sql + " UPDATE book_stats SET books = books - 1, checked_out = checked_out - (old.status IS 'checked out')"
+                + oldStatus + "; DELETE FROM book_stats" + oldStatus + " AND books <= 0;"
+                + " INSERT INTO book_stats (dimension, value, books, checked_out)"
+                + " VALUES ('status', IFNULL(new.status, ''), 1, new.status IS 'checked out')"
+                + " ON CONFLICT (dimension, value) DO UPDATE SET"
+                + " books = books + 1, checked_out = checked_out + excluded.checked_out;";
+    }
+
+    private static boolean tableExists(Connection conn, String name) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM sqlite_master WHERE name = ?")) {
+            pstmt.setString(1, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
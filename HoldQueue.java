@@ -0,0 +1,257 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * HoldQueue.java
+ * This class keeps the queues of patrons waiting for a book. Every hold is a row of book_holds, and the patrons
+ * waiting for a book are served in the order their holds were placed, which is the order of their hold IDs. A copy
+ * is handed to the next patron inside the same transaction that checks it in, or that places the hold when the copy
+ * is on the shelf: the book is checked out again and the oldest waiting hold is marked filled. The book only changes
+ * while it is checked in, and SQLite lets one transaction write at a time, so two desks or servers returning the
+ * same copy at once can never give it to two patrons, and no hold is filled twice. A filled hold keeps its row, with
+ * the time it was filled, as the record of which patron got the book. Holds that are still waiting are read from the
+ * idx_book_holds_waiting partial index, so a queue is found without reading the holds filled before.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class HoldQueue {
+    private static final String WAITING = " FROM book_holds INDEXED BY idx_book_holds_waiting"
+            + " WHERE book_id = ? AND filled_at IS NULL";
+    private static final String BOOK_SQL = "SELECT 1 FROM books WHERE book_id = ?";
+    private static final String FIND_SQL = "SELECT hold_id, placed_at" + WAITING + " AND patron = ?";
+    private static final String PLACE_SQL = "INSERT INTO book_holds (book_id, patron, placed_at) VALUES (?, ?, ?)";
+    private static final String AHEAD_SQL = "SELECT COUNT(*)" + WAITING + " AND hold_id < ?";
+    private static final String QUEUE_SQL = "SELECT hold_id, patron, placed_at" + WAITING + " ORDER BY hold_id LIMIT ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*)" + WAITING;
+    private static final String CANCEL_SQL = "DELETE FROM book_holds WHERE hold_id = ? AND filled_at IS NULL";
+    private static final String LEND_SQL = "UPDATE books SET status = 'checked out', due_date = ? WHERE book_id = ?"
+            + " AND status = 'checked in' AND EXISTS (SELECT 1" + WAITING + ")";
+    private static final String NEXT_SQL = "SELECT hold_id, patron" + WAITING + " ORDER BY hold_id LIMIT 1";
+    private static final String FILL_SQL = "UPDATE book_holds SET filled_at = ? WHERE hold_id = ?";
+    private static final OperationMetrics PLACE_METRICS = Metrics.operation("holds.place");
+    private static final OperationMetrics CANCEL_METRICS = Metrics.operation("holds.cancel");
+    private static final OperationMetrics HAND_OVER_METRICS = Metrics.operation("holds.handOver");
+
+    private HoldQueue() {
+    }
+
+    /**
+     * place
+     * Puts the patron at the back of the queue for the book, due one loan period from today if the copy is on the
+     * shelf and handed over right away. A patron who is already waiting for the book keeps their place instead of
+     * queueing twice. Returns null when the book does not exist. On a connection in autocommit mode the hold is its
+     * own transaction, begun IMMEDIATE because it reads the queue before writing to it; inside a transaction, such as
+     * a WriteQueue group, it joins that one and the caller commits or rolls back.
+     */
+    public static Hold place(Connection conn, int bookId, String patron) throws SQLException {
+        long started = PLACE_METRICS.start();
+        try {
+            Hold hold;
+            if (conn.getAutoCommit()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("BEGIN IMMEDIATE");
+                    try {
+                        hold = placeHold(conn, bookId, patron);
+                        stmt.execute("COMMIT");
+                    } catch (SQLException | RuntimeException e) {
+                        stmt.execute("ROLLBACK");
+                        throw e;
+                    }
+                }
+            } else {
+                hold = placeHold(conn, bookId, patron);
+            }
+            PLACE_METRICS.success(started);
+            return hold;
+        } catch (SQLException | RuntimeException e) {
+            PLACE_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    private static Hold placeHold(Connection conn, int bookId, String patron) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(BOOK_SQL)) {
+            pstmt.setInt(1, bookId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+            }
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(FIND_SQL)) {
+            pstmt.setInt(1, bookId);
+            pstmt.setString(2, patron);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    long holdId = rs.getLong(1);
+                    return new Hold(holdId, bookId, patron, rs.getString(2), ahead(conn, bookId, holdId), null);
+                }
+            }
+        }
+        String placedAt = Instant.now().toString();
+        long holdId;
+        try (PreparedStatement pstmt = conn.prepareStatement(PLACE_SQL)) {
+            pstmt.setInt(1, bookId);
+            pstmt.setString(2, patron);
+            pstmt.setString(3, placedAt);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                holdId = keys.getLong(1);
+            }
+        }
+        PLACE_METRICS.rowsWritten(1);
+        LocalDate dueDate = LocalDate.now().plus(CirculationService.LOAN_PERIOD);
+        Handover handover = handOver(conn, List.of(bookId), dueDate).get(bookId);
+        if (handover != null && handover.holdId() == holdId) {
+            return new Hold(holdId, bookId, patron, placedAt, 0, dueDate.toString());
+        }
+        return new Hold(holdId, bookId, patron, placedAt, ahead(conn, bookId, holdId), null);
+    }
+
+    /**
+     * cancel
+     * Takes a waiting hold out of its queue. Returns false when there is no such hold or it has already been filled.
+     */
+    public static boolean cancel(Connection conn, long holdId) throws SQLException {
+        long started = CANCEL_METRICS.start();
+        try (PreparedStatement pstmt = conn.prepareStatement(CANCEL_SQL)) {
+            pstmt.setLong(1, holdId);
+            int affected = pstmt.executeUpdate();
+            CANCEL_METRICS.rowsWritten(affected);
+            CANCEL_METRICS.success(started);
+            return affected > 0;
+        } catch (SQLException | RuntimeException e) {
+            CANCEL_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * queue
+     * Returns up to limit holds waiting for the book, the next patron to be served first.
+     */
+    public static List<Hold> queue(Connection conn, int bookId, int limit) throws SQLException {
+        List<Hold> holds = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(QUEUE_SQL)) {
+            pstmt.setInt(1, bookId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    holds.add(new Hold(rs.getLong(1), bookId, rs.getString(2), rs.getString(3), holds.size(), null));
+                }
+            }
+        }
+        return holds;
+    }
+
+    /**
+     * countWaiting
+     * Returns how many holds are waiting for the book.
+     */
+    public static int countWaiting(Connection conn, int bookId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COUNT_SQL)) {
+            pstmt.setInt(1, bookId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * handOver
+     * Checks each of the books that is on the shelf and has a waiting hold out again, due on the given date, and
+     * fills the oldest hold waiting for it. Books nobody is waiting for are left alone. This runs inside the caller's
+     * transaction, which must already hold the write lock for the check-in that put the books back on the shelf, so
+     * the check-in and the hand-over commit together. Returns the hand-overs by book ID.
+     */
+    static Map<Integer, Handover> handOver(Connection conn, List<Integer> bookIds, LocalDate dueDate)
+            throws SQLException {
+        if (bookIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        long started = HAND_OVER_METRICS.start();
+        String due = dueDate.toString();
+        String filledAt = Instant.now().toString();
+        Map<Integer, Handover> handovers = new LinkedHashMap<>();
+        try (PreparedStatement lend = conn.prepareStatement(LEND_SQL);
+             PreparedStatement next = conn.prepareStatement(NEXT_SQL);
+             PreparedStatement fill = conn.prepareStatement(FILL_SQL)) {
+            for (int bookId : bookIds) {
+                lend.setString(1, due);
+                lend.setInt(2, bookId);
+                lend.setInt(3, bookId);
+                if (lend.executeUpdate() == 0) {
+                    continue;
+                }
+                next.setInt(1, bookId);
+                long holdId;
+                String patron;
+                try (ResultSet rs = next.executeQuery()) {
+                    rs.next();
+                    holdId = rs.getLong(1);
+                    patron = rs.getString(2);
+                }
+                fill.setString(1, filledAt);
+                fill.setLong(2, holdId);
+                fill.executeUpdate();
+                handovers.put(bookId, new Handover(holdId, patron, due));
+            }
+            HAND_OVER_METRICS.rowsWritten(handovers.size());
+            HAND_OVER_METRICS.success(started);
+            return handovers;
+        } catch (SQLException | RuntimeException e) {
+            HAND_OVER_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    private static int ahead(Connection conn, int bookId, long holdId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(AHEAD_SQL)) {
+            pstmt.setInt(1, bookId);
+            pstmt.setLong(2, holdId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Hold
+     * One patron's hold on a book and how many patrons are waiting ahead of it. The due date is set when the copy was
+     * on the shelf and was handed to the patron as the hold was placed.
+     */
+    public record Hold(long holdId, int bookId, String patron, String placedAt, int ahead, String dueDate) {
+
+        public boolean filled() {
+            return dueDate != null;
+        }
+
+        @Override
+        public String toString() {
+            return filled() ? "Book " + bookId + " is checked out to " + patron + ", due " + dueDate
+                    : patron + " is waiting for book " + bookId + " behind " + ahead
+                    + (ahead == 1 ? " other patron" : " other patrons");
+        }
+    }
+
+    /**
+     * Handover
+     * The hold a checked-in copy was handed to, and the due date of the new loan.
+     */
+    record Handover(long holdId, String patron, String dueDate) {
+    }
+}
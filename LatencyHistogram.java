@@ -0,0 +1,122 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * LatencyHistogram.java
+ * This class records operation latencies so that percentiles such as the median and the 99th percentile can be
+ * reported, not just an average that hides the slow cases. Like HdrHistogram it uses log-linear buckets: values below
+ * 128 ns get a bucket each, and above that every power of two is split into 64 equal buckets, so any recorded value
+ * is reported within about 1.6% of its true value from a few nanoseconds up to centuries. Recording is lock-free and
+ * allocation-free, a handful of atomic increments, so it is cheap enough to leave on all the time.
+ */
+
+package libraryms.libraryms;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = LINEAR_LIMIT + (Long.SIZE - SUB_BUCKET_BITS - 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * record
+     * Adds one latency measurement in nanoseconds. Negative values, which System.nanoTime can produce if it is
+     * misused, are recorded as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        totalNanos.add(value);
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * getSnapshot
+     * Returns the count, mean, common percentiles and maximum recorded so far. Measurements recorded while the
+     * snapshot is taken may or may not be included.
+     */
+    public Snapshot getSnapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long max = maxNanos.get();
+        return new Snapshot(total, total == 0 ? 0 : totalNanos.sum() / total,
+                percentile(copy, total, 50, max), percentile(copy, total, 90, max),
+                percentile(copy, total, 99, max), percentile(copy, total, 99.9, max), max);
+    }
+
+    private static long percentile(long[] counts, long total, double percentile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * bucketOf
+     * Maps a value to its bucket: the value itself below LINEAR_LIMIT, otherwise the power of two it falls in
+     * together with the next SUB_BUCKET_BITS bits below its highest set bit.
+     */
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    /**
+     * highestValueIn
+     * Returns the largest value that falls into the given bucket.
+     */
+    static long highestValueIn(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long top = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Snapshot
+     * Point-in-time latency summary, all values in nanoseconds.
+     */
+    public record Snapshot(long count, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos,
+                           long maxNanos) {
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+                    count, meanNanos / 1e6, p50Nanos / 1e6, p90Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6,
+                    maxNanos / 1e6);
+        }
+    }
+}
@@ -4,32 +4,180 @@
  * 01/26/2024
  * Library.java
  * This class serves as an assistance class to the main class that supports the application.
+ * The books it knows about are kept in the shared CatalogCache, which the application updates every time it writes to
+ * the books table, instead of in a separate list that can drift away from the database.
+ * Writes to the database go through the shared WriteQueue, which commits them in groups on a single writer thread.
+ * New book IDs come from one shared BookIdAllocator, which leases them in blocks from the database.
+ * When a binary CatalogSnapshot is configured, the cache can be warmed from it at startup instead of from SQLite.
  */
 
 package libraryms.libraryms;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 class Library {
-    public static ArrayList<Book> books = new ArrayList<>();
+    private static final int CATALOG_CACHE_SIZE = 100_000;
+    private static final int WRITE_QUEUE_CAPACITY = 1_000;
+    private static final Logger LOG = Logger.getLogger(Library.class.getName());
+    private static final OperationMetrics ADD_METRICS = Metrics.operation("library.addBooks");
+    private static final CatalogCache catalog = new CatalogCache(CATALOG_CACHE_SIZE);
+    private static final OverdueTracker overdue = new OverdueTracker();
+    private static WriteQueue writes;
+    private static BookIdAllocator ids;
+    private static BookFingerprints fingerprints;
+    private static CatalogStatistics statistics;
 
-    public static List<Book> getAllBooks() {
-        return Collections.unmodifiableList(books);
+    public static CatalogCache getCatalog() {
+        return catalog;
     }
 
+    public static OverdueTracker getOverdueTracker() {
+        return overdue;
+    }
+
+    /**
+     * discardCachedState
+     * Drops everything the application keeps in memory about the books table, so it is read again from the database.
+     * Used after writes that already updated the cache and the loan tracker failed to commit.
+     */
+    public static void discardCachedState() {
+        catalog.clear();
+        overdue.reset();
+    }
+
+    /**
+     * warmFromSnapshot
+     * Fills the catalog cache from the snapshot file named by the libraryms.snapshot.path system property and returns
+     * how many books were loaded. Nothing is loaded when no snapshot is configured, when the file cannot be read, or
+     * when the database has changed since the snapshot was exported; the cache then fills from SQLite as usual.
+     */
+    public static int warmFromSnapshot() {
+        Path file = CatalogSnapshot.configuredPath();
+        if (file == null || !Files.exists(file)) {
+            return 0;
+        }
+        try {
+            CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+            if (!snapshot.isCurrentFor(DatabaseConnection.getDatabasePath())) {
+                LOG.info("Ignoring " + file + " because the database has changed since it was exported.");
+                return 0;
+            }
+            int warmed = snapshot.warm(catalog);
+            LOG.info("Loaded " + warmed + " books from " + file + ".");
+            return warmed;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not load the catalog snapshot " + file + ".", e);
+            return 0;
+        }
+    }
+
+    /**
+     * getWriteQueue
+     * Returns the queue every write of the application goes through, starting its writer thread on first use.
+     */
+    public static synchronized WriteQueue getWriteQueue() {
+        if (writes == null) {
+            writes = new WriteQueue(WRITE_QUEUE_CAPACITY);
+        }
+        return writes;
+    }
+
+    /**
+     * getIdAllocator
+     * Returns the allocator every new book of the application takes its ID from, leasing from the shared database.
+     */
+    public static synchronized BookIdAllocator getIdAllocator() {
+        if (ids == null) {
+            ids = new BookIdAllocator(DatabaseConnection::getConnection);
+        }
+        return ids;
+    }
+
+    /**
+     * closeIdAllocator
+     * Gives the IDs the allocator leased but never handed out back to the database, if it was ever created, so the
+     * next process numbers its books from where this one stopped.
+     */
+    public static synchronized void closeIdAllocator() {
+        if (ids != null) {
+            try {
+                ids.release();
+            } catch (SQLException e) {
+                LOG.log(Level.WARNING, "Could not give unused book IDs back; they will be skipped.", e);
+            }
+            ids = null;
+        }
+    }
+
+    /**
+     * getFingerprints
+     * Returns the fingerprints deduplicating imports check records against, whose Bloom filter is kept in memory and
+     * shared by every import of the application.
+     */
+    public static synchronized BookFingerprints getFingerprints() {
+        if (fingerprints == null) {
+            fingerprints = new BookFingerprints();
+        }
+        return fingerprints;
+    }
+
+    /**
+     * getStatistics
+     * Returns the catalog statistics of the shared database, which the window and the server reconcile in the
+     * background.
+     */
+    public static synchronized CatalogStatistics getStatistics() {
+        if (statistics == null) {
+            statistics = new CatalogStatistics("jdbc:sqlite:" + DatabaseConnection.getDatabasePath());
+        }
+        return statistics;
+    }
+
+    /**
+     * closeWriteQueue
+     * Commits the writes that are still queued and stops the writer thread, if it was ever started.
+     */
+    public static synchronized void closeWriteQueue() {
+        if (writes != null) {
+            writes.close();
+            writes = null;
+        }
+    }
 
     /**
      * addBook
      * Adds a book to the library's collection.
-     * Method receive an object type book.
+     * Method receive an object type book. The book is saved with the ID it already has through the shared WriteQueue
+     * and only enters the CatalogCache once it is inserted, so the cache never holds a book the database does not.
      */
-    public void addBook(Book book) {
-        if (book != null) {
-            books.add(book);
-        } else {
+    public CompletableFuture<Book> addBook(Book book) {
+        if (book == null) {
             System.out.println("Cannot add a null book to the library.");
+            return CompletableFuture.completedFuture(null);
         }
+        return addBooks(List.of(book)).thenApply(added -> book);
+    }
+
+    /**
+     * addBooks
+     * Saves several new books in one write on the shared WriteQueue and then adds them to the CatalogCache. The
+     * returned future completes once the write is done, or exceptionally when it failed or the queue was full.
+     */
+    public CompletableFuture<List<Book>> addBooks(List<Book> books) {
+        return getWriteQueue().submit(ADD_METRICS, conn -> {
+            SqliteBookRepository.insertAll(conn, books);
+            ADD_METRICS.rowsWritten(books.size());
+            for (Book book : books) {
+                catalog.put(book);
+            }
+            return books;
+        });
     }
 
 }
@@ -11,10 +11,14 @@
 
 package libraryms.libraryms;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
@@ -22,18 +26,86 @@ import javafx.stage.Window;
 import java.io.File;
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class LibraryManagementGUI extends Application {
-    private final Library library = new Library();
-    private final TextArea textArea = new TextArea();
+    private static final int PAGE_SIZE = 50;
+    private static final int SEARCH_LIMIT = 200;
+    private static final OperationMetrics ADD_BOOK_METRICS = Metrics.operation("gui.addBook");
+    private static final OperationMetrics LOAD_PAGE_METRICS = Metrics.operation("gui.loadPage");
+    private static final OperationMetrics SEARCH_METRICS = Metrics.operation("gui.search");
+    private static final OperationMetrics REMOVE_BOOK_METRICS = Metrics.operation("gui.removeBook");
+    private static final OperationMetrics CHECK_OUT_METRICS = Metrics.operation("gui.checkOut");
+    private static final OperationMetrics CHECK_IN_METRICS = Metrics.operation("gui.checkIn");
+    private static final OperationMetrics PLACE_HOLD_METRICS = Metrics.operation("gui.placeHold");
+    private static final OperationMetrics OVERDUE_REPORT_METRICS = Metrics.operation("gui.overdueReport");
+    private static final OperationMetrics STATISTICS_METRICS = Metrics.operation("gui.statistics");
+    private static final int DUE_SOON_DAYS = 7;
+    private static final int REPORT_LIMIT = 25;
+    private static final int STATISTICS_LIMIT = 50;
+    private static final Map<String, BookImporter.Mode> IMPORT_MODES = new LinkedHashMap<>();
+
+    static {
+        IMPORT_MODES.put("Skip books already in the catalog (same title and author)", BookImporter.Mode.SKIP_DUPLICATES);
+        IMPORT_MODES.put("Update the genre of books already in the catalog", BookImporter.Mode.UPSERT);
+        IMPORT_MODES.put("Add every line as a new book", BookImporter.Mode.APPEND);
+    }
+    private final CatalogCache catalog = Library.getCatalog();
+    private final WriteQueue writes = Library.getWriteQueue();
+    private final BookIdAllocator ids = Library.getIdAllocator();
+    private final ExecutorService idLeases = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "id-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final OverdueTracker overdue = Library.getOverdueTracker();
+    private final CirculationService circulation = new CirculationService(catalog, overdue);
+    private final ChangePoller changes = new ChangePoller(catalog, writes);
+    private final CatalogStatistics statistics = Library.getStatistics();
+    private final TableView<Book> bookTable = new TableView<>();
+    private final Button btnPreviousPage = new Button("< Previous");
+    private final Button btnNextPage = new Button("Next >");
+    private final Label pageLabel = new Label();
+    private final TextField searchField = new TextField();
+    private final ProgressBar importProgress = new ProgressBar(0);
+    private final Label importStatus = new Label();
+    private final Button btnCancelImport = new Button("Cancel Import");
+    private final HBox importBar = new HBox(10, importProgress, btnCancelImport, importStatus);
+    private final TitledPane statisticsPane = new TitledPane();
+    private final Label statisticsSummary = new Label();
+    private final TableView<CatalogStatistics.Count> genreStatistics = new TableView<>();
+    private final TableView<CatalogStatistics.Count> statusStatistics = new TableView<>();
+    private final TableView<CatalogStatistics.Count> authorStatistics = new TableView<>();
+    private Button btnLoadBooks;
+    private DatabaseExecutor.RunningJob<BookImporter.ImportResult> importJob;
+    private BookPageQuery.SortColumn sortColumn = BookPageQuery.SortColumn.BOOK_ID;
+    private boolean sortAscending = true;
+    private int pageNumber = 1;
+    private boolean hasNextPage;
+    private boolean showingSearch;
     private Window primaryStage;
 
 
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Library Management System");
+        Metrics.startLogging();
+        DatabaseExecutor.submit(conn -> Library.warmFromSnapshot());
+        overdue.startSweeping(loans -> Platform.runLater(() -> showAlert("Overdue Books", loans.size()
+                + " books became overdue. Use Overdue Report to see them.", Alert.AlertType.INFORMATION)));
+        changes.start(batch -> Platform.runLater(() -> showChanges(batch)));
+        statistics.startReconciling(result -> Platform.runLater(this::refreshStatistics));
 
         VBox root = new VBox(10);
         root.setPadding(new Insets(15));
@@ -44,11 +116,13 @@ public class LibraryManagementGUI extends Application {
         buttonGrid.setPadding(new Insets(15, 0, 15, 0));
 
         Button btnAddBook = new Button("Add Book");
-        Button btnLoadBooks = new Button("Load Books from File");
+        btnLoadBooks = new Button("Load Books from File");
         Button btnRemoveBookByBarcode = new Button("Remove Book by Barcode");
         Button btnRemoveBookByTitle = new Button("Display Book List");
         Button btnCheckOutBook = new Button("Check Out Book");
         Button btnCheckInBook = new Button("Check In Book");
+        Button btnPlaceHold = new Button("Place Hold");
+        Button btnOverdueReport = new Button("Overdue Report");
         Button btnExit = new Button("Exit");
 
 
@@ -58,7 +132,9 @@ public class LibraryManagementGUI extends Application {
         buttonGrid.add(btnRemoveBookByTitle, 1, 1);
         buttonGrid.add(btnCheckOutBook, 0, 2);
         buttonGrid.add(btnCheckInBook, 1, 2);
-        buttonGrid.add(btnExit, 0, 3, 2, 1); // Span 2 columns
+        buttonGrid.add(btnPlaceHold, 0, 3);
+        buttonGrid.add(btnOverdueReport, 1, 3);
+        buttonGrid.add(btnExit, 0, 4, 2, 1); // Span 2 columns
 
 
         btnAddBook.setMinWidth(280);
@@ -67,6 +143,8 @@ public class LibraryManagementGUI extends Application {
         btnRemoveBookByTitle.setMinWidth(280);
         btnCheckOutBook.setMinWidth(280);
         btnCheckInBook.setMinWidth(280);
+        btnPlaceHold.setMinWidth(280);
+        btnOverdueReport.setMinWidth(280);
         btnExit.setMinWidth(570);
 
 
@@ -76,20 +154,151 @@ public class LibraryManagementGUI extends Application {
         btnRemoveBookByBarcode.setOnAction(e -> removeBookByBarcode());
         btnCheckInBook.setOnAction(e -> checkInBook());
         btnCheckOutBook.setOnAction(e -> checkOutBook());
+        btnPlaceHold.setOnAction(e -> placeHold());
+        btnOverdueReport.setOnAction(e -> showOverdueReport());
         btnExit.setOnAction(e -> primaryStage.close());
 
-        root.getChildren().addAll(buttonGrid, textArea);
+        btnCancelImport.setOnAction(e -> cancelImport());
+        importProgress.setPrefWidth(280);
+        importBar.setVisible(false);
+        importBar.managedProperty().bind(importBar.visibleProperty());
+
+        buildBookTable();
+        buildStatisticsPane();
+        btnPreviousPage.setOnAction(e -> showPreviousPage());
+        btnNextPage.setOnAction(e -> showNextPage());
+        HBox pager = new HBox(10, btnPreviousPage, pageLabel, btnNextPage);
+        Button btnSearch = new Button("Search");
+        Button btnClearSearch = new Button("Clear");
+        searchField.setPromptText("Search by title, author or genre");
+        searchField.setPrefWidth(420);
+        searchField.setOnAction(e -> searchBooks());
+        btnSearch.setOnAction(e -> searchBooks());
+        btnClearSearch.setOnAction(e -> {
+            searchField.clear();
+            displayBooks();
+        });
+        HBox searchBar = new HBox(10, searchField, btnSearch, btnClearSearch);
+        VBox.setVgrow(bookTable, Priority.ALWAYS);
 
-        Scene scene = new Scene(root, 700, 350);
+        root.getChildren().addAll(buttonGrid, importBar, statisticsPane, searchBar, bookTable, pager);
+
+        Scene scene = new Scene(root, 760, 600);
         primaryStage.setScene(scene);
         primaryStage.show();
+        displayBooks();
+    }
+
+    /**
+     * buildBookTable
+     * Sets up the inventory table. The table only ever holds one page of books, and clicking a column header asks the
+     * database for the first page in the new order instead of sorting the rows in memory.
+     */
+    private void buildBookTable() {
+        bookTable.getColumns().add(bookColumn("ID", BookPageQuery.SortColumn.BOOK_ID, 80, Book::getBookId));
+        bookTable.getColumns().add(bookColumn("Title", BookPageQuery.SortColumn.TITLE, 210, Book::getTitle));
+        bookTable.getColumns().add(bookColumn("Author", BookPageQuery.SortColumn.AUTHOR, 150, Book::getAuthor));
+        bookTable.getColumns().add(bookColumn("Genre", BookPageQuery.SortColumn.GENRE, 120, Book::getGenre));
+        bookTable.getColumns().add(bookColumn("Status", BookPageQuery.SortColumn.STATUS, 90,
+                book -> book.getStatus() == null ? "N/A" : book.getStatus()));
+        bookTable.getColumns().add(bookColumn("Due Date", BookPageQuery.SortColumn.DUE_DATE, 90,
+                book -> book.getDueDate() == null ? "N/A" : book.getDueDate()));
+        bookTable.setPlaceholder(new Label("There are no books in the library."));
+        bookTable.setSortPolicy(table -> {
+            TableColumn<Book, ?> column = table.getSortOrder().isEmpty() ? null : table.getSortOrder().get(0);
+            BookPageQuery.SortColumn requested = column == null
+                    ? BookPageQuery.SortColumn.BOOK_ID : (BookPageQuery.SortColumn) column.getUserData();
+            boolean ascending = column == null || column.getSortType() == TableColumn.SortType.ASCENDING;
+            if (requested != sortColumn || ascending != sortAscending) {
+                sortColumn = requested;
+                sortAscending = ascending;
+                displayBooks();
+            }
+            return true;
+        });
+    }
+
+    /**
+     * buildStatisticsPane
+     * Sets up the collapsible statistics dashboard: the number of books on loan and available, and the counts per
+     * genre, per status and for the authors with the most books. It is read only while the pane is open.
+     */
+    private void buildStatisticsPane() {
+        statisticsTable(genreStatistics, "Genre", 150);
+        statisticsTable(statusStatistics, "Status", 110);
+        statisticsTable(authorStatistics, "Author", 150);
+        HBox tables = new HBox(10, genreStatistics, statusStatistics, authorStatistics);
+        HBox.setHgrow(genreStatistics, Priority.ALWAYS);
+        HBox.setHgrow(authorStatistics, Priority.ALWAYS);
+        statisticsPane.setText("Statistics");
+        statisticsPane.setContent(new VBox(10, statisticsSummary, tables));
+        statisticsPane.setExpanded(false);
+        statisticsPane.expandedProperty().addListener((observable, wasExpanded, expanded) -> refreshStatistics());
+    }
+
+    private static void statisticsTable(TableView<CatalogStatistics.Count> table, String name, double width) {
+        TableColumn<CatalogStatistics.Count, String> value = new TableColumn<>(name);
+        value.setPrefWidth(width);
+        value.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(
+                cell.getValue().value().isEmpty() ? "N/A" : cell.getValue().value()));
+        TableColumn<CatalogStatistics.Count, Long> books = new TableColumn<>("Books");
+        books.setPrefWidth(60);
+        books.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().books()));
+        TableColumn<CatalogStatistics.Count, Long> checkedOut = new TableColumn<>("Out");
+        checkedOut.setPrefWidth(50);
+        checkedOut.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().checkedOut()));
+        table.getColumns().addAll(List.of(value, books, checkedOut));
+        table.getColumns().forEach(column -> column.setSortable(false));
+        table.setPlaceholder(new Label("No books."));
+        table.setPrefHeight(150);
+    }
+
+    /**
+     * refreshStatistics
+     * Reads the statistics dashboard again if it is open. Every number comes from a counter that the database keeps
+     * current, so this costs a handful of small lookups however large the catalog is, and it runs after every change
+     * the ChangePoller reports.
+     */
+    private void refreshStatistics() {
+        if (!statisticsPane.isExpanded()) {
+            return;
+        }
+        CompletableFuture<List<List<CatalogStatistics.Count>>> read = DatabaseExecutor.submit(STATISTICS_METRICS,
+                conn -> {
+                    List<List<CatalogStatistics.Count>> counts = List.of(
+                            List.of(CatalogStatistics.total(conn)),
+                            CatalogStatistics.counts(conn, CatalogStatistics.Dimension.GENRE, STATISTICS_LIMIT),
+                            CatalogStatistics.counts(conn, CatalogStatistics.Dimension.STATUS, STATISTICS_LIMIT),
+                            CatalogStatistics.counts(conn, CatalogStatistics.Dimension.AUTHOR, STATISTICS_LIMIT));
+                    STATISTICS_METRICS.rowsRead(counts.stream().mapToInt(List::size).sum());
+                    return counts;
+                });
+        onFxThread(read, counts -> {
+            CatalogStatistics.Count total = counts.get(0).get(0);
+            statisticsSummary.setText(String.format("%,d books: %,d checked out, %,d available", total.books(),
+                    total.checkedOut(), total.available()));
+            genreStatistics.getItems().setAll(counts.get(1));
+            statusStatistics.getItems().setAll(counts.get(2));
+            authorStatistics.getItems().setAll(counts.get(3));
+        }, e -> statisticsSummary.setText("The statistics could not be read: " + e.getMessage()));
+    }
+
+    private <T> TableColumn<Book, T> bookColumn(String name, BookPageQuery.SortColumn sort, double width,
+                                                 Function<Book, T> value) {
+        TableColumn<Book, T> column = new TableColumn<>(name);
+        column.setUserData(sort);
+        column.setPrefWidth(width);
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(value.apply(cell.getValue())));
+        return column;
     }
 
     /**
      * addBook
      * Prompts the user to input Title, author, and genre. Uses connection to the DB already implemented and sends
      * command to the DB to insert new value into the table, and it gets updated on the DB, if action could not be
-     * completed show alert to the user.
+     * completed show alert to the user. The new book's ID is taken from the BookIdAllocator on a thread of its own
+     * first, since it may have to lease a new block, and the insert is queued once it is known. A lease opens its own
+     * connection, so the ID is not taken on a database thread, which would hold a second pooled connection idle.
      */
     private void addBook() {
 
@@ -116,25 +325,28 @@ public class LibraryManagementGUI extends Application {
             authorResult.ifPresent(author -> {
                 Optional<String> genreResult = genreDialog.showAndWait();
                 genreResult.ifPresent(genre -> {
-                    String sql = "INSERT INTO books (title, author, genre) VALUES (?, ?, ?)";
-
-                    try (Connection conn = DatabaseConnection.getConnection();
-                         PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-                        pstmt.setString(1, title);
-                        pstmt.setString(2, author);
-                        pstmt.setString(3, genre);
-                        int affectedRows = pstmt.executeUpdate();
-
-                        if (affectedRows > 0) {
+                    CompletableFuture<Book> insert = CompletableFuture.supplyAsync(() -> {
+                                try {
+                                    return ids.nextId();
+                                } catch (SQLException e) {
+                                    throw new CompletionException(e);
+                                }
+                            }, idLeases)
+                            .thenCompose(bookId -> writes.submit(ADD_BOOK_METRICS, conn -> {
+                                Book book = new Book(bookId, title, author, genre);
+                                SqliteBookRepository.insert(conn, book);
+                                ADD_BOOK_METRICS.rowsWritten(1);
+                                catalog.put(book);
+                                return book;
+                            }));
+                    onFxThread(insert, book -> {
+                        if (book != null) {
                             showAlert("Success", "New book added successfully.", Alert.AlertType.INFORMATION);
+                            showBookChange(book.getBookId(), book);
                         } else {
                             showAlert("Error", "Failed to add the book.", Alert.AlertType.ERROR);
                         }
-                        displayBooks(); // Refresh the book list
-                    } catch (SQLException e) {
-                        showAlert("Database Error", "Failed to add the book to the database: " + e.getMessage(), Alert.AlertType.ERROR);
-                    }
+                    }, e -> showAlert("Database Error", "Failed to add the book to the database: " + e.getMessage(), Alert.AlertType.ERROR));
                 });
             });
         });
@@ -154,34 +366,62 @@ public class LibraryManagementGUI extends Application {
         File selectedFile = fileChooser.showOpenDialog(primaryStage);
 
         if (selectedFile != null) {
-            BookLoader.loadBooksFromFile(selectedFile.getAbsolutePath(), library);
-
-            List<Book> books = Library.getAllBooks();
-
-            String sql = "INSERT INTO books (title, author, genre) VALUES (?, ?, ?)";
-
-            try (Connection conn = DatabaseConnection.getConnection();
-                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-                for (Book book : books) {
-                    pstmt.setString(1, book.getTitle());
-                    pstmt.setString(2, book.getAuthor());
-                    pstmt.setString(3, book.getGenre());
-                    pstmt.addBatch();
-                }
-
-                pstmt.executeBatch();
-                showAlert("Success", "Books loaded and added to database successfully.", Alert.AlertType.INFORMATION);
-            } catch (SQLException e) {
-                showAlert("Database Error", "Failed to add loaded books to the database: " + e.getMessage(), Alert.AlertType.ERROR);
+            Optional<String> choice = importModeDialog().showAndWait();
+            if (choice.isEmpty()) {
+                return;
             }
-
-            displayBooks();
+            BookImporter.Mode mode = IMPORT_MODES.get(choice.get());
+            btnLoadBooks.setDisable(true);
+            importProgress.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+            importStatus.setText("Reading " + selectedFile.getName() + "...");
+            importBar.setVisible(true);
+
+            importJob = DatabaseExecutor.submitJob(
+                    context -> new BookImporter().importFile(selectedFile.toPath(), mode, context),
+                    (done, total) -> Platform.runLater(() -> {
+                        importProgress.setProgress(total == 0 ? 1 : (double) done / total);
+                        importStatus.setText(String.format("%.0f%% of %s", 100.0 * done / Math.max(total, 1), selectedFile.getName()));
+                    }));
+            onFxThread(importJob.result(), result -> {
+                finishImport();
+                showAlert("Success", "Books loaded and added to database successfully.\n" + result, Alert.AlertType.INFORMATION);
+                displayBooks();
+            }, e -> {
+                finishImport();
+                if (e instanceof CancellationException) {
+                    showAlert("Import Cancelled", "The import was cancelled. Books added before cancelling were kept, "
+                            + "and loading the same file again resumes where it stopped.", Alert.AlertType.INFORMATION);
+                } else {
+                    showAlert("Database Error", "Failed to add loaded books to the database: " + e.getMessage(), Alert.AlertType.ERROR);
+                }
+                displayBooks();
+            });
         } else {
             System.out.println("File selection cancelled.");
         }
     }
 
+    /**
+     * cancelImport
+     * Asks the running import job to stop. The job notices between batches, so rows already written stay in the
+     * database.
+     */
+    private void cancelImport() {
+        if (importJob != null) {
+            importJob.cancel();
+        }
+    }
+
+    /**
+     * finishImport
+     * Hides the import progress bar and re-enables the load button once an import has ended in any way.
+     */
+    private void finishImport() {
+        importJob = null;
+        importBar.setVisible(false);
+        btnLoadBooks.setDisable(false);
+    }
+
     /**
      * displayBooks
      * This method is responsible for rendering the list of books currently available in the library onto the graphical user interface (GUI).
@@ -189,30 +429,163 @@ public class LibraryManagementGUI extends Application {
      * designated for book listings. Each book's information, including title, author, and genre, is formatted and presented in a user-friendly manner.
      * In case there are no books to display, it may show a message indicating the library is currently empty or adjust the display accordingly.
      * This method plays a critical role in ensuring that the users have real-time access to the library's inventory, enhancing user interaction and engagement.
+     * Only the first page of books in the current sort order is read from the database; the table shows that page and
+     * the pager moves through the rest.
      */
     private void displayBooks() {
-        String query = "SELECT * FROM books";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-
-            StringBuilder booksList = new StringBuilder("Books in the library:\n\n");
-            while (rs.next()) {
-                booksList.append("ID: ").append(rs.getInt("book_id"))
-                        .append(", Title: ").append(rs.getString("title"))
-                        .append(", Author: ").append(rs.getString("author"))
-                        .append(", Status: ").append(rs.getString("status"))
-                        .append(", Due Date: ").append(rs.getString("due_date") == null ? "N/A" : rs.getString("due_date"))
-                        .append(", Genre: ").append(rs.getString("genre"))
-                        .append("\n");
+        showingSearch = false;
+        pageNumber = 1;
+        refreshStatistics();
+        loadPage(fetchPage(LOAD_PAGE_METRICS, conn -> BookPageQuery.firstPage(conn, sortColumn, sortAscending, PAGE_SIZE + 1)), true);
+    }
+
+    /**
+     * showNextPage
+     * Moves the inventory view forward one page, continuing from the last book currently shown.
+     */
+    private void showNextPage() {
+        List<Book> rows = bookTable.getItems();
+        if (!hasNextPage || rows.isEmpty()) {
+            return;
+        }
+        Book last = rows.get(rows.size() - 1);
+        pageNumber++;
+        loadPage(fetchPage(LOAD_PAGE_METRICS, conn -> BookPageQuery.pageAfter(conn, sortColumn, sortAscending, last, PAGE_SIZE + 1)), true);
+    }
+
+    /**
+     * showPreviousPage
+     * Moves the inventory view back one page, ending just before the first book currently shown.
+     */
+    private void showPreviousPage() {
+        List<Book> rows = bookTable.getItems();
+        if (pageNumber <= 1 || rows.isEmpty()) {
+            displayBooks();
+            return;
+        }
+        Book first = rows.get(0);
+        pageNumber--;
+        loadPage(fetchPage(LOAD_PAGE_METRICS, conn -> BookPageQuery.pageBefore(conn, sortColumn, sortAscending, first, PAGE_SIZE)), false);
+    }
+
+    /**
+     * fetchPage
+     * Runs a page query on a database worker and adds the rows it returns to the catalog cache, so that a later
+     * check-out or check-in of a book on screen does not have to read it again. The query is timed and its rows
+     * counted in the given operation metrics.
+     */
+    private CompletableFuture<List<Book>> fetchPage(OperationMetrics metrics, DatabaseExecutor.SqlWork<List<Book>> query) {
+        return DatabaseExecutor.submit(metrics, conn -> {
+            long generation = catalog.writeGeneration();
+            List<Book> rows = query.execute(conn);
+            metrics.rowsRead(rows.size());
+            catalog.putLoaded(rows, generation);
+            return rows;
+        });
+    }
+
+    /**
+     * loadPage
+     * Puts a page of books fetched in the background into the table. Forward queries ask for one extra row, which is
+     * only used to tell whether a next page exists.
+     */
+    private void loadPage(CompletableFuture<List<Book>> page, boolean lookedAhead) {
+        onFxThread(page, rows -> {
+            if (!lookedAhead && rows.isEmpty()) {
+                displayBooks();
+                return;
+            }
+            hasNextPage = !lookedAhead || rows.size() > PAGE_SIZE;
+            bookTable.getItems().setAll(rows.size() > PAGE_SIZE ? rows.subList(0, PAGE_SIZE) : rows);
+            if (pageNumber == 1) {
+                bookTable.scrollTo(0);
+            }
+            updatePager();
+        }, e -> showAlert("Database Error", "Failed to fetch books from the database.", Alert.AlertType.ERROR));
+    }
+
+    /**
+     * showBookChange
+     * Applies one book that was added, removed, checked in or checked out to the table, replacing, removing or
+     * appending only that row instead of reloading the page. A null book means the book was removed. A new book is
+     * appended when it belongs at the end of the last page.
+     */
+    private void showBookChange(int bookId, Book book) {
+        List<Book> rows = bookTable.getItems();
+        int index = -1;
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).getBookId() == bookId) {
+                index = i;
+                break;
             }
-            textArea.setText(booksList.toString());
-        } catch (SQLException e) {
-            showAlert("Database Error", "Failed to fetch books from the database.", Alert.AlertType.ERROR);
+        }
+        if (book == null) {
+            if (index >= 0) {
+                rows.remove(index);
+            }
+        } else if (index >= 0) {
+            rows.set(index, book);
+        } else if (!showingSearch && !hasNextPage && sortColumn == BookPageQuery.SortColumn.BOOK_ID && sortAscending) {
+            if (rows.size() < PAGE_SIZE) {
+                rows.add(book);
+            } else {
+                hasNextPage = true;
+            }
+        }
+        updatePager();
+    }
+
+    /**
+     * showChanges
+     * Applies the changes the ChangePoller found, made by this or any other desk, to the rows on screen. When they
+     * were pruned from the log before the poller read them, the first page is read again if it is the one on screen;
+     * other pages and search results pick the changes up when the user moves on. The statistics dashboard is read again either way.
+     */
+    private void showChanges(ChangeFeed.ChangeBatch batch) {
+        refreshStatistics();
+        if (batch.reload()) {
+            if (!showingSearch && pageNumber == 1) {
+                displayBooks();
+            }
+            return;
+        }
+        for (ChangeFeed.Change change : batch.changes()) {
+            showBookChange(change.bookId(), change.book());
         }
     }
 
+    /**
+     * searchBooks
+     * Looks up the words typed in the search field in the full-text index and shows the best matches in the table in
+     * place of the current page. An empty search goes back to the normal paged list.
+     */
+    private void searchBooks() {
+        String text = searchField.getText().trim();
+        if (text.isEmpty()) {
+            displayBooks();
+            return;
+        }
+        onFxThread(fetchPage(SEARCH_METRICS, conn -> BookSearch.search(conn, text, SEARCH_LIMIT)), books -> {
+            showingSearch = true;
+            hasNextPage = false;
+            bookTable.getItems().setAll(books);
+            bookTable.scrollTo(0);
+            updatePager();
+        }, e -> showAlert("Database Error", "Failed to search the library: " + e.getMessage(), Alert.AlertType.ERROR));
+    }
+
+    private void updatePager() {
+        if (showingSearch) {
+            int count = bookTable.getItems().size();
+            pageLabel.setText(count >= SEARCH_LIMIT ? "Top " + count + " matches" : count + " matches");
+            btnPreviousPage.setDisable(true);
+        } else {
+            pageLabel.setText("Page " + pageNumber);
+            btnPreviousPage.setDisable(pageNumber <= 1);
+        }
+        btnNextPage.setDisable(!hasNextPage);
+    }
+
     /**
      * removeBookByBarcode
      * Enables the deletion of a specific book from the library's database using its unique barcode as a reference.
@@ -233,23 +606,23 @@ public class LibraryManagementGUI extends Application {
         result.ifPresent(bookIdStr -> {
             try {
                 int bookId = Integer.parseInt(bookIdStr);
-                String sql = "DELETE FROM books WHERE book_id = ?";
-
-                try (Connection conn = DatabaseConnection.getConnection();
-                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-                    pstmt.setInt(1, bookId);
-                    int affectedRows = pstmt.executeUpdate();
-
+                CompletableFuture<Integer> delete = writes.submit(REMOVE_BOOK_METRICS, conn -> {
+                    int affectedRows = SqliteBookRepository.delete(conn, bookId) ? 1 : 0;
+                    REMOVE_BOOK_METRICS.rowsWritten(affectedRows);
+                    if (affectedRows > 0) {
+                        catalog.invalidate(bookId);
+                        overdue.untrack(bookId);
+                    }
+                    return affectedRows;
+                });
+                onFxThread(delete, affectedRows -> {
                     if (affectedRows > 0) {
                         showAlert("Success", "Book with ID " + bookId + " removed successfully.", Alert.AlertType.INFORMATION);
+                        showBookChange(bookId, null); // Refresh only the removed row
                     } else {
                         showAlert("Error", "No book found with ID " + bookId + ".", Alert.AlertType.ERROR);
                     }
-                    displayBooks(); // Refresh the book list
-                } catch (SQLException e) {
-                    showAlert("Database Error", "Failed to remove the book from the database: " + e.getMessage(), Alert.AlertType.ERROR);
-                }
+                }, e -> showAlert("Database Error", "Failed to remove the book from the database: " + e.getMessage(), Alert.AlertType.ERROR));
             } catch (NumberFormatException e) {
                 showAlert("Invalid Input", "Book ID must be a number.", Alert.AlertType.ERROR);
             }
@@ -268,11 +641,10 @@ public class LibraryManagementGUI extends Application {
      * available to be borrowed by other users.
      */
     private void checkInBook() {
-        int bookId = askForBookId("Check In Book", "Enter the book ID to check in:");
-        if (bookId == -1) return; // User canceled or entered invalid data
+        List<Integer> bookIds = askForBookIds("Check In Books", "Enter the book IDs to check in, separated by commas:");
+        if (bookIds.isEmpty()) return; // User canceled or entered invalid data
 
-        String sql = "UPDATE books SET status = 'checked in', due_date = NULL WHERE book_id = ?";
-        executeBookStatusUpdate(sql, bookId, "checked in");
+        executeBookStatusUpdate(CHECK_IN_METRICS, conn -> circulation.checkIn(conn, bookIds), "checked in");
     }
 
     /**
@@ -282,76 +654,199 @@ public class LibraryManagementGUI extends Application {
      * Upon input, it verifies the availability of the book for checkout. If the book is available, the system updates
      * its status to checked out, associates the book with the user's account, and calculates the due date based on the library's
      * lending policies. A confirmation message is then displayed to the user, indicating the successful checkout and reminding them
-     * of the return date. In cases where the book is not available for checkout—either because it's already borrowed, reserved,
+     * of the return date. In cases where the book is not available for checkout—either because it's already borrowed
      * or does not exist—an appropriate error message is shown. This method is essential for facilitating the library's lending services,
      * ensuring users can borrow books while maintaining an accurate and updated inventory.
      */
     private void checkOutBook() {
-        int bookId = askForBookId("Check Out Book", "Enter the book ID to check out:");
-        if (bookId == -1) return;
+        List<Integer> bookIds = askForBookIds("Check Out Books", "Enter the book IDs to check out, separated by commas:");
+        if (bookIds.isEmpty()) return;
 
-        String sql = "UPDATE books SET status = 'checked out', due_date = ? WHERE book_id = ? AND status = 'checked in'";
-        executeBookStatusUpdate(sql, bookId, "checked out");
+        executeBookStatusUpdate(CHECK_OUT_METRICS, conn -> circulation.checkOut(conn, bookIds), "checked out");
     }
 
     /**
-     * askForBookId
-     * Initiates a dialogue with the user to input the identification number (ID) of a book. This method is typically
-     * used in scenarios where a specific book's ID is required to perform operations such as checking out, checking in,
-     * or removing a book from the library's inventory. It presents a user interface element, such as a dialog box, where
-     * the user can enter the book's ID. Upon submission, the entered ID is validated for its format and existence within
-     * the library's database. If the ID is valid, it is returned for further processing in the operation. In case of invalid
-     * input such as non-existent book ID, incorrect format, the user is alerted and prompted to re-enter the information
-     * correctly. This method ensures that operations involving specific books are carried out efficiently and accurately.
+     * placeHold
+     * Asks for a book ID and the patron who wants the book, and queues the patron for it. If the copy is on the shelf
+     * and nobody else is waiting, it is checked out to the patron at once; otherwise the patron is told how many
+     * others are waiting ahead of them, and gets the book when those have had it and it is checked in.
      */
-    private int askForBookId(String title, String content) {
+    private void placeHold() {
+        List<Integer> bookIds = askForBookIds("Place Hold", "Enter the book ID to place a hold on:");
+        if (bookIds.isEmpty()) return;
+        if (bookIds.size() > 1) {
+            showAlert("Invalid Input", "Holds are placed on one book at a time.", Alert.AlertType.ERROR);
+            return;
+        }
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("Place Hold");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Enter the patron's name or card number:");
+        Optional<String> patron = dialog.showAndWait().map(String::trim).filter(name -> !name.isEmpty());
+        if (patron.isEmpty()) return;
+
+        int bookId = bookIds.get(0);
+        CompletableFuture<HoldUpdate> update = writes.submit(PLACE_HOLD_METRICS, conn -> {
+            HoldQueue.Hold hold = circulation.placeHold(conn, bookId, patron.get());
+            PLACE_HOLD_METRICS.rowsWritten(hold == null ? 0 : 1);
+            return new HoldUpdate(hold, hold != null && hold.filled() ? catalog.get(conn, bookId) : null);
+        });
+        onFxThread(update, outcome -> {
+            if (outcome.hold() == null) {
+                showAlert("Error", "No book found with ID " + bookId + ".", Alert.AlertType.ERROR);
+                return;
+            }
+            if (outcome.book() != null) {
+                showBookChange(bookId, outcome.book()); // The copy was on the shelf and is now on loan
+            }
+            showAlert("Hold Placed", outcome.hold() + ".", Alert.AlertType.INFORMATION);
+        }, e -> showAlert("Database Error", "Failed to place the hold: " + e.getMessage(), Alert.AlertType.ERROR));
+    }
+
+    /**
+     * askForBookIds
+     * Initiates a dialogue with the user to input the identification numbers (IDs) of one or more books, such as every
+     * book in a cart at the returns desk. The IDs may be separated by commas, spaces or new lines. If any entry is not
+     * a number, the user is alerted and nothing is processed. Returns an empty list when the user cancels or enters
+     * invalid data.
+     */
+    private List<Integer> askForBookIds(String title, String content) {
         TextInputDialog dialog = new TextInputDialog();
         dialog.setTitle(title);
         dialog.setHeaderText(null);
         dialog.setContentText(content);
         Optional<String> result = dialog.showAndWait();
         try {
-            return result.map(Integer::parseInt).orElse(-1);
+            return result.map(CirculationService::parseBookIds).orElse(List.of());
         } catch (NumberFormatException e) {
-            showAlert("Invalid Input", "Please enter a valid book ID.", Alert.AlertType.ERROR);
-            return -1;
+            showAlert("Invalid Input", "Please enter valid book IDs.", Alert.AlertType.ERROR);
+            return List.of();
         }
     }
 
     /**
      * executeBookStatusUpdate
-     * This method is responsible for updating the status of a book within the library's management system database. It is
-     * typically called after operations that change a book's availability status, such as checking out, checking in, or
-     * reserving a book. The method takes as input the book's identification number and the new status to be applied. It first
-     * verifies that the book exists within the database and that the requested status change is valid based on the book's
-     * current state. For example, a book cannot be checked out if it is already checked out or reserved. If the status update
-     * is valid, the method proceeds to update the book's record in the database with the new status. Upon successful update,
-     * it may return a confirmation to the calling process or update the user interface to reflect the change. In case of
-     * failure, due to reasons such as invalid book ID or inappropriate status transition, an error is generated, and the
-     * operation is aborted. This method plays a crucial role in maintaining the integrity and accuracy of the library's
-     * inventory system.
+     * This method is responsible for updating the status of books within the library's management system database. It
+     * runs a check-out or check-in of the CirculationService in the background, which applies every book ID as one
+     * transaction and reports for each ID whether the book changed, was already checked in or out, or does not exist.
+     * Books are only checked out when they are checked in, and a book checked in while patrons hold it is handed
+     * straight to the one who has waited longest. Once the transaction has committed, the changed rows are
+     * refreshed in the table and the user is told what happened to each book that could not be changed. The update is
+     * timed in the given operation metrics, which also count the books that changed.
      */
-    private void executeBookStatusUpdate(String sql, int bookId, String action) {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            if (action.equals("checked out")) {
-                pstmt.setString(1, LocalDate.now().plusWeeks(2).toString());
-                pstmt.setInt(2, bookId);
+    private void executeBookStatusUpdate(OperationMetrics metrics,
+                                         DatabaseExecutor.SqlWork<List<CirculationService.Result>> work, String action) {
+        CompletableFuture<StatusUpdate> update = writes.submit(metrics, conn -> {
+            List<CirculationService.Result> results = work.execute(conn);
+            List<Book> changed = new ArrayList<>();
+            for (CirculationService.Result result : results) {
+                if (result.changed()) {
+                    metrics.rowsWritten(1);
+                }
+                if (result.changed() && changed.size() <= PAGE_SIZE) {
+                    Book book = catalog.get(conn, result.bookId());
+                    if (book != null) {
+                        changed.add(book);
+                    }
+                }
+            }
+            return new StatusUpdate(results, changed);
+        });
+        onFxThread(update, outcome -> {
+            List<CirculationService.Result> results = outcome.results();
+            if (outcome.changed().size() > PAGE_SIZE) {
+                displayBooks(); // Too many rows changed to patch them one by one
             } else {
-                pstmt.setInt(1, bookId);
+                for (Book book : outcome.changed()) {
+                    showBookChange(book.getBookId(), book); // Refresh only the changed rows
+                }
+            }
+            if (results.size() == 1) {
+                CirculationService.Result result = results.get(0);
+                if (result.outcome() == CirculationService.Outcome.HANDED_OVER) {
+                    showAlert("Success", "Book " + action + " and handed to " + result.patron() + ", who was next"
+                            + " in the queue (due " + result.dueDate() + ").", Alert.AlertType.INFORMATION);
+                } else if (result.changed()) {
+                    showAlert("Success", "Book " + action + " successfully.", Alert.AlertType.INFORMATION);
+                } else {
+                    showAlert("Error", "Book not found or already " + action + ".", Alert.AlertType.ERROR);
+                }
+                return;
+            }
+            StringBuilder message = new StringBuilder(CirculationService.summarize(results, action)).append('.');
+            for (CirculationService.Result result : results) {
+                if (result.outcome() == CirculationService.Outcome.HANDED_OVER) {
+                    message.append("\nBook ").append(result.bookId()).append(": handed to ").append(result.patron());
+                } else if (!result.changed()) {
+                    message.append("\nBook ").append(result.bookId()).append(result.outcome()
+                            == CirculationService.Outcome.NOT_FOUND ? ": not found" : ": already " + action);
+                }
             }
+            boolean allChanged = results.stream().allMatch(CirculationService.Result::changed);
+            showAlert(allChanged ? "Success" : "Some books were not " + action, message.toString(),
+                    allChanged ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING);
+        }, e -> showAlert("Database Error", "Failed to " + action + " the books: " + e.getMessage(), Alert.AlertType.ERROR));
+    }
 
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows > 0) {
-                showAlert("Success", "Book " + action + " successfully.", Alert.AlertType.INFORMATION);
+    /**
+     * showOverdueReport
+     * Shows how many books are overdue today and how many fall due within the next week, with the first few of each,
+     * longest overdue and soonest due first. Both lists are read from the partial index of checked-out books, so the
+     * report takes the same time no matter how large the catalog is.
+     */
+    private void showOverdueReport() {
+        LocalDate today = LocalDate.now();
+        CompletableFuture<String> report = DatabaseExecutor.submit(OVERDUE_REPORT_METRICS, conn -> {
+            List<Book> overdueBooks = OverdueReport.overdue(conn, today, REPORT_LIMIT);
+            List<Book> dueSoon = OverdueReport.dueWithin(conn, today, DUE_SOON_DAYS, REPORT_LIMIT);
+            OVERDUE_REPORT_METRICS.rowsRead(overdueBooks.size() + dueSoon.size());
+            StringBuilder text = new StringBuilder();
+            appendLoans(text, OverdueReport.countOverdue(conn, today) + " overdue", overdueBooks);
+            text.append('\n');
+            appendLoans(text, OverdueReport.countDueWithin(conn, today, DUE_SOON_DAYS) + " due within "
+                    + DUE_SOON_DAYS + " days", dueSoon);
+            return text.toString();
+        });
+        onFxThread(report, text -> showAlert("Overdue Report", text, Alert.AlertType.INFORMATION),
+                e -> showAlert("Database Error", "Failed to build the overdue report: " + e.getMessage(),
+                        Alert.AlertType.ERROR));
+    }
+
+    private static void appendLoans(StringBuilder text, String heading, List<Book> books) {
+        text.append(heading).append(":\n");
+        for (Book book : books) {
+            text.append("  ").append(book.getBookId()).append(": ").append(book.getTitle())
+                    .append(" (due ").append(book.getDueDate()).append(")\n");
+        }
+    }
+
+    /**
+     * onFxThread
+     * Waits for background database work to finish without blocking the JavaFX application thread, then runs the
+     * success or failure handler back on that thread so it can safely update the window or show an alert.
+     */
+    private <T> void onFxThread(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
             } else {
-                showAlert("Error", "Book not found or already " + action + ".", Alert.AlertType.ERROR);
+                onFailure.accept(DatabaseExecutor.unwrap(error));
             }
-            displayBooks(); // Refresh the book list
-        } catch (SQLException e) {
-            showAlert("Database Error", "Failed to " + action + " the book: " + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        }));
+    }
+
+    /**
+     * importModeDialog
+     * Builds the dialog that asks how a file should be loaded, offering to skip the books the catalog already has so
+     * that loading the same file twice does not add every book again.
+     */
+    private ChoiceDialog<String> importModeDialog() {
+        List<String> choices = new ArrayList<>(IMPORT_MODES.keySet());
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(choices.get(0), choices);
+        dialog.setTitle("Load Books from File");
+        dialog.setHeaderText("Some books in this file may already be in the catalog.");
+        dialog.setContentText("Load the file and:");
+        return dialog;
     }
 
     /**
@@ -373,7 +868,41 @@ public class LibraryManagementGUI extends Application {
         alert.showAndWait();
     }
 
+    /**
+     * stop
+     * Called by JavaFX when the window closes. Stops the metrics log and the database worker threads, gives unused
+     * book IDs back, and returns the pooled database connections so the database file is released before the
+     * application exits.
+     */
+    @Override
+    public void stop() {
+        Metrics.stopLogging();
+        overdue.stopSweeping();
+        statistics.stopReconciling();
+        changes.stop();
+        idLeases.shutdown();
+        Library.closeWriteQueue();
+        Library.closeIdAllocator();
+        DatabaseExecutor.shutdown();
+        DatabaseConnection.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
+
+    /**
+     * StatusUpdate
+     * The per-book results of a check-out or check-in and the changed books to refresh in the table.
+     */
+    private record StatusUpdate(List<CirculationService.Result> results, List<Book> changed) {
+    }
+
+    /**
+     * HoldUpdate
+     * The hold that was placed, or null when the book does not exist, and the book to refresh in the table when the
+     * hold was filled at once.
+     */
+    private record HoldUpdate(HoldQueue.Hold hold, Book book) {
+    }
 }
@@ -0,0 +1,839 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * LibraryServer.java
+ * This class runs LibraryMS without the JavaFX window, as an HTTP/JSON server built on the JDK's HttpServer, so any
+ * number of branches can share one catalog through the same operations the desktop client offers. Every request gets
+ * its own virtual thread when the JVM has them (Java 21 and later) and a pooled platform thread otherwise.
+ * Reads run concurrently on their own pooled connections, while every write goes through a single WriteQueue so that
+ * concurrent writers never fight over SQLite's write lock. When the write queue is full the server answers 503 so
+ * the client can retry later. Every endpoint is timed as an http.* operation in Metrics, and the time from queueing
+ * a write until it is acknowledged is recorded as server.write.
+ *
+ * Endpoints:
+ *   GET    /books?sort=title&order=asc&limit=50&after=<book id>   one page of the catalog
+ *   GET    /books/search?q=<words>&limit=50                        full-text search
+ *   GET    /books/<id>                                             one book
+ *   POST   /books               {"title": ..., "author": ..., "genre": ...}
+ *   DELETE /books/<id>
+ *   POST   /books/import?mode=append   CSV lines of title,author,genre as the request body; mode=skip_duplicates
+ *                                      or mode=upsert leaves out books the catalog already has
+ *   POST   /circulation/checkout  {"bookIds": [1, 2, 3]}
+ *   POST   /circulation/checkin   {"bookIds": [1, 2, 3]}   copies patrons hold go to the next one waiting
+ *   GET    /books/<id>/holds?limit=50     the patrons waiting for a book, next one first
+ *   POST   /books/<id>/holds    {"patron": ...}   queue a patron, or check the book out to them if it is free
+ *   DELETE /holds/<hold id>                       cancel a waiting hold
+ *   GET    /reports/overdue?limit=50      books overdue today, longest overdue first
+ *   GET    /reports/due?days=7&limit=50   books due within the next days, soonest first
+ *   GET    /reports/statistics?limit=50   books and loans in total and per genre, author and status
+ *   GET    /changes?since=<version>&limit=50   changes to the books after a version, oldest first
+ *   GET    /metrics             the operation metrics as text
+ */
+
+package libraryms.libraryms;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class LibraryServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    private static final String MAX_IDLE_CONNECTIONS_PROPERTY = "sun.net.httpserver.maxIdleConnections";
+    private static final int SERVER_POOL_SIZE = 16;
+    private static final int CONNECTION_BACKLOG = 1_024;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1_000;
+    private static final int MAX_CART_SIZE = 10_000;
+    private static final int DEFAULT_DUE_DAYS = 7;
+    private static final int MAX_JSON_BYTES = 1 << 20;
+    private static final String JSON_TYPE = "application/json; charset=utf-8";
+    private static final String TEXT_TYPE = "text/plain; charset=utf-8";
+    private static final Logger LOG = Logger.getLogger(LibraryServer.class.getName());
+    private static final OperationMetrics LIST_METRICS = Metrics.operation("http.listBooks");
+    private static final OperationMetrics SEARCH_METRICS = Metrics.operation("http.searchBooks");
+    private static final OperationMetrics GET_METRICS = Metrics.operation("http.getBook");
+    private static final OperationMetrics ADD_METRICS = Metrics.operation("http.addBook");
+    private static final OperationMetrics REMOVE_METRICS = Metrics.operation("http.removeBook");
+    private static final OperationMetrics IMPORT_METRICS = Metrics.operation("http.importBooks");
+    private static final OperationMetrics CHECK_OUT_METRICS = Metrics.operation("http.checkOut");
+    private static final OperationMetrics CHECK_IN_METRICS = Metrics.operation("http.checkIn");
+    private static final OperationMetrics LIST_HOLDS_METRICS = Metrics.operation("http.listHolds");
+    private static final OperationMetrics PLACE_HOLD_METRICS = Metrics.operation("http.placeHold");
+    private static final OperationMetrics CANCEL_HOLD_METRICS = Metrics.operation("http.cancelHold");
+    private static final OperationMetrics OVERDUE_METRICS = Metrics.operation("http.overdueReport");
+    private static final OperationMetrics DUE_SOON_METRICS = Metrics.operation("http.dueReport");
+    private static final OperationMetrics STATISTICS_METRICS = Metrics.operation("http.statistics");
+    private static final OperationMetrics CHANGES_METRICS = Metrics.operation("http.changes");
+    private static final OperationMetrics METRICS_METRICS = Metrics.operation("http.metrics");
+    private static final OperationMetrics WRITE_METRICS = Metrics.operation("server.write");
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final WriteQueue writes = Library.getWriteQueue();
+    private final BookIdAllocator ids = Library.getIdAllocator();
+    private final CatalogCache catalog = Library.getCatalog();
+    private final OverdueTracker overdue = Library.getOverdueTracker();
+    private final CirculationService circulation = new CirculationService(catalog, overdue);
+    private final ChangePoller changes = new ChangePoller(catalog, writes);
+    private final CatalogStatistics statistics = Library.getStatistics();
+
+    /**
+     * LibraryServer
+     * Creates a server on the given port; 0 picks a free port. Unless libraryms.db.poolSize was set, the connection
+     * pool is sized for many concurrent readers instead of the desktop client's handful of workers, which only works
+     * when the server is created before anything else has used the database. Nagle's algorithm is also switched off
+     * for the server's sockets, because the JDK server writes the headers and the body of a response separately and
+     * the client's delayed acknowledgement would otherwise hold every small response back by about 40 ms. The server
+     * also keeps up to 1,024 idle keep-alive connections instead of 200, so several hundred clients can keep theirs.
+     */
+    public LibraryServer(int port) throws IOException {
+        if (System.getProperty(DatabaseConnection.POOL_SIZE_PROPERTY) == null) {
+            System.setProperty(DatabaseConnection.POOL_SIZE_PROPERTY, Integer.toString(SERVER_POOL_SIZE));
+        }
+        if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+            System.setProperty(NO_DELAY_PROPERTY, "true");
+        }
+        if (System.getProperty(MAX_IDLE_CONNECTIONS_PROPERTY) == null) {
+            System.setProperty(MAX_IDLE_CONNECTIONS_PROPERTY, Integer.toString(CONNECTION_BACKLOG));
+        }
+        requestExecutor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(port), CONNECTION_BACKLOG);
+        server.setExecutor(requestExecutor);
+        server.createContext("/", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        LibraryServer server = new LibraryServer(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "server-shutdown"));
+        server.start();
+        System.out.println("LibraryMS server listening on http://localhost:" + server.getPort() + "/");
+    }
+
+    public void start() {
+        Library.warmFromSnapshot();
+        server.start();
+        Metrics.startLogging();
+        overdue.startSweeping(loans -> { });
+        changes.start(batch -> { });
+        statistics.startReconciling(result -> { });
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * close
+     * Stops accepting requests, lets the writes that were already queued finish, gives unused book IDs back, and stops
+     * the request threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        overdue.stopSweeping();
+        statistics.stopReconciling();
+        changes.stop();
+        Library.closeWriteQueue();
+        Library.closeIdAllocator();
+        requestExecutor.shutdown();
+        Metrics.stopLogging();
+    }
+
+    /**
+     * newRequestExecutor
+     * Returns an executor that starts a virtual thread per request. Virtual threads arrived in Java 21 and the
+     * application still targets Java 17, so the factory is looked up by reflection and an unbounded pool of platform
+     * threads is used when it is missing.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOG.info("Virtual threads are not available on this JVM; serving requests on platform threads.");
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "http-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * handle
+     * Routes one request to its endpoint, times it, and turns any exception into an error response: 400 for bad
+     * input, 404 and 405 for unknown resources and methods, 503 when the write queue is full and 500 for database
+     * failures. Only server-side failures count as errors in the endpoint's metrics.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Endpoint endpoint;
+            try {
+                endpoint = route(exchange.getRequestMethod(), segments(exchange.getRequestURI().getPath()));
+            } catch (HttpError e) {
+                send(exchange, errorResponse(e));
+                return;
+            }
+            long started = endpoint.metrics().start();
+            Response response;
+            try {
+                response = endpoint.handler().handle(exchange);
+            } catch (Exception e) {
+                response = errorResponse(e);
+            }
+            if (response.status() >= 500) {
+                endpoint.metrics().failure(started);
+            } else {
+                endpoint.metrics().success(started);
+            }
+            send(exchange, response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Endpoint route(String method, String[] path) {
+        if (path.length == 1 && path[0].equals("books")) {
+            return switch (method) {
+                case "GET" -> new Endpoint(LIST_METRICS, this::listBooks);
+                case "POST" -> new Endpoint(ADD_METRICS, this::addBook);
+                default -> throw methodNotAllowed(method);
+            };
+        }
+        if (path.length == 2 && path[0].equals("books") && path[1].equals("search")) {
+            requireMethod(method, "GET");
+            return new Endpoint(SEARCH_METRICS, this::searchBooks);
+        }
+        if (path.length == 2 && path[0].equals("books") && path[1].equals("import")) {
+            requireMethod(method, "POST");
+            return new Endpoint(IMPORT_METRICS, this::importBooks);
+        }
+        if (path.length == 2 && path[0].equals("books")) {
+            int bookId = parseBookId(path[1]);
+            return switch (method) {
+                case "GET" -> new Endpoint(GET_METRICS, exchange -> getBook(bookId));
+                case "DELETE" -> new Endpoint(REMOVE_METRICS, exchange -> removeBook(bookId));
+                default -> throw methodNotAllowed(method);
+            };
+        }
+        if (path.length == 3 && path[0].equals("books") && path[2].equals("holds")) {
+            int bookId = parseBookId(path[1]);
+            return switch (method) {
+                case "GET" -> new Endpoint(LIST_HOLDS_METRICS, exchange -> listHolds(exchange, bookId));
+                case "POST" -> new Endpoint(PLACE_HOLD_METRICS, exchange -> placeHold(exchange, bookId));
+                default -> throw methodNotAllowed(method);
+            };
+        }
+        if (path.length == 2 && path[0].equals("holds")) {
+            requireMethod(method, "DELETE");
+            long holdId = parseHoldId(path[1]);
+            return new Endpoint(CANCEL_HOLD_METRICS, exchange -> cancelHold(holdId));
+        }
+        if (path.length == 2 && path[0].equals("circulation") && path[1].equals("checkout")) {
+            requireMethod(method, "POST");
+            return new Endpoint(CHECK_OUT_METRICS, exchange -> changeStatus(exchange, true));
+        }
+        if (path.length == 2 && path[0].equals("circulation") && path[1].equals("checkin")) {
+            requireMethod(method, "POST");
+            return new Endpoint(CHECK_IN_METRICS, exchange -> changeStatus(exchange, false));
+        }
+        if (path.length == 2 && path[0].equals("reports") && path[1].equals("overdue")) {
+            requireMethod(method, "GET");
+            return new Endpoint(OVERDUE_METRICS, exchange -> loanReport(exchange, false));
+        }
+        if (path.length == 2 && path[0].equals("reports") && path[1].equals("due")) {
+            requireMethod(method, "GET");
+            return new Endpoint(DUE_SOON_METRICS, exchange -> loanReport(exchange, true));
+        }
+        if (path.length == 2 && path[0].equals("reports") && path[1].equals("statistics")) {
+            requireMethod(method, "GET");
+            return new Endpoint(STATISTICS_METRICS, this::statisticsReport);
+        }
+        if (path.length == 1 && path[0].equals("changes")) {
+            requireMethod(method, "GET");
+            return new Endpoint(CHANGES_METRICS, this::listChanges);
+        }
+        if (path.length == 1 && path[0].equals("metrics")) {
+            requireMethod(method, "GET");
+            return new Endpoint(METRICS_METRICS, exchange -> new Response(200, TEXT_TYPE, Metrics.report()));
+        }
+        throw new HttpError(404, "No such resource.");
+    }
+
+    /**
+     * listBooks
+     * Returns one page of the catalog. Pages are read with keyset pagination, so the client passes the ID of the last
+     * book it received as after, and the response names the book to continue after in next (null on the last page).
+     */
+    private Response listBooks(HttpExchange exchange) throws SQLException {
+        Map<String, String> query = query(exchange);
+        BookPageQuery.SortColumn column = parseSortColumn(query.getOrDefault("sort", "book_id"));
+        boolean ascending = parseOrder(query.getOrDefault("order", "asc"));
+        int limit = parseLimit(query.get("limit"));
+        String after = query.get("after");
+
+        List<Book> books = read(conn -> {
+            long generation = catalog.writeGeneration();
+            List<Book> page;
+            if (after == null) {
+                page = BookPageQuery.firstPage(conn, column, ascending, limit + 1);
+            } else {
+                Book last = catalog.get(conn, Integer.parseInt(after));
+                if (last == null) {
+                    throw new HttpError(400, "No book with ID " + after + " to continue after.");
+                }
+                page = BookPageQuery.pageAfter(conn, column, ascending, last, limit + 1);
+            }
+            catalog.putLoaded(page, generation);
+            return page;
+        });
+        boolean more = books.size() > limit;
+        if (more) {
+            books = books.subList(0, limit);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("books", toJson(books));
+        body.put("next", more ? books.get(books.size() - 1).getBookId() : null);
+        return Response.json(200, body);
+    }
+
+    private Response searchBooks(HttpExchange exchange) throws SQLException {
+        Map<String, String> query = query(exchange);
+        String text = query.get("q");
+        if (text == null || text.isBlank()) {
+            throw new HttpError(400, "The q parameter is required.");
+        }
+        int limit = parseLimit(query.get("limit"));
+        List<Book> books = read(conn -> BookSearch.search(conn, text, limit));
+        return Response.json(200, Map.of("books", toJson(books)));
+    }
+
+    private Response getBook(int bookId) throws SQLException {
+        Book book = read(conn -> catalog.get(conn, bookId));
+        if (book == null) {
+            throw new HttpError(404, "No book with ID " + bookId + ".");
+        }
+        return Response.json(200, toJson(book));
+    }
+
+    private Response addBook(HttpExchange exchange) throws IOException, SQLException {
+        Map<String, Object> json = Json.parseObject(readBody(exchange));
+        String title = requireText(json, "title");
+        String author = requireText(json, "author");
+        String genre = optionalText(json, "genre");
+        int bookId = ids.nextId();
+
+        Book book = write(conn -> {
+            Book added = new Book(bookId, title, author, genre);
+            SqliteBookRepository.insert(conn, added);
+            WRITE_METRICS.rowsWritten(1);
+            catalog.put(added);
+            return added;
+        });
+        exchange.getResponseHeaders().set("Location", "/books/" + book.getBookId());
+        return Response.json(201, toJson(book));
+    }
+
+    private Response removeBook(int bookId) {
+        int affectedRows = write(conn -> {
+            int affected = SqliteBookRepository.delete(conn, bookId) ? 1 : 0;
+            WRITE_METRICS.rowsWritten(affected);
+            if (affected > 0) {
+                catalog.invalidate(bookId);
+                overdue.untrack(bookId);
+            }
+            return affected;
+        });
+        if (affectedRows == 0) {
+            throw new HttpError(404, "No book with ID " + bookId + ".");
+        }
+        return new Response(204, null, null);
+    }
+
+    /**
+     * importBooks
+     * Imports the CSV request body with BookImporter. The body is first copied to a temporary file on the request
+     * thread, so a slow upload never holds up the writer; the import itself then runs as one task on the write queue.
+     * Its resume checkpoint is removed afterwards because the temporary file will never be imported again.
+     */
+    private Response importBooks(HttpExchange exchange) throws IOException {
+        BookImporter.Mode mode = parseImportMode(query(exchange).getOrDefault("mode", "append"));
+        Path file = Files.createTempFile("libraryms-import-", ".csv");
+        try {
+            try (InputStream body = exchange.getRequestBody()) {
+                Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            BookImporter.ImportResult result = await(writes.submitTask(() -> {
+                BookImporter.ImportResult imported = new BookImporter().importFile(file, mode, null);
+                try (Connection conn = DatabaseConnection.getConnection();
+                     PreparedStatement pstmt = conn.prepareStatement(
+                             "DELETE FROM import_progress WHERE file_path = ?")) {
+                    pstmt.setString(1, file.toAbsolutePath().toString());
+                    pstmt.executeUpdate();
+                }
+                return imported;
+            }));
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("rowsInserted", result.rowsInserted());
+            body.put("rowsUpdated", result.rowsUpdated());
+            body.put("duplicates", result.duplicates());
+            body.put("linesProcessed", result.linesProcessed());
+            body.put("badLineCount", result.badLineCount());
+            body.put("badLineNumbers", result.badLineNumbers());
+            body.put("summary", result.toString());
+            return Response.json(200, body);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Response changeStatus(HttpExchange exchange, boolean checkOut) throws IOException {
+        Object ids = Json.parseObject(readBody(exchange)).get("bookIds");
+        if (!(ids instanceof List<?> list) || list.isEmpty()) {
+            throw new HttpError(400, "bookIds must be a non-empty array of book IDs.");
+        }
+        if (list.size() > MAX_CART_SIZE) {
+            throw new HttpError(400, "At most " + MAX_CART_SIZE + " books can be changed in one request.");
+        }
+        List<Integer> bookIds = new ArrayList<>(list.size());
+        for (Object id : list) {
+            if (!(id instanceof Long value) || value < 1 || value > Integer.MAX_VALUE) {
+                throw new HttpError(400, "Book IDs must be positive whole numbers: " + id);
+            }
+            bookIds.add(value.intValue());
+        }
+
+        List<CirculationService.Result> results = write(conn -> checkOut
+                ? circulation.checkOut(conn, bookIds)
+                : circulation.checkIn(conn, bookIds));
+        List<Map<String, Object>> items = new ArrayList<>(results.size());
+        for (CirculationService.Result result : results) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("bookId", result.bookId());
+            item.put("outcome", result.outcome().name());
+            item.put("dueDate", result.dueDate());
+            item.put("patron", result.patron());
+            items.add(item);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("summary", CirculationService.summarize(results, checkOut ? "checked out" : "checked in"));
+        body.put("results", items);
+        return Response.json(200, body);
+    }
+
+    private Response listHolds(HttpExchange exchange, int bookId) throws SQLException {
+        int limit = parseLimit(query(exchange).get("limit"));
+        Map<String, Object> body = read(conn -> {
+            if (catalog.get(conn, bookId) == null) {
+                throw new HttpError(404, "No book with ID " + bookId + ".");
+            }
+            List<HoldQueue.Hold> holds = HoldQueue.queue(conn, bookId, limit);
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("bookId", bookId);
+            json.put("waiting", holds.size() < limit ? holds.size() : HoldQueue.countWaiting(conn, bookId));
+            List<Map<String, Object>> items = new ArrayList<>(holds.size());
+            for (HoldQueue.Hold hold : holds) {
+                items.add(toJson(hold));
+            }
+            json.put("holds", items);
+            return json;
+        });
+        return Response.json(200, body);
+    }
+
+    /**
+     * placeHold
+     * Queues the patron for the book. When the copy is on the shelf and nobody is waiting it is checked out to the
+     * patron straight away, which the response shows as filled with a due date.
+     */
+    private Response placeHold(HttpExchange exchange, int bookId) throws IOException {
+        String patron = requireText(Json.parseObject(readBody(exchange)), "patron").trim();
+        HoldQueue.Hold hold = write(conn -> circulation.placeHold(conn, bookId, patron));
+        if (hold == null) {
+            throw new HttpError(404, "No book with ID " + bookId + ".");
+        }
+        exchange.getResponseHeaders().set("Location", "/holds/" + hold.holdId());
+        return Response.json(201, toJson(hold));
+    }
+
+    private Response cancelHold(long holdId) {
+        if (!write(conn -> HoldQueue.cancel(conn, holdId))) {
+            throw new HttpError(404, "No waiting hold with ID " + holdId + ".");
+        }
+        return new Response(204, null, null);
+    }
+
+    /**
+     * loanReport
+     * Returns the books that are overdue today, or with dueSoon the books due within the next days (7 unless given),
+     * together with how many there are in total.
+     */
+    private Response loanReport(HttpExchange exchange, boolean dueSoon) throws SQLException {
+        Map<String, String> query = query(exchange);
+        int limit = parseLimit(query.get("limit"));
+        int days = query.containsKey("days") ? Integer.parseInt(query.get("days")) : DEFAULT_DUE_DAYS;
+        if (days < 0) {
+            throw new HttpError(400, "days must not be negative.");
+        }
+        LocalDate today = LocalDate.now();
+        Map<String, Object> body = new LinkedHashMap<>();
+        read(conn -> {
+            if (dueSoon) {
+                body.put("count", OverdueReport.countDueWithin(conn, today, days));
+                body.put("books", toJson(OverdueReport.dueWithin(conn, today, days, limit)));
+            } else {
+                body.put("count", OverdueReport.countOverdue(conn, today));
+                body.put("books", toJson(OverdueReport.overdue(conn, today, limit)));
+            }
+            return null;
+        });
+        return Response.json(200, body);
+    }
+
+    /**
+     * statisticsReport
+     * Returns the number of books and of books on loan in the whole catalog and for the limit genres, authors and
+     * statuses with the most books, all read from the counters the database keeps.
+     */
+    private Response statisticsReport(HttpExchange exchange) throws SQLException {
+        int limit = parseLimit(query(exchange).get("limit"));
+        Map<String, Object> body = new LinkedHashMap<>();
+        read(conn -> {
+            body.put("total", toJson(CatalogStatistics.total(conn)));
+            for (CatalogStatistics.Dimension dimension : CatalogStatistics.Dimension.values()) {
+                body.put(dimension.name().toLowerCase(Locale.ROOT),
+                        countsToJson(CatalogStatistics.counts(conn, dimension, limit)));
+            }
+            return null;
+        });
+        return Response.json(200, body);
+    }
+
+    /**
+     * listChanges
+     * Returns the changes to the books after the version in since, each with the book as it is now (null once it
+     * was deleted), and the version to pass as since next time. Without since it returns only the current version, to
+     * start from. When more is true there are more changes than the limit, and the client should ask again from the
+     * returned version right away. When reload is true the client has fallen too far behind and should read the
+     * books it shows again.
+     */
+    private Response listChanges(HttpExchange exchange) throws SQLException {
+        Map<String, String> query = query(exchange);
+        int limit = parseLimit(query.get("limit"));
+        String since = query.get("since");
+        ChangeFeed.ChangeBatch batch = read(conn -> since == null
+                ? new ChangeFeed.ChangeBatch(List.of(), ChangeFeed.currentVersion(conn), false, false)
+                : ChangeFeed.changesSince(conn, Long.parseLong(since), limit));
+        List<Map<String, Object>> changes = new ArrayList<>(batch.changes().size());
+        for (ChangeFeed.Change change : batch.changes()) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("version", change.version());
+            json.put("bookId", change.bookId());
+            json.put("operation", change.operation().name());
+            json.put("book", change.book() == null ? null : toJson(change.book()));
+            changes.add(json);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", batch.version());
+        body.put("reload", batch.reload());
+        body.put("more", batch.more());
+        body.put("changes", changes);
+        return Response.json(200, body);
+    }
+
+    /**
+     * read
+     * Runs the work right here on the request thread with its own pooled connection, so reads proceed concurrently.
+     */
+    private static <T> T read(DatabaseExecutor.SqlWork<T> work) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return work.execute(conn);
+        }
+    }
+
+    /**
+     * write
+     * Queues the work on the single writer and waits for it. Throws RejectedExecutionException when the queue is full.
+     */
+    private <T> T write(DatabaseExecutor.SqlWork<T> work) {
+        return await(writes.submit(WRITE_METRICS, work));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private static Response errorResponse(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof UncheckedIOException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        int status;
+        String message = error.getMessage();
+        if (error instanceof HttpError httpError) {
+            status = httpError.status;
+        } else if (error instanceof NumberFormatException) {
+            status = 400;
+            message = "Expected a number: " + message;
+        } else if (error instanceof IllegalArgumentException) {
+            status = 400;
+        } else if (error instanceof RejectedExecutionException) {
+            status = 503;
+            message = "Too many writes are waiting; try again shortly.";
+        } else if (error instanceof SQLException) {
+            status = 500;
+            LOG.log(Level.WARNING, "Database error while handling a request.", error);
+            message = "Database error: " + message;
+        } else {
+            status = 500;
+            LOG.log(Level.WARNING, "Unexpected error while handling a request.", error);
+            message = "Internal error: " + error;
+        }
+        return Response.json(status, Map.of("error", message == null ? error.toString() : message));
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        if (response.status() == 503) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+        }
+        if (response.body() == null) {
+            exchange.sendResponseHeaders(response.status(), -1);
+            return;
+        }
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType());
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] bytes = body.readNBytes(MAX_JSON_BYTES + 1);
+            if (bytes.length > MAX_JSON_BYTES) {
+                throw new HttpError(413, "The request body is larger than " + MAX_JSON_BYTES + " bytes.");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String[] segments(String path) {
+        String trimmed = path.replaceAll("^/+|/+$", "");
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static int parseBookId(String text) {
+        try {
+            int bookId = Integer.parseInt(text);
+            if (bookId > 0) {
+                return bookId;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new HttpError(404, "No book with ID " + text + ".");
+    }
+
+    private static long parseHoldId(String text) {
+        try {
+            long holdId = Long.parseLong(text);
+            if (holdId > 0) {
+                return holdId;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new HttpError(404, "No hold with ID " + text + ".");
+    }
+
+    private static BookPageQuery.SortColumn parseSortColumn(String text) {
+        try {
+            return BookPageQuery.SortColumn.valueOf(text.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Cannot sort by " + text + ".");
+        }
+    }
+
+    private static BookImporter.Mode parseImportMode(String text) {
+        try {
+            return BookImporter.Mode.valueOf(text.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "Unknown import mode " + text + ".");
+        }
+    }
+
+    private static boolean parseOrder(String text) {
+        if (text.equalsIgnoreCase("asc")) {
+            return true;
+        }
+        if (text.equalsIgnoreCase("desc")) {
+            return false;
+        }
+        throw new HttpError(400, "order must be asc or desc.");
+    }
+
+    private static int parseLimit(String text) {
+        if (text == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        int limit = Integer.parseInt(text);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new HttpError(400, "limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
+        return limit;
+    }
+
+    private static String requireText(Map<String, Object> json, String field) {
+        String value = optionalText(json, field);
+        if (value == null || value.isBlank()) {
+            throw new HttpError(400, field + " is required.");
+        }
+        return value;
+    }
+
+    private static String optionalText(Map<String, Object> json, String field) {
+        Object value = json.get(field);
+        if (value != null && !(value instanceof String)) {
+            throw new HttpError(400, field + " must be a string.");
+        }
+        return (String) value;
+    }
+
+    private static void requireMethod(String method, String allowed) {
+        if (!method.equals(allowed)) {
+            throw methodNotAllowed(method);
+        }
+    }
+
+    private static HttpError methodNotAllowed(String method) {
+        return new HttpError(405, method + " is not allowed here.");
+    }
+
+    private static List<Map<String, Object>> toJson(List<Book> books) {
+        List<Map<String, Object>> json = new ArrayList<>(books.size());
+        for (Book book : books) {
+            json.add(toJson(book));
+        }
+        return json;
+    }
+
+    private static Map<String, Object> toJson(Book book) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", book.getBookId());
+        json.put("title", book.getTitle());
+        json.put("author", book.getAuthor());
+        json.put("genre", book.getGenre());
+        json.put("status", book.getStatus());
+        json.put("dueDate", book.getDueDate());
+        return json;
+    }
+
+    private static List<Map<String, Object>> countsToJson(List<CatalogStatistics.Count> counts) {
+        List<Map<String, Object>> json = new ArrayList<>(counts.size());
+        for (CatalogStatistics.Count count : counts) {
+            json.add(toJson(count));
+        }
+        return json;
+    }
+
+    private static Map<String, Object> toJson(CatalogStatistics.Count count) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("value", count.value());
+        json.put("books", count.books());
+        json.put("checkedOut", count.checkedOut());
+        json.put("available", count.available());
+        return json;
+    }
+
+    private static Map<String, Object> toJson(HoldQueue.Hold hold) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("holdId", hold.holdId());
+        json.put("bookId", hold.bookId());
+        json.put("patron", hold.patron());
+        json.put("placedAt", hold.placedAt());
+        json.put("ahead", hold.ahead());
+        json.put("filled", hold.filled());
+        json.put("dueDate", hold.dueDate());
+        return json;
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws Exception;
+    }
+
+    private record Endpoint(OperationMetrics metrics, Handler handler) {
+    }
+
+    private record Response(int status, String contentType, String body) {
+
+        static Response json(int status, Object body) {
+            return new Response(status, JSON_TYPE, Json.write(body));
+        }
+    }
+
+    /**
+     * HttpError
+     * Thrown by an endpoint to answer with a specific status code and message.
+     */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,909 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * LogBookRepository.java
+ * This class is a BookRepository that keeps every book in memory, in a sorted map by book_id, and makes each change
+ * durable by appending it to a log file before it is applied. Reads never touch the disk and never wait for a writer;
+ * writes cost one append. When the repository is opened the map is rebuilt by reading the log back. It keeps no hold
+ * queue, so a check-in here never hands the book to a waiting patron; circulation with holds needs the SQLite engine.
+ * The log is a directory of numbered files. segment-N.log files hold the changes in the order they were made, and a
+ * snapshot-N.log file holds every book as it was when segment N was closed, so the segments up to N are no longer
+ * needed. Compaction writes such a snapshot on a background thread once the segments since the last one grow larger
+ * than the snapshot and than libraryms.log.compactBytes (8 MB by default; 0 turns it off). It first closes the current
+ * segment and starts the next, so writers carry on while the snapshot is written, and it renames the snapshot into
+ * place only once it is complete and on disk. A change can therefore be in both the snapshot and a later segment;
+ * every change sets a book to a given state, so reading it twice leaves the same book.
+ *
+ * File layout (all numbers big-endian):
+ *   header      magic "LIBLOG01", int version
+ *   records     int body length, int CRC32 of the body, then the body: int change count and the changes
+ *   change      byte type, int book_id, then for a put: title, author, genre, status and due date; for a status
+ *               change: status and due date; for a delete: nothing. Strings are int length and UTF-8 bytes, -1 for null
+ * A record is one add, delete or status change, or one whole batch, so a batch is read back all or nothing. A crash
+ * can leave the last record of the last segment half written; it is cut off when the log is opened.
+ * Durability follows the write queue's settings: COMMITTED writes each record to the file before returning, which
+ * survives the process crashing. SYNCED also waits for it to reach the disk; writers that arrive while a flush is
+ * running share the next one. BUFFERED collects records in memory and writes them 64 KB at a time, and can lose
+ * the latest writes in a crash.
+ */
+
+package libraryms.libraryms;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+public class LogBookRepository implements BookRepository {
+    public static final String COMPACT_BYTES_PROPERTY = "libraryms.log.compactBytes";
+    private static final long DEFAULT_COMPACT_BYTES = 8L << 20;
+    private static final long MAGIC = 0x4C49424C4F473031L; // "LIBLOG01"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = Integer.MAX_VALUE - 64;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int SNAPSHOT_BATCH_SIZE = 1_000;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte STATUS = 3;
+    private static final Pattern FILE_NAME = Pattern.compile("(segment|snapshot)-(\\d+)\\.log");
+    private static final Logger LOG = Logger.getLogger("libraryms.log");
+    private static final OperationMetrics OPEN_METRICS = Metrics.operation("repository.log.open");
+    private static final OperationMetrics ADD_METRICS = Metrics.operation("repository.log.add");
+    private static final OperationMetrics REMOVE_METRICS = Metrics.operation("repository.log.remove");
+    private static final OperationMetrics GET_METRICS = Metrics.operation("repository.log.get");
+    private static final OperationMetrics SCAN_METRICS = Metrics.operation("repository.log.scan");
+    private static final OperationMetrics STATUS_METRICS = Metrics.operation("repository.log.updateStatus");
+    private static final OperationMetrics COMPACT_METRICS = Metrics.operation("repository.log.compact");
+
+    private final Path directory;
+    private final WriteQueue.Durability durability;
+    private final long compactBytes;
+    private final ConcurrentSkipListMap<Integer, Book> books = new ConcurrentSkipListMap<>();
+    private final StampedLock applying = new StampedLock();
+    private final RecordBuffer pending = new RecordBuffer();
+    private final Object compactionLock = new Object();
+    private final Object syncLock = new Object();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final AtomicLong syncedBytes = new AtomicLong();
+    private final ExecutorService compactor;
+    private volatile int size;
+    private FileChannel channel;
+    private long segment;
+    private long appendedBytes;
+    private long segmentBytes;
+    private long snapshotBytes;
+    private int compactions;
+    private IOException failure;
+    private boolean closed;
+
+    public LogBookRepository(Path directory) throws SQLException {
+        this(directory, WriteQueue.Durability.COMMITTED);
+    }
+
+    /**
+     * LogBookRepository
+     * Opens the log in the given directory, creating the directory when it does not exist, and reads every book into
+     * memory: the latest snapshot first, then the segments written after it. A half-written record at the end of the
+     * last segment is cut off; damage anywhere else fails the open rather than quietly losing books. New changes go
+     * to a new segment.
+     */
+    public LogBookRepository(Path directory, WriteQueue.Durability durability) throws SQLException {
+        long started = OPEN_METRICS.start();
+        this.directory = directory;
+        this.durability = durability;
+        this.compactBytes = Long.getLong(COMPACT_BYTES_PROPERTY, DEFAULT_COMPACT_BYTES);
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException | RuntimeException e) {
+            OPEN_METRICS.failure(started);
+            throw new SQLException("Could not open the book log in " + directory + ": " + e.getMessage(), e);
+        }
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        OPEN_METRICS.rowsRead(size);
+        OPEN_METRICS.success(started);
+    }
+
+    @Override
+    public void add(Book book) throws SQLException {
+        addAll(List.of(book));
+    }
+
+    @Override
+    public void addAll(List<Book> added) throws SQLException {
+        long started = ADD_METRICS.start();
+        try {
+            long position;
+            synchronized (this) {
+                checkWritable();
+                Set<Integer> ids = new HashSet<>();
+                List<Book> stored = new ArrayList<>(added.size());
+                for (Book book : added) {
+                    if (book.getTitle() == null || book.getAuthor() == null) {
+                        throw new SQLException("Book " + book.getBookId() + " needs a title and an author.");
+                    }
+                    if (books.containsKey(book.getBookId()) || !ids.add(book.getBookId())) {
+                        throw new SQLException("A book with ID " + book.getBookId() + " already exists.");
+                    }
+                    stored.add(book.getStatus() == null
+                            ? book.withStatus(CirculationService.CHECKED_IN, book.getDueDate()) : book);
+                }
+                if (stored.isEmpty()) {
+                    ADD_METRICS.success(started);
+                    return;
+                }
+                pending.begin();
+                for (Book book : stored) {
+                    pending.put(book);
+                }
+                position = append();
+                long stamp = applying.writeLock();
+                try {
+                    for (Book book : stored) {
+                        putBook(book);
+                    }
+                } finally {
+                    applying.unlockWrite(stamp);
+                }
+            }
+            sync(position);
+            ADD_METRICS.rowsWritten(added.size());
+            ADD_METRICS.success(started);
+        } catch (SQLException | RuntimeException e) {
+            ADD_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean remove(int bookId) throws SQLException {
+        return removeAll(List.of(bookId)) > 0;
+    }
+
+    @Override
+    public int removeAll(List<Integer> bookIds) throws SQLException {
+        long started = REMOVE_METRICS.start();
+        try {
+            long position;
+            List<Integer> removed = new ArrayList<>();
+            synchronized (this) {
+                checkWritable();
+                Set<Integer> seen = new HashSet<>();
+                for (int bookId : bookIds) {
+                    if (books.containsKey(bookId) && seen.add(bookId)) {
+                        removed.add(bookId);
+                    }
+                }
+                if (removed.isEmpty()) {
+                    REMOVE_METRICS.success(started);
+                    return 0;
+                }
+                pending.begin();
+                for (int bookId : removed) {
+                    pending.delete(bookId);
+                }
+                position = append();
+                long stamp = applying.writeLock();
+                try {
+                    for (int bookId : removed) {
+                        removeBook(bookId);
+                    }
+                } finally {
+                    applying.unlockWrite(stamp);
+                }
+            }
+            sync(position);
+            REMOVE_METRICS.rowsWritten(removed.size());
+            REMOVE_METRICS.success(started);
+            return removed.size();
+        } catch (SQLException | RuntimeException e) {
+            REMOVE_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * get
+     * Reads the book from memory. The read is optimistic: it is only repeated, under the read lock, when a batch was
+     * being applied at the same moment, so readers never see half a batch.
+     */
+    @Override
+    public Book get(int bookId) {
+        long started = GET_METRICS.start();
+        long stamp = applying.tryOptimisticRead();
+        Book book = books.get(bookId);
+        if (!applying.validate(stamp)) {
+            stamp = applying.readLock();
+            try {
+                book = books.get(bookId);
+            } finally {
+                applying.unlockRead(stamp);
+            }
+        }
+        GET_METRICS.rowsRead(book == null ? 0 : 1);
+        GET_METRICS.success(started);
+        return book;
+    }
+
+    @Override
+    public List<Book> getAll(List<Integer> bookIds) {
+        long started = GET_METRICS.start();
+        long stamp = applying.tryOptimisticRead();
+        List<Book> found = lookUp(bookIds);
+        if (!applying.validate(stamp)) {
+            stamp = applying.readLock();
+            try {
+                found = lookUp(bookIds);
+            } finally {
+                applying.unlockRead(stamp);
+            }
+        }
+        GET_METRICS.rowsRead(found.size());
+        GET_METRICS.success(started);
+        return found;
+    }
+
+    @Override
+    public List<Book> scan(int afterBookId, int limit) {
+        long started = SCAN_METRICS.start();
+        long stamp = applying.tryOptimisticRead();
+        List<Book> found = scanFrom(afterBookId, limit);
+        if (!applying.validate(stamp)) {
+            stamp = applying.readLock();
+            try {
+                found = scanFrom(afterBookId, limit);
+            } finally {
+                applying.unlockRead(stamp);
+            }
+        }
+        SCAN_METRICS.rowsRead(found.size());
+        SCAN_METRICS.success(started);
+        return found;
+    }
+
+    @Override
+    public boolean updateStatus(int bookId, String status, String dueDate) throws SQLException {
+        return updateStatuses(List.of(bookId), status, dueDate)[0];
+    }
+
+    @Override
+    public boolean[] updateStatuses(List<Integer> bookIds, String status, String dueDate) throws SQLException {
+        long started = STATUS_METRICS.start();
+        try {
+            boolean[] changed = new boolean[bookIds.size()];
+            long position;
+            List<Integer> updated = new ArrayList<>();
+            synchronized (this) {
+                checkWritable();
+                Set<Integer> seen = new HashSet<>();
+                for (int i = 0; i < changed.length; i++) {
+                    int bookId = bookIds.get(i);
+                    Book book = books.get(bookId);
+                    // A repeated ID already has the new status by the time it comes up again
+                    changed[i] = book != null && !Objects.equals(book.getStatus(), status) && seen.add(bookId);
+                    if (changed[i]) {
+                        updated.add(bookId);
+                    }
+                }
+                if (updated.isEmpty()) {
+                    STATUS_METRICS.success(started);
+                    return changed;
+                }
+                pending.begin();
+                for (int bookId : updated) {
+                    pending.status(bookId, status, dueDate);
+                }
+                position = append();
+                long stamp = applying.writeLock();
+                try {
+                    for (int bookId : updated) {
+                        setStatus(bookId, status, dueDate);
+                    }
+                } finally {
+                    applying.unlockWrite(stamp);
+                }
+            }
+            sync(position);
+            STATUS_METRICS.rowsWritten(updated.size());
+            STATUS_METRICS.success(started);
+            return changed;
+        } catch (SQLException | RuntimeException e) {
+            STATUS_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    @Override
+    public int count() {
+        return size;
+    }
+
+    /**
+     * compact
+     * Writes a snapshot of every book and deletes the segments it replaces, the same as the background compaction
+     * but right away. Writers wait only while the current segment is closed and the next one started.
+     */
+    public void compact() throws SQLException {
+        synchronized (compactionLock) {
+            long started = COMPACT_METRICS.start();
+            long snapshot;
+            synchronized (this) {
+                checkWritable();
+                try {
+                    snapshot = segment;
+                    startSegment(segment + 1);
+                } catch (IOException e) {
+                    failure = e;
+                    COMPACT_METRICS.failure(started);
+                    throw new SQLException("Could not start a new log segment in " + directory + ".", e);
+                }
+            }
+            Path target = file("snapshot", snapshot);
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try {
+                long written = writeSnapshot(temp);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                forceDirectory();
+                deleteReplaced(snapshot);
+                synchronized (this) {
+                    snapshotBytes = written;
+                    compactions++;
+                }
+                COMPACT_METRICS.rowsWritten(size);
+                COMPACT_METRICS.success(started);
+            } catch (IOException | RuntimeException e) {
+                COMPACT_METRICS.failure(started);
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Left for the next open to clean up
+                }
+                throw new SQLException("Could not compact the book log in " + directory + ".", e);
+            }
+        }
+    }
+
+    /**
+     * getStats
+     * Returns the number of books, the size of the latest snapshot and of the segments written since, and how many
+     * compactions this instance has run.
+     */
+    public synchronized LogStats getStats() {
+        return new LogStats(size, snapshotBytes, segmentBytes, compactions);
+    }
+
+    /**
+     * close
+     * Waits for a running compaction, then writes out any buffered records, flushes the segment to disk and closes it.
+     */
+    @Override
+    public void close() throws SQLException {
+        compactor.shutdown();
+        synchronized (compactionLock) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    if (failure == null) {
+                        pending.writeTo(channel);
+                        channel.force(false);
+                    }
+                    channel.close();
+                } catch (IOException e) {
+                    throw new SQLException("Could not close the book log in " + directory + ".", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * recover
+     * Loads the latest snapshot and the segments after it, deletes the files they make obsolete and the segments that
+     * hold no changes, and starts a new segment.
+     */
+    private void recover() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        long latestSnapshot = -1;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.endsWith(".log.tmp")) {
+                    Files.delete(entry);
+                    continue;
+                }
+                Matcher matcher = FILE_NAME.matcher(name);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long number = Long.parseLong(matcher.group(2));
+                if (matcher.group(1).equals("segment")) {
+                    segments.put(number, entry);
+                } else {
+                    latestSnapshot = Math.max(latestSnapshot, number);
+                }
+            }
+        }
+        if (latestSnapshot >= 0) {
+            snapshotBytes = replay(file("snapshot", latestSnapshot), false);
+        }
+        long last = latestSnapshot;
+        long recovered = 0;
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            last = Math.max(last, entry.getKey());
+            if (entry.getKey() > latestSnapshot) {
+                long valid = replay(entry.getValue(), entry.getKey().equals(segments.lastKey()));
+                if (valid <= HEADER_BYTES) {
+                    // Left empty by an earlier open that wrote nothing
+                    Files.delete(entry.getValue());
+                } else {
+                    recovered += valid;
+                }
+            }
+        }
+        deleteReplaced(latestSnapshot);
+        startSegment(last + 1);
+        // The segments of earlier sessions still have to be compacted away, so they count toward the threshold
+        segmentBytes += recovered;
+    }
+
+    /**
+     * replay
+     * Applies every record of a snapshot or segment file to the map and returns the number of valid bytes in it.
+     * When tolerateTornTail is set, a record cut short or failing its checksum ends the file, which is truncated
+     * there; otherwise it is an error.
+     */
+    private long replay(Path file, boolean tolerateTornTail) throws IOException {
+        long length = Files.size(file);
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),
+                BUFFER_BYTES))) {
+            if (length >= HEADER_BYTES) {
+                if (in.readLong() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException(file + " is not a LibraryMS book log.");
+                }
+                valid = HEADER_BYTES;
+            }
+            CRC32 crc = new CRC32();
+            while (valid < length && valid > 0) {
+                if (length - valid < RECORD_HEADER_BYTES) {
+                    break;
+                }
+                int bodyLength = in.readInt();
+                int checksum = in.readInt();
+                if (bodyLength < 4 || bodyLength > length - valid - RECORD_HEADER_BYTES) {
+                    break;
+                }
+                byte[] body = new byte[bodyLength];
+                in.readFully(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                applyRecord(ByteBuffer.wrap(body), file);
+                valid += RECORD_HEADER_BYTES + bodyLength;
+            }
+        } catch (EOFException e) {
+            // The length check above keeps reads inside the file, so this means it shrank while being read
+            throw new IOException(file + " changed while it was being read.", e);
+        }
+        if (valid < length) {
+            if (!tolerateTornTail) {
+                throw new IOException(file + " is damaged at byte " + valid + " of " + length + ".");
+            }
+            LOG.warning("Cut off " + (length - valid) + " bytes of a half-written record at the end of " + file + ".");
+            try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncate.truncate(valid);
+                truncate.force(false);
+            }
+        }
+        return valid;
+    }
+
+    private void applyRecord(ByteBuffer body, Path file) throws IOException {
+        try {
+            int changes = body.getInt();
+            for (int i = 0; i < changes; i++) {
+                byte type = body.get();
+                int bookId = body.getInt();
+                if (type == PUT) {
+                    putBook(new Book(bookId, getString(body), getString(body), getString(body), getString(body),
+                            getString(body)));
+                } else if (type == DELETE) {
+                    removeBook(bookId);
+                } else if (type == STATUS) {
+                    setStatus(bookId, getString(body), getString(body));
+                } else {
+                    throw new IOException("Unknown change type " + type + " in " + file + ".");
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("A record in " + file + " passed its checksum but could not be read.", e);
+        }
+    }
+
+    /**
+     * append
+     * Finishes the record being built and, unless durability is BUFFERED and the buffer still has room, writes the
+     * buffer to the segment. Returns the log position the record ends at, for sync. A failed write leaves the end of
+     * the segment unknown, so the repository refuses further writes until it is reopened.
+     */
+    private long append() throws SQLException {
+        int recordBytes = pending.end();
+        try {
+            if (durability != WriteQueue.Durability.BUFFERED || pending.size() >= BUFFER_BYTES) {
+                pending.writeTo(channel);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw new SQLException("Could not write to the book log in " + directory + ".", e);
+        }
+        appendedBytes += recordBytes;
+        segmentBytes += recordBytes;
+        if (compactBytes > 0 && segmentBytes > Math.max(compactBytes, snapshotBytes)
+                && compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                try {
+                    if (!isClosed()) {
+                        compact();
+                    }
+                } catch (SQLException e) {
+                    LOG.log(Level.WARNING, "Book log compaction failed.", e);
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+        return appendedBytes;
+    }
+
+    /**
+     * sync
+     * With SYNCED durability, waits until the log is on disk up to the given position. One writer flushes at a time;
+     * writers that were waiting for it find their records already flushed by it, or share the next flush.
+     */
+    private void sync(long position) throws SQLException {
+        if (durability != WriteQueue.Durability.SYNCED) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedBytes.get() >= position) {
+                return;
+            }
+            FileChannel target;
+            long upTo;
+            synchronized (this) {
+                target = channel;
+                upTo = appendedBytes;
+            }
+            try {
+                target.force(false);
+                syncedBytes.accumulateAndGet(upTo, Math::max);
+            } catch (ClosedChannelException e) {
+                // The segment was closed by compaction or close, both of which flush it first
+                if (syncedBytes.get() < position) {
+                    throw new SQLException("The book log in " + directory + " was closed.", e);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+                throw new SQLException("Could not flush the book log in " + directory + " to disk.", e);
+            }
+        }
+    }
+
+    /**
+     * startSegment
+     * Writes out and flushes the current segment, if any, and opens a new one with the given number for appending.
+     */
+    private void startSegment(long number) throws IOException {
+        if (channel != null) {
+            pending.writeTo(channel);
+            channel.force(false);
+            syncedBytes.accumulateAndGet(appendedBytes, Math::max);
+            channel.close();
+        }
+        channel = FileChannel.open(file("segment", number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(false);
+        forceDirectory();
+        segment = number;
+        segmentBytes = HEADER_BYTES;
+    }
+
+    /**
+     * writeSnapshot
+     * Writes every book in memory to the given file, in batches of 1,000 per record, and flushes it to disk. Returns
+     * the size of the file.
+     */
+    private long writeSnapshot(Path file) throws IOException {
+        RecordBuffer buffer = new RecordBuffer();
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(MAGIC).putInt(VERSION).flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            int inRecord = 0;
+            for (Book book : books.values()) {
+                if (inRecord == 0) {
+                    buffer.begin();
+                }
+                buffer.put(book);
+                if (++inRecord == SNAPSHOT_BATCH_SIZE) {
+                    buffer.end();
+                    inRecord = 0;
+                    if (buffer.size() >= BUFFER_BYTES) {
+                        buffer.writeTo(out);
+                    }
+                }
+            }
+            if (inRecord > 0) {
+                buffer.end();
+            }
+            buffer.writeTo(out);
+            out.force(false);
+            return out.size();
+        }
+    }
+
+    /**
+     * deleteReplaced
+     * Deletes the segments up to and including the given snapshot's number and every older snapshot.
+     */
+    private void deleteReplaced(long snapshot) throws IOException {
+        if (snapshot < 0) {
+            return;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                Matcher matcher = FILE_NAME.matcher(entry.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long number = Long.parseLong(matcher.group(2));
+                boolean isSegment = matcher.group(1).equals("segment");
+                if (isSegment ? number <= snapshot : number < snapshot) {
+                    Files.delete(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * forceDirectory
+     * Flushes the directory itself, so that new and renamed files survive a power loss. Not every platform lets a
+     * directory be opened; there the rename is still atomic, only not yet durable.
+     */
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Could not flush directory " + directory + ".", e);
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void checkWritable() throws SQLException {
+        if (closed) {
+            throw new SQLException("The book log in " + directory + " is closed.");
+        }
+        if (failure != null) {
+            throw new SQLException("The book log in " + directory + " failed to write earlier and must be reopened.",
+                    failure);
+        }
+    }
+
+    private Path file(String kind, long number) {
+        return directory.resolve(kind + "-" + number + ".log");
+    }
+
+    private List<Book> lookUp(List<Integer> bookIds) {
+        List<Book> found = new ArrayList<>(bookIds.size());
+        for (int bookId : bookIds) {
+            Book book = books.get(bookId);
+            if (book != null) {
+                found.add(book);
+            }
+        }
+        return found;
+    }
+
+    private List<Book> scanFrom(int afterBookId, int limit) {
+        List<Book> found = new ArrayList<>(Math.min(limit, 1_024));
+        for (Book book : books.tailMap(afterBookId, false).values()) {
+            if (found.size() >= limit) {
+                break;
+            }
+            found.add(book);
+        }
+        return found;
+    }
+
+    private void putBook(Book book) {
+        if (books.put(book.getBookId(), book) == null) {
+            size++;
+        }
+    }
+
+    private void removeBook(int bookId) {
+        if (books.remove(bookId) != null) {
+            size--;
+        }
+    }
+
+    private void setStatus(int bookId, String status, String dueDate) {
+        Book book = books.get(bookId);
+        if (book != null) {
+            books.put(bookId, book.withStatus(status, dueDate));
+        }
+    }
+
+    private static String getString(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(body.array(), body.arrayOffset() + body.position(), length, StandardCharsets.UTF_8);
+        body.position(body.position() + length);
+        return value;
+    }
+
+    /**
+     * RecordBuffer
+     * Builds records in a growable heap buffer, filling in each record's length, checksum and change count when it
+     * is finished, and writes finished records to a file.
+     */
+    private static final class RecordBuffer {
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32 crc = new CRC32();
+        private int start;
+        private int changes;
+
+        void begin() {
+            ensure(RECORD_HEADER_BYTES + 4);
+            start = buffer.position();
+            changes = 0;
+            buffer.position(start + RECORD_HEADER_BYTES + 4);
+        }
+
+        void put(Book book) {
+            change(PUT, book.getBookId());
+            putString(book.getTitle());
+            putString(book.getAuthor());
+            putString(book.getGenre());
+            putString(book.getStatus());
+            putString(book.getDueDate());
+        }
+
+        void delete(int bookId) {
+            change(DELETE, bookId);
+        }
+
+        void status(int bookId, String status, String dueDate) {
+            change(STATUS, bookId);
+            putString(status);
+            putString(dueDate);
+        }
+
+        /**
+         * end
+         * Fills in the header of the record being built and returns its size in bytes.
+         */
+        int end() {
+            int bodyLength = buffer.position() - start - RECORD_HEADER_BYTES;
+            buffer.putInt(start + RECORD_HEADER_BYTES, changes);
+            crc.reset();
+            crc.update(buffer.array(), start + RECORD_HEADER_BYTES, bodyLength);
+            buffer.putInt(start, bodyLength);
+            buffer.putInt(start + 4, (int) crc.getValue());
+            return RECORD_HEADER_BYTES + bodyLength;
+        }
+
+        int size() {
+            return buffer.position();
+        }
+
+        /**
+         * writeTo
+         * Writes every finished record to the channel and empties the buffer, shrinking it back after a large batch.
+         */
+        void writeTo(FileChannel channel) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (buffer.capacity() > 4 * BUFFER_BYTES) {
+                buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            } else {
+                buffer.clear();
+            }
+        }
+
+        private void change(byte type, int bookId) {
+            ensure(5);
+            buffer.put(type).putInt(bookId);
+            changes++;
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                ensure(4);
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            if ((long) buffer.position() + bytes > MAX_RECORD_BYTES) {
+                throw new IllegalStateException("A single batch cannot exceed 2 GB in the book log.");
+            }
+            int capacity = (int) Math.min(MAX_RECORD_BYTES,
+                    Math.max((long) buffer.capacity() * 2, (long) buffer.position() + bytes));
+            buffer = ByteBuffer.allocate(capacity).put(buffer.flip());
+        }
+    }
+
+    /**
+     * LogStats
+     * The number of books held, the bytes of the latest snapshot and of the segments written after it, and the
+     * compactions run since the log was opened.
+     */
+    public record LogStats(int books, long snapshotBytes, long segmentBytes, int compactions) {
+
+        @Override
+        public String toString() {
+            return books + " books, " + snapshotBytes + " bytes of snapshot and " + segmentBytes
+                    + " bytes of log since, " + compactions + " compactions";
+        }
+    }
+}
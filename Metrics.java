@@ -0,0 +1,142 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * Metrics.java
+ * This class is the registry of every instrumented operation in the application. Each operation is created once by
+ * name and kept in a static field by the code that reports it, so recording never has to look anything up. Every
+ * operation is published as a JMX MXBean named libraryms:type=Operation,name=<operation>, where JConsole or VisualVM
+ * can read it, and startLogging writes all of them to the "libraryms.metrics" java.util.logging logger at a fixed
+ * interval.
+ */
+
+package libraryms.libraryms;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class Metrics {
+    public static final String LOG_INTERVAL_PROPERTY = "libraryms.metrics.logIntervalSeconds";
+    private static final long DEFAULT_LOG_INTERVAL_SECONDS = 60;
+    private static final Logger LOG = Logger.getLogger("libraryms.metrics");
+    private static final Map<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+    private static final Map<String, Long> loggedCounts = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService logger;
+
+    private Metrics() {
+    }
+
+    /**
+     * operation
+     * Returns the metrics of the operation with the given name, creating and publishing them the first time.
+     */
+    public static OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics == null) {
+            OperationMetrics created = new OperationMetrics(name);
+            metrics = operations.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = publish(created);
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * register
+     * Adds metrics that were created elsewhere, such as a connection pool's acquire times, to the registry. Metrics
+     * registered under a name that is already taken replace the earlier ones.
+     */
+    public static void register(OperationMetrics metrics) {
+        OperationMetrics previous = operations.put(metrics.getName(), metrics);
+        if (previous != metrics) {
+            publish(metrics);
+        }
+    }
+
+    /**
+     * all
+     * Returns every registered operation, sorted by name.
+     */
+    public static List<OperationMetrics> all() {
+        return new ArrayList<>(operations.values());
+    }
+
+    /**
+     * report
+     * Returns one line per operation that has been called at least once.
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        for (OperationMetrics metrics : operations.values()) {
+            if (metrics.getCount() > 0) {
+                report.append(metrics).append('\n');
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * startLogging
+     * Starts writing the metrics of every operation that was called since the last dump to the log, every
+     * libraryms.metrics.logIntervalSeconds seconds (60 by default; 0 turns the dump off). Safe to call more than once.
+     */
+    public static synchronized void startLogging() {
+        long interval = Long.getLong(LOG_INTERVAL_PROPERTY, DEFAULT_LOG_INTERVAL_SECONDS);
+        if (logger != null || interval <= 0) {
+            return;
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(Metrics::logActiveOperations, interval, interval, TimeUnit.SECONDS);
+    }
+
+    public static synchronized void stopLogging() {
+        if (logger != null) {
+            logger.shutdownNow();
+            logger = null;
+        }
+    }
+
+    private static void logActiveOperations() {
+        StringBuilder dump = new StringBuilder();
+        for (OperationMetrics metrics : operations.values()) {
+            long count = metrics.getCount();
+            Long previous = loggedCounts.put(metrics.getName(), count);
+            if (count > 0 && (previous == null || previous != count)) {
+                dump.append('\n').append(metrics);
+            }
+        }
+        if (dump.length() > 0) {
+            LOG.info("Operation metrics:" + dump);
+        }
+    }
+
+    private static OperationMetrics publish(OperationMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("libraryms:type=Operation,name=" + metrics.getName());
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "Could not publish metrics for " + metrics.getName() + " over JMX.", e);
+        }
+        return metrics;
+    }
+}
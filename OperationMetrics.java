@@ -0,0 +1,129 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * OperationMetrics.java
+ * This class collects the measurements of one kind of operation, such as loading a page of books or checking books
+ * out: a latency histogram, how many calls failed, and how many rows were read and written. Callers take a start
+ * time, run the operation and then report success or failure with that start time. Everything is recorded with
+ * lock-free counters so many threads can report at once.
+ */
+
+package libraryms.libraryms;
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationMetrics implements OperationMetricsMXBean {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+
+    public OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * start
+     * Returns the current time, to be passed to success or failure when the operation ends.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * success
+     * Records an operation that started at the given time and completed normally.
+     */
+    public void success(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * failure
+     * Records an operation that started at the given time and failed. Its latency is recorded too, because slow
+     * failures such as lock timeouts are often what the percentiles need to show.
+     */
+    public void failure(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+        errors.increment();
+    }
+
+    public void rowsRead(long rows) {
+        rowsRead.add(rows);
+    }
+
+    public void rowsWritten(long rows) {
+        rowsWritten.add(rows);
+    }
+
+    public LatencyHistogram.Snapshot getLatency() {
+        return latency.getSnapshot();
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getErrorRate() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getErrors() / count;
+    }
+
+    @Override
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getSnapshot().meanNanos() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getSnapshot().p50Nanos() / 1e6;
+    }
+
+    @Override
+    public double getP90Millis() {
+        return latency.getSnapshot().p90Nanos() / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getSnapshot().p99Nanos() / 1e6;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.getSnapshot().p999Nanos() / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getSnapshot().maxNanos() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s errors=%d (%.2f%%) rowsRead=%d rowsWritten=%d", name, latency.getSnapshot(),
+                getErrors(), getErrorRate() * 100, getRowsRead(), getRowsWritten());
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * OperationMetricsMXBean.java
+ * The JMX view of one instrumented operation, as shown by JConsole or VisualVM under the "libraryms" domain.
+ * Latencies are in milliseconds.
+ */
+
+package libraryms.libraryms;
+
+public interface OperationMetricsMXBean {
+
+    long getCount();
+
+    long getErrors();
+
+    double getErrorRate();
+
+    long getRowsRead();
+
+    long getRowsWritten();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+}
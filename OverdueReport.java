@@ -0,0 +1,79 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * OverdueReport.java
+ * This class answers "which books are overdue right now" and "which books are due within the next N days" straight
+ * from SQLite. Both read the idx_books_loans partial index, which holds only the checked-out rows ordered by due
+ * date, so a report reads just the loans it returns no matter how large the catalog or how many books are on loan.
+ * Due dates are stored as ISO yyyy-MM-dd text, which sorts in date order.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+public final class OverdueReport {
+    private static final String LOANS = " FROM books INDEXED BY idx_books_loans WHERE status = 'checked out'";
+    private static final String OVERDUE_SQL = "SELECT " + BookPageQuery.COLUMNS + LOANS
+            + " AND due_date < ? ORDER BY due_date, book_id LIMIT ?";
+    private static final String DUE_BETWEEN_SQL = "SELECT " + BookPageQuery.COLUMNS + LOANS
+            + " AND due_date >= ? AND due_date <= ? ORDER BY due_date, book_id LIMIT ?";
+    private static final String COUNT_OVERDUE_SQL = "SELECT COUNT(*)" + LOANS + " AND due_date < ?";
+    private static final String COUNT_DUE_BETWEEN_SQL = "SELECT COUNT(*)" + LOANS
+            + " AND due_date >= ? AND due_date <= ?";
+
+    private OverdueReport() {
+    }
+
+    /**
+     * overdue
+     * Returns up to limit books that were due before the given day, longest overdue first.
+     */
+    public static List<Book> overdue(Connection conn, LocalDate today, int limit) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(OVERDUE_SQL)) {
+            pstmt.setString(1, today.toString());
+            pstmt.setInt(2, limit);
+            return BookPageQuery.readBooks(pstmt);
+        }
+    }
+
+    /**
+     * dueWithin
+     * Returns up to limit books that are due from the given day through the given number of days after it, soonest
+     * first. Books that are already overdue are not included.
+     */
+    public static List<Book> dueWithin(Connection conn, LocalDate today, int days, int limit) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(DUE_BETWEEN_SQL)) {
+            pstmt.setString(1, today.toString());
+            pstmt.setString(2, today.plusDays(days).toString());
+            pstmt.setInt(3, limit);
+            return BookPageQuery.readBooks(pstmt);
+        }
+    }
+
+    public static int countOverdue(Connection conn, LocalDate today) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COUNT_OVERDUE_SQL)) {
+            pstmt.setString(1, today.toString());
+            return readCount(pstmt);
+        }
+    }
+
+    public static int countDueWithin(Connection conn, LocalDate today, int days) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(COUNT_DUE_BETWEEN_SQL)) {
+            pstmt.setString(1, today.toString());
+            pstmt.setString(2, today.plusDays(days).toString());
+            return readCount(pstmt);
+        }
+    }
+
+    private static int readCount(PreparedStatement pstmt) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
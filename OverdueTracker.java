@@ -0,0 +1,383 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * OverdueTracker.java
+ * This class keeps every open loan in memory, ordered by due date, so the application always knows which book falls
+ * due next and can flag books the moment they become overdue without scanning the books table. The loans are read
+ * once from the database on first use and then kept in sync by CirculationService, which reports every successful
+ * check-out and check-in, and by deletes.
+ * The loans are a binary min-heap of longs, each holding the due date's epoch day in the high half and the book_id in
+ * the low half, next to an open-addressing hash table of ints from book_id to the book's current due day, which holds
+ * only the books on loan. Memory therefore follows the number of loans, not how high the book IDs go, and a million
+ * loans cost about 30 bytes each and no objects. A check-in only removes the book from the table; its heap entry is
+ * dropped lazily when it reaches the top, and the heap is rebuilt whenever such stale entries outnumber the live
+ * ones.
+ * The sweep pops every loan that has fallen due, reports those books as newly overdue once, and stops at the first
+ * loan that is still current, so each run costs only the loans that became overdue since the last one.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class OverdueTracker {
+    public static final String SWEEP_INTERVAL_PROPERTY = "libraryms.overdue.sweepMinutes";
+    private static final long DEFAULT_SWEEP_INTERVAL_MINUTES = 15;
+    private static final int MIN_REBUILD_SIZE = 1_024;
+    private static final int MAX_LOGGED_LOANS = 20;
+    private static final String LOANS_SQL = "SELECT book_id, due_date FROM books INDEXED BY idx_books_loans"
+            + " WHERE status = 'checked out' AND due_date IS NOT NULL";
+    private static final Logger LOG = Logger.getLogger("libraryms.overdue");
+    private static final OperationMetrics LOAD_METRICS = Metrics.operation("overdue.load");
+    private static final OperationMetrics SWEEP_METRICS = Metrics.operation("overdue.sweep");
+
+    private long[] heap = new long[16];
+    private int heapSize;
+    private DueDays dueDays = new DueDays();
+    private int loans;
+    private boolean loaded;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * track
+     * Records that the book is on loan until the given day, replacing any earlier due date it had.
+     */
+    public synchronized void track(int bookId, LocalDate dueDate) throws SQLException {
+        ensureLoaded();
+        put(bookId, (int) dueDate.toEpochDay());
+    }
+
+    /**
+     * untrack
+     * Records that the book is no longer on loan, because it was checked in or deleted.
+     */
+    public synchronized void untrack(int bookId) throws SQLException {
+        ensureLoaded();
+        if (dueDays.get(bookId) != 0) {
+            dueDays.remove(bookId);
+            loans--;
+            if (heapSize > MIN_REBUILD_SIZE && heapSize > 2 * loans) {
+                rebuildHeap();
+            }
+        }
+    }
+
+    /**
+     * nextDue
+     * Returns the loan that falls due first, or null when no book is on loan. Loans already reported by a sweep are
+     * not included.
+     */
+    public synchronized Loan nextDue() throws SQLException {
+        ensureLoaded();
+        dropStaleTop();
+        return heapSize == 0 ? null : toLoan(heap[0]);
+    }
+
+    /**
+     * size
+     * Returns the number of loans being tracked, which leaves out those already reported overdue by a sweep.
+     */
+    public synchronized int size() throws SQLException {
+        ensureLoaded();
+        return loans;
+    }
+
+    /**
+     * sweep
+     * Returns the loans that were due before the given day and have not been reported yet, earliest first, and stops
+     * tracking them. The first sweep after loading reports every loan that was already overdue.
+     */
+    public synchronized List<Loan> sweep(LocalDate today) throws SQLException {
+        long started = SWEEP_METRICS.start();
+        ensureLoaded();
+        int todayDay = (int) today.toEpochDay();
+        List<Loan> overdue = new ArrayList<>();
+        while (true) {
+            dropStaleTop();
+            if (heapSize == 0 || dayOf(heap[0]) >= todayDay) {
+                break;
+            }
+            long entry = pop();
+            dueDays.remove(bookOf(entry));
+            loans--;
+            overdue.add(toLoan(entry));
+        }
+        SWEEP_METRICS.rowsRead(overdue.size());
+        SWEEP_METRICS.success(started);
+        return overdue;
+    }
+
+    /**
+     * reset
+     * Forgets every loan, so they are read again from the database on next use. Called when writes that were already
+     * reported to the tracker failed to commit.
+     */
+    public synchronized void reset() {
+        heap = new long[16];
+        heapSize = 0;
+        dueDays = new DueDays();
+        loans = 0;
+        loaded = false;
+    }
+
+    /**
+     * startSweeping
+     * Sweeps right away and then every libraryms.overdue.sweepMinutes minutes (15 by default; 0 turns sweeping off)
+     * on a background thread, logging the books that became overdue to the "libraryms.overdue" logger and passing
+     * them to the listener. The first run also loads the loans, so later check-outs do not have to wait for it.
+     * Safe to call more than once.
+     */
+    public synchronized void startSweeping(Consumer<List<Loan>> listener) {
+        long interval = Long.getLong(SWEEP_INTERVAL_PROPERTY, DEFAULT_SWEEP_INTERVAL_MINUTES);
+        if (sweeper != null || interval <= 0) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "overdue-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                List<Loan> overdue = sweep(LocalDate.now());
+                if (!overdue.isEmpty()) {
+                    LOG.info(overdue.size() + " books became overdue: "
+                            + overdue.subList(0, Math.min(overdue.size(), MAX_LOGGED_LOANS))
+                            + (overdue.size() > MAX_LOGGED_LOANS ? " and more" : ""));
+                    listener.accept(overdue);
+                }
+            } catch (SQLException | RuntimeException e) {
+                LOG.log(Level.WARNING, "Overdue sweep failed.", e);
+            }
+        }, 0, interval, TimeUnit.MINUTES);
+    }
+
+    public synchronized void stopSweeping() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * ensureLoaded
+     * Reads every open loan from the database the first time the tracker is used. The read uses its own connection,
+     * so it sees only committed loans; a write that is still in progress reports its loan to the tracker afterwards.
+     */
+    private void ensureLoaded() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        long started = LOAD_METRICS.start();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(LOANS_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                put(rs.getInt(1), (int) LocalDate.parse(rs.getString(2)).toEpochDay());
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOAD_METRICS.failure(started);
+            reset();
+            throw e;
+        }
+        loaded = true;
+        LOAD_METRICS.rowsRead(loans);
+        LOAD_METRICS.success(started);
+    }
+
+    private void put(int bookId, int day) {
+        int current = dueDays.get(bookId);
+        if (current == day) {
+            return;
+        }
+        if (current == 0) {
+            loans++;
+        }
+        dueDays.put(bookId, day);
+        push(((long) day << 32) | bookId);
+    }
+
+    private void dropStaleTop() {
+        while (heapSize > 0 && dueDays.get(bookOf(heap[0])) != dayOf(heap[0])) {
+            pop();
+        }
+    }
+
+    private void rebuildHeap() {
+        long[] live = new long[Math.max(16, loans * 2)];
+        int size = 0;
+        for (int i = 0; i < heapSize; i++) {
+            int bookId = bookOf(heap[i]);
+            int day = dueDays.get(bookId);
+            if (day == dayOf(heap[i])) {
+                live[size++] = heap[i];
+                // A copy lent again on the day it was returned has older entries that still match; keep only one
+                dueDays.put(bookId, -day);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            dueDays.put(bookOf(live[i]), -dueDays.get(bookOf(live[i])));
+        }
+        heap = live;
+        heapSize = size;
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void push(long entry) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heap.length * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        heap[0] = heap[--heapSize];
+        siftDown(0);
+        return top;
+    }
+
+    private void siftDown(int i) {
+        long entry = heap[i];
+        int half = heapSize >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (entry <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = entry;
+    }
+
+    private static int dayOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private static int bookOf(long entry) {
+        return (int) entry;
+    }
+
+    private static Loan toLoan(long entry) {
+        return new Loan(bookOf(entry), LocalDate.ofEpochDay(dayOf(entry)));
+    }
+
+    /**
+     * DueDays
+     * The due day of every book on loan, keyed by book_id, in two parallel arrays probed linearly from the key's hash.
+     * The table is at most half full, and removing a book shifts the entries after it back into the gap, so lookups
+     * never have to step over deleted slots. Book IDs are positive, so 0 marks an empty slot, and a day of 0 is read
+     * back for a book that is not in the table.
+     */
+    private static final class DueDays {
+        private int[] keys = new int[16];
+        private int[] days = new int[16];
+        private int size;
+
+        private int get(int bookId) {
+            int slot = slotOf(bookId);
+            return keys[slot] == 0 ? 0 : days[slot];
+        }
+
+        private void put(int bookId, int day) {
+            int slot = slotOf(bookId);
+            if (keys[slot] == 0) {
+                if (2 * (size + 1) > keys.length) {
+                    grow();
+                    slot = slotOf(bookId);
+                }
+                keys[slot] = bookId;
+                size++;
+            }
+            days[slot] = day;
+        }
+
+        private void remove(int bookId) {
+            int hole = slotOf(bookId);
+            if (keys[hole] == 0) {
+                return;
+            }
+            size--;
+            int mask = keys.length - 1;
+            for (int slot = (hole + 1) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                // An entry may fill the hole only if the hole lies between its home slot and where it is now
+                int home = hash(keys[slot]) & mask;
+                if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                    keys[hole] = keys[slot];
+                    days[hole] = days[slot];
+                    hole = slot;
+                }
+            }
+            keys[hole] = 0;
+            days[hole] = 0;
+        }
+
+        private int slotOf(int bookId) {
+            int mask = keys.length - 1;
+            int slot = hash(bookId) & mask;
+            while (keys[slot] != 0 && keys[slot] != bookId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldDays = days;
+            keys = new int[oldKeys.length * 2];
+            days = new int[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slotOf(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    days[slot] = oldDays[i];
+                }
+            }
+        }
+
+        private static int hash(int bookId) {
+            int h = bookId * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Loan
+     * One book on loan and the day it is due back.
+     */
+    public record Loan(int bookId, LocalDate dueDate) {
+
+        @Override
+        public String toString() {
+            return bookId + " (due " + dueDate + ")";
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ShardCli.java
+ * This class manages sharded catalogs from the command line. "rebalance" copies the books of one or more databases,
+ * such as the single LibraryMS_DB.db or the shards of an earlier layout, into a new set of shard files named after
+ * the target, for example catalog-0-of-4.db to catalog-3-of-4.db; it must run while nothing writes to the sources.
+ * "count" prints how many books each shard of a layout holds. The exit status is 0 on success and 2 on bad input or
+ * a database error.
+ * Usage: java libraryms.libraryms.ShardCli rebalance shards target source...
+ *        java libraryms.libraryms.ShardCli count shards target
+ */
+
+package libraryms.libraryms;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ShardCli {
+
+    private ShardCli() {
+    }
+
+    public static void main(String[] args) {
+        boolean rebalance = args.length >= 4 && args[0].equals("rebalance");
+        boolean count = args.length == 3 && args[0].equals("count");
+        int shards = 0;
+        try {
+            shards = rebalance || count ? Integer.parseInt(args[1]) : 0;
+        } catch (NumberFormatException e) {
+            rebalance = false;
+            count = false;
+        }
+        if ((!rebalance && !count) || shards < 1) {
+            System.err.println("Usage: ShardCli rebalance shards target source...");
+            System.err.println("       ShardCli count shards target");
+            System.exit(2);
+        }
+        List<Path> targets = ShardedCatalog.shardFiles(Paths.get(args[2]), shards);
+        try {
+            if (rebalance) {
+                List<Path> sources = new ArrayList<>();
+                for (int i = 3; i < args.length; i++) {
+                    sources.add(Paths.get(args[i]));
+                }
+                long started = System.nanoTime();
+                long copied = ShardedCatalog.rebalance(sources, targets);
+                System.out.printf("Copied %d books into %d shards in %d ms.%n", copied, shards,
+                        (System.nanoTime() - started) / 1_000_000);
+            }
+            try (ShardedCatalog catalog = new ShardedCatalog(targets, 1)) {
+                List<Integer> counts = catalog.count();
+                for (int i = 0; i < counts.size(); i++) {
+                    System.out.println(targets.get(i) + ": " + counts.get(i) + " books");
+                }
+            }
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("Failed: " + e.getMessage());
+            System.exit(2);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,492 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ShardedCatalog.java
+ * This class spreads the books table over several SQLite files, so that writes to different files no longer wait on
+ * one write lock. Each shard is a complete LibraryMS database with its own connection pool, indexes and full-text
+ * index. A book lives on shard book_id modulo the shard count: single-book operations go straight to that shard, and
+ * lists, searches and counts run on every shard in parallel and are merged.
+ * New books are spread over the shards in turn. Each shard picks IDs that route back to itself, one past its highest
+ * ID so far, so book IDs stay unique across shards without coordinating. Changing the number of shards moves most
+ * books, so it is done offline by rebalance, which copies every book into a new set of shard files.
+ */
+
+package libraryms.libraryms;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ShardedCatalog implements AutoCloseable {
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 10_000;
+    private static final int REBALANCE_BATCH_SIZE = 10_000;
+    private static final String NEXT_ID = "(SELECT s + 1 + ((? - s - 1) % ? + ?) % ?"
+            + " FROM (SELECT IFNULL(MAX(seq), 0) AS s FROM sqlite_sequence WHERE name = 'books'))";
+    private static final String INSERT_SQL = "INSERT INTO books (book_id, title, author, genre) VALUES ("
+            + NEXT_ID + ", ?, ?, ?)";
+    private static final String COPY_SQL = "INSERT INTO books (book_id, title, author, is_checked_out, due_date, genre,"
+            + " status) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final OperationMetrics ADD_METRICS = Metrics.operation("shards.add");
+    private static final OperationMetrics GET_METRICS = Metrics.operation("shards.get");
+    private static final OperationMetrics PAGE_METRICS = Metrics.operation("shards.page");
+    private static final OperationMetrics SEARCH_METRICS = Metrics.operation("shards.search");
+    private static final OperationMetrics REBALANCE_METRICS = Metrics.operation("shards.rebalance");
+
+    private final List<Path> files;
+    private final ConnectionPool[] pools;
+    private final String synchronous;
+    private final ExecutorService workers;
+    private final CirculationService circulation = new CirculationService(null);
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedCatalog(List<Path> files, int poolSize) throws SQLException {
+        this(files, poolSize, WriteQueue.Durability.COMMITTED);
+    }
+
+    /**
+     * ShardedCatalog
+     * Opens the given shard files, creating and migrating any that do not exist yet, each with a pool of up to
+     * poolSize connections. The order of the files matters: a book with ID n lives in files.get(n % files.size()).
+     * With SYNCED durability every commit is flushed to disk before it returns; BUFFERED is the same as COMMITTED,
+     * because every write here commits on its own.
+     */
+    public ShardedCatalog(List<Path> files, int poolSize, WriteQueue.Durability durability) throws SQLException {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard file is required.");
+        }
+        this.files = List.copyOf(files);
+        this.synchronous = durability == WriteQueue.Durability.SYNCED ? "FULL" : "NORMAL";
+        this.pools = new ConnectionPool[files.size()];
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = new ConnectionPool("jdbc:sqlite:" + files.get(i), poolSize, ACQUIRE_TIMEOUT_MILLIS);
+        }
+        this.workers = Executors.newFixedThreadPool(files.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            forEachShard(conn -> {
+                DatabaseSchema.migrate(conn);
+                return null;
+            });
+        } catch (SQLException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * shardFiles
+     * Returns the conventional file names of a set of shards next to the given database file, such as
+     * catalog-0-of-4.db to catalog-3-of-4.db for catalog.db.
+     */
+    public static List<Path> shardFiles(Path base, int count) {
+        String name = base.getFileName().toString();
+        String stem = name.endsWith(".db") ? name.substring(0, name.length() - 3) : name;
+        List<Path> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            files.add(base.resolveSibling(stem + "-" + i + "-of-" + count + ".db"));
+        }
+        return files;
+    }
+
+    public int getShardCount() {
+        return pools.length;
+    }
+
+    public List<Path> getFiles() {
+        return files;
+    }
+
+    /**
+     * shardOf
+     * Returns the index of the shard that holds the book with the given ID.
+     */
+    public int shardOf(int bookId) {
+        return Math.floorMod(bookId, pools.length);
+    }
+
+    /**
+     * add
+     * Adds a new book to the next shard in turn and returns it with the ID that shard gave it.
+     */
+    public Book add(String title, String author, String genre) throws SQLException {
+        long started = ADD_METRICS.start();
+        int shard = Math.floorMod(nextShard.getAndIncrement(), pools.length);
+        try (Connection conn = borrow(shard);
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(pstmt, shard, title, author, genre);
+            pstmt.executeUpdate();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                ADD_METRICS.rowsWritten(1);
+                ADD_METRICS.success(started);
+                return new Book(keys.getInt(1), title, author, genre, CirculationService.CHECKED_IN, null);
+            }
+        } catch (SQLException | RuntimeException e) {
+            ADD_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * addAll
+     * Adds the books, spread evenly over the shards, with one transaction per shard and every shard written in
+     * parallel. Returns the number of books added. The IDs of the given Book objects are ignored.
+     */
+    public int addAll(List<Book> books) throws SQLException {
+        long started = ADD_METRICS.start();
+        int first = nextShard.getAndAdd(books.size());
+        try {
+            List<Integer> counts = forEachShard((shard, conn) -> {
+                int added = 0;
+                conn.setAutoCommit(false);
+                try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                    int offset = Math.floorMod(shard - first, pools.length);
+                    for (int i = offset; i < books.size(); i += pools.length) {
+                        Book book = books.get(i);
+                        bindInsert(pstmt, shard, book.getTitle(), book.getAuthor(), book.getGenre());
+                        pstmt.addBatch();
+                        added++;
+                    }
+                    pstmt.executeBatch();
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+                return added;
+            });
+            int added = counts.stream().mapToInt(Integer::intValue).sum();
+            ADD_METRICS.rowsWritten(added);
+            ADD_METRICS.success(started);
+            return added;
+        } catch (SQLException | RuntimeException e) {
+            ADD_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * get
+     * Returns the book with the given ID from its shard, or null when there is no such book.
+     */
+    public Book get(int bookId) throws SQLException {
+        long started = GET_METRICS.start();
+        try (Connection conn = borrow(shardOf(bookId))) {
+            Book book = BookPageQuery.findById(conn, bookId);
+            GET_METRICS.success(started);
+            return book;
+        } catch (SQLException | RuntimeException e) {
+            GET_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * remove
+     * Deletes the book with the given ID from its shard and tells whether it existed.
+     */
+    public boolean remove(int bookId) throws SQLException {
+        try (Connection conn = borrow(shardOf(bookId));
+             PreparedStatement pstmt = conn.prepareStatement("DELETE FROM books WHERE book_id = ?")) {
+            pstmt.setInt(1, bookId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * checkOut
+     * Checks out the books with the CirculationService, one transaction per shard and the shards in parallel, and
+     * returns the results in the order of the given IDs. Each shard commits on its own, so a failure on one shard
+     * does not undo the books already checked out on the others.
+     */
+    public List<CirculationService.Result> checkOut(List<Integer> bookIds) throws SQLException {
+        return circulate(bookIds, (conn, ids) -> circulation.checkOut(conn, ids));
+    }
+
+    /**
+     * checkIn
+     * Checks in the books the same way checkOut checks them out.
+     */
+    public List<CirculationService.Result> checkIn(List<Integer> bookIds) throws SQLException {
+        return circulate(bookIds, (conn, ids) -> circulation.checkIn(conn, ids));
+    }
+
+    /**
+     * firstPage
+     * Returns up to limit books from the start of the catalog in the requested order, merged from the first page of
+     * every shard.
+     */
+    public List<Book> firstPage(BookPageQuery.SortColumn column, boolean ascending, int limit) throws SQLException {
+        return mergePages(column, ascending, limit, conn -> BookPageQuery.firstPage(conn, column, ascending, limit));
+    }
+
+    /**
+     * pageAfter
+     * Returns up to limit books that come after the given book in the requested order. Every shard continues from the
+     * same sort key and book_id, whether or not it holds that book, so keyset pagination works across shards.
+     */
+    public List<Book> pageAfter(BookPageQuery.SortColumn column, boolean ascending, Book last, int limit)
+            throws SQLException {
+        return mergePages(column, ascending, limit,
+                conn -> BookPageQuery.pageAfter(conn, column, ascending, last, limit));
+    }
+
+    /**
+     * search
+     * Searches the full-text index of every shard and returns the best limit matches overall, best first. BM25 scores
+     * are computed per shard; with books spread evenly their word statistics are close enough to rank together.
+     */
+    public List<Book> search(String text, int limit) throws SQLException {
+        long started = SEARCH_METRICS.start();
+        try {
+            List<BookSearch.Match> matches = new ArrayList<>();
+            for (List<BookSearch.Match> shardMatches : forEachShard(conn -> BookSearch.searchScored(conn, text, limit))) {
+                matches.addAll(shardMatches);
+            }
+            matches.sort(Comparator.comparingDouble(BookSearch.Match::score)
+                    .thenComparingInt(match -> match.book().getBookId()));
+            List<Book> books = new ArrayList<>(Math.min(limit, matches.size()));
+            for (BookSearch.Match match : matches.subList(0, Math.min(limit, matches.size()))) {
+                books.add(match.book());
+            }
+            SEARCH_METRICS.rowsRead(books.size());
+            SEARCH_METRICS.success(started);
+            return books;
+        } catch (SQLException | RuntimeException e) {
+            SEARCH_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * count
+     * Returns the number of books on every shard, in shard order.
+     */
+    public List<Integer> count() throws SQLException {
+        return forEachShard(conn -> {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM books")) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+        for (ConnectionPool pool : pools) {
+            if (pool != null) {
+                pool.close();
+            }
+        }
+    }
+
+    /**
+     * rebalance
+     * Copies every book from the source databases into a new set of shard files, each book to shard book_id modulo
+     * the number of targets, keeping its ID, status and due date. The sources may be a single unsharded database or
+     * the shards of an earlier layout. This is an offline operation: nothing may write to the sources meanwhile, and
+     * the targets must not exist yet. Indexes, the full-text index and triggers are built once every book has been
+     * copied, which is much faster than maintaining them row by row. Returns the number of books copied.
+     */
+    public static long rebalance(List<Path> sources, List<Path> targets) throws SQLException {
+        for (Path target : targets) {
+            if (Files.exists(target) || sources.contains(target)) {
+                throw new IllegalArgumentException(target + " already exists.");
+            }
+        }
+        long started = REBALANCE_METRICS.start();
+        List<ConnectionPool> pools = new ArrayList<>();
+        try {
+            Connection[] out = new Connection[targets.size()];
+            PreparedStatement[] inserts = new PreparedStatement[targets.size()];
+            int[] pending = new int[targets.size()];
+            for (int i = 0; i < targets.size(); i++) {
+                ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + targets.get(i), 1, ACQUIRE_TIMEOUT_MILLIS);
+                pools.add(pool);
+                out[i] = pool.borrow();
+                DatabaseSchema.createTables(out[i]);
+                out[i].setAutoCommit(false);
+                inserts[i] = out[i].prepareStatement(COPY_SQL);
+            }
+            long copied = 0;
+            for (Path source : sources) {
+                try (ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + source, 1, ACQUIRE_TIMEOUT_MILLIS);
+                     Connection in = pool.borrow();
+                     Statement stmt = in.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT book_id, title, author, is_checked_out, due_date, genre,"
+                             + " status FROM books ORDER BY book_id")) {
+                    while (rs.next()) {
+                        int shard = Math.floorMod(rs.getInt(1), targets.size());
+                        PreparedStatement insert = inserts[shard];
+                        for (int column = 1; column <= 7; column++) {
+                            insert.setObject(column, rs.getObject(column));
+                        }
+                        insert.addBatch();
+                        if (++pending[shard] == REBALANCE_BATCH_SIZE) {
+                            insert.executeBatch();
+                            out[shard].commit();
+                            pending[shard] = 0;
+                        }
+                        copied++;
+                    }
+                }
+            }
+            for (int i = 0; i < targets.size(); i++) {
+                inserts[i].executeBatch();
+                inserts[i].close();
+                out[i].commit();
+                out[i].setAutoCommit(true);
+                DatabaseSchema.migrate(out[i]);
+                out[i].close();
+            }
+            REBALANCE_METRICS.rowsWritten(copied);
+            REBALANCE_METRICS.success(started);
+            return copied;
+        } catch (SQLException | RuntimeException e) {
+            REBALANCE_METRICS.failure(started);
+            throw e;
+        } finally {
+            for (ConnectionPool pool : pools) {
+                pool.close();
+            }
+        }
+    }
+
+    /**
+     * borrow
+     * Borrows a connection to the shard, set to the catalog's durability. Setting it on every borrow costs one small
+     * statement and no disk I/O.
+     */
+    private Connection borrow(int shard) throws SQLException {
+        Connection conn = pools[shard].borrow();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    private void bindInsert(PreparedStatement pstmt, int shard, String title, String author, String genre)
+            throws SQLException {
+        int n = pools.length;
+        pstmt.setInt(1, shard == 0 ? n : shard);
+        pstmt.setInt(2, n);
+        pstmt.setInt(3, n);
+        pstmt.setInt(4, n);
+        pstmt.setString(5, title);
+        pstmt.setString(6, author);
+        pstmt.setString(7, genre);
+    }
+
+    private List<CirculationService.Result> circulate(List<Integer> bookIds, Circulation action) throws SQLException {
+        Map<Integer, List<Integer>> byShard = new HashMap<>();
+        for (int bookId : bookIds) {
+            byShard.computeIfAbsent(shardOf(bookId), shard -> new ArrayList<>()).add(bookId);
+        }
+        List<List<CirculationService.Result>> shardResults = forEachShard((shard, conn) -> {
+            List<Integer> ids = byShard.get(shard);
+            return ids == null ? List.<CirculationService.Result>of() : action.apply(conn, ids);
+        });
+        Map<Integer, CirculationService.Result> byId = new HashMap<>();
+        for (List<CirculationService.Result> results : shardResults) {
+            for (CirculationService.Result result : results) {
+                byId.put(result.bookId(), result);
+            }
+        }
+        List<CirculationService.Result> results = new ArrayList<>(bookIds.size());
+        for (int bookId : bookIds) {
+            results.add(byId.get(bookId));
+        }
+        return results;
+    }
+
+    private List<Book> mergePages(BookPageQuery.SortColumn column, boolean ascending, int limit,
+                                  DatabaseExecutor.SqlWork<List<Book>> query) throws SQLException {
+        long started = PAGE_METRICS.start();
+        try {
+            List<Book> books = new ArrayList<>();
+            for (List<Book> page : forEachShard(query)) {
+                books.addAll(page);
+            }
+            books.sort(column.comparator(ascending));
+            List<Book> page = books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+            PAGE_METRICS.rowsRead(page.size());
+            PAGE_METRICS.success(started);
+            return page;
+        } catch (SQLException | RuntimeException e) {
+            PAGE_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    private <T> List<T> forEachShard(DatabaseExecutor.SqlWork<T> work) throws SQLException {
+        return forEachShard((shard, conn) -> work.execute(conn));
+    }
+
+    /**
+     * forEachShard
+     * Runs the work on every shard at once, each with a connection of its own, and returns the results in shard
+     * order. If any shard fails, the first failure is thrown once every shard has finished.
+     */
+    private <T> List<T> forEachShard(ShardWork<T> work) throws SQLException {
+        List<CompletableFuture<T>> futures = new ArrayList<>(pools.length);
+        for (int i = 0; i < pools.length; i++) {
+            int shard = i;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try (Connection conn = borrow(shard)) {
+                    return work.execute(shard, conn);
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, workers));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = DatabaseExecutor.unwrap(e);
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    private interface ShardWork<T> {
+        T execute(int shard, Connection conn) throws SQLException;
+    }
+
+    private interface Circulation {
+        List<CirculationService.Result> apply(Connection conn, List<Integer> bookIds) throws SQLException;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * SnapshotCli.java
+ * This class exports the books table to a binary CatalogSnapshot from the command line, and checks an existing
+ * snapshot. "export" writes the snapshot of the database named by libraryms.db.path; "info" opens a snapshot, which
+ * verifies its checksum, and prints how many books it holds, when it was exported, and whether it still matches the
+ * database. The exit status is 0 on success, 1 when the snapshot is damaged or out of date, and 2 on bad input.
+ * Usage: java libraryms.libraryms.SnapshotCli export|info file
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+
+public final class SnapshotCli {
+
+    private SnapshotCli() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2 || !(args[0].equals("export") || args[0].equals("info"))) {
+            System.err.println("Usage: SnapshotCli export|info file");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[1]);
+        System.exit(args[0].equals("export") ? export(file) : info(file));
+    }
+
+    private static int export(Path file) {
+        long started = System.nanoTime();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            int books = CatalogSnapshot.export(conn, file);
+            System.out.printf("Exported %d books to %s (%d bytes) in %d ms.%n", books, file, Files.size(file),
+                    (System.nanoTime() - started) / 1_000_000);
+            return 0;
+        } catch (SQLException | IOException e) {
+            System.err.println("Export failed: " + e.getMessage());
+            return 2;
+        } finally {
+            DatabaseConnection.shutdown();
+        }
+    }
+
+    private static int info(Path file) {
+        try {
+            CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+            boolean current = snapshot.isCurrentFor(DatabaseConnection.getDatabasePath());
+            System.out.println(file + ": " + snapshot.size() + " books, exported "
+                    + Instant.ofEpochMilli(snapshot.getExportedAt()) + ", checksum OK, "
+                    + (current ? "matches " : "older than ") + DatabaseConnection.getDatabasePath());
+            return current ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Invalid snapshot: " + e.getMessage());
+            return 1;
+        }
+    }
+}
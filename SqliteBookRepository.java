@@ -0,0 +1,331 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * SqliteBookRepository.java
+ * This class is the BookRepository kept in a LibraryMS SQLite database, the same kind of file the window and the
+ * server open. They do not go through a repository; to them it is one more desk writing to the database. It borrows
+ * connections from its own pool, so reads run side by side while SQLite lets one write at a time, and every batch is
+ * one transaction. The books it writes fire the same triggers as the rest of the application, so the change feed,
+ * the statistics counters and the full-text index stay current, and a running window or server picks its changes up
+ * from the change feed as it would another desk's. A check-in hands the book to the oldest waiting hold in the same
+ * transaction, as CirculationService does.
+ * insert, insertAll and delete write on a connection the caller already has, inside whatever transaction it is in.
+ * The window, the server and Library use them for their adds and deletes, which run on the write queue.
+ */
+
+package libraryms.libraryms;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SqliteBookRepository implements BookRepository {
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 10_000;
+    private static final String INSERT_SQL = "INSERT INTO books (book_id, title, author, genre, status, due_date)"
+            + " VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM books WHERE book_id = ?";
+    private static final String SCAN_SQL = "SELECT " + BookPageQuery.COLUMNS + " FROM books WHERE book_id > ?"
+            + " ORDER BY book_id LIMIT ?";
+    private static final String STATUS_SQL = "UPDATE books SET status = ?, due_date = ? WHERE book_id = ?"
+            + " AND status IS NOT ?";
+    private static final String GET_ALL_SQL = "SELECT " + BookPageQuery.COLUMNS + " FROM books WHERE book_id IN"
+            + " (SELECT value FROM json_each(?))";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM books";
+    private static final OperationMetrics ADD_METRICS = Metrics.operation("repository.sqlite.add");
+    private static final OperationMetrics REMOVE_METRICS = Metrics.operation("repository.sqlite.remove");
+    private static final OperationMetrics GET_METRICS = Metrics.operation("repository.sqlite.get");
+    private static final OperationMetrics SCAN_METRICS = Metrics.operation("repository.sqlite.scan");
+    private static final OperationMetrics STATUS_METRICS = Metrics.operation("repository.sqlite.updateStatus");
+
+    private final ConnectionPool pool;
+    private final String synchronous;
+
+    public SqliteBookRepository(Path file, int poolSize) throws SQLException {
+        this(file, poolSize, WriteQueue.Durability.COMMITTED);
+    }
+
+    /**
+     * SqliteBookRepository
+     * Opens the database file, creating and migrating it when needed, with a pool of up to poolSize connections. With
+     * SYNCED durability every commit is flushed to disk before it returns; BUFFERED is the same as COMMITTED, because
+     * every write here commits on its own.
+     */
+    public SqliteBookRepository(Path file, int poolSize, WriteQueue.Durability durability) throws SQLException {
+        this.synchronous = durability == WriteQueue.Durability.SYNCED ? "FULL" : "NORMAL";
+        this.pool = new ConnectionPool("jdbc:sqlite:" + file, poolSize, ACQUIRE_TIMEOUT_MILLIS);
+        try (Connection conn = borrow()) {
+            DatabaseSchema.migrate(conn);
+        } catch (SQLException | RuntimeException e) {
+            pool.close();
+            throw e;
+        }
+    }
+
+    /**
+     * insert
+     * Inserts the book, with its ID, status and due date, on the given connection without committing. A book without
+     * a status is stored as checked in.
+     */
+    public static void insert(Connection conn, Book book) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            bindInsert(pstmt, book);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * insertAll
+     * Inserts the books as one JDBC batch on the given connection without committing.
+     */
+    public static void insertAll(Connection conn, List<Book> books) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (Book book : books) {
+                bindInsert(pstmt, book);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * delete
+     * Deletes the book with the given ID on the given connection without committing. Returns false when there is no
+     * such book.
+     */
+    public static boolean delete(Connection conn, int bookId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(DELETE_SQL)) {
+            pstmt.setInt(1, bookId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    @Override
+    public void add(Book book) throws SQLException {
+        addAll(List.of(book));
+    }
+
+    @Override
+    public void addAll(List<Book> books) throws SQLException {
+        long started = ADD_METRICS.start();
+        try {
+            inTransaction(conn -> {
+                insertAll(conn, books);
+                return null;
+            });
+            ADD_METRICS.rowsWritten(books.size());
+            ADD_METRICS.success(started);
+        } catch (SQLException | RuntimeException e) {
+            ADD_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean remove(int bookId) throws SQLException {
+        return removeAll(List.of(bookId)) > 0;
+    }
+
+    @Override
+    public int removeAll(List<Integer> bookIds) throws SQLException {
+        long started = REMOVE_METRICS.start();
+        try {
+            int removed = inTransaction(conn -> {
+                int count = 0;
+                for (int bookId : bookIds) {
+                    if (delete(conn, bookId)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            REMOVE_METRICS.rowsWritten(removed);
+            REMOVE_METRICS.success(started);
+            return removed;
+        } catch (SQLException | RuntimeException e) {
+            REMOVE_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    @Override
+    public Book get(int bookId) throws SQLException {
+        long started = GET_METRICS.start();
+        try (Connection conn = borrow()) {
+            Book book = BookPageQuery.findById(conn, bookId);
+            GET_METRICS.rowsRead(book == null ? 0 : 1);
+            GET_METRICS.success(started);
+            return book;
+        } catch (SQLException | RuntimeException e) {
+            GET_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    /**
+     * getAll
+     * Reads the books in one query, with the IDs passed as a JSON array so every list size shares one cached
+     * statement, then puts them in the order asked for.
+     */
+    @Override
+    public List<Book> getAll(List<Integer> bookIds) throws SQLException {
+        long started = GET_METRICS.start();
+        Map<Integer, Book> found = new HashMap<>();
+        try (Connection conn = borrow();
+             PreparedStatement pstmt = conn.prepareStatement(GET_ALL_SQL)) {
+            pstmt.setString(1, bookIds.toString());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Book book = BookPageQuery.readBook(rs);
+                    found.put(book.getBookId(), book);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            GET_METRICS.failure(started);
+            throw e;
+        }
+        List<Book> books = new ArrayList<>(found.size());
+        for (int bookId : bookIds) {
+            Book book = found.get(bookId);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        GET_METRICS.rowsRead(books.size());
+        GET_METRICS.success(started);
+        return books;
+    }
+
+    @Override
+    public List<Book> scan(int afterBookId, int limit) throws SQLException {
+        long started = SCAN_METRICS.start();
+        List<Book> books = new ArrayList<>();
+        try (Connection conn = borrow();
+             PreparedStatement pstmt = conn.prepareStatement(SCAN_SQL)) {
+            pstmt.setInt(1, afterBookId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    books.add(BookPageQuery.readBook(rs));
+                }
+            }
+            SCAN_METRICS.rowsRead(books.size());
+            SCAN_METRICS.success(started);
+            return books;
+        } catch (SQLException | RuntimeException e) {
+            SCAN_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updateStatus(int bookId, String status, String dueDate) throws SQLException {
+        return updateStatuses(List.of(bookId), status, dueDate)[0];
+    }
+
+    /**
+     * updateStatuses
+     * Changes the books in one transaction. When the books are checked in, those that changed are offered to the
+     * HoldQueue before the commit, so a book with a waiting hold goes straight out again to its patron; it still
+     * counts as changed.
+     */
+    @Override
+    public boolean[] updateStatuses(List<Integer> bookIds, String status, String dueDate) throws SQLException {
+        long started = STATUS_METRICS.start();
+        try {
+            boolean[] changed = inTransaction(conn -> {
+                boolean[] results = new boolean[bookIds.size()];
+                try (PreparedStatement pstmt = conn.prepareStatement(STATUS_SQL)) {
+                    for (int i = 0; i < results.length; i++) {
+                        pstmt.setString(1, status);
+                        pstmt.setString(2, dueDate);
+                        pstmt.setInt(3, bookIds.get(i));
+                        pstmt.setString(4, status);
+                        results[i] = pstmt.executeUpdate() > 0;
+                    }
+                }
+                if (CirculationService.CHECKED_IN.equals(status)) {
+                    List<Integer> checkedIn = new ArrayList<>();
+                    for (int i = 0; i < results.length; i++) {
+                        if (results[i]) {
+                            checkedIn.add(bookIds.get(i));
+                        }
+                    }
+                    HoldQueue.handOver(conn, checkedIn, LocalDate.now().plus(CirculationService.LOAN_PERIOD));
+                }
+                return results;
+            });
+            int written = 0;
+            for (boolean result : changed) {
+                written += result ? 1 : 0;
+            }
+            STATUS_METRICS.rowsWritten(written);
+            STATUS_METRICS.success(started);
+            return changed;
+        } catch (SQLException | RuntimeException e) {
+            STATUS_METRICS.failure(started);
+            throw e;
+        }
+    }
+
+    @Override
+    public int count() throws SQLException {
+        try (Connection conn = borrow();
+             PreparedStatement pstmt = conn.prepareStatement(COUNT_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * inTransaction
+     * Runs the work on a borrowed connection as one transaction, begun IMMEDIATE so that it takes the write lock
+     * before its first statement and waits out other writers instead of failing halfway through.
+     */
+    private <T> T inTransaction(DatabaseExecutor.SqlWork<T> work) throws SQLException {
+        try (Connection conn = borrow();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                T result = work.execute(conn);
+                stmt.execute("COMMIT");
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                stmt.execute("ROLLBACK");
+                throw e;
+            }
+        }
+    }
+
+    private Connection borrow() throws SQLException {
+        Connection conn = pool.borrow();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        return conn;
+    }
+
+    private static void bindInsert(PreparedStatement pstmt, Book book) throws SQLException {
+        pstmt.setInt(1, book.getBookId());
+        pstmt.setString(2, book.getTitle());
+        pstmt.setString(3, book.getAuthor());
+        pstmt.setString(4, book.getGenre());
+        pstmt.setString(5, book.getStatus() == null ? CirculationService.CHECKED_IN : book.getStatus());
+        pstmt.setString(6, book.getDueDate());
+    }
+}
@@ -0,0 +1,344 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * WriteQueue.java
+ * This class funnels every write to the database through one writer thread. SQLite allows only one writer at a
+ * time, so when many requests write at once they would otherwise queue up inside SQLite on its busy timeout and fail
+ * with "database is locked" once it runs out. A single writer turns that contention into an orderly queue in memory,
+ * while reads keep running concurrently on their own pooled connections thanks to WAL mode. The queue is bounded, so
+ * a burst that the writer cannot keep up with is refused right away instead of piling up without limit.
+ * The writer commits in groups: it takes every write that is waiting, up to a maximum group size, and runs them as
+ * one transaction, so a busy minute pays for one commit per group instead of one per write. While one group commits
+ * the next one gathers in the queue, so groups grow with the load without anyone waiting on purpose. On disks where
+ * a commit is slow, a delay can be configured to hold each group open a few milliseconds longer for more writes.
+ * Each write runs inside its own savepoint, so a write that fails is rolled back alone and the rest of its group
+ * still commits. When a caller is told its write is done depends on the queue's Durability.
+ */
+
+package libraryms.libraryms;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class WriteQueue implements AutoCloseable {
+    public static final String DURABILITY_PROPERTY = "libraryms.write.durability";
+    public static final String GROUP_SIZE_PROPERTY = "libraryms.write.groupSize";
+    public static final String GROUP_DELAY_PROPERTY = "libraryms.write.groupDelayMillis";
+    private static final int DEFAULT_GROUP_SIZE = 256;
+    private static final long DEFAULT_GROUP_DELAY_MILLIS = 0;
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final Logger LOG = Logger.getLogger(WriteQueue.class.getName());
+    private static final OperationMetrics GROUP_METRICS = Metrics.operation("db.writer.group");
+
+    private final BlockingQueue<PendingWrite<?>> queue;
+    private final Durability durability;
+    private final int maxGroupSize;
+    private final long maxDelayNanos;
+    private final Thread writer;
+    private final Object submitLock = new Object();
+    private boolean closed;
+    private PendingWrite<?> carriedOver;
+
+    /**
+     * WriteQueue
+     * Creates a queue configured by the libraryms.write.durability (COMMITTED by default), libraryms.write.groupSize
+     * (256) and libraryms.write.groupDelayMillis (0) system properties.
+     */
+    public WriteQueue(int capacity) {
+        this(capacity, Durability.valueOf(System.getProperty(DURABILITY_PROPERTY, Durability.COMMITTED.name())
+                        .toUpperCase(Locale.ROOT)),
+                Integer.getInteger(GROUP_SIZE_PROPERTY, DEFAULT_GROUP_SIZE),
+                Long.getLong(GROUP_DELAY_PROPERTY, DEFAULT_GROUP_DELAY_MILLIS));
+    }
+
+    /**
+     * WriteQueue
+     * Creates a queue that holds up to capacity waiting writes and commits up to maxGroupSize of them at a time. A
+     * group size of 1 turns group commit off, so every write is its own transaction.
+     */
+    public WriteQueue(int capacity, Durability durability, int maxGroupSize, long maxDelayMillis) {
+        if (capacity < 1 || maxGroupSize < 1 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Capacity and group size must be positive and the delay not negative.");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.durability = durability;
+        this.maxGroupSize = maxGroupSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.writer = new Thread(this::runWriter, "db-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * submit
+     * Queues the work for the writer thread, which runs it inside the transaction of its group. The work must not
+     * commit or roll back itself. The operation metrics time the write from now until the caller is told it is done.
+     * The returned future completes with the work's result, or exceptionally with what it threw, and fails with
+     * RejectedExecutionException right away when the queue is full or closed.
+     */
+    public <T> CompletableFuture<T> submit(OperationMetrics metrics, DatabaseExecutor.SqlWork<T> work) {
+        return enqueue(new PendingWrite<>(metrics, work, null));
+    }
+
+    /**
+     * submitTask
+     * Queues work that opens its own connections and transactions, such as a bulk import. It runs alone, between two
+     * groups, so that it still never runs at the same time as another write. The returned future completes
+     * exceptionally with whatever the task threw.
+     */
+    public <T> CompletableFuture<T> submitTask(Callable<T> task) {
+        return enqueue(new PendingWrite<>(null, null, task));
+    }
+
+    private <T> CompletableFuture<T> enqueue(PendingWrite<T> write) {
+        synchronized (submitLock) {
+            if (closed || !queue.offer(write)) {
+                write.future.completeExceptionally(new RejectedExecutionException(
+                        closed ? "The write queue has been closed." : "The write queue is full."));
+            }
+        }
+        return write.future;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * getQueuedWrites
+     * Returns how many writes are waiting for the writer thread.
+     */
+    public int getQueuedWrites() {
+        return queue.size();
+    }
+
+    /**
+     * close
+     * Stops accepting writes and waits for the ones already queued to be committed.
+     */
+    @Override
+    public void close() {
+        synchronized (submitLock) {
+            closed = true;
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            PendingWrite<?> first;
+            try {
+                first = carriedOver != null ? carriedOver : queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                carriedOver = null;
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                synchronized (submitLock) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            if (first.task != null) {
+                first.runTask();
+                continue;
+            }
+            commitGroup(collectGroup(first));
+        }
+    }
+
+    /**
+     * collectGroup
+     * Gathers the writes that join the given one in a group: everything already waiting, and whatever arrives until
+     * the oldest write in the group has waited the maximum delay, up to the maximum group size. A task ends the group
+     * and is run right after it.
+     */
+    private List<PendingWrite<?>> collectGroup(PendingWrite<?> first) {
+        List<PendingWrite<?>> group = new ArrayList<>();
+        group.add(first);
+        long deadline = first.queuedAt + maxDelayNanos;
+        while (group.size() < maxGroupSize) {
+            PendingWrite<?> next = queue.poll();
+            if (next == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (next == null) {
+                    break;
+                }
+            }
+            if (next.task != null) {
+                carriedOver = next;
+                break;
+            }
+            group.add(next);
+        }
+        return group;
+    }
+
+    /**
+     * commitGroup
+     * Runs every write of the group in one transaction, each in its own savepoint, and commits. With SYNCED
+     * durability the commit is flushed to disk before anyone is told, by switching the connection to
+     * synchronous = FULL for the transaction. If the commit itself fails, every write of the group fails and the
+     * shared CatalogCache and OverdueTracker are cleared, because the writes may already have updated them.
+     */
+    private void commitGroup(List<PendingWrite<?>> group) {
+        long started = GROUP_METRICS.start();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (durability == Durability.SYNCED) {
+                setSynchronous(conn, "FULL");
+            }
+            conn.setAutoCommit(false);
+            try {
+                for (PendingWrite<?> write : group) {
+                    write.execute(conn);
+                    if (durability == Durability.BUFFERED) {
+                        write.acknowledge();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                rollback(conn);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                if (durability == Durability.SYNCED) {
+                    setSynchronous(conn, "NORMAL");
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            GROUP_METRICS.failure(started);
+            if (durability == Durability.BUFFERED) {
+                LOG.log(Level.SEVERE, "A group of " + group.size() + " acknowledged writes was lost.", e);
+            }
+            Library.discardCachedState();
+            for (PendingWrite<?> write : group) {
+                write.fail(e);
+            }
+            return;
+        }
+        GROUP_METRICS.rowsWritten(group.size());
+        GROUP_METRICS.success(started);
+        for (PendingWrite<?> write : group) {
+            write.acknowledge();
+        }
+    }
+
+    private static void setSynchronous(Connection conn, String level) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA synchronous = " + level);
+        }
+    }
+
+    private static void rollback(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            LOG.log(Level.WARNING, "Could not roll back a failed write group.", e);
+        }
+    }
+
+    /**
+     * Durability
+     * When a caller is told that its write is done. BUFFERED answers as soon as the write has run inside its group's
+     * open transaction, before the commit, so a crash can lose writes that were already acknowledged. COMMITTED
+     * answers once the group has committed; with WAL and synchronous = NORMAL that survives the application crashing
+     * but not the operating system crashing or losing power. SYNCED answers once the commit has been flushed to disk.
+     */
+    public enum Durability {
+        BUFFERED,
+        COMMITTED,
+        SYNCED
+    }
+
+    /**
+     * PendingWrite
+     * One queued write, or one task that runs alone, and the future its caller is waiting on.
+     */
+    private static final class PendingWrite<T> {
+        private final OperationMetrics metrics;
+        private final DatabaseExecutor.SqlWork<T> work;
+        private final Callable<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long queuedAt = System.nanoTime();
+        private final long started;
+        private T result;
+        private boolean done;
+
+        PendingWrite(OperationMetrics metrics, DatabaseExecutor.SqlWork<T> work, Callable<T> task) {
+            this.metrics = metrics;
+            this.work = work;
+            this.task = task;
+            this.started = metrics == null ? 0 : metrics.start();
+        }
+
+        /**
+         * execute
+         * Runs the work in a savepoint. When the work fails only its own changes are rolled back and its caller is
+         * told right away; a failure of the savepoint itself fails the whole group.
+         */
+        void execute(Connection conn) throws SQLException {
+            Savepoint savepoint = conn.setSavepoint();
+            try {
+                result = work.execute(conn);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback(savepoint);
+                conn.releaseSavepoint(savepoint);
+                fail(e);
+                return;
+            }
+            conn.releaseSavepoint(savepoint);
+        }
+
+        void acknowledge() {
+            if (!done) {
+                done = true;
+                metrics.success(started);
+                future.complete(result);
+            }
+        }
+
+        void fail(Throwable error) {
+            if (!done) {
+                done = true;
+                metrics.failure(started);
+                future.completeExceptionally(error);
+            }
+        }
+
+        void runTask() {
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BatchInsertBenchmark.java
+ * This benchmark measures how many rows per second can be inserted into the books table when rows are written in
+ * batches of different sizes, each batch committed in its own transaction the way BookImporter commits a chunk. A
+ * batch size of one is the row-at-a-time insert the application used before. Rows go into a database with the full
+ * schema, so every insert also pays for the indexes and the search index triggers. The table is emptied before each
+ * measurement iteration so that every batch size inserts into a table of the same size.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BatchInsertBenchmark {
+    private static final int ROWS_PER_INVOCATION = 10_000;
+    private static final String INSERT_SQL = "INSERT INTO books (title, author, genre) VALUES (?, ?, ?)";
+
+    @Param({"1", "100", "1000", "10000"})
+    public int batchSize;
+
+    private Path file;
+    private ConnectionPool pool;
+    private Connection conn;
+    private String[][] books;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = Files.createTempFile("batch-insert-benchmark", ".db");
+        pool = new ConnectionPool("jdbc:sqlite:" + file, 1, 10_000);
+        conn = pool.borrow();
+        DatabaseSchema.migrate(conn);
+        CatalogGenerator generator = new CatalogGenerator();
+        books = new String[ROWS_PER_INVOCATION][];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = generator.next();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTable() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM books");
+            stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        conn.close();
+        pool.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public void insertRows() throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            for (int i = 0; i < books.length; i++) {
+                pstmt.setString(1, books[i][0]);
+                pstmt.setString(2, books[i][1]);
+                pstmt.setString(3, books[i][2]);
+                pstmt.addBatch();
+                if ((i + 1) % batchSize == 0) {
+                    pstmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BookAllocationBenchmark.java
+ * This benchmark measures the cost of creating Book objects: a new book with an ID from a BookIdAllocator, which
+ * includes its share of the block leases from a scratch database, a book built from a database row, and the copy made
+ * when a book's status changes. Run it with the GC profiler (-prof gc) to also see the bytes allocated per book in the
+ * results.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BookAllocationBenchmark {
+    private final String title = "The Midnight Garden 1042";
+    private final String author = "Ursula Le Guin";
+    private final String genre = "Fantasy";
+    private final Book book = new Book(1042, title, author, genre, "checked in", null);
+    private int bookId;
+    private Path file;
+    private ConnectionPool pool;
+    private BookIdAllocator ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = Files.createTempFile("book-allocation-benchmark", ".db");
+        pool = new ConnectionPool("jdbc:sqlite:" + file, 1, 10_000);
+        try (Connection conn = pool.borrow()) {
+            DatabaseSchema.createTables(conn);
+        }
+        ids = new BookIdAllocator(pool::borrow);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+
+    @Benchmark
+    public Book newBook() throws SQLException {
+        return new Book(ids.nextId(), title, author, genre);
+    }
+
+    @Benchmark
+    public Book bookFromRow() {
+        return new Book(++bookId, title, author, genre, "checked in", null);
+    }
+
+    @Benchmark
+    public Book withStatus() {
+        return book.withStatus("checked out", "2026-10-31");
+    }
+}
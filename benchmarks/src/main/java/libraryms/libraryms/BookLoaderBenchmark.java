@@ -0,0 +1,102 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * BookLoaderBenchmark.java
+ * This benchmark measures how fast catalog files are parsed. parseLine and splitLine time the per-line field parsing
+ * on lines already in memory, comparing the quote-aware parser against the plain String.split the loader used
+ * originally. loadBooksFromFile times BookLoader reading a whole catalog file into the Library, including file I/O,
+ * creating every Book with an ID leased from a scratch database and saving the books to it in batches through the
+ * write queue.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BookLoaderBenchmark {
+    private static final int PARSED_LINES = 10_000;
+
+    @Param({"10k"})
+    public String catalog;
+
+    private Path file;
+    private Path database;
+    private String[] lines;
+    private final Library library = new Library();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = CatalogGenerator.csv(catalog);
+        List<String> all = Files.readAllLines(file, StandardCharsets.UTF_8);
+        lines = all.subList(0, Math.min(PARSED_LINES, all.size())).toArray(new String[0]);
+        database = Files.createTempFile("book-loader-benchmark", ".db");
+        System.setProperty(DatabaseConnection.PATH_PROPERTY, database.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Library.closeWriteQueue();
+        Library.closeIdAllocator();
+        DatabaseConnection.shutdown();
+        Files.deleteIfExists(database);
+        Files.deleteIfExists(Path.of(database + "-wal"));
+        Files.deleteIfExists(Path.of(database + "-shm"));
+    }
+
+    @Setup(Level.Iteration)
+    public void clearLibrary() {
+        Library.getCatalog().clear();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(PARSED_LINES)
+    public void parseLine(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(BookImporter.parseLine(line));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(PARSED_LINES)
+    public void splitLine(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(line.split(","));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long loadBooksFromFile() {
+        return BookLoader.loadBooksFromFile(file.toString(), library);
+    }
+}
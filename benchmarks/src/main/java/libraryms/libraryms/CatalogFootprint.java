@@ -0,0 +1,47 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CatalogFootprint.java
+ * This class reports how much heap a generated catalog takes in the ArrayList<Book> layout Library used and in
+ * ColumnarCatalog, in bytes per book. Sizes are measured by walking the object graph with JOL, so they include every
+ * object header, string and array the layout keeps alive. About one book in ten is checked out.
+ * Usage: java -cp benchmarks.jar libraryms.libraryms.CatalogFootprint [size...]   (default: 10k 1m)
+ */
+
+package libraryms.libraryms;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jol.info.GraphLayout;
+
+public final class CatalogFootprint {
+    private static final int CHECKED_OUT_EVERY = 10;
+
+    private CatalogFootprint() {
+    }
+
+    public static void main(String[] args) {
+        String[] sizes = args.length > 0 ? args : new String[]{"10k", "1m"};
+        System.out.printf("%-8s %22s %22s %22s%n", "catalog", "ArrayList<Book> B/book", "columnar B/book",
+                "columnar estimate");
+        for (String size : sizes) {
+            int rows = CatalogGenerator.rows(size);
+            List<Book> list = new ArrayList<>();
+            ColumnarCatalog columnar = new ColumnarCatalog();
+            CatalogGenerator generator = new CatalogGenerator();
+            for (int id = 1; id <= rows; id++) {
+                String[] fields = generator.next();
+                boolean out = id % CHECKED_OUT_EVERY == 0;
+                Book book = new Book(id, fields[0], fields[1], fields[2], out ? "checked out" : "checked in",
+                        out ? "2026-10-31" : null);
+                list.add(book);
+                columnar.addBook(book);
+            }
+            columnar.trimToSize();
+            System.out.printf("%-8s %22.1f %22.1f %22.1f%n", size,
+                    (double) GraphLayout.parseInstance(list).totalSize() / rows,
+                    (double) GraphLayout.parseInstance(columnar).totalSize() / rows,
+                    columnar.bytesPerBook());
+        }
+    }
+}
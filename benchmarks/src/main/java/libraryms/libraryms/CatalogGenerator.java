@@ -0,0 +1,185 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CatalogGenerator.java
+ * This class builds the synthetic catalogs the benchmarks run against. A catalog is named by its size, "10k", "1m" or
+ * "10m" rows, and can be written as a comma separated file in the format BookLoader and BookImporter read, or as a
+ * ready-to-use SQLite database with every index, the search index and its triggers in place. The same seed always
+ * produces the same books, so runs on different machines or commits measure the same data. Generated files are kept
+ * under target/catalogs (or the directory in the catalog.dir system property) and reused by later runs, because the
+ * ten million row database takes minutes to build.
+ * Usage: java -cp benchmarks.jar libraryms.libraryms.CatalogGenerator [csv|db] size...
+ */
+
+package libraryms.libraryms;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Random;
+
+public final class CatalogGenerator {
+    private static final long SEED = 42;
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final String[] WORDS = {"Shadow", "River", "Empire", "Garden", "Winter", "Silent", "Iron", "Golden",
+            "Forgotten", "Ocean", "Crown", "Midnight", "Glass", "Hollow", "Burning", "Secret", "Storm", "Wild",
+            "Distant", "Paper", "Stone", "Last", "Broken", "Hidden", "Northern", "Crimson", "Quiet", "Endless"};
+    private static final String[] FIRST_NAMES = {"Jane", "Leo", "Toni", "Mark", "Mary", "Fyodor", "Harper", "Ralph",
+            "Charlotte", "Gabriel", "Herman", "James", "Miguel", "Virginia", "George", "Ursula"};
+    private static final String[] LAST_NAMES = {"Austen", "Tolstoy", "Morrison", "Twain", "Shelley", "Dostoevsky",
+            "Lee", "Ellison", "Bronte", "Marquez", "Melville", "Joyce", "Cervantes", "Woolf", "Orwell", "Le Guin"};
+    private static final String[] GENRES = {"Classic", "Romance", "Dystopian", "Literary Fiction", "Fantasy",
+            "Historical Fiction", "Adventure", "Science Fiction", "Gothic Novel", "Magical Realism", "Mystery"};
+
+    private final Random random = new Random(SEED);
+    private int generated;
+
+    public static void main(String[] args) throws IOException, SQLException {
+        if (args.length == 0) {
+            System.out.println("Usage: CatalogGenerator [csv|db] size...   (sizes: 10k, 1m, 10m)");
+            return;
+        }
+        boolean csv = args[0].equalsIgnoreCase("csv");
+        int first = csv || args[0].equalsIgnoreCase("db") ? 1 : 0;
+        for (int i = first; i < args.length; i++) {
+            long started = System.nanoTime();
+            Path file = csv ? csv(args[i]) : database(args[i]);
+            System.out.printf("%s ready in %.1f s: %s%n", args[i], (System.nanoTime() - started) / 1e9, file);
+        }
+    }
+
+    /**
+     * rows
+     * Returns the number of books in the catalog with the given size name.
+     */
+    public static int rows(String size) {
+        switch (size.toLowerCase(Locale.ROOT)) {
+            case "10k":
+                return 10_000;
+            case "1m":
+                return 1_000_000;
+            case "10m":
+                return 10_000_000;
+            default:
+                throw new IllegalArgumentException("Unknown catalog size: " + size + " (use 10k, 1m or 10m)");
+        }
+    }
+
+    /**
+     * csv
+     * Returns a comma separated catalog file of the given size, generating it first if it does not exist yet.
+     */
+    public static Path csv(String size) throws IOException {
+        Path file = catalogDirectory().resolve("books-" + size.toLowerCase(Locale.ROOT) + ".csv");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path partial = Paths.get(file + ".partial");
+        CatalogGenerator generator = new CatalogGenerator();
+        try (BufferedWriter writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+            for (int i = rows(size); i > 0; i--) {
+                String[] book = generator.next();
+                writer.write(book[0] + ", " + book[1] + ", " + book[2]);
+                writer.newLine();
+            }
+        }
+        return Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * database
+     * Returns a SQLite catalog database of the given size, generating it first if it does not exist yet. Benchmarks
+     * that change rows should work on a copy (see copyOf) so that the cached database stays the same for every run.
+     */
+    public static Path database(String size) throws IOException, SQLException {
+        Path file = catalogDirectory().resolve("books-" + size.toLowerCase(Locale.ROOT) + ".db");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Path partial = Paths.get(file + ".partial");
+        Files.deleteIfExists(partial);
+        try (ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + partial, 1, 10_000);
+             Connection conn = pool.borrow()) {
+            new CatalogGenerator().fill(conn, rows(size));
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                stmt.execute("PRAGMA journal_mode = DELETE");
+            }
+        }
+        return Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * copyOf
+     * Copies the catalog database of the given size to a new temporary file and returns its path.
+     */
+    public static Path copyOf(String size) throws IOException, SQLException {
+        Path copy = Files.createTempFile("catalog-" + size.toLowerCase(Locale.ROOT) + "-", ".db");
+        return Files.copy(database(size), copy, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * next
+     * Returns the title, author and genre of the next synthetic book. Titles end in a running number so that every
+     * title is unique.
+     */
+    public String[] next() {
+        generated++;
+        return new String[]{
+                "The " + pick(WORDS) + " " + pick(WORDS) + " " + generated,
+                pick(FIRST_NAMES) + " " + pick(LAST_NAMES),
+                pick(GENRES)};
+    }
+
+    /**
+     * fill
+     * Loads the given number of synthetic books into an empty database. The tables are created and filled first and
+     * every index is built afterwards in a single pass, which is far faster than maintaining them row by row.
+     */
+    private void fill(Connection conn, int rows) throws SQLException {
+        DatabaseSchema.createTables(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA synchronous = OFF");
+        }
+        conn.setAutoCommit(false);
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO books (title, author, genre) VALUES (?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                String[] book = next();
+                pstmt.setString(1, book[0]);
+                pstmt.setString(2, book[1]);
+                pstmt.setString(3, book[2]);
+                pstmt.addBatch();
+                if (i % INSERT_BATCH_SIZE == 0) {
+                    pstmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        DatabaseSchema.migrate(conn);
+        BookSearch.optimizeIndex(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static Path catalogDirectory() throws IOException {
+        return Files.createDirectories(Paths.get(System.getProperty("catalog.dir", "target/catalogs")));
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CatalogScanBenchmark.java
+ * This benchmark measures a full scan of an in-memory catalog, counting the checked-out books of one genre, over
+ * the ArrayList<Book> layout and over ColumnarCatalog, both through the flyweight view and through the Book list
+ * returned by getAllBooks. CatalogFootprint reports the memory side of the same comparison.
+ */
+
+package libraryms.libraryms;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CatalogScanBenchmark {
+    private static final String GENRE = "Fantasy";
+
+    @Param({"10k"})
+    public String catalog;
+
+    private final List<Book> list = new ArrayList<>();
+    private final ColumnarCatalog columnar = new ColumnarCatalog();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CatalogGenerator generator = new CatalogGenerator();
+        for (int id = 1; id <= CatalogGenerator.rows(catalog); id++) {
+            String[] fields = generator.next();
+            boolean out = id % 10 == 0;
+            Book book = new Book(id, fields[0], fields[1], fields[2], out ? "checked out" : "checked in",
+                    out ? "2026-10-31" : null);
+            list.add(book);
+            columnar.addBook(book);
+        }
+        columnar.trimToSize();
+    }
+
+    @Benchmark
+    public int scanBookList() {
+        int count = 0;
+        for (Book book : list) {
+            if (book.isCheckedOut() && GENRE.equals(book.getGenre())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int scanColumnarView() {
+        int[] count = new int[1];
+        columnar.forEach(view -> {
+            if (view.isCheckedOut() && GENRE.equals(view.getGenre())) {
+                count[0]++;
+            }
+        });
+        return count[0];
+    }
+
+    @Benchmark
+    public int scanColumnarBooks() {
+        int count = 0;
+        for (Book book : columnar.getAllBooks()) {
+            if (book.isCheckedOut() && GENRE.equals(book.getGenre())) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ChangeFeedBenchmark.java
+ * This benchmark compares what a client pays to catch up with other desks' changes. pollNoChanges is the common case
+ * of a poll that finds nothing new, and pollChanges reads the latest 100 changes with their books. reloadAll is the
+ * alternative without a change feed: read every book again, which grows with the catalog instead of the changes.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ChangeFeedBenchmark {
+    private static final int CHANGES = 100;
+
+    @Param({"10k", "1m"})
+    public String catalog;
+
+    private Path file;
+    private ConnectionPool pool;
+    private Connection conn;
+    private long current;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = CatalogGenerator.copyOf(catalog);
+        pool = new ConnectionPool("jdbc:sqlite:" + file, 1, 10_000);
+        conn = pool.borrow();
+        DatabaseSchema.migrate(conn);
+        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE books SET status = 'checked out',"
+                + " due_date = '2026-11-01' WHERE book_id = ?")) {
+            for (int i = 1; i <= CHANGES; i++) {
+                pstmt.setInt(1, i * 97);
+                pstmt.executeUpdate();
+            }
+        }
+        current = ChangeFeed.currentVersion(conn);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        conn.close();
+        pool.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+
+    @Benchmark
+    public ChangeFeed.ChangeBatch pollNoChanges() throws SQLException {
+        return ChangeFeed.changesSince(conn, current, 1_000);
+    }
+
+    @Benchmark
+    public ChangeFeed.ChangeBatch pollChanges() throws SQLException {
+        return ChangeFeed.changesSince(conn, current - CHANGES, 1_000);
+    }
+
+    @Benchmark
+    public List<Book> reloadAll() throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT " + BookPageQuery.COLUMNS + " FROM books")) {
+            return BookPageQuery.readBooks(pstmt);
+        }
+    }
+}
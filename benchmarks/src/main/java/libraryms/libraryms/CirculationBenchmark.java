@@ -0,0 +1,157 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * CirculationBenchmark.java
+ * This benchmark measures the latency of checking a single book out or in with the same SQL statements that
+ * CirculationService batches, each as its own auto-committed transaction of one book. Latencies are sampled
+ * so the JSON results include percentiles as well as the mean. Every operation works on the next book of a copy of
+ * the catalog database, and the opposite update runs outside the measured time to put the book back.
+ * checkOutCart checks out a whole cart of books through CirculationService, one transaction per cart; divide its
+ * time by the cart size to compare with checkOut.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CirculationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"10k"})
+        public String catalog;
+
+        Path file;
+        ConnectionPool pool;
+        Connection conn;
+        int rows;
+        int nextBookId;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException, SQLException {
+            file = CatalogGenerator.copyOf(catalog);
+            rows = CatalogGenerator.rows(catalog);
+            pool = new ConnectionPool("jdbc:sqlite:" + file, 1, 10_000);
+            conn = pool.borrow();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException, SQLException {
+            conn.close();
+            pool.close();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(Path.of(file + "-wal"));
+            Files.deleteIfExists(Path.of(file + "-shm"));
+        }
+
+        int nextBook() {
+            nextBookId = nextBookId % rows + 1;
+            return nextBookId;
+        }
+
+        int checkOut(int bookId) throws SQLException {
+            try (PreparedStatement pstmt = conn.prepareStatement(CirculationService.CHECK_OUT_SQL)) {
+                pstmt.setString(1, LocalDate.now().plusWeeks(2).toString());
+                pstmt.setInt(2, bookId);
+                return pstmt.executeUpdate();
+            }
+        }
+
+        int checkIn(int bookId) throws SQLException {
+            try (PreparedStatement pstmt = conn.prepareStatement(CirculationService.CHECK_IN_SQL)) {
+                pstmt.setInt(1, bookId);
+                return pstmt.executeUpdate();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CheckedInBook {
+        int bookId;
+
+        @Setup(Level.Invocation)
+        public void pick(Catalog catalog) {
+            bookId = catalog.nextBook();
+        }
+
+        @TearDown(Level.Invocation)
+        public void putBack(Catalog catalog) throws SQLException {
+            catalog.checkIn(bookId);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CheckedOutBook {
+        int bookId;
+
+        @Setup(Level.Invocation)
+        public void pick(Catalog catalog) throws SQLException {
+            bookId = catalog.nextBook();
+            catalog.checkOut(bookId);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CheckedInCart {
+        @Param({"10", "100"})
+        public int cartSize;
+
+        final CirculationService circulation = new CirculationService(null);
+        List<Integer> bookIds;
+
+        @Setup(Level.Invocation)
+        public void pick(Catalog catalog) {
+            bookIds = new ArrayList<>(cartSize);
+            for (int i = 0; i < cartSize; i++) {
+                bookIds.add(catalog.nextBook());
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void putBack(Catalog catalog) throws SQLException {
+            circulation.checkIn(catalog.conn, bookIds);
+        }
+    }
+
+    @Benchmark
+    public int checkOut(Catalog catalog, CheckedInBook book) throws SQLException {
+        return catalog.checkOut(book.bookId);
+    }
+
+    @Benchmark
+    public int checkIn(Catalog catalog, CheckedOutBook book) throws SQLException {
+        return catalog.checkIn(book.bookId);
+    }
+
+    @Benchmark
+    public List<CirculationService.Result> checkOutCart(Catalog catalog, CheckedInCart cart) throws SQLException {
+        return cart.circulation.checkOut(catalog.conn, cart.bookIds);
+    }
+}
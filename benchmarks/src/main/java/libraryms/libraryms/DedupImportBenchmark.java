@@ -0,0 +1,111 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * DedupImportBenchmark.java
+ * This benchmark measures how fast BookImporter loads a file in each import mode and whether that speed holds as the
+ * catalog grows. importNewBooks loads 10,000 books the catalog does not have yet and importDuplicates loads 10,000
+ * books it already has, the first ones CatalogGenerator produced. APPEND inserts both files without looking, so it is
+ * the baseline the deduplicating modes are compared with. Each run works on a copy of a generated catalog, and the
+ * fingerprints of that catalog are built during setup, so the time to index an existing catalog once is not part of
+ * the result. Every invocation imports a freshly written file, so no import resumes from an earlier one.
+ */
+
+package libraryms.libraryms;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DedupImportBenchmark {
+    private static final int ROWS_PER_INVOCATION = 10_000;
+
+    @Param({"10k", "1m"})
+    public String catalog;
+
+    @Param({"APPEND", "SKIP_DUPLICATES", "UPSERT"})
+    public String mode;
+
+    private Path database;
+    private Path newBooks;
+    private Path knownBooks;
+    private BookImporter importer;
+    private BookImporter.Mode importMode;
+    private long invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = CatalogGenerator.copyOf(catalog);
+        System.setProperty(DatabaseConnection.PATH_PROPERTY, database.toString());
+        System.setProperty(Metrics.LOG_INTERVAL_PROPERTY, "0");
+        importer = new BookImporter(BookImporter.DEFAULT_CHUNK_SIZE, 1);
+        importMode = BookImporter.Mode.valueOf(mode);
+        newBooks = Files.createTempFile("dedup-new", ".csv");
+        knownBooks = Files.createTempFile("dedup-known", ".csv");
+        Path warmup = Files.createTempFile("dedup-warmup", ".csv");
+        Files.writeString(warmup, "Warmup Title, Warmup Author, Warmup Genre\n");
+        importer.importFile(warmup, BookImporter.Mode.SKIP_DUPLICATES, null);
+        Files.delete(warmup);
+    }
+
+    @Setup(Level.Invocation)
+    public void writeFiles() throws IOException {
+        invocation++;
+        CatalogGenerator generator = new CatalogGenerator();
+        try (BufferedWriter fresh = Files.newBufferedWriter(newBooks, StandardCharsets.UTF_8);
+             BufferedWriter known = Files.newBufferedWriter(knownBooks, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+                String[] book = generator.next();
+                fresh.write("Reprint " + invocation + " of " + book[0] + ", " + book[1] + ", " + book[2]);
+                fresh.newLine();
+                known.write(book[0] + ", " + book[1] + ", " + book[2]);
+                known.newLine();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DatabaseConnection.shutdown();
+        Files.deleteIfExists(newBooks);
+        Files.deleteIfExists(knownBooks);
+        Files.deleteIfExists(database);
+        Files.deleteIfExists(Path.of(database + "-wal"));
+        Files.deleteIfExists(Path.of(database + "-shm"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public BookImporter.ImportResult importNewBooks() throws IOException, SQLException {
+        return importer.importFile(newBooks, importMode, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public BookImporter.ImportResult importDuplicates() throws IOException, SQLException {
+        return importer.importFile(knownBooks, importMode, null);
+    }
+}
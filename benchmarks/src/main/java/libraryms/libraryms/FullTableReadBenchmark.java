@@ -0,0 +1,95 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * FullTableReadBenchmark.java
+ * This benchmark measures reading the inventory for display. selectAllAsText is the full-table read the original
+ * displayBooks performed, a SELECT * formatted into one large string for the text area. selectAllAsBooks reads every
+ * row into Book objects, and firstPage is the single page of the paged table that displayBooks loads today.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FullTableReadBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"10k"})
+    public String catalog;
+
+    private ConnectionPool pool;
+    private Connection conn;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + CatalogGenerator.database(catalog), 1, 10_000);
+        conn = pool.borrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        conn.close();
+        pool.close();
+    }
+
+    @Benchmark
+    public String selectAllAsText() throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM books")) {
+            StringBuilder booksList = new StringBuilder("Books in the library:\n\n");
+            while (rs.next()) {
+                booksList.append("ID: ").append(rs.getInt("book_id"))
+                        .append(", Title: ").append(rs.getString("title"))
+                        .append(", Author: ").append(rs.getString("author"))
+                        .append(", Status: ").append(rs.getString("status"))
+                        .append(", Due Date: ").append(rs.getString("due_date") == null ? "N/A" : rs.getString("due_date"))
+                        .append(", Genre: ").append(rs.getString("genre"))
+                        .append("\n");
+            }
+            return booksList.toString();
+        }
+    }
+
+    @Benchmark
+    public List<Book> selectAllAsBooks() throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT book_id, title, author, genre, status, due_date FROM books")) {
+            List<Book> books = new ArrayList<>();
+            while (rs.next()) {
+                books.add(BookPageQuery.readBook(rs));
+            }
+            return books;
+        }
+    }
+
+    @Benchmark
+    public List<Book> firstPage() throws SQLException {
+        return BookPageQuery.firstPage(conn, BookPageQuery.SortColumn.BOOK_ID, true, PAGE_SIZE + 1);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * GroupCommitBenchmark.java
+ * This benchmark measures how many single-book writes per second go through the WriteQueue when 16 callers write at
+ * once and each waits for its write to be acknowledged. A group size of 1 commits every write on its own, which is
+ * what every check-out, check-in, add and delete used to cost; 256 lets the writer commit whatever has queued up as
+ * one group. Both are run with COMMITTED durability, where WAL commits are not flushed to disk, and with SYNCED,
+ * where every commit is. groupDelayMillis shows what holding each group open for more writes costs or gains on the
+ * disk at hand.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GroupCommitBenchmark {
+    private static final String UPDATE_SQL = "UPDATE books SET due_date = ? WHERE book_id = ?";
+    private static final int QUEUE_CAPACITY = 1_000;
+    private static final OperationMetrics WRITE_METRICS = new OperationMetrics("benchmark.write");
+
+    @Param({"10k"})
+    public String catalog;
+
+    @Param({"1", "256"})
+    public int groupSize;
+
+    @Param({"0", "2"})
+    public long groupDelayMillis;
+
+    @Param({"COMMITTED", "SYNCED"})
+    public WriteQueue.Durability durability;
+
+    private Path file;
+    private int rows;
+    private WriteQueue writes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = CatalogGenerator.copyOf(catalog);
+        rows = CatalogGenerator.rows(catalog);
+        System.setProperty(DatabaseConnection.PATH_PROPERTY, file.toString());
+        writes = new WriteQueue(QUEUE_CAPACITY, durability, groupSize, groupDelayMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        writes.close();
+        DatabaseConnection.shutdown();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+
+    @Benchmark
+    public int write() throws InterruptedException, ExecutionException {
+        int bookId = 1 + ThreadLocalRandom.current().nextInt(rows);
+        return writes.submit(WRITE_METRICS, conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+                pstmt.setString(1, "2026-10-31");
+                pstmt.setInt(2, bookId);
+                return pstmt.executeUpdate();
+            }
+        }).get();
+    }
+}
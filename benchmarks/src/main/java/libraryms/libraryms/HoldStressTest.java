@@ -0,0 +1,398 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * HoldStressTest.java
+ * This class hammers a few titles with holds and returns at once, the way popular books are at opening time, and
+ * checks that the HoldQueue never loses or doubles a copy. A fresh database gets a handful of titles, all on loan.
+ * Many client threads then place holds for thousands of distinct patrons and return the titles at random, until
+ * every hold has been filled. Each client remembers which patrons it was told got a book, either straight away when
+ * placing the hold or as the hand-over of a return. A checker thread meanwhile keeps reading the queues to make sure
+ * no hold is ever filled while an older one on the same title is still waiting.
+ * Afterwards the run is consistent when every acknowledged hold is in the database, every hold was filled, each patron
+ * was reported exactly once and the reports match the filled holds, no title was handed out more often than it came
+ * back, since every title starts on loan, and no copy sits on the shelf with patrons waiting.
+ * The run is made twice: once through the WriteQueue, as the window and the server write, and once with every client
+ * on its own connection and transaction, as separate desks and servers sharing the file do. Results are printed as a
+ * table and written to results/holds-<timestamp>.json. Throughput counts the holds placed and the returns that
+ * changed a book; returning a copy that is already on the shelf changes nothing and is counted apart.
+ * Usage: java -cp benchmarks.jar libraryms.libraryms.HoldStressTest [--titles=4] [--holds=5000] [--clients=64]
+ *        [--modes=queued,direct]
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class HoldStressTest {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final OperationMetrics HOLD_METRICS = Metrics.operation("stress.placeHold");
+    private static final OperationMetrics RETURN_METRICS = Metrics.operation("stress.checkIn");
+    private static final String OUT_OF_ORDER_SQL = "SELECT COUNT(*) FROM book_holds WHERE book_id = ?"
+            + " AND filled_at IS NOT NULL AND hold_id > (SELECT MIN(hold_id) FROM book_holds"
+            + " INDEXED BY idx_book_holds_waiting WHERE book_id = ? AND filled_at IS NULL)";
+    private static final long CHECK_INTERVAL_MILLIS = 20;
+
+    private HoldStressTest() {
+    }
+
+    public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+        int titles = 4;
+        int holds = 5_000;
+        int clients = 64;
+        List<String> modes = List.of("queued", "direct");
+        for (String arg : args) {
+            if (arg.startsWith("--titles=")) {
+                titles = Integer.parseInt(arg.substring("--titles=".length()));
+            } else if (arg.startsWith("--holds=")) {
+                holds = Integer.parseInt(arg.substring("--holds=".length()));
+            } else if (arg.startsWith("--clients=")) {
+                clients = Integer.parseInt(arg.substring("--clients=".length()));
+            } else if (arg.startsWith("--modes=")) {
+                modes = List.of(arg.substring("--modes=".length()).split(","));
+            }
+        }
+        Path directory = Files.createTempDirectory("holds-");
+        System.setProperty(DatabaseConnection.PATH_PROPERTY, directory.resolve("holds.db").toString());
+        System.setProperty(DatabaseConnection.POOL_SIZE_PROPERTY, Integer.toString(clients + 2));
+        System.setProperty(Metrics.LOG_INTERVAL_PROPERTY, "0");
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        boolean allConsistent = true;
+        System.out.printf("%7s %7s %8s %7s %8s %11s %9s %8s %8s %11s%n", "mode", "titles", "clients", "holds",
+                "returns", "hand-overs", "ops/s", "seconds", "errors", "consistent");
+        try {
+            for (String mode : modes) {
+                boolean queued = mode.trim().equals("queued");
+                List<Integer> bookIds = createTitles(titles);
+                Run run = run(bookIds, holds, clients, queued);
+                run.consistent = verify(run, bookIds);
+                allConsistent &= run.consistent;
+                double seconds = run.elapsedNanos / 1e9;
+                double throughput = (run.placed.get() + run.returns.get()) / seconds;
+                System.out.printf("%7s %7d %8d %7d %8d %11d %9.0f %8.2f %8d %11s%n", mode.trim(), titles, clients,
+                        run.placed.get(), run.returns.get(), run.handedOver.get(), throughput, seconds,
+                        run.errors.get(), run.consistent);
+                if (run.firstError.get() != null) {
+                    System.out.println("        first error: " + run.firstError.get());
+                }
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("mode", mode.trim());
+                result.put("titles", titles);
+                result.put("clients", clients);
+                result.put("holds", run.placed.get());
+                result.put("filledAtOnce", run.filledAtOnce.get());
+                result.put("returns", run.returns.get());
+                result.put("returnsOfBooksOnTheShelf", run.idleReturns.get());
+                result.put("handedOver", run.handedOver.get());
+                result.put("seconds", seconds);
+                result.put("operationsPerSecond", throughput);
+                result.put("holdsFilledPerSecond", run.placed.get() / seconds);
+                result.put("queueChecks", run.checks.get());
+                result.put("errors", run.errors.get());
+                result.put("consistent", run.consistent);
+                results.add(result);
+            }
+        } finally {
+            Library.closeWriteQueue();
+            DatabaseConnection.shutdown();
+            for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                Files.deleteIfExists(directory.resolve("holds.db" + suffix));
+            }
+            Files.deleteIfExists(directory);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("runs", results);
+        Path output = Files.createDirectories(Paths.get("results"))
+                .resolve("holds-" + LocalDateTime.now().format(TIMESTAMP) + ".json");
+        Files.writeString(output, Json.write(report));
+        System.out.println("Results written to " + output);
+        System.exit(allConsistent ? 0 : 1);
+    }
+
+    /**
+     * createTitles
+     * Adds the hot titles to the database, all of them already on loan, so the first holds have to queue.
+     */
+    private static List<Integer> createTitles(int titles) throws SQLException {
+        List<Integer> bookIds = new ArrayList<>(titles);
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("INSERT INTO books (title, author, genre, status,"
+                     + " due_date) VALUES (?, 'Stress Author', 'Stress', 'checked out', ?)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < titles; i++) {
+                pstmt.setString(1, "Hot Title " + i);
+                pstmt.setString(2, LocalDate.now().toString());
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    keys.next();
+                    bookIds.add(keys.getInt(1));
+                }
+            }
+        }
+        return bookIds;
+    }
+
+    /**
+     * run
+     * Runs the clients until every hold has been placed and filled. Each client flips a coin between placing the next
+     * hold and returning a random title; once all holds are placed it only returns titles. A hold whose placing failed
+     * is not retried, and a run that fails more often than it has holds is given up.
+     */
+    private static Run run(List<Integer> bookIds, int holds, int clients, boolean queued) throws InterruptedException {
+        Run run = new Run();
+        WriteQueue writes = Library.getWriteQueue();
+        CirculationService circulation = new CirculationService(Library.getCatalog(), Library.getOverdueTracker());
+        AtomicLong nextHold = new AtomicLong();
+        Thread checker = new Thread(() -> checkQueues(run, bookIds), "hold-checker");
+        checker.setDaemon(true);
+        long started = System.nanoTime();
+        checker.start();
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while ((nextHold.get() < holds || run.filled() < run.placed.get()) && run.errors.get() <= holds) {
+                    int bookId = bookIds.get(random.nextInt(bookIds.size()));
+                    try {
+                        long hold = random.nextBoolean() ? nextHold.getAndIncrement() : holds;
+                        if (hold < holds) {
+                            String patron = "Patron " + hold;
+                            HoldQueue.Hold placed = execute(writes, queued, HOLD_METRICS,
+                                    conn -> circulation.placeHold(conn, bookId, patron));
+                            run.placed.incrementAndGet();
+                            if (placed.filled()) {
+                                run.filledAtOnce.incrementAndGet();
+                                run.report(bookId, patron);
+                            }
+                        } else {
+                            List<CirculationService.Result> results = execute(writes, queued, RETURN_METRICS,
+                                    conn -> circulation.checkIn(conn, List.of(bookId)));
+                            if (!results.get(0).changed()) {
+                                run.idleReturns.incrementAndGet();
+                            } else {
+                                run.returns.incrementAndGet();
+                                run.returned(bookId);
+                            }
+                            if (results.get(0).outcome() == CirculationService.Outcome.HANDED_OVER) {
+                                run.handedOver.incrementAndGet();
+                                run.report(bookId, results.get(0).patron());
+                            }
+                        }
+                    } catch (SQLException | RuntimeException e) {
+                        run.errors.incrementAndGet();
+                        run.firstError.compareAndSet(null, e.toString());
+                    }
+                }
+            }, "hold-client-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        run.elapsedNanos = System.nanoTime() - started;
+        run.finished = true;
+        checker.join();
+        return run;
+    }
+
+    /**
+     * execute
+     * Runs one client request, either queued on the single writer as the window and the server do, or on a
+     * connection of its own in autocommit mode, as another process would.
+     */
+    private static <T> T execute(WriteQueue writes, boolean queued, OperationMetrics metrics,
+                                 DatabaseExecutor.SqlWork<T> work) throws SQLException {
+        if (!queued) {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                return work.execute(conn);
+            }
+        }
+        try {
+            return writes.submit(metrics, work).get(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            Throwable cause = DatabaseExecutor.unwrap(e);
+            if (cause instanceof SQLException sql) {
+                throw sql;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * checkQueues
+     * Reads the queues over and over while the clients run, counting the filled holds of a title that are younger
+     * than its oldest waiting one, which would mean a patron was served out of turn. Only the holds from the oldest
+     * waiting one on are read, so a check stays cheap however many holds have been filled.
+     */
+    private static void checkQueues(Run run, List<Integer> bookIds) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(OUT_OF_ORDER_SQL)) {
+            while (!run.finished) {
+                conn.setAutoCommit(false); // one snapshot for every title
+                for (int bookId : bookIds) {
+                    pstmt.setInt(1, bookId);
+                    pstmt.setInt(2, bookId);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        if (rs.next() && rs.getInt(1) > 0) {
+                            run.outOfOrder.addAndGet(rs.getInt(1));
+                        }
+                    }
+                }
+                conn.setAutoCommit(true);
+                run.checks.incrementAndGet();
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            }
+        } catch (SQLException e) {
+            run.firstError.compareAndSet(null, e.toString());
+            run.outOfOrder.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * verify
+     * Compares what the clients were told with the holds and books in the database, and clears the holds for the next
+     * run.
+     */
+    private static boolean verify(Run run, List<Integer> bookIds) throws SQLException {
+        boolean consistent = true;
+        if (run.outOfOrder.get() > 0) {
+            System.out.println("        " + run.outOfOrder.get() + " queue checks found a hold filled out of turn");
+            consistent = false;
+        }
+        if (run.duplicates.get() > 0) {
+            System.out.println("        " + run.duplicates.get() + " patrons were handed a copy twice");
+            consistent = false;
+        }
+        for (int bookId : bookIds) {
+            long loans = run.loans(bookId);
+            long returns = run.returns(bookId);
+            if (loans > returns) {
+                System.out.println("        book " + bookId + " was handed to " + loans + " patrons but only came back "
+                        + returns + " times");
+                consistent = false;
+            }
+        }
+        Set<String> filled = new HashSet<>();
+        long rows = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT patron, filled_at FROM book_holds")) {
+                while (rs.next()) {
+                    rows++;
+                    if (rs.getString(2) != null) {
+                        filled.add(rs.getString(1));
+                    }
+                }
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM books WHERE status = 'checked in'"
+                         + " AND book_id IN (SELECT book_id FROM book_holds WHERE filled_at IS NULL)")) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    System.out.println("        " + rs.getInt(1) + " copies are on the shelf with patrons waiting");
+                    consistent = false;
+                }
+            }
+            if (rows != run.placed.get()) {
+                System.out.println("        " + run.placed.get() + " holds were acknowledged, " + rows + " stored");
+                consistent = false;
+            }
+            if (filled.size() != rows) {
+                System.out.println("        " + (rows - filled.size()) + " holds were never filled");
+                consistent = false;
+            }
+            if (!filled.equals(run.reported.keySet())) {
+                Set<String> unreported = new HashSet<>(filled);
+                unreported.removeAll(run.reported.keySet());
+                Set<String> unrecorded = new HashSet<>(run.reported.keySet());
+                unrecorded.removeAll(filled);
+                System.out.println("        " + unreported.size() + " filled holds were never reported and "
+                        + unrecorded.size() + " reported hand-overs are not recorded");
+                consistent = false;
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM book_holds");
+                stmt.executeUpdate("DELETE FROM books WHERE book_id BETWEEN " + bookIds.get(0) + " AND "
+                        + bookIds.get(bookIds.size() - 1));
+            }
+        }
+        return consistent;
+    }
+
+    /**
+     * Run
+     * What the clients of one run did and were told.
+     */
+    private static final class Run {
+        private final AtomicLong placed = new AtomicLong();
+        private final AtomicLong filledAtOnce = new AtomicLong();
+        private final AtomicLong returns = new AtomicLong();
+        private final AtomicLong idleReturns = new AtomicLong();
+        private final AtomicLong handedOver = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+        private final AtomicLong outOfOrder = new AtomicLong();
+        private final AtomicLong checks = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+        private final Map<String, Boolean> reported = new ConcurrentHashMap<>();
+        private final Map<Integer, AtomicLong> loansByBook = new ConcurrentHashMap<>();
+        private final Map<Integer, AtomicLong> returnsByBook = new ConcurrentHashMap<>();
+        private long elapsedNanos;
+        private volatile boolean finished;
+        private boolean consistent;
+
+        private void report(int bookId, String patron) {
+            if (reported.putIfAbsent(patron, Boolean.TRUE) != null) {
+                duplicates.incrementAndGet();
+            }
+            loansByBook.computeIfAbsent(bookId, id -> new AtomicLong()).incrementAndGet();
+        }
+
+        private void returned(int bookId) {
+            returnsByBook.computeIfAbsent(bookId, id -> new AtomicLong()).incrementAndGet();
+        }
+
+        private long loans(int bookId) {
+            AtomicLong loans = loansByBook.get(bookId);
+            return loans == null ? 0 : loans.get();
+        }
+
+        private long returns(int bookId) {
+            AtomicLong returns = returnsByBook.get(bookId);
+            return returns == null ? 0 : returns.get();
+        }
+
+        private long filled() {
+            return filledAtOnce.get() + handedOver.get();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * IdAllocatorBenchmark.java
+ * This benchmark measures what new book IDs cost. nextId and nextIdContended time handing out one ID from a leased
+ * block, alone and from four threads at once, including each call's share of the block leases. insertReadingKeys
+ * inserts books one statement at a time and reads every generated key back, which is what a caller that needs the new
+ * IDs had to do before, and insertWithAllocatedIds numbers the same books up front and inserts them in one batch.
+ * Both inserts commit 1,000 books per transaction into a database with the full schema.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IdAllocatorBenchmark {
+    private static final int BATCH_SIZE = 1_000;
+    private static final String GENERATED_INSERT_SQL = "INSERT INTO books (title, author, genre) VALUES (?, ?, ?)";
+    private static final String ALLOCATED_INSERT_SQL = "INSERT INTO books (book_id, title, author, genre)"
+            + " VALUES (?, ?, ?, ?)";
+
+    private Path file;
+    private ConnectionPool pool;
+    private Connection conn;
+    private BookIdAllocator ids;
+    private String[][] books;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = Files.createTempFile("id-allocator-benchmark", ".db");
+        pool = new ConnectionPool("jdbc:sqlite:" + file, 2, 10_000);
+        conn = pool.borrow();
+        DatabaseSchema.migrate(conn);
+        ids = new BookIdAllocator(pool::borrow);
+        CatalogGenerator generator = new CatalogGenerator();
+        books = new String[BATCH_SIZE][];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = generator.next();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTable() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM books");
+            stmt.execute("DELETE FROM book_changes");
+            stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        conn.close();
+        pool.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int nextId() throws SQLException {
+        return ids.nextId();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Threads(4)
+    public int nextIdContended() throws SQLException {
+        return ids.nextId();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long insertReadingKeys() throws SQLException {
+        long sum = 0;
+        conn.setAutoCommit(false);
+        try (PreparedStatement pstmt = conn.prepareStatement(GENERATED_INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (String[] book : books) {
+                pstmt.setString(1, book[0]);
+                pstmt.setString(2, book[1]);
+                pstmt.setString(3, book[2]);
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    keys.next();
+                    sum += keys.getInt(1);
+                }
+            }
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long insertWithAllocatedIds() throws SQLException {
+        int first = ids.allocate(books.length);
+        conn.setAutoCommit(false);
+        try (PreparedStatement pstmt = conn.prepareStatement(ALLOCATED_INSERT_SQL)) {
+            for (int i = 0; i < books.length; i++) {
+                pstmt.setInt(1, first + i);
+                pstmt.setString(2, books[i][0]);
+                pstmt.setString(3, books[i][1]);
+                pstmt.setString(4, books[i][2]);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        return first;
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * MetricsOverheadBenchmark.java
+ * This benchmark measures what instrumenting an operation adds to it: taking the start time and recording the
+ * latency and a row count in an OperationMetrics. Run it with -t 4 as well to see the cost when several database
+ * workers record into the same operation at once.
+ */
+
+package libraryms.libraryms;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsOverheadBenchmark {
+    private final OperationMetrics metrics = new OperationMetrics("benchmark.operation");
+
+    @Benchmark
+    public long nanoTimeOnly() {
+        return System.nanoTime() - System.nanoTime();
+    }
+
+    @Benchmark
+    public void recordOperation() {
+        long started = metrics.start();
+        metrics.rowsRead(1);
+        metrics.success(started);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * OverdueReportBenchmark.java
+ * This benchmark measures the overdue reports on a copy of the catalog where every tenth book is on loan, with due
+ * dates spread evenly from 30 days ago to 30 days ahead, so about half of the loans are overdue. scanAllForOverdue is
+ * the only way the report could be produced before: read every book, as displayBooks did, and keep the overdue ones.
+ * The other benchmarks read the partial index of checked-out books. loadTracker times reading every open loan into
+ * a new OverdueTracker, which happens once when the application starts.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OverdueReportBenchmark {
+    private static final int REPORT_LIMIT = 50;
+    private static final String LEND_SQL = "UPDATE books SET status = 'checked out',"
+            + " due_date = date(?, (book_id / 10 % 61 - 30) || ' days') WHERE book_id % 10 = 0";
+
+    @Param({"10k", "1m"})
+    public String catalog;
+
+    private final LocalDate today = LocalDate.now();
+    private Path file;
+    private ConnectionPool pool;
+    private Connection conn;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = CatalogGenerator.copyOf(catalog);
+        System.setProperty(DatabaseConnection.PATH_PROPERTY, file.toString());
+        pool = new ConnectionPool("jdbc:sqlite:" + file, 1, 10_000);
+        conn = pool.borrow();
+        DatabaseSchema.migrate(conn);
+        try (PreparedStatement pstmt = conn.prepareStatement(LEND_SQL)) {
+            pstmt.setString(1, today.toString());
+            pstmt.executeUpdate();
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        conn.close();
+        pool.close();
+        DatabaseConnection.shutdown();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+
+    @Benchmark
+    public List<Book> overdue() throws SQLException {
+        return OverdueReport.overdue(conn, today, REPORT_LIMIT);
+    }
+
+    @Benchmark
+    public int countOverdue() throws SQLException {
+        return OverdueReport.countOverdue(conn, today);
+    }
+
+    @Benchmark
+    public List<Book> dueWithinWeek() throws SQLException {
+        return OverdueReport.dueWithin(conn, today, 7, REPORT_LIMIT);
+    }
+
+    @Benchmark
+    public List<Book> scanAllForOverdue() throws SQLException {
+        String todayText = today.toString();
+        List<Book> overdue = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM books")) {
+            while (rs.next()) {
+                Book book = BookPageQuery.readBook(rs);
+                if (book.isCheckedOut() && book.getDueDate() != null && book.getDueDate().compareTo(todayText) < 0) {
+                    overdue.add(book);
+                }
+            }
+        }
+        overdue.sort(Comparator.comparing(Book::getDueDate).thenComparingInt(Book::getBookId));
+        return overdue.subList(0, Math.min(REPORT_LIMIT, overdue.size()));
+    }
+
+    @Benchmark
+    public int loadTracker() throws SQLException {
+        return new OverdueTracker().size();
+    }
+}
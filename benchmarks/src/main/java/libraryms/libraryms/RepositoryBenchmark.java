@@ -0,0 +1,139 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * RepositoryBenchmark.java
+ * This benchmark compares the two BookRepository engines on a mixed circulation workload, run as one JMH group of
+ * eight threads sharing a catalog: four look books up by ID, one browses 20-book pages from a random ID, two check
+ * random books out or back in, and one adds a new book and removes the one it added 500 books earlier. The sqlite
+ * engine works on a copy of the synthetic catalog; the log engine is loaded from the same catalog before the run, so
+ * both start with the same books. JMH reports the throughput of each kind of operation and of the group as a whole.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RepositoryBenchmark {
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int KEPT_ADDS = 500;
+
+    @Param({"10k"})
+    public String catalog;
+
+    @Param({"sqlite", "log"})
+    public String engine;
+
+    @Param({"COMMITTED", "SYNCED"})
+    public WriteQueue.Durability durability;
+
+    private Path file;
+    private Path directory;
+    private int rows;
+    private BookRepository books;
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = CatalogGenerator.copyOf(catalog);
+        rows = CatalogGenerator.rows(catalog);
+        nextId.set(rows + 1_000_000);
+        books = new SqliteBookRepository(file, 8, durability);
+        if (engine.equals("log")) {
+            directory = Files.createTempDirectory("repository-log-");
+            BookRepository log = new LogBookRepository(directory, durability);
+            int after = 0;
+            List<Book> page;
+            while (!(page = books.scan(after, LOAD_BATCH_SIZE)).isEmpty()) {
+                log.addAll(page);
+                after = page.get(page.size() - 1).getBookId();
+            }
+            books.close();
+            books = log;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        books.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+        if (directory != null) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("circulation")
+    @GroupThreads(4)
+    public Book lookup() throws SQLException {
+        return books.get(1 + ThreadLocalRandom.current().nextInt(rows));
+    }
+
+    @Benchmark
+    @Group("circulation")
+    @GroupThreads(1)
+    public List<Book> browse() throws SQLException {
+        return books.scan(ThreadLocalRandom.current().nextInt(rows), PAGE_SIZE);
+    }
+
+    /**
+     * checkOutOrIn
+     * Checks a random book out, or back in when it is already out, the way a desk sees it: read first, then write.
+     */
+    @Benchmark
+    @Group("circulation")
+    @GroupThreads(2)
+    public boolean checkOutOrIn() throws SQLException {
+        int bookId = 1 + ThreadLocalRandom.current().nextInt(rows);
+        Book book = books.get(bookId);
+        if (book != null && book.isCheckedOut()) {
+            return books.updateStatus(bookId, CirculationService.CHECKED_IN, null);
+        }
+        return books.updateStatus(bookId, CirculationService.CHECKED_OUT, "2026-10-31");
+    }
+
+    @Benchmark
+    @Group("circulation")
+    @GroupThreads(1)
+    public boolean addAndRemove() throws SQLException {
+        int bookId = nextId.getAndIncrement();
+        books.add(new Book(bookId, "Benchmark Title " + bookId, "Benchmark Author", "Benchmark"));
+        return books.remove(bookId - KEPT_ADDS);
+    }
+}
@@ -0,0 +1,613 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * RepositoryConformance.java
+ * This class runs the same checks against every BookRepository engine, so that code written against the interface
+ * behaves the same on SQLite and on the append-only log. Each check starts from an empty repository in a temporary
+ * directory. Together they cover adding, batch atomicity, removing, reading by ID and in ID order, the status changes
+ * circulation depends on (including many threads checking out the same copies at once), counting, and getting every
+ * book back after the repository is closed and opened again. The last common check runs thousands of random
+ * operations against both the repository and a plain sorted map, reopening it along the way, and compares every
+ * result. A few more checks cover what only one engine has: handing a checked-in book to a waiting hold on SQLite, and
+ * on the log compaction, also across many short sessions, and cutting off a half-written record.
+ * Prints one line per check and exits with status 1 when any failed.
+ * Usage: java -cp benchmarks.jar libraryms.libraryms.RepositoryConformance [--engines=sqlite,log]
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Stream;
+
+public final class RepositoryConformance {
+    private static final String CHECKED_OUT = "checked out";
+    private static final String CHECKED_IN = "checked in";
+    private static final String DUE = "2026-10-31";
+
+    private RepositoryConformance() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> engines = List.of("sqlite", "log");
+        for (String arg : args) {
+            if (arg.startsWith("--engines=")) {
+                engines = List.of(arg.substring("--engines=".length()).split(","));
+            }
+        }
+        System.setProperty(Metrics.LOG_INTERVAL_PROPERTY, "0");
+        Map<String, Check> checks = new LinkedHashMap<>();
+        checks.put("add and get", RepositoryConformance::addAndGet);
+        checks.put("duplicate add fails", RepositoryConformance::duplicateAddFails);
+        checks.put("addAll is all or nothing", RepositoryConformance::addAllIsAtomic);
+        checks.put("book needs title and author", RepositoryConformance::requiresTitleAndAuthor);
+        checks.put("remove and removeAll", RepositoryConformance::removeAndRemoveAll);
+        checks.put("getAll keeps order", RepositoryConformance::getAllKeepsOrder);
+        checks.put("scan pages in ID order", RepositoryConformance::scanPagesInIdOrder);
+        checks.put("updateStatus changes once", RepositoryConformance::updateStatusChangesOnce);
+        checks.put("updateStatuses batch", RepositoryConformance::updateStatusesBatch);
+        checks.put("one winner per copy", RepositoryConformance::oneWinnerPerCopy);
+        checks.put("survives reopen", RepositoryConformance::survivesReopen);
+        checks.put("random operations match a model", RepositoryConformance::matchesModel);
+        Map<String, Check> sqliteChecks = new LinkedHashMap<>();
+        sqliteChecks.put("check-in hands over to a hold", RepositoryConformance::checkInHandsOver);
+        Map<String, Check> logChecks = new LinkedHashMap<>();
+        logChecks.put("compaction keeps every book", RepositoryConformance::compactionKeepsBooks);
+        logChecks.put("short sessions add up to compaction", RepositoryConformance::shortSessionsCompact);
+        logChecks.put("half-written record is cut off", RepositoryConformance::tornTailIsCutOff);
+
+        int failed = 0;
+        int passed = 0;
+        System.out.printf("%-8s %-36s %-6s %8s%n", "engine", "check", "result", "ms");
+        for (String name : engines) {
+            Engine engine = engine(name.trim());
+            Map<String, Check> run = new LinkedHashMap<>(checks);
+            if (name.trim().equals("sqlite")) {
+                run.putAll(sqliteChecks);
+            } else if (name.trim().equals("log")) {
+                run.putAll(logChecks);
+            }
+            for (Map.Entry<String, Check> check : run.entrySet()) {
+                Path directory = Files.createTempDirectory("conformance-");
+                long started = System.nanoTime();
+                String error = null;
+                try {
+                    check.getValue().run(engine, directory);
+                } catch (Exception | AssertionError e) {
+                    error = e.toString();
+                } finally {
+                    deleteTree(directory);
+                }
+                System.out.printf("%-8s %-36s %-6s %8.1f%n", name.trim(), check.getKey(),
+                        error == null ? "ok" : "FAILED", (System.nanoTime() - started) / 1e6);
+                if (error != null) {
+                    System.out.println("         " + error);
+                    failed++;
+                } else {
+                    passed++;
+                }
+            }
+        }
+        System.out.println(passed + " passed, " + failed + " failed");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * engine
+     * Returns how to open the named engine in a directory: sqlite keeps a database file there, log its log files.
+     */
+    static Engine engine(String name) {
+        if (name.equals("sqlite")) {
+            return directory -> new SqliteBookRepository(directory.resolve("books.db"), 8);
+        } else if (name.equals("log")) {
+            return directory -> new LogBookRepository(directory.resolve("log"));
+        }
+        throw new IllegalArgumentException("Unknown engine " + name + "; use sqlite or log.");
+    }
+
+    private static void addAndGet(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            books.add(new Book(7, "Dune", "Frank Herbert", "Science Fiction"));
+            books.add(new Book(9, "Emma", "Jane Austen", null, CHECKED_OUT, DUE));
+            assertBook(books.get(7), 7, "Dune", "Frank Herbert", "Science Fiction", CHECKED_IN, null);
+            assertBook(books.get(9), 9, "Emma", "Jane Austen", null, CHECKED_OUT, DUE);
+            check(books.get(8) == null, "a missing ID returns null");
+            books.add(new Book(11, "Untitled", "Anon", "Poetry", null, null));
+            check(CHECKED_IN.equals(books.get(11).getStatus()), "a book without a status is stored checked in");
+            check(books.count() == 3, "count is 3 but was " + books.count());
+        }
+    }
+
+    private static void duplicateAddFails(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            books.add(new Book(1, "Dune", "Frank Herbert", "Science Fiction"));
+            expectFailure(() -> books.add(new Book(1, "Other", "Someone", "Other")), "adding an ID twice");
+            check(books.get(1).getTitle().equals("Dune"), "the first book with the ID is kept");
+            check(books.count() == 1, "count is 1 but was " + books.count());
+        }
+    }
+
+    private static void addAllIsAtomic(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            books.add(new Book(5, "Dune", "Frank Herbert", "Science Fiction"));
+            expectFailure(() -> books.addAll(List.of(book(1), book(2), book(5), book(6))),
+                    "a batch with an existing ID");
+            expectFailure(() -> books.addAll(List.of(book(10), book(11), book(10))), "a batch repeating an ID");
+            check(books.count() == 1, "no book of a failed batch is stored, count was " + books.count());
+            check(books.get(1) == null && books.get(10) == null, "no book of a failed batch is stored");
+            books.addAll(List.of(book(1), book(2), book(3)));
+            check(books.count() == 4, "a good batch is stored, count was " + books.count());
+            books.addAll(List.of());
+        }
+    }
+
+    private static void requiresTitleAndAuthor(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            expectFailure(() -> books.add(new Book(1, null, "Someone", "Other")), "a book without a title");
+            expectFailure(() -> books.add(new Book(2, "Title", null, "Other")), "a book without an author");
+            check(books.count() == 0, "nothing is stored, count was " + books.count());
+        }
+    }
+
+    private static void removeAndRemoveAll(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            books.addAll(List.of(book(1), book(2), book(3), book(4), book(5)));
+            check(books.remove(2), "removing a book returns true");
+            check(!books.remove(2), "removing it again returns false");
+            check(books.get(2) == null, "a removed book is gone");
+            int removed = books.removeAll(List.of(1, 99, 3, 1));
+            check(removed == 2, "removeAll counts each removed book once, but returned " + removed);
+            check(books.removeAll(List.of()) == 0, "removing nothing returns 0");
+            check(books.count() == 2, "count is 2 but was " + books.count());
+            books.add(book(2));
+            check(books.get(2) != null, "a removed ID can be added again");
+        }
+    }
+
+    private static void getAllKeepsOrder(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            List<Book> added = new ArrayList<>();
+            for (int id = 1; id <= 1_200; id++) {
+                added.add(book(id));
+            }
+            books.addAll(added);
+            check(ids(books.getAll(List.of(3, 99_999, 1, 3))).equals(List.of(3, 1, 3)),
+                    "getAll returns the found books in the order asked for");
+            List<Integer> reversed = new ArrayList<>();
+            for (int id = 1_300; id >= 1; id--) {
+                reversed.add(id);
+            }
+            List<Integer> found = ids(books.getAll(reversed));
+            check(found.size() == 1_200 && found.get(0) == 1_200 && found.get(1_199) == 1,
+                    "getAll of more than 500 IDs returns them all in order");
+            check(books.getAll(List.of()).isEmpty(), "getAll of nothing is empty");
+        }
+    }
+
+    private static void scanPagesInIdOrder(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            List<Book> added = new ArrayList<>();
+            for (int i = 1; i <= 2_500; i++) {
+                added.add(book(i * 3));
+            }
+            Collections.shuffle(added, new Random(1));
+            books.addAll(added);
+            List<Integer> seen = new ArrayList<>();
+            int after = 0;
+            while (true) {
+                List<Book> page = books.scan(after, 100);
+                if (page.isEmpty()) {
+                    break;
+                }
+                check(page.size() <= 100, "a page holds at most the limit");
+                seen.addAll(ids(page));
+                after = page.get(page.size() - 1).getBookId();
+            }
+            check(seen.size() == 2_500, "the scan returns every book once, not " + seen.size());
+            for (int i = 0; i < seen.size(); i++) {
+                check(seen.get(i) == (i + 1) * 3, "the scan returns the books in ID order");
+            }
+            check(ids(books.scan(10, 3)).equals(List.of(12, 15, 18)), "a scan starts after the given ID");
+        }
+    }
+
+    private static void updateStatusChangesOnce(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            books.add(book(1));
+            check(books.updateStatus(1, CHECKED_OUT, DUE), "checking out a book on the shelf changes it");
+            check(!books.updateStatus(1, CHECKED_OUT, "2027-01-01"), "checking it out again changes nothing");
+            assertBook(books.get(1), 1, "Title 1", "Author 1", "Genre 1", CHECKED_OUT, DUE);
+            check(!books.updateStatus(2, CHECKED_OUT, DUE), "a missing book is not changed");
+            check(books.updateStatus(1, CHECKED_IN, null), "checking it in changes it");
+            assertBook(books.get(1), 1, "Title 1", "Author 1", "Genre 1", CHECKED_IN, null);
+        }
+    }
+
+    private static void updateStatusesBatch(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            books.addAll(List.of(book(1), book(2), book(3)));
+            books.updateStatus(3, CHECKED_OUT, DUE);
+            boolean[] changed = books.updateStatuses(List.of(1, 99, 2, 1, 3), CHECKED_OUT, DUE);
+            boolean[] expected = {true, false, true, false, false};
+            for (int i = 0; i < expected.length; i++) {
+                check(changed[i] == expected[i], "result " + i + " of the batch should be " + expected[i]);
+            }
+            check(CHECKED_OUT.equals(books.get(2).getStatus()), "the batch changes every book in it");
+            check(books.updateStatuses(List.of(), CHECKED_OUT, DUE).length == 0, "an empty batch returns no results");
+        }
+    }
+
+    /**
+     * oneWinnerPerCopy
+     * Has eight threads check out the same 200 books, one at a time and in batches, and requires that each book was
+     * reported changed to exactly one of them.
+     */
+    private static void oneWinnerPerCopy(Engine engine, Path directory) throws Exception {
+        int copies = 200;
+        try (BookRepository books = engine.open(directory)) {
+            List<Book> added = new ArrayList<>();
+            for (int id = 1; id <= copies; id++) {
+                added.add(book(id));
+            }
+            books.addAll(added);
+            AtomicIntegerArray winners = new AtomicIntegerArray(copies + 1);
+            List<Thread> threads = new ArrayList<>();
+            List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+            for (int t = 0; t < 8; t++) {
+                boolean batches = t % 2 == 0;
+                Thread thread = new Thread(() -> {
+                    try {
+                        for (int id = 1; id <= copies; id += 10) {
+                            List<Integer> chunk = new ArrayList<>();
+                            for (int i = id; i < id + 10; i++) {
+                                chunk.add(i);
+                            }
+                            if (batches) {
+                                boolean[] changed = books.updateStatuses(chunk, CHECKED_OUT, DUE);
+                                for (int i = 0; i < changed.length; i++) {
+                                    winners.addAndGet(chunk.get(i), changed[i] ? 1 : 0);
+                                }
+                            } else {
+                                for (int bookId : chunk) {
+                                    winners.addAndGet(bookId, books.updateStatus(bookId, CHECKED_OUT, DUE) ? 1 : 0);
+                                }
+                            }
+                        }
+                    } catch (SQLException e) {
+                        errors.add(e);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            if (!errors.isEmpty()) {
+                throw errors.get(0);
+            }
+            for (int id = 1; id <= copies; id++) {
+                check(winners.get(id) == 1, "book " + id + " was checked out " + winners.get(id) + " times");
+            }
+        }
+    }
+
+    private static void survivesReopen(Engine engine, Path directory) throws SQLException {
+        try (BookRepository books = engine.open(directory)) {
+            books.addAll(List.of(book(1), book(2), book(3), book(4)));
+            books.add(new Book(5, "Přítel – 友達", "Ünïcode Äuthor", null));
+            books.remove(2);
+            books.updateStatuses(List.of(3, 4), CHECKED_OUT, DUE);
+            books.updateStatus(4, CHECKED_IN, null);
+        }
+        try (BookRepository books = engine.open(directory)) {
+            check(ids(books.scan(0, 10)).equals(List.of(1, 3, 4, 5)), "the reopened books are 1, 3, 4 and 5");
+            assertBook(books.get(3), 3, "Title 3", "Author 3", "Genre 3", CHECKED_OUT, DUE);
+            assertBook(books.get(4), 4, "Title 4", "Author 4", "Genre 4", CHECKED_IN, null);
+            assertBook(books.get(5), 5, "Přítel – 友達", "Ünïcode Äuthor", null, CHECKED_IN, null);
+            check(books.count() == 4, "count after reopening is 4 but was " + books.count());
+            books.add(book(6));
+        }
+        try (BookRepository books = engine.open(directory)) {
+            check(books.count() == 5, "a book added after reopening is kept");
+        }
+    }
+
+    /**
+     * matchesModel
+     * Runs 5,000 random adds, removes, status changes and reads, single and batched, against the repository and a
+     * TreeMap, closing and reopening the repository every 1,000 operations, and compares every result and finally
+     * every book.
+     */
+    private static void matchesModel(Engine engine, Path directory) throws SQLException {
+        Random random = new Random(42);
+        TreeMap<Integer, Book> model = new TreeMap<>();
+        BookRepository books = engine.open(directory);
+        try {
+            for (int op = 1; op <= 5_000; op++) {
+                int id = 1 + random.nextInt(300);
+                int kind = random.nextInt(9);
+                if (kind == 0) {
+                    boolean exists = model.containsKey(id);
+                    try {
+                        books.add(book(id));
+                        check(!exists, "op " + op + ": adding existing ID " + id + " succeeded");
+                        model.put(id, book(id).withStatus(CHECKED_IN, null));
+                    } catch (SQLException e) {
+                        check(exists, "op " + op + ": adding new ID " + id + " failed: " + e);
+                    }
+                } else if (kind == 1) {
+                    List<Book> batch = List.of(book(id), book(id + 300), book(id + 600));
+                    boolean clash = batch.stream().anyMatch(b -> model.containsKey(b.getBookId()));
+                    try {
+                        books.addAll(batch);
+                        check(!clash, "op " + op + ": a batch with an existing ID succeeded");
+                        batch.forEach(b -> model.put(b.getBookId(), b.withStatus(CHECKED_IN, null)));
+                    } catch (SQLException e) {
+                        check(clash, "op " + op + ": a batch of new IDs failed: " + e);
+                    }
+                } else if (kind == 2) {
+                    check(books.remove(id) == (model.remove(id) != null), "op " + op + ": remove " + id);
+                } else if (kind == 3) {
+                    List<Integer> ids = List.of(id, id + 300, id + 600, id);
+                    int expected = 0;
+                    for (int bookId : ids) {
+                        expected += model.remove(bookId) != null ? 1 : 0;
+                    }
+                    check(books.removeAll(ids) == expected, "op " + op + ": removeAll");
+                } else if (kind == 4 || kind == 5) {
+                    String status = random.nextBoolean() ? CHECKED_OUT : CHECKED_IN;
+                    String due = status.equals(CHECKED_OUT) ? "2026-11-" + (10 + random.nextInt(20)) : null;
+                    List<Integer> ids = kind == 4 ? List.of(id) : List.of(id, id + 1, id + 300, id);
+                    boolean[] changed = books.updateStatuses(ids, status, due);
+                    for (int i = 0; i < ids.size(); i++) {
+                        Book current = model.get(ids.get(i));
+                        boolean expected = current != null && !Objects.equals(current.getStatus(), status);
+                        if (expected) {
+                            model.put(ids.get(i), current.withStatus(status, due));
+                        }
+                        check(changed[i] == expected, "op " + op + ": updateStatuses result " + i);
+                    }
+                } else if (kind == 6) {
+                    check(Objects.equals(describe(books.get(id)), describe(model.get(id))), "op " + op + ": get " + id);
+                } else if (kind == 7) {
+                    int limit = 1 + random.nextInt(50);
+                    List<Book> expected = model.tailMap(id, false).values().stream().limit(limit).toList();
+                    check(describeAll(books.scan(id, limit)).equals(describeAll(expected)), "op " + op + ": scan");
+                } else {
+                    List<Integer> ids = List.of(id, id + 300, id + 600, id + 1);
+                    List<Book> expected = ids.stream().map(model::get).filter(Objects::nonNull).toList();
+                    check(describeAll(books.getAll(ids)).equals(describeAll(expected)), "op " + op + ": getAll");
+                }
+                if (op % 1_000 == 0) {
+                    books.close();
+                    books = engine.open(directory);
+                }
+            }
+            check(books.count() == model.size(), "count is " + books.count() + ", expected " + model.size());
+            check(describeAll(books.scan(0, Integer.MAX_VALUE)).equals(describeAll(List.copyOf(model.values()))),
+                    "every book matches the model at the end");
+        } finally {
+            books.close();
+        }
+    }
+
+    /**
+     * checkInHandsOver
+     * Places a hold on a checked-out book through the database directly, as a desk would, then checks the book in
+     * through the repository. The book must go straight out to the patron who was waiting, due one loan from today.
+     */
+    private static void checkInHandsOver(Engine engine, Path directory) throws Exception {
+        try (BookRepository books = engine.open(directory)) {
+            books.addAll(List.of(book(1), book(2)));
+            books.updateStatus(1, CHECKED_OUT, DUE);
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + directory.resolve("books.db"))) {
+                check(!HoldQueue.place(conn, 1, "Ada").filled(), "a hold on a checked-out book waits");
+                check(books.updateStatus(1, CHECKED_IN, null), "checking the book in changes it");
+                String due = LocalDate.now().plus(CirculationService.LOAN_PERIOD).toString();
+                assertBook(books.get(1), 1, "Title 1", "Author 1", "Genre 1", CHECKED_OUT, due);
+                check(HoldQueue.countWaiting(conn, 1) == 0, "the hold is filled");
+                check(!books.updateStatus(2, CHECKED_IN, null), "a book on the shelf is not checked in again");
+            }
+        }
+    }
+
+    /**
+     * compactionKeepsBooks
+     * Writes enough changes to a log with a small compaction threshold to compact it in the background several
+     * times, compacts once more by hand, and checks the books before and after reopening. Only the latest snapshot
+     * and the segments after it may be left.
+     */
+    private static void compactionKeepsBooks(Engine engine, Path directory) throws Exception {
+        System.setProperty(LogBookRepository.COMPACT_BYTES_PROPERTY, Integer.toString(64 * 1024));
+        TreeMap<Integer, Book> model = new TreeMap<>();
+        try (LogBookRepository books = new LogBookRepository(directory.resolve("log"))) {
+            for (int id = 1; id <= 2_000; id++) {
+                books.add(book(id));
+                model.put(id, book(id));
+            }
+            for (int round = 0; round < 20; round++) {
+                for (int id = 1; id <= 2_000; id += 2) {
+                    String status = round % 2 == 0 ? CHECKED_OUT : CHECKED_IN;
+                    String due = round % 2 == 0 ? DUE : null;
+                    books.updateStatus(id, status, due);
+                    model.put(id, model.get(id).withStatus(status, due));
+                }
+                books.remove(round * 50 + 2);
+                model.remove(round * 50 + 2);
+            }
+            books.compact();
+            LogBookRepository.LogStats stats = books.getStats();
+            check(stats.compactions() >= 1, "the log was compacted: " + stats);
+            check(describeAll(books.scan(0, Integer.MAX_VALUE)).equals(describeAll(List.copyOf(model.values()))),
+                    "every book matches after compacting");
+        } finally {
+            System.clearProperty(LogBookRepository.COMPACT_BYTES_PROPERTY);
+        }
+        List<String> files = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory.resolve("log"))) {
+            entries.forEach(entry -> files.add(entry.getFileName().toString()));
+        }
+        check(files.stream().filter(name -> name.startsWith("snapshot-")).count() == 1,
+                "only the latest snapshot is left: " + files);
+        try (BookRepository books = engine.open(directory)) {
+            check(describeAll(books.scan(0, Integer.MAX_VALUE)).equals(describeAll(List.copyOf(model.values()))),
+                    "every book matches after reopening a compacted log");
+        }
+    }
+
+    /**
+     * shortSessionsCompact
+     * Opens a log with a small compaction threshold again and again, writing well under the threshold each time. The
+     * segments left by earlier sessions must keep counting, so one of the sessions crosses the threshold and compacts.
+     */
+    private static void shortSessionsCompact(Engine engine, Path directory) throws Exception {
+        long threshold = 16 * 1024;
+        int perSession = 40;
+        System.setProperty(LogBookRepository.COMPACT_BYTES_PROPERTY, Long.toString(threshold));
+        int sessions = 0;
+        boolean compacted = false;
+        long carried = 0;
+        try {
+            while (!compacted && sessions < 30) {
+                try (LogBookRepository books = new LogBookRepository(directory.resolve("log"))) {
+                    LogBookRepository.LogStats opened = books.getStats();
+                    check(opened.segmentBytes() >= carried, "session " + sessions + " starts counting "
+                            + opened.segmentBytes() + " segment bytes, not the " + carried + " left before");
+                    for (int i = 1; i <= perSession; i++) {
+                        books.add(book(sessions * perSession + i));
+                    }
+                    long deadline = System.nanoTime() + 10_000_000_000L;
+                    while (books.getStats().compactions() == 0 && books.getStats().segmentBytes() > threshold
+                            && System.nanoTime() < deadline) {
+                        Thread.sleep(10);
+                    }
+                    LogBookRepository.LogStats closing = books.getStats();
+                    compacted = closing.compactions() > 0;
+                    if (!compacted) {
+                        check(closing.segmentBytes() - opened.segmentBytes() < threshold,
+                                "a session writes less than the threshold: " + closing);
+                        carried = closing.segmentBytes();
+                    }
+                }
+                sessions++;
+            }
+        } finally {
+            System.clearProperty(LogBookRepository.COMPACT_BYTES_PROPERTY);
+        }
+        check(compacted && sessions > 1, "the log was compacted in a later session, after " + sessions + " sessions");
+        try (BookRepository books = engine.open(directory)) {
+            check(books.count() == sessions * perSession, "every book is kept, count was " + books.count());
+        }
+    }
+
+    /**
+     * tornTailIsCutOff
+     * Appends half a record to the last segment, as a crash in the middle of a write would leave it, and checks that
+     * reopening keeps every complete record, drops the half one and accepts new writes.
+     */
+    private static void tornTailIsCutOff(Engine engine, Path directory) throws Exception {
+        try (BookRepository books = engine.open(directory)) {
+            books.addAll(List.of(book(1), book(2)));
+            books.updateStatus(2, CHECKED_OUT, DUE);
+        }
+        Path last;
+        try (Stream<Path> files = Files.list(directory.resolve("log"))) {
+            last = files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .max(Comparator.comparingLong(file -> Long.parseLong(file.getFileName().toString()
+                            .replaceAll("\\D", ""))))
+                    .orElseThrow();
+        }
+        long before = Files.size(last);
+        Files.write(last, new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 0, 0, 0, 1, 1}, StandardOpenOption.APPEND);
+        try (BookRepository books = engine.open(directory)) {
+            check(books.count() == 2, "both books survive, count was " + books.count());
+            assertBook(books.get(2), 2, "Title 2", "Author 2", "Genre 2", CHECKED_OUT, DUE);
+            books.add(book(3));
+        }
+        check(Files.size(last) == before, "the half-written record was cut off");
+        try (BookRepository books = engine.open(directory)) {
+            check(books.count() == 3, "a book added after the repair is kept");
+        }
+    }
+
+    private static Book book(int id) {
+        return new Book(id, "Title " + id, "Author " + id, "Genre " + id);
+    }
+
+    private static List<Integer> ids(List<Book> books) {
+        return books.stream().map(Book::getBookId).toList();
+    }
+
+    private static String describe(Book book) {
+        return book == null ? null : book.getBookId() + "|" + book.getTitle() + "|" + book.getAuthor() + "|"
+                + book.getGenre() + "|" + book.getStatus() + "|" + book.getDueDate();
+    }
+
+    private static List<String> describeAll(List<Book> books) {
+        return books.stream().map(RepositoryConformance::describe).toList();
+    }
+
+    private static void assertBook(Book book, int id, String title, String author, String genre, String status,
+                                   String dueDate) {
+        check(book != null, "book " + id + " exists");
+        String expected = id + "|" + title + "|" + author + "|" + genre + "|" + status + "|" + dueDate;
+        check(expected.equals(describe(book)), "expected " + expected + " but was " + describe(book));
+    }
+
+    private static void expectFailure(Action action, String what) {
+        try {
+            action.run();
+        } catch (SQLException e) {
+            return;
+        }
+        throw new AssertionError(what + " should fail with an SQLException");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void deleteTree(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Engine
+     * Opens a repository of one engine kept in the given directory, or reopens the one already there.
+     */
+    interface Engine {
+        BookRepository open(Path directory) throws SQLException;
+    }
+
+    private interface Check {
+        void run(Engine engine, Path directory) throws Exception;
+    }
+
+    private interface Action {
+        void run() throws SQLException;
+    }
+}
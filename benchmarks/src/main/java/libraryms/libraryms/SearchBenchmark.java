@@ -0,0 +1,85 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * SearchBenchmark.java
+ * This benchmark measures BookSearch against the LIKE '%term%' scan it replaced, running the same search terms both
+ * ways against a generated catalog. Latencies are sampled so the results include percentiles as well as the mean.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+    private static final int RESULT_LIMIT = 20;
+    private static final String LIKE_SQL = "SELECT book_id, title, author, genre, status, due_date FROM books "
+            + "WHERE title LIKE ? OR author LIKE ? OR genre LIKE ? LIMIT " + RESULT_LIMIT;
+
+    @Param({"10k"})
+    public String catalog;
+
+    @Param({"tolstoy", "midnight garden", "histor", "sci", "glass crown", "zzzz"})
+    public String term;
+
+    private ConnectionPool pool;
+    private Connection conn;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + CatalogGenerator.database(catalog), 1, 10_000);
+        conn = pool.borrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        conn.close();
+        pool.close();
+    }
+
+    @Benchmark
+    public List<Book> fullTextSearch() throws SQLException {
+        return BookSearch.search(conn, term, RESULT_LIMIT);
+    }
+
+    @Benchmark
+    public List<Book> likeScan() throws SQLException {
+        List<Book> books = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(LIKE_SQL)) {
+            for (int p = 1; p <= 3; p++) {
+                pstmt.setString(p, "%" + term + "%");
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    books.add(BookPageQuery.readBook(rs));
+                }
+            }
+        }
+        return books;
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ServerLoadTest.java
+ * This class load-tests the HTTP server with 1, 16 and 256 concurrent clients and reports the throughput and the
+ * latency percentiles at each level. Every client sends one request at a time in a closed loop: nine in ten are reads
+ * (one book by ID, or a page of 20 books after a random ID) and one in ten check a random book out or in. Without a
+ * URL the test starts its own server on a copy of the 10k catalog; with one it targets that server, whose catalog
+ * should then hold at least 10,000 books. Results are printed as a table and written to
+ * results/loadtest-<timestamp>.json.
+ * Usage: java -cp benchmarks.jar libraryms.libraryms.ServerLoadTest [url] [--seconds=10] [--clients=1,16,256]
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class ServerLoadTest {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String CATALOG_SIZE = "10k";
+    private static final int WARMUP_SECONDS = 2;
+    private static final int WRITE_PERCENT = 10;
+    private static final int PAGE_PERCENT = 30;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final int bookCount;
+
+    private ServerLoadTest(String baseUrl, int bookCount) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.bookCount = bookCount;
+    }
+
+    public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+        String url = null;
+        int seconds = 10;
+        List<Integer> levels = List.of(1, 16, 256);
+        for (String arg : args) {
+            if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            } else if (arg.startsWith("--clients=")) {
+                levels = new ArrayList<>();
+                for (String level : arg.substring("--clients=".length()).split(",")) {
+                    levels.add(Integer.parseInt(level.trim()));
+                }
+            } else {
+                url = arg;
+            }
+        }
+
+        LibraryServer server = null;
+        if (url == null) {
+            Path database = CatalogGenerator.copyOf(CATALOG_SIZE);
+            System.setProperty(DatabaseConnection.PATH_PROPERTY, database.toString());
+            System.setProperty(Metrics.LOG_INTERVAL_PROPERTY, "0");
+            server = new LibraryServer(0);
+            server.start();
+            url = "http://localhost:" + server.getPort();
+            System.out.println("Started a server on a copy of the " + CATALOG_SIZE + " catalog at " + url);
+        }
+
+        try {
+            ServerLoadTest test = new ServerLoadTest(url, CatalogGenerator.rows(CATALOG_SIZE));
+            List<Map<String, Object>> results = new ArrayList<>();
+            System.out.printf("%8s %10s %10s %9s %9s %9s %9s %8s%n", "clients", "requests", "req/s", "p50 ms",
+                    "p90 ms", "p99 ms", "max ms", "errors");
+            for (int clients : levels) {
+                test.run(clients, WARMUP_SECONDS);
+                Level level = test.run(clients, seconds);
+                LatencyHistogram.Snapshot latency = level.latency.getSnapshot();
+                System.out.printf("%8d %10d %10.0f %9.2f %9.2f %9.2f %9.2f %8d%n", clients, latency.count(),
+                        level.throughput(), millis(latency.p50Nanos()), millis(latency.p90Nanos()),
+                        millis(latency.p99Nanos()), millis(latency.maxNanos()), level.errors.get());
+                if (level.firstError.get() != null) {
+                    System.out.println("         first error: " + level.firstError.get());
+                }
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("clients", clients);
+                result.put("seconds", seconds);
+                result.put("requests", latency.count());
+                result.put("requestsPerSecond", level.throughput());
+                result.put("p50Millis", millis(latency.p50Nanos()));
+                result.put("p90Millis", millis(latency.p90Nanos()));
+                result.put("p99Millis", millis(latency.p99Nanos()));
+                result.put("maxMillis", millis(latency.maxNanos()));
+                result.put("errors", level.errors.get());
+                result.put("rejectedWrites", level.rejected.get());
+                result.put("firstError", level.firstError.get());
+                results.add(result);
+            }
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("url", url);
+            report.put("writePercent", WRITE_PERCENT);
+            report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+            report.put("javaVersion", System.getProperty("java.version"));
+            report.put("levels", results);
+            Path output = Files.createDirectories(Paths.get("results"))
+                    .resolve("loadtest-" + LocalDateTime.now().format(TIMESTAMP) + ".json");
+            Files.writeString(output, Json.write(report));
+            System.out.println("Results written to " + output);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    /**
+     * run
+     * Runs the given number of clients in a closed loop for the given number of seconds and returns what they saw.
+     */
+    private Level run(int clients, int seconds) throws InterruptedException {
+        Level level = new Level();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> threads = new ArrayList<>(clients);
+        long started = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    sendOne(level);
+                }
+            }, "load-client-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        level.elapsedNanos = System.nanoTime() - started;
+        return level;
+    }
+
+    private void sendOne(Level level) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int bookId = 1 + random.nextInt(bookCount);
+        int dice = random.nextInt(100);
+        HttpRequest request;
+        if (dice < WRITE_PERCENT) {
+            String path = random.nextBoolean() ? "/circulation/checkout" : "/circulation/checkin";
+            request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"bookIds\": [" + bookId + "]}"))
+                    .build();
+        } else if (dice < WRITE_PERCENT + PAGE_PERCENT) {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/books?limit=20&after=" + bookId)).build();
+        } else {
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/books/" + bookId)).build();
+        }
+
+        long started = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            level.latency.record(System.nanoTime() - started);
+            if (response.statusCode() == 503) {
+                level.rejected.incrementAndGet();
+            } else if (response.statusCode() >= 400) {
+                level.error(request.method() + " " + request.uri().getPath() + " answered "
+                        + response.statusCode() + ": " + new String(response.body(), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            level.latency.record(System.nanoTime() - started);
+            level.error(request.method() + " " + request.uri().getPath() + " failed: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Level {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+        private long elapsedNanos;
+
+        void error(String description) {
+            errors.incrementAndGet();
+            firstError.compareAndSet(null, description);
+        }
+
+        double throughput() {
+            return latency.getCount() / (elapsedNanos / 1e9);
+        }
+    }
+}
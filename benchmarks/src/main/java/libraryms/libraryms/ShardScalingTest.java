@@ -0,0 +1,193 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * ShardScalingTest.java
+ * This class measures how write throughput grows with the number of shards. For each shard count it creates a fresh
+ * ShardedCatalog in a temporary directory and runs the same number of writer threads for a fixed time, each adding
+ * one book per transaction as fast as it can. Afterwards it checks that every book that was acknowledged is there,
+ * exactly once, on the shard its ID routes to. Results are printed as a table and written to
+ * results/shards-<timestamp>.json.
+ * With --durability=SYNCED every commit is flushed to disk, which is when one write lock hurts the most.
+ * Usage: java -cp benchmarks.jar libraryms.libraryms.ShardScalingTest [--seconds=5] [--threads=16] [--shards=1,2,4,8]
+ *        [--durability=COMMITTED]
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+public final class ShardScalingTest {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int WARMUP_SECONDS = 1;
+
+    private ShardScalingTest() {
+    }
+
+    public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+        int seconds = 5;
+        int threads = 16;
+        List<Integer> shardCounts = List.of(1, 2, 4, 8);
+        WriteQueue.Durability durability = WriteQueue.Durability.COMMITTED;
+        for (String arg : args) {
+            if (arg.startsWith("--seconds=")) {
+                seconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--durability=")) {
+                durability = WriteQueue.Durability.valueOf(arg.substring("--durability=".length())
+                        .toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--shards=")) {
+                shardCounts = new ArrayList<>();
+                for (String count : arg.substring("--shards=".length()).split(",")) {
+                    shardCounts.add(Integer.parseInt(count.trim()));
+                }
+            }
+        }
+        System.setProperty(Metrics.LOG_INTERVAL_PROPERTY, "0");
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        double baseline = 0;
+        boolean allConsistent = true;
+        System.out.printf("%7s %8s %10s %10s %8s %8s %11s%n", "shards", "threads", "writes", "writes/s", "speedup",
+                "errors", "consistent");
+        for (int shards : shardCounts) {
+            Path directory = Files.createTempDirectory("shards-" + shards + "-");
+            List<Path> files = ShardedCatalog.shardFiles(directory.resolve("catalog.db"), shards);
+            Run run;
+            try (ShardedCatalog catalog = new ShardedCatalog(files, Math.max(1, threads / shards + 1), durability)) {
+                Run warmup = run(catalog, threads, WARMUP_SECONDS);
+                run = run(catalog, threads, seconds);
+                run.consistent = verify(catalog, files, warmup.added.get() + run.added.get());
+            } finally {
+                deleteDirectory(directory);
+            }
+            double throughput = run.added.get() / (double) seconds;
+            if (baseline == 0) {
+                baseline = throughput;
+            }
+            allConsistent &= run.consistent;
+            System.out.printf("%7d %8d %10d %10.0f %7.2fx %8d %11s%n", shards, threads, run.added.get(), throughput,
+                    throughput / baseline, run.errors.get(), run.consistent);
+            if (run.firstError.get() != null) {
+                System.out.println("        first error: " + run.firstError.get());
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("shards", shards);
+            result.put("threads", threads);
+            result.put("durability", durability.name());
+            result.put("seconds", seconds);
+            result.put("writes", run.added.get());
+            result.put("writesPerSecond", throughput);
+            result.put("speedup", throughput / baseline);
+            result.put("errors", run.errors.get());
+            result.put("consistent", run.consistent);
+            results.add(result);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("levels", results);
+        Path output = Files.createDirectories(Paths.get("results"))
+                .resolve("shards-" + LocalDateTime.now().format(TIMESTAMP) + ".json");
+        Files.writeString(output, Json.write(report));
+        System.out.println("Results written to " + output);
+        System.exit(allConsistent ? 0 : 1);
+    }
+
+    /**
+     * run
+     * Runs the writer threads against the catalog for the given number of seconds.
+     */
+    private static Run run(ShardedCatalog catalog, int threads, int seconds) throws InterruptedException {
+        Run run = new Run();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> writers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            int writer = i;
+            Thread thread = new Thread(() -> {
+                long n = 0;
+                while (System.nanoTime() < deadline) {
+                    try {
+                        catalog.add("Title " + writer + "-" + n++, "Author " + writer, "Genre");
+                        run.added.incrementAndGet();
+                    } catch (SQLException | RuntimeException e) {
+                        run.errors.incrementAndGet();
+                        run.firstError.compareAndSet(null, e.toString());
+                    }
+                }
+            }, "shard-writer-" + i);
+            writers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : writers) {
+            thread.join();
+        }
+        return run;
+    }
+
+    /**
+     * verify
+     * Checks that the shards hold exactly the expected number of books and that every book is on the shard its ID
+     * routes to, which together mean no write was lost and no ID was handed out twice.
+     */
+    private static boolean verify(ShardedCatalog catalog, List<Path> files, long expected) throws SQLException {
+        long total = catalog.count().stream().mapToLong(Integer::longValue).sum();
+        if (total != expected) {
+            System.out.println("        expected " + expected + " books, found " + total);
+            return false;
+        }
+        for (int i = 0; i < files.size(); i++) {
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + files.get(i));
+                 PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM books WHERE book_id % ? != ?")) {
+                pstmt.setInt(1, files.size());
+                pstmt.setInt(2, i);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next() && rs.getInt(1) != 0) {
+                        System.out.println("        shard " + i + " holds " + rs.getInt(1) + " books of other shards");
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Run
+     * What the writers of one timed run achieved.
+     */
+    private static final class Run {
+        private final AtomicLong added = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+        private boolean consistent;
+    }
+}
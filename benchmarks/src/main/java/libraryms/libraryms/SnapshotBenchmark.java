@@ -0,0 +1,116 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * SnapshotBenchmark.java
+ * This benchmark compares the ways a cold start can fill the catalog with every book. loadFromText parses the
+ * comma separated catalog file with BookLoader, which numbers the books with IDs leased from a scratch database,
+ * loadFromSql reads the books table, and loadFromSnapshot opens a binary CatalogSnapshot of the same table; all three
+ * build the same ColumnarCatalog. openSnapshot times only mapping and
+ * checking the snapshot, which is all a caller pays before it can look books up in place, and export times writing
+ * the snapshot from the database.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SnapshotBenchmark {
+
+    @Param({"10k", "1m"})
+    public String catalog;
+
+    private Path csv;
+    private Path snapshot;
+    private Path exported;
+    private ConnectionPool pool;
+    private Connection conn;
+    private Path idDatabase;
+    private ConnectionPool idPool;
+    private BookIdAllocator ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        csv = CatalogGenerator.csv(catalog);
+        pool = new ConnectionPool("jdbc:sqlite:" + CatalogGenerator.database(catalog), 1, 10_000);
+        conn = pool.borrow();
+        snapshot = Files.createTempFile("catalog-" + catalog + "-", ".snapshot");
+        exported = Files.createTempFile("catalog-" + catalog + "-", ".snapshot");
+        CatalogSnapshot.export(conn, snapshot);
+        idDatabase = Files.createTempFile("snapshot-benchmark-ids", ".db");
+        idPool = new ConnectionPool("jdbc:sqlite:" + idDatabase, 1, 10_000);
+        try (Connection ids = idPool.borrow()) {
+            DatabaseSchema.createTables(ids);
+        }
+        ids = new BookIdAllocator(idPool::borrow);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        conn.close();
+        pool.close();
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(exported);
+        idPool.close();
+        Files.deleteIfExists(idDatabase);
+        Files.deleteIfExists(Path.of(idDatabase + "-wal"));
+        Files.deleteIfExists(Path.of(idDatabase + "-shm"));
+    }
+
+    @Benchmark
+    public ColumnarCatalog loadFromText() {
+        ColumnarCatalog books = new ColumnarCatalog(CatalogGenerator.rows(catalog));
+        BookLoader.loadBooksFromFile(csv.toString(), ids, books);
+        books.trimToSize();
+        return books;
+    }
+
+    @Benchmark
+    public ColumnarCatalog loadFromSql() throws SQLException {
+        ColumnarCatalog books = new ColumnarCatalog(CatalogGenerator.rows(catalog));
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT " + BookPageQuery.COLUMNS + " FROM books")) {
+            BookPageQuery.readBooks(pstmt).forEach(books::addBook);
+        }
+        books.trimToSize();
+        return books;
+    }
+
+    @Benchmark
+    public ColumnarCatalog loadFromSnapshot() throws IOException {
+        return CatalogSnapshot.open(snapshot).toColumnarCatalog();
+    }
+
+    @Benchmark
+    public int openSnapshot() throws IOException {
+        return CatalogSnapshot.open(snapshot).size();
+    }
+
+    @Benchmark
+    public int export() throws IOException, SQLException {
+        return CatalogSnapshot.export(conn, exported);
+    }
+}
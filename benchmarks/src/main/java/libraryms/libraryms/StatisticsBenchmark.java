@@ -0,0 +1,107 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * StatisticsBenchmark.java
+ * This benchmark measures the catalog statistics on a copy of the catalog where every tenth book is on loan. total,
+ * genreCounts and topAuthors read the counters in book_stats the way the dashboard does; groupByGenre counts the
+ * same numbers from the books table with GROUP BY, which is what a report had to do without the counters. The reads
+ * should take the same time on every catalog size, while groupByGenre grows with the catalog.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StatisticsBenchmark {
+    private static final int LIMIT = 50;
+    private static final String LEND_SQL = "UPDATE books SET status = 'checked out', due_date = '2026-01-01'"
+            + " WHERE book_id % 10 = 0";
+    private static final String GROUP_BY_GENRE_SQL = "SELECT IFNULL(genre, ''), COUNT(*),"
+            + " SUM(status IS 'checked out') FROM books GROUP BY IFNULL(genre, '') ORDER BY COUNT(*) DESC LIMIT ?";
+
+    @Param({"10k", "1m"})
+    public String catalog;
+
+    private Path file;
+    private ConnectionPool pool;
+    private Connection conn;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = CatalogGenerator.copyOf(catalog);
+        pool = new ConnectionPool("jdbc:sqlite:" + file, 1, 10_000);
+        conn = pool.borrow();
+        DatabaseSchema.migrate(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(LEND_SQL);
+            stmt.execute("ANALYZE");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        conn.close();
+        pool.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+
+    @Benchmark
+    public CatalogStatistics.Count total() throws SQLException {
+        return CatalogStatistics.total(conn);
+    }
+
+    @Benchmark
+    public List<CatalogStatistics.Count> genreCounts() throws SQLException {
+        return CatalogStatistics.counts(conn, CatalogStatistics.Dimension.GENRE, LIMIT);
+    }
+
+    @Benchmark
+    public List<CatalogStatistics.Count> topAuthors() throws SQLException {
+        return CatalogStatistics.counts(conn, CatalogStatistics.Dimension.AUTHOR, LIMIT);
+    }
+
+    @Benchmark
+    public List<CatalogStatistics.Count> groupByGenre() throws SQLException {
+        List<CatalogStatistics.Count> counts = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(GROUP_BY_GENRE_SQL)) {
+            pstmt.setInt(1, LIMIT);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.add(new CatalogStatistics.Count(rs.getString(1), rs.getLong(2), rs.getLong(3)));
+                }
+            }
+        }
+        return counts;
+    }
+}
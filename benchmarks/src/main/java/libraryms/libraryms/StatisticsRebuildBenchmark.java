@@ -0,0 +1,81 @@
+/**
+ * Paul Felix
+ * CEN-3024 - Software Development
+ * 10/17/2026
+ * StatisticsRebuildBenchmark.java
+ * This benchmark measures how long CatalogStatistics.reconcile takes to rebuild every counter from an empty
+ * book_stats table, with different numbers of scanning threads. Each run is a single shot on a copy of the catalog,
+ * because a rebuild of the ten million row catalog takes seconds. Run it with -p catalog=10m for the largest catalog;
+ * the speedup from more threads is bounded by the number of cores and by how fast the disk serves the pages.
+ */
+
+package libraryms.libraryms;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class StatisticsRebuildBenchmark {
+    @Param({"1m"})
+    public String catalog;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private Path file;
+    private ConnectionPool pool;
+    private Connection conn;
+    private CatalogStatistics statistics;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        file = CatalogGenerator.copyOf(catalog);
+        pool = new ConnectionPool("jdbc:sqlite:" + file, 1, 10_000);
+        conn = pool.borrow();
+        DatabaseSchema.migrate(conn);
+        statistics = new CatalogStatistics("jdbc:sqlite:" + file, threads);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearCounters() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM book_stats");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        conn.close();
+        pool.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+
+    @Benchmark
+    public CatalogStatistics.Reconciliation rebuild() throws SQLException {
+        return statistics.reconcile();
+    }
+}